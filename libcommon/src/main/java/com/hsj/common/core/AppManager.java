@@ -1,28 +1,42 @@
 package com.hsj.common.core;
 
 import android.app.Activity;
+import android.app.Application;
 import android.content.Context;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.os.Build;
-import android.os.Looper;
+import android.os.Bundle;
+import android.os.Process;
 import androidx.annotation.NonNull;
 import androidx.annotation.WorkerThread;
+import com.hsj.common.utils.CompressUtils;
+import com.hsj.common.utils.EncryptUtils;
 import com.hsj.common.utils.FileUtils;
+import com.hsj.common.utils.Logger;
 import com.hsj.common.utils.ThreadManager;
 import com.hsj.common.utils.DateUtils;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.lang.ref.SoftReference;
-import java.text.SimpleDateFormat;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.lang.ref.WeakReference;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Date;
+import java.util.Enumeration;
 import java.util.List;
-import java.util.Locale;
-import java.util.Stack;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @Author:hsj
@@ -50,40 +64,140 @@ public final class AppManager {
 
 //===========================================Activity===============================================
 
+    //////////////////////////////////////////////////////////////
+    // Activity 注册表：
+    //     1、init(Application) 后由 ActivityLifecycleCallbacks 自动登记，不需要在每个Activity里调用
+    //     2、弱引用，WeakHashMap 按对象身份查找(Activity未重写equals)，增删 O(1)
+    //     3、双向链表保存顺序，onResume 时移到顶部
+    //     4、顶部Activity保存在 volatile 字段，getTopActivity 不加锁
+    //     5、可按类、任务栈查询，任意线程调用
+    //////////////////////////////////////////////////////////////
+
+    /**
+     * 链表节点，弱引用Activity
+     */
+    private static final class ActivityNode extends WeakReference<Activity> {
+        final Class<?> clazz;
+        final int taskId;
+        ActivityNode prev;
+        ActivityNode next;
+
+        ActivityNode(Activity activity) {
+            super(activity);
+            this.clazz = activity.getClass();
+            this.taskId = activity.getTaskId();
+        }
+    }
+
+    /**
+     * 保护 activityNodes 和链表
+     */
+    private final Object activityLock = new Object();
+
+    /**
+     * Activity -> 节点
+     */
+    private final Map<Activity, ActivityNode> activityNodes = new WeakHashMap<>();
+
+    /**
+     * 链表头(最早)、尾(顶部)
+     */
+    private ActivityNode head;
+    private ActivityNode tail;
+
+    /**
+     * 顶部节点，无锁读取
+     */
+    private volatile ActivityNode top;
+
+    private boolean callbacksRegistered;
+
+    private final Application.ActivityLifecycleCallbacks lifecycleCallbacks = new Application.ActivityLifecycleCallbacks() {
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+            addActivity(activity);
+        }
+
+        @Override
+        public void onActivityStarted(Activity activity) {
+        }
+
+        @Override
+        public void onActivityResumed(Activity activity) {
+            moveToTop(activity);
+        }
+
+        @Override
+        public void onActivityPaused(Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(Activity activity) {
+            removeActivity(activity);
+        }
+    };
+
     /**
-     * Stack 是先入后出/ 后入先出的集合，
+     * 注册生命周期回调，在Application.onCreate中调用
+     *
+     * @param application
      */
-    private Stack<SoftReference<Activity>> activityStack = new Stack<>();
+    public void init(@NonNull Application application) {
+        synchronized (activityLock) {
+            if (callbacksRegistered) return;
+            callbacksRegistered = true;
+        }
+        application.registerActivityLifecycleCallbacks(lifecycleCallbacks);
+    }
 
     /**
-     * 给Activity在onCreate用的
+     * 登记Activity(已 init 时自动调用)
      *
      * @param activity
      */
     public void addActivity(@NonNull Activity activity) {
-        activityStack.add(new SoftReference<>(activity));
+        synchronized (activityLock) {
+            if (activityNodes.containsKey(activity)) return;
+            ActivityNode node = new ActivityNode(activity);
+            activityNodes.put(activity, node);
+            link(node);
+        }
     }
 
     /**
-     * 给MyApp用来获取最顶端的Activity用的
+     * 获取最顶端的Activity，不加锁
      *
      * @return
      */
     public Activity getTopActivity() {
-        return activityStack.isEmpty() ? null : activityStack.peek().get();
+        ActivityNode node = top;
+        Activity activity = node == null ? null : node.get();
+        if (activity != null || node == null) return activity;
+        //顶部已被回收，清理后重新读取
+        synchronized (activityLock) {
+            purge();
+            node = top;
+        }
+        return node == null ? null : node.get();
     }
 
     /**
-     * 给Activity在onDestroy用的
+     * 移除Activity登记(已 init 时自动调用)
      *
      * @param activity
      */
     public void removeActivity(@NonNull Activity activity) {
-        for (int i = activityStack.size() - 1; i >= 0; i--) {
-            if (activityStack.get(i).get() == activity) {
-                activityStack.remove(i);
-                return;
-            }
+        synchronized (activityLock) {
+            ActivityNode node = activityNodes.remove(activity);
+            if (node != null) unlink(node);
         }
     }
 
@@ -93,13 +207,21 @@ public final class AppManager {
      * @param obj
      */
     public void removeActivity(Object obj) {
-        if (obj == null) return;
+        if (!(obj instanceof Activity)) return;
         Activity activity = (Activity) obj;
-        for (int i = activityStack.size() - 1; i >= 0; i--) {
-            if (activity == activityStack.get(i).get()) {
-                activityStack.remove(i);
-                activity.finish();
-            }
+        removeActivity(activity);
+        activity.finish();
+    }
+
+    /**
+     * 关闭指定类的所有Activity
+     *
+     * @param clazz
+     */
+    public void finishActivity(@NonNull Class<? extends Activity> clazz) {
+        for (Activity activity : getActivities(clazz)) {
+            removeActivity(activity);
+            activity.finish();
         }
     }
 
@@ -107,136 +229,593 @@ public final class AppManager {
      * 清空所有Activity，应用推出
      */
     public void removeAll() {
-        for (int i = activityStack.size() - 1; i >= 0; i--) {
-            activityStack.get(i).get().finish();
-            activityStack.remove(i);
+        List<Activity> activities = getActivities();
+        synchronized (activityLock) {
+            activityNodes.clear();
+            head = tail = top = null;
+        }
+        for (Activity activity : activities) {
+            activity.finish();
+        }
+    }
+
+    /**
+     * @return 所有Activity，顶部在前
+     */
+    @NonNull
+    public List<Activity> getActivities() {
+        return queryActivities(null, -1);
+    }
+
+    /**
+     * @param clazz 类
+     * @return 指定类的Activity，顶部在前
+     */
+    @NonNull
+    public List<Activity> getActivities(@NonNull Class<? extends Activity> clazz) {
+        return queryActivities(clazz, -1);
+    }
+
+    /**
+     * @param clazz 类
+     * @return 指定类最顶部的Activity，没有返回null
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Activity> T getActivity(@NonNull Class<T> clazz) {
+        synchronized (activityLock) {
+            for (ActivityNode node = tail; node != null; node = node.prev) {
+                Activity activity = node.get();
+                if (activity != null && node.clazz == clazz) return (T) activity;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param taskId 任务栈id
+     * @return 该任务栈中的Activity，顶部在前
+     */
+    @NonNull
+    public List<Activity> getActivitiesInTask(int taskId) {
+        return queryActivities(null, taskId);
+    }
+
+    /**
+     * @return 存活的Activity数量
+     */
+    public int getActivityCount() {
+        synchronized (activityLock) {
+            purge();
+            return activityNodes.size();
+        }
+    }
+
+    private List<Activity> queryActivities(Class<?> clazz, int taskId) {
+        List<Activity> result = new ArrayList<>();
+        synchronized (activityLock) {
+            for (ActivityNode node = tail; node != null; node = node.prev) {
+                if (clazz != null && node.clazz != clazz) continue;
+                if (taskId != -1 && node.taskId != taskId) continue;
+                Activity activity = node.get();
+                if (activity != null) result.add(activity);
+            }
+        }
+        return result;
+    }
+
+    private void moveToTop(Activity activity) {
+        synchronized (activityLock) {
+            ActivityNode node = activityNodes.get(activity);
+            if (node == null) {
+                node = new ActivityNode(activity);
+                activityNodes.put(activity, node);
+            } else if (node == tail) {
+                return;
+            } else {
+                unlink(node);
+            }
+            link(node);
+        }
+    }
+
+    /**
+     * 加到链表尾(顶部)，持有 activityLock
+     */
+    private void link(ActivityNode node) {
+        node.prev = tail;
+        node.next = null;
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+        }
+        tail = node;
+        top = node;
+    }
+
+    /**
+     * 从链表移除，持有 activityLock
+     */
+    private void unlink(ActivityNode node) {
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.prev = node.next = null;
+        top = tail;
+    }
+
+    /**
+     * 移除已被回收的节点，持有 activityLock
+     */
+    private void purge() {
+        ActivityNode node = head;
+        while (node != null) {
+            ActivityNode next = node.next;
+            if (node.get() == null) unlink(node);
+            node = next;
         }
     }
 
 //=========================================Log======================================================
 
+    //////////////////////////////////////////////////////////////
+    // 崩溃日志：
+    //     1、崩溃时只把最小报告(时间、线程、版本、异常和堆栈)写入预分配缓冲并落盘，
+    //        不格式化、不查询包信息，然后交给之前的默认处理器(系统据此结束进程)
+    //        initLog 在调用线程只安装处理器，目录和版本信息在IO线程准备；准备完成前崩溃时就地准备
+    //     2、下次启动在IO线程补充设备信息，按堆栈指纹(异常类型+方法，不含行号和消息)去重、累计次数
+    //     3、setCrashUploader 后把全部报告gzip打包成一个文件上传，成功后删除
+    //
+    // 目录：log/crash/pending 待处理，log/crash/reports 按指纹聚合
+    //////////////////////////////////////////////////////////////
+
+    /**
+     * 崩溃报告上传
+     */
+    public interface CrashUploader {
+
+        /**
+         * @param bundle gzip压缩的全部报告
+         * @return 是否上传成功，成功后删除已上传的报告
+         */
+        @WorkerThread
+        boolean upload(@NonNull File bundle);
+    }
+
+    private static final int CRASH_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_CAUSE_DEPTH = 8;
+    private static final int MAX_CRASH_REPORTS = 50;
+    private static final String CRASH_DIR = "crash";
+    private static final String PENDING_DIR = "pending";
+    private static final String REPORT_DIR = "reports";
+    private static final String CRASH_SUFFIX = ".crash";
+    private static final String REPORT_SUFFIX = ".log";
+    private static final String KEY_TIME = "time=";
+    private static final String KEY_EXCEPTION = "exception=";
+    private static final String KEY_CAUSE = "Caused by: ";
+    private static final String KEY_FRAME = "\tat ";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * 保护报告目录的处理、打包
+     */
+    private final Object crashLock = new Object();
+
+    /**
+     * 崩溃处理中，防止处理器自身异常时重入
+     */
+    private final AtomicBoolean crashing = new AtomicBoolean();
+
+    private volatile CrashUploader crashUploader;
+    private Thread.UncaughtExceptionHandler previousHandler;
+    private volatile CrashBuffer crashBuffer;
+    private volatile Context crashContext;
+    private volatile File pendingDir;
+
     /**
-     * 初始化日志模块
+     * 初始化日志模块：立即安装崩溃处理器(不做IO)，在IO线程准备目录、版本信息并处理上次的崩溃报告
      *
      * @param context
      */
     public void initLog(Context context) {
         if (context == null) return;
-        ThreadManager.executeOnPool(() -> {
-            //设置异常日志捕捉
-            Thread.setDefaultUncaughtExceptionHandler((thread, e) ->
-                    new Thread(() -> logInfo(context, e)).start());
-            //检查之前存储的日志
-            checkLog(context);
+        final Context app = context.getApplicationContext() == null ? context : context.getApplicationContext();
+        synchronized (crashLock) {
+            if (crashBuffer != null) return;
+            crashContext = app;
+            crashBuffer = new CrashBuffer(CRASH_BUFFER_SIZE);
+            //设置异常日志捕捉，保留之前的处理器
+            previousHandler = Thread.getDefaultUncaughtExceptionHandler();
+            Thread.setDefaultUncaughtExceptionHandler(this::onUncaughtException);
+        }
+        ThreadManager.executeOnIoPool(() -> {
+            crashBuffer.setHeader(buildVersionInfo(app));
+            pendingDir = preparePendingDir(app);
+            processCrashReports(app);
+            checkLog(app);
         });
     }
 
     /**
-     * 检测日志文件
+     * 创建 pending 目录
+     *
+     * @return 目录，创建失败返回null
+     */
+    private File preparePendingDir(@NonNull Context context) {
+        File crashDir = getCrashDir(context);
+        if (crashDir == null) return null;
+        File pending = new File(crashDir, PENDING_DIR);
+        return pending.isDirectory() || pending.mkdirs() ? pending : null;
+    }
+
+    /**
+     * 设置上传器，下次处理报告(initLog)时打包上传
+     *
+     * @param uploader null取消
+     */
+    public void setCrashUploader(CrashUploader uploader) {
+        this.crashUploader = uploader;
+    }
+
+    /**
+     * 未捕获异常：同步写最小报告，然后交给之前的处理器
+     */
+    private void onUncaughtException(Thread thread, Throwable e) {
+        if (crashing.compareAndSet(false, true)) {
+            try {
+                writeCrash(thread, e);
+            } catch (Throwable ignore) {
+                //崩溃处理中不能再抛出
+            } finally {
+                //之前的处理器可能不结束进程(如只记录后继续运行)，之后的崩溃仍要记录
+                crashing.set(false);
+            }
+        }
+        Thread.UncaughtExceptionHandler previous = previousHandler;
+        if (previous != null) {
+            previous.uncaughtException(thread, e);
+        } else {
+            e.printStackTrace();
+            Process.killProcess(Process.myPid());
+            System.exit(10);
+        }
+    }
+
+    /**
+     * 写最小报告到 pending 目录
+     */
+    private void writeCrash(Thread thread, Throwable e) throws IOException {
+        final CrashBuffer buffer = crashBuffer;
+        //IO线程尚未准备完成(启动即崩溃)时就地准备
+        if (!buffer.hasHeader()) buffer.setHeader(buildVersionInfo(crashContext));
+        File dir = pendingDir;
+        if (dir == null) dir = pendingDir = preparePendingDir(crashContext);
+        if (dir == null) return;
+        final long now = System.currentTimeMillis();
+        buffer.reset();
+        buffer.append(KEY_TIME).append(now).append('\n');
+        buffer.append("thread=").append(thread.getName()).append('\n');
+        buffer.appendHeader();
+        Throwable t = e;
+        for (int depth = 0; t != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            buffer.append(depth == 0 ? KEY_EXCEPTION : KEY_CAUSE).append(t.getClass().getName());
+            String message = t.getMessage();
+            if (message != null) buffer.append(": ").append(message);
+            buffer.append('\n');
+            for (StackTraceElement frame : t.getStackTrace()) {
+                buffer.append(KEY_FRAME).append(frame.getClassName()).append('.').append(frame.getMethodName());
+                if (frame.isNativeMethod()) {
+                    buffer.append("(Native Method)");
+                } else if (frame.getFileName() == null) {
+                    buffer.append("(Unknown Source)");
+                } else {
+                    buffer.append('(').append(frame.getFileName());
+                    if (frame.getLineNumber() >= 0) buffer.append(':').append(frame.getLineNumber());
+                    buffer.append(')');
+                }
+                buffer.append('\n');
+            }
+            Throwable cause = t.getCause();
+            t = cause == t ? null : cause;
+        }
+        buffer.writeTo(new File(dir, now + "_" + thread.getId() + CRASH_SUFFIX));
+    }
+
+    /**
+     * 处理上次的崩溃报告：补充设备信息、按指纹合并、限制数量、上传
      *
      * @param context
      */
     @WorkerThread
-    private void checkLog(@NonNull Context context) {
-        File dir = getLogDir(context);
-        if (dir == null) return;
-        File[] dirs = dir.listFiles();
-        //超过三个日期的目录,保留最大的三个日期，删除其他
-        if (dirs == null || dirs.length <= LOG_DIR_SIZE) return;
-        List<Long> logDirTime = new ArrayList<>(dirs.length);
-        for (File f : dirs) {
-            logDirTime.add(DateUtils.getTimeStamp(TIME_FORMAT, f.getName()));
+    private void processCrashReports(@NonNull Context context) {
+        CrashUploader uploader;
+        synchronized (crashLock) {
+            File crashDir = getCrashDir(context);
+            if (crashDir == null) return;
+            File reportDir = new File(crashDir, REPORT_DIR);
+            if (!reportDir.isDirectory() && !reportDir.mkdirs()) return;
+            File[] pending = new File(crashDir, PENDING_DIR).listFiles();
+            if (pending != null) {
+                Arrays.sort(pending);
+                for (File file : pending) {
+                    byte[] data = FileUtils.readFile(file);
+                    if (data != null && data.length > 0) mergeReport(context, reportDir, new String(data, UTF_8));
+                    if (!file.delete()) Logger.w("AppManager", "File delete failed -> " + file);
+                }
+            }
+            trimReports(reportDir);
+            uploader = crashUploader;
         }
-        Collections.sort(logDirTime);
-        logDirTime.subList(0, LOG_DIR_SIZE - 1);
-        for (File f : dirs) {
-            long dirTime = DateUtils.getTimeStamp(TIME_FORMAT, f.getName());
-            if (logDirTime.contains(dirTime)) {
-                FileUtils.delete(f);
+        if (uploader != null) uploadCrashReports(context, uploader);
+    }
+
+    /**
+     * 合并到同指纹的报告：首次出现时补充设备信息，之后只更新次数和时间
+     */
+    private void mergeReport(Context context, File reportDir, String raw) {
+        final String fingerprint = fingerprint(raw);
+        final long time = parseTime(raw);
+        final File report = new File(reportDir, fingerprint + REPORT_SUFFIX);
+        long count = 0;
+        long first = time;
+        long last = time;
+        String body = null;
+        byte[] old = report.exists() ? FileUtils.readFile(report) : null;
+        if (old != null) {
+            String text = new String(old, UTF_8);
+            int end = text.indexOf('\n');
+            if (end > 0) {
+                for (String field : text.substring(0, end).split(" ")) {
+                    if (field.startsWith("count=")) count = parseLong(field.substring(6), 0);
+                    if (field.startsWith("first=")) first = Math.min(first, parseLong(field.substring(6), first));
+                    if (field.startsWith("last=")) last = Math.max(last, parseLong(field.substring(5), last));
+                }
+                body = text.substring(end + 1);
+            }
+        }
+        if (body == null) {
+            count = 0;
+            body = buildDeviceInfo(context) + raw;
+        }
+        StringBuilder builder = new StringBuilder(body.length() + 96);
+        builder.append("count=").append(count + 1)
+                .append(" first=").append(first)
+                .append(" last=").append(last)
+                .append(" fingerprint=").append(fingerprint)
+                .append('\n').append(body);
+        FileUtils.saveFile(report, builder.toString().getBytes(UTF_8));
+    }
+
+    /**
+     * 堆栈指纹：各层异常类型和方法(不含消息、行号)的MD5
+     */
+    private static String fingerprint(String raw) {
+        StringBuilder key = new StringBuilder(raw.length() / 2);
+        for (String line : raw.split("\n")) {
+            if (line.startsWith(KEY_FRAME)) {
+                int paren = line.indexOf('(');
+                key.append(line, KEY_FRAME.length(), paren < 0 ? line.length() : paren).append('\n');
+            } else if (line.startsWith(KEY_EXCEPTION) || line.startsWith(KEY_CAUSE)) {
+                int start = line.startsWith(KEY_EXCEPTION) ? KEY_EXCEPTION.length() : KEY_CAUSE.length();
+                int colon = line.indexOf(':', start);
+                key.append(line, start, colon < 0 ? line.length() : colon).append('\n');
             }
         }
+        return EncryptUtils.encryptMD5ToString(key.toString());
+    }
+
+    private static long parseTime(String raw) {
+        if (!raw.startsWith(KEY_TIME)) return System.currentTimeMillis();
+        int end = raw.indexOf('\n');
+        return parseLong(raw.substring(KEY_TIME.length(), end < 0 ? raw.length() : end), System.currentTimeMillis());
+    }
+
+    private static long parseLong(String text, long defaultValue) {
+        try {
+            return Long.parseLong(text.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 超过 MAX_CRASH_REPORTS 时删除最久未出现的报告
+     */
+    private static void trimReports(File reportDir) {
+        File[] reports = reportDir.listFiles();
+        if (reports == null || reports.length <= MAX_CRASH_REPORTS) return;
+        final long[] modified = new long[reports.length];
+        Integer[] order = new Integer[reports.length];
+        for (int i = 0; i < reports.length; i++) {
+            modified[i] = reports[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(modified[b], modified[a]));
+        for (int i = MAX_CRASH_REPORTS; i < order.length; i++) {
+            File report = reports[order[i]];
+            if (!report.delete()) Logger.w("AppManager", "File delete failed -> " + report);
+        }
     }
 
     /**
-     * 错误日志信息
+     * 把全部报告打包成一个gzip文件
      *
      * @param context
-     * @param e
+     * @return 打包文件(crash目录下)，没有报告返回null
      */
     @WorkerThread
-    private void logInfo(@NonNull Context context, @NonNull Throwable e) {
-        //打印日志
-        e.printStackTrace();
+    public File packCrashReports(@NonNull Context context) {
+        synchronized (crashLock) {
+            return packCrashReports(context, null);
+        }
+    }
+
+    private File packCrashReports(Context context, List<File> packed) {
+        File crashDir = getCrashDir(context);
+        if (crashDir == null) return null;
+        File[] reports = new File(crashDir, REPORT_DIR).listFiles();
+        if (reports == null || reports.length == 0) return null;
+        File bundle = new File(crashDir, "crash_" + System.currentTimeMillis() + ".gz");
+        //逐个报告流式压缩，不在内存中拼接
+        InputStream in = new SequenceInputStream(new ReportStreams(reports, packed));
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(bundle);
+            CompressUtils.gzip(in, out, CompressUtils.DEFAULT_LEVEL);
+            out.close();
+            out = null;
+            return bundle;
+        } catch (IOException e) {
+            e.printStackTrace();
+            close(out);
+            if (packed != null) packed.clear();
+            if (bundle.exists() && !bundle.delete()) Logger.w("AppManager", "File delete failed -> " + bundle);
+            return null;
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * 打包时依次打开的输入：每个报告前加一行标题，报告在读到时才打开
+     */
+    private static final class ReportStreams implements Enumeration<InputStream> {
+        private final File[] reports;
+        private final List<File> packed;
+        private int index;
+        private boolean title = true;
+
+        ReportStreams(File[] reports, List<File> packed) {
+            this.reports = reports;
+            this.packed = packed;
+        }
+
+        @Override
+        public boolean hasMoreElements() {
+            return index < reports.length;
+        }
+
+        @Override
+        public InputStream nextElement() {
+            if (index >= reports.length) throw new NoSuchElementException();
+            final File report = reports[index];
+            if (title) {
+                title = false;
+                return new ByteArrayInputStream(("=====" + report.getName() + "=====\n").getBytes(UTF_8));
+            }
+            title = true;
+            index++;
+            try {
+                InputStream in = new FileInputStream(report);
+                if (packed != null) packed.add(report);
+                return in;
+            } catch (FileNotFoundException e) {
+                Logger.w("AppManager", "File read failed -> " + report);
+                return new ByteArrayInputStream(new byte[0]);
+            }
+        }
+    }
 
-        //保存日志
-        saveLog(context, e);
+    private static void close(Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 
-        //崩溃提示
-        Looper.prepare();
-        showCrashDialog();
-        Looper.loop();
+    /**
+     * 打包上传，成功后删除已打包的报告；打包文件总是删除
+     */
+    @WorkerThread
+    private void uploadCrashReports(Context context, CrashUploader uploader) {
+        List<File> packed = new ArrayList<>();
+        File bundle;
+        synchronized (crashLock) {
+            bundle = packCrashReports(context, packed);
+        }
+        if (bundle == null) return;
+        boolean uploaded = uploader.upload(bundle);
+        synchronized (crashLock) {
+            if (uploaded) {
+                for (File report : packed) {
+                    if (!report.delete()) Logger.w("AppManager", "File delete failed -> " + report);
+                }
+            }
+            if (!bundle.delete()) Logger.w("AppManager", "File delete failed -> " + bundle);
+        }
     }
 
     /**
-     * 保存错误日志
+     * 检测旧版本按日期保存的日志目录，保留最新的 LOG_DIR_SIZE 个
      *
      * @param context
-     * @param ex
-     * @return
      */
-    private void saveLog(Context context, Throwable ex) {
+    @WorkerThread
+    private void checkLog(@NonNull Context context) {
         File dir = getLogDir(context);
         if (dir == null) return;
-        SimpleDateFormat sdf = new SimpleDateFormat(TIME_FORMAT, Locale.CHINA);
-        String day = sdf.format(new Date());
-        dir = new File(dir, day);
-        if (!dir.exists()) {
-            if (!dir.mkdir()) {
-                return;
-            }
+        File[] dirs = dir.listFiles();
+        if (dirs == null) return;
+        List<File> dateDirs = new ArrayList<>(dirs.length);
+        for (File f : dirs) {
+            if (f.isDirectory() && DateUtils.getTimeStamp(TIME_FORMAT, f.getName()) > 0) dateDirs.add(f);
         }
-        File file = new File(dir, System.currentTimeMillis() + ".log");
-        FileWriter fileWriter = null;
-        PrintWriter printWriter = null;
+        if (dateDirs.size() <= LOG_DIR_SIZE) return;
+        //yyyy-MM-dd 按名称排序即按日期排序
+        Collections.sort(dateDirs);
+        for (File f : dateDirs.subList(0, dateDirs.size() - LOG_DIR_SIZE)) {
+            FileUtils.delete(f);
+        }
+    }
+
+    /**
+     * 版本信息，初始化时生成，崩溃时直接写入
+     */
+    private static String buildVersionInfo(Context context) {
+        StringBuilder builder = new StringBuilder(64);
         try {
-            fileWriter = new FileWriter(file);
-            printWriter = new PrintWriter(fileWriter);
-
-            printWriter.append("========Device Information==========\n");
-            printWriter.append(String.format("DEVICE_ID         %s\n", AppConstants.deviceId));
-            printWriter.append(String.format("BRAND             %s\n", Build.BRAND));
-            printWriter.append(String.format("MODEL             %s\n", Build.MODEL));
-            printWriter.append(String.format("CPU_ABI           %s\n", Build.CPU_ABI));
-            printWriter.append(String.format("CPU_ABI2          %s\n", Build.CPU_ABI2));
-            printWriter.append(String.format("MANUFACTURER      %s\n", Build.MANUFACTURER));
-            printWriter.append(String.format("SYSTEM_VERSION    %s\n\n", Build.VERSION.SDK_INT));
-
-            printWriter.append("========APP Information=============\n");
             PackageInfo packageInfo = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
-            printWriter.append(String.format("Account           %s\n", AppConstants.account));
-            printWriter.append(String.format("VersionCode       %s\n", packageInfo.versionCode));
-            printWriter.append(String.format("VersionName       %s\n\n", packageInfo.versionName));
-
-            printWriter.append("==========Exception================\n");
-            ex.printStackTrace(printWriter);
-
-            fileWriter.flush();
-            printWriter.flush();
-        } catch (IOException | PackageManager.NameNotFoundException e) {
+            builder.append("versionCode=").append(packageInfo.versionCode).append('\n');
+            builder.append("versionName=").append(packageInfo.versionName).append('\n');
+        } catch (PackageManager.NameNotFoundException | RuntimeException e) {
             e.printStackTrace();
-        } finally {
-            try {
-                if (fileWriter != null) {
-                    fileWriter.close();
-                }
-                if (printWriter != null) {
-                    printWriter.close();
-                }
-            } catch (IOException e) {
-                ex.printStackTrace();
-            }
         }
-        //upload log file
+        return builder.toString();
+    }
+
+    /**
+     * 设备信息，处理报告时补充
+     */
+    private static String buildDeviceInfo(Context context) {
+        StringBuilder builder = new StringBuilder(256);
+        builder.append("========Device Information==========\n");
+        builder.append("DEVICE_ID         ").append(AppConstants.deviceId).append('\n');
+        builder.append("BRAND             ").append(Build.BRAND).append('\n');
+        builder.append("MODEL             ").append(Build.MODEL).append('\n');
+        builder.append("CPU_ABI           ").append(Build.CPU_ABI).append('\n');
+        builder.append("CPU_ABI2          ").append(Build.CPU_ABI2).append('\n');
+        builder.append("MANUFACTURER      ").append(Build.MANUFACTURER).append('\n');
+        builder.append("SYSTEM_VERSION    ").append(Build.VERSION.SDK_INT).append('\n');
+        builder.append("Account           ").append(AppConstants.account).append("\n\n");
+        builder.append("==========Exception================\n");
+        return builder.toString();
+    }
+
+    /**
+     * 获取崩溃日志目录
+     */
+    private File getCrashDir(@NonNull Context context) {
+        File dir = getLogDir(context);
+        return dir == null ? null : new File(dir, CRASH_DIR);
     }
 
     /**
@@ -260,10 +839,93 @@ public final class AppManager {
     }
 
     /**
-     * 显示崩溃提示
+     * 预分配的崩溃报告缓冲：字符直接编码为UTF-8写入，写满后截断
      */
-    private void showCrashDialog() {
+    private static final class CrashBuffer {
+        private final byte[] data;
+        private volatile byte[] header;
+        private int length;
+
+        CrashBuffer(int capacity) {
+            this.data = new byte[capacity];
+        }
+
+        boolean hasHeader() {
+            return header != null;
+        }
+
+        /**
+         * 设置版本信息(IO线程生成，或崩溃时就地生成)
+         */
+        void setHeader(String header) {
+            this.header = header.getBytes(UTF_8);
+        }
+
+        void reset() {
+            length = 0;
+        }
+
+        CrashBuffer appendHeader() {
+            final byte[] header = this.header;
+            if (header == null) return this;
+            int count = Math.min(header.length, data.length - length);
+            System.arraycopy(header, 0, data, length, count);
+            length += count;
+            return this;
+        }
+
+        CrashBuffer append(CharSequence text) {
+            if (text == null) text = "null";
+            for (int i = 0; i < text.length(); i++) {
+                append(text.charAt(i));
+            }
+            return this;
+        }
+
+        CrashBuffer append(long value) {
+            if (value < 0) {
+                append('-');
+                if (value == Long.MIN_VALUE) return append("9223372036854775808");
+                value = -value;
+            }
+            long divisor = 1;
+            while (value / divisor >= 10) divisor *= 10;
+            for (; divisor > 0; divisor /= 10) {
+                append((char) ('0' + value / divisor % 10));
+            }
+            return this;
+        }
 
+        CrashBuffer append(char c) {
+            if (c < 0x80) {
+                put(c);
+            } else if (c < 0x800) {
+                if (data.length - length < 2) return this;
+                put(0xC0 | c >> 6);
+                put(0x80 | c & 0x3F);
+            } else {
+                //代理对按单个字符编码，崩溃报告只需可读
+                if (data.length - length < 3) return this;
+                put(0xE0 | c >> 12);
+                put(0x80 | c >> 6 & 0x3F);
+                put(0x80 | c & 0x3F);
+            }
+            return this;
+        }
+
+        private void put(int b) {
+            if (length < data.length) data[length++] = (byte) b;
+        }
+
+        void writeTo(File file) throws IOException {
+            FileOutputStream out = new FileOutputStream(file);
+            try {
+                out.write(data, 0, length);
+                out.getFD().sync();
+            } finally {
+                out.close();
+            }
+        }
     }
 
-}
\ No newline at end of file
+}
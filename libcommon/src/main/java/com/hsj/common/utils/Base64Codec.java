@@ -0,0 +1,125 @@
+package com.hsj.common.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:Base64Codec
+ * @Desc:标准 Base64(RFC 4648，带填充、不换行)
+ */
+final class Base64Codec {
+
+    //////////////////////////////////////////////////////////////
+    // Base64Codec 功能如下：
+    //     1、与 android.util.Base64 的 NO_WRAP 输出一致，已有数据可以直接读取
+    //     2、不依赖 android.util.Base64(本地单元测试只返回默认值)和 java.util.Base64(API 26)
+    //     3、解码接受省略的填充，遇到非法字符返回null
+    //////////////////////////////////////////////////////////////
+
+    private static final char[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+    /**
+     * 字符 -> 6位值，-1 表示非法字符
+     */
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    private Base64Codec() {
+        throw new IllegalAccessError("Base64Codec can't be instance");
+    }
+
+    /**
+     * 编码
+     *
+     * @param data 数据
+     * @return Base64
+     */
+    @NonNull
+    static String encode(@NonNull byte[] data) {
+        return encode(data, 0, data.length);
+    }
+
+    /**
+     * 编码
+     *
+     * @param data   数据
+     * @param offset 起始位置
+     * @param length 长度
+     * @return Base64
+     */
+    @NonNull
+    static String encode(@NonNull byte[] data, int offset, int length) {
+        char[] out = new char[(length + 2) / 3 * 4];
+        int end = offset + length;
+        int position = 0;
+        int i = offset;
+        for (; i + 3 <= end; i += 3) {
+            int bits = (data[i] & 0xFF) << 16 | (data[i + 1] & 0xFF) << 8 | (data[i + 2] & 0xFF);
+            out[position++] = ALPHABET[bits >>> 18];
+            out[position++] = ALPHABET[(bits >>> 12) & 0x3F];
+            out[position++] = ALPHABET[(bits >>> 6) & 0x3F];
+            out[position++] = ALPHABET[bits & 0x3F];
+        }
+        int remain = end - i;
+        if (remain > 0) {
+            int bits = (data[i] & 0xFF) << 16 | (remain == 2 ? (data[i + 1] & 0xFF) << 8 : 0);
+            out[position++] = ALPHABET[bits >>> 18];
+            out[position++] = ALPHABET[(bits >>> 12) & 0x3F];
+            out[position++] = remain == 2 ? ALPHABET[(bits >>> 6) & 0x3F] : '=';
+            out[position] = '=';
+        }
+        return new String(out);
+    }
+
+    /**
+     * 解码
+     *
+     * @param text Base64，填充可省略
+     * @return 数据，格式错误返回null
+     */
+    @Nullable
+    static byte[] decode(@NonNull String text) {
+        int length = text.length();
+        //去掉末尾最多两个填充
+        if (length % 4 == 0) {
+            if (length > 0 && text.charAt(length - 1) == '=') length--;
+            if (length > 0 && text.charAt(length - 1) == '=') length--;
+        }
+        if (length % 4 == 1) return null;
+        byte[] out = new byte[length / 4 * 3 + Math.max(0, length % 4 - 1)];
+        int position = 0;
+        int bits = 0;
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            int value = c < 128 ? DECODE[c] : -1;
+            if (value < 0) return null;
+            bits = bits << 6 | value;
+            if (++count == 4) {
+                out[position++] = (byte) (bits >> 16);
+                out[position++] = (byte) (bits >> 8);
+                out[position++] = (byte) bits;
+                bits = 0;
+                count = 0;
+            }
+        }
+        if (count == 3) {
+            out[position++] = (byte) (bits >> 10);
+            out[position] = (byte) (bits >> 2);
+        } else if (count == 2) {
+            out[position] = (byte) (bits >> 4);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,179 @@
+package com.hsj.common.utils;
+
+import androidx.annotation.NonNull;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:BufferPool
+ * @Desc:直接内存ByteBuffer复用池
+ */
+public final class BufferPool {
+
+    //////////////////////////////////////////////////////////////
+    // BufferPool 功能如下：
+    //     1、按2的幂分级(4KB~1MB)复用DirectByteBuffer，避免反复分配堆外内存
+    //     2、每级最多缓存 MAX_PER_CLASS 个，超出直接丢弃交给GC
+    //     3、超过最大级别的申请直接分配，release时不缓存
+    //     4、acquire/release无锁，可在任意线程调用
+    //     5、按对象记录池分配的缓冲(弱引用)，拒绝归还外部缓冲和重复归还
+    //////////////////////////////////////////////////////////////
+
+    private static final int MIN_SHIFT = 12;
+    private static final int MAX_SHIFT = 20;
+    private static final int MAX_PER_CLASS = 8;
+
+    /**
+     * 文件IO默认使用的缓冲大小
+     */
+    public static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    @SuppressWarnings("unchecked")
+    private static final ConcurrentLinkedQueue<ByteBuffer>[] POOLS = new ConcurrentLinkedQueue[MAX_SHIFT - MIN_SHIFT + 1];
+    private static final AtomicInteger[] SIZES = new AtomicInteger[MAX_SHIFT - MIN_SHIFT + 1];
+
+    /**
+     * 池分配的缓冲 -> 是否在池中，按对象区分(ByteBuffer.equals比较内容)；
+     * 弱引用，调用方未归还的缓冲仍可被GC回收
+     */
+    private static final ConcurrentHashMap<Owned, AtomicBoolean> OWNED = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<ByteBuffer> COLLECTED = new ReferenceQueue<>();
+
+    static {
+        for (int i = 0; i < POOLS.length; i++) {
+            POOLS[i] = new ConcurrentLinkedQueue<>();
+            SIZES[i] = new AtomicInteger();
+        }
+    }
+
+    private BufferPool() {
+        throw new IllegalAccessError("BufferPool can't be instance");
+    }
+
+    /**
+     * 获取直接内存缓冲，position=0，limit=size
+     *
+     * @param size 需要的大小
+     * @return 缓冲(capacity可能大于size)，用完后调用 {@link #release(ByteBuffer)}
+     */
+    @NonNull
+    public static ByteBuffer acquire(int size) {
+        if (size < 0) throw new IllegalArgumentException("size < 0: " + size);
+        int index = indexOf(size);
+        if (index < 0) return ByteBuffer.allocateDirect(size);
+        ByteBuffer buffer = POOLS[index].poll();
+        if (buffer == null) {
+            expunge();
+            buffer = ByteBuffer.allocateDirect(1 << (index + MIN_SHIFT));
+            OWNED.put(new Owned(buffer, COLLECTED), new AtomicBoolean());
+        } else {
+            SIZES[index].decrementAndGet();
+            AtomicBoolean pooled = OWNED.get(new Owned(buffer, null));
+            if (pooled != null) pooled.set(false);
+        }
+        buffer.clear();
+        buffer.limit(size);
+        return buffer;
+    }
+
+    /**
+     * 归还缓冲，归还后调用方不可再使用
+     *
+     * @param buffer acquire返回的缓冲，null忽略
+     * @return 是否放回池中；不是池分配的缓冲、重复归还时返回false并输出警告
+     */
+    public static boolean release(ByteBuffer buffer) {
+        if (buffer == null) return false;
+        int capacity = buffer.capacity();
+        int index = Integer.numberOfTrailingZeros(capacity) - MIN_SHIFT;
+        boolean pooledSize = buffer.isDirect() && Integer.bitCount(capacity) == 1 && index >= 0 && index < POOLS.length;
+        Owned key = new Owned(buffer, null);
+        AtomicBoolean pooled = pooledSize ? OWNED.get(key) : null;
+        if (pooled == null) {
+            //超过最大级别的缓冲由acquire直接分配，不缓存
+            if (pooledSize || capacity <= 1 << MAX_SHIFT) Logger.w("BufferPool", "release foreign buffer: " + buffer);
+            return false;
+        }
+        if (!pooled.compareAndSet(false, true)) {
+            Logger.w("BufferPool", "buffer released twice: " + buffer);
+            return false;
+        }
+        if (SIZES[index].incrementAndGet() > MAX_PER_CLASS) {
+            SIZES[index].decrementAndGet();
+            //丢弃交给GC，之后再归还按外部缓冲拒绝
+            OWNED.remove(key);
+            return false;
+        }
+        POOLS[index].offer(buffer);
+        return true;
+    }
+
+    /**
+     * 清空缓存的缓冲
+     */
+    public static void clear() {
+        for (int i = 0; i < POOLS.length; i++) {
+            ByteBuffer buffer;
+            while ((buffer = POOLS[i].poll()) != null) {
+                SIZES[i].decrementAndGet();
+                OWNED.remove(new Owned(buffer, null));
+            }
+        }
+        expunge();
+    }
+
+    /**
+     * 移除已被GC回收的缓冲记录
+     */
+    private static void expunge() {
+        Reference<? extends ByteBuffer> reference;
+        while ((reference = COLLECTED.poll()) != null) {
+            OWNED.remove(reference);
+        }
+    }
+
+    /**
+     * @return 分级下标，超出最大级别返回-1
+     */
+    private static int indexOf(int size) {
+        if (size <= 1 << MIN_SHIFT) return 0;
+        int shift = 32 - Integer.numberOfLeadingZeros(size - 1);
+        return shift > MAX_SHIFT ? -1 : shift - MIN_SHIFT;
+    }
+
+    /**
+     * 按对象比较的弱引用键
+     */
+    private static final class Owned extends WeakReference<ByteBuffer> {
+
+        private final int hash;
+
+        private Owned(ByteBuffer buffer, ReferenceQueue<ByteBuffer> queue) {
+            super(buffer, queue);
+            this.hash = System.identityHashCode(buffer);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) return true;
+            if (!(obj instanceof Owned)) return false;
+            ByteBuffer buffer = get();
+            return buffer != null && buffer == ((Owned) obj).get();
+        }
+    }
+
+}
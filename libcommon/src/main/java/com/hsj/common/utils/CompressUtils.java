@@ -0,0 +1,644 @@
+package com.hsj.common.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:CompressUtils
+ * @Desc:流式压缩工具类(gzip、zip)
+ */
+public final class CompressUtils {
+
+    //////////////////////////////////////////////////////////////
+    // CompressUtils 功能如下：
+    //     1、gzip/gunzip 流式压缩解压，内存占用与文件大小无关
+    //     2、Deflater/Inflater 按线程复用(reset)，不反复申请native内存
+    //     3、gzipParallel 大文件分块并行压缩(pigz方式)：
+    //        每块以前一块末尾32KB为字典独立压缩，SYNC_FLUSH对齐后按顺序拼接，
+    //        输出是普通的单成员gzip，任何解压工具可读
+    //     4、zip/unzip 逐条目流式读写，解压时校验路径防止目录穿越
+    //////////////////////////////////////////////////////////////
+
+    /**
+     * 默认压缩级别
+     */
+    public static final int DEFAULT_LEVEL = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * 并行压缩默认分块大小
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private static final int GZIP_MAGIC = 0x8B1F;
+    private static final int FHCRC    = 2;
+    private static final int FEXTRA   = 4;
+    private static final int FNAME    = 8;
+    private static final int FCOMMENT = 16;
+
+    /**
+     * 线程复用的raw deflate压缩器(gzip自己写头尾)
+     */
+    private static final ThreadLocal<Deflater> DEFLATER = new ThreadLocal<Deflater>() {
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater(DEFAULT_LEVEL, true);
+        }
+    };
+
+    private static final ThreadLocal<Inflater> INFLATER = new ThreadLocal<Inflater>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater(true);
+        }
+    };
+
+    private static final ThreadLocal<byte[][]> BUFFERS = new ThreadLocal<byte[][]>() {
+        @Override
+        protected byte[][] initialValue() {
+            return new byte[][]{new byte[BUFFER_SIZE], new byte[BUFFER_SIZE]};
+        }
+    };
+
+    private CompressUtils() {
+        throw new IllegalAccessError("CompressUtils can't be instance");
+    }
+
+//======================================GZIP========================================================
+
+    /**
+     * gzip压缩文件
+     *
+     * @param src 源文件
+     * @param dst 目标文件
+     * @return 结果
+     */
+    public static boolean gzip(File src, File dst) {
+        if (src == null || dst == null || !src.isFile()) return false;
+        InputStream in = null;
+        OutputStream out = null;
+        Tracer.begin("CompressUtils.gzip");
+        try {
+            in = new FileInputStream(src);
+            out = new FileOutputStream(dst);
+            gzip(in, out, DEFAULT_LEVEL);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            close(in);
+            close(out);
+            Tracer.end();
+        }
+    }
+
+    /**
+     * gzip流式压缩
+     *
+     * @param in    输入(不关闭)
+     * @param out   输出(不关闭)
+     * @param level 压缩级别0~9
+     * @return 原始字节数
+     * @throws IOException 读写失败
+     */
+    public static long gzip(@NonNull InputStream in, @NonNull OutputStream out, int level) throws IOException {
+        byte[][] buffers = BUFFERS.get();
+        byte[] input = buffers[0];
+        byte[] output = buffers[1];
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setLevel(level);
+        CRC32 crc = new CRC32();
+        long total = 0;
+        writeGzipHeader(out);
+        try {
+            int count;
+            while ((count = in.read(input)) >= 0) {
+                if (count == 0) continue;
+                crc.update(input, 0, count);
+                total += count;
+                deflater.setInput(input, 0, count);
+                while (!deflater.needsInput()) {
+                    int length = deflater.deflate(output);
+                    if (length > 0) out.write(output, 0, length);
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                int length = deflater.deflate(output);
+                if (length > 0) out.write(output, 0, length);
+            }
+        } finally {
+            deflater.reset();
+        }
+        writeGzipTrailer(out, crc.getValue(), total);
+        return total;
+    }
+
+    /**
+     * gzip压缩byte[]
+     *
+     * @param data 数据
+     * @return 压缩结果，失败返回null
+     */
+    @Nullable
+    public static byte[] gzip(byte[] data) {
+        if (data == null) return null;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try {
+            gzip(new ByteArrayInputStream(data), out, DEFAULT_LEVEL);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * gzip解压文件
+     *
+     * @param src 源文件
+     * @param dst 目标文件
+     * @return 结果
+     */
+    public static boolean gunzip(File src, File dst) {
+        if (src == null || dst == null || !src.isFile()) return false;
+        InputStream in = null;
+        OutputStream out = null;
+        Tracer.begin("CompressUtils.gunzip");
+        try {
+            in = new FileInputStream(src);
+            out = new FileOutputStream(dst);
+            gunzip(in, out);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            close(in);
+            close(out);
+            Tracer.end();
+        }
+    }
+
+    /**
+     * gzip流式解压，支持多成员拼接的gzip
+     *
+     * @param in  输入(不关闭)
+     * @param out 输出(不关闭)
+     * @return 解压后字节数
+     * @throws IOException 读写失败或格式错误
+     */
+    public static long gunzip(@NonNull InputStream in, @NonNull OutputStream out) throws IOException {
+        byte[][] buffers = BUFFERS.get();
+        Source source = new Source(in, buffers[0]);
+        byte[] output = buffers[1];
+        Inflater inflater = INFLATER.get();
+        CRC32 crc = new CRC32();
+        long total = 0;
+        try {
+            do {
+                readGzipHeader(source);
+                inflater.reset();
+                crc.reset();
+                long size = 0;
+                while (!inflater.finished()) {
+                    if (inflater.needsInput()) {
+                        if (!source.fill()) throw new EOFException("unexpected end of gzip stream");
+                        inflater.setInput(source.buffer, source.position, source.limit - source.position);
+                        source.position = source.limit;
+                    }
+                    int length;
+                    try {
+                        length = inflater.inflate(output);
+                    } catch (DataFormatException e) {
+                        throw new IOException("bad gzip data: " + e.getMessage());
+                    }
+                    if (length > 0) {
+                        crc.update(output, 0, length);
+                        out.write(output, 0, length);
+                        size += length;
+                    } else if (inflater.needsDictionary()) {
+                        throw new IOException("bad gzip data: dictionary required");
+                    }
+                }
+                // 未消费的输入退回，继续读取trailer
+                source.position = source.limit - inflater.getRemaining();
+                if (source.readIntLE() != (int) crc.getValue()) throw new IOException("gzip crc mismatch");
+                if (source.readIntLE() != (int) size) throw new IOException("gzip size mismatch");
+                total += size;
+            } while (source.fill());
+        } finally {
+            inflater.reset();
+        }
+        return total;
+    }
+
+    /**
+     * gzip解压byte[]
+     *
+     * @param data 数据
+     * @return 解压结果，失败返回null
+     */
+    @Nullable
+    public static byte[] gunzip(byte[] data) {
+        if (data == null) return null;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length * 4));
+        try {
+            gunzip(new ByteArrayInputStream(data), out);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+        return out.toByteArray();
+    }
+
+//======================================Parallel====================================================
+
+    /**
+     * 大文件分块并行gzip压缩
+     *
+     * @param src       源文件
+     * @param dst       目标文件
+     * @param level     压缩级别0~9
+     * @param blockSize 分块大小，建议128KB~1MB
+     * @return 结果
+     */
+    public static boolean gzipParallel(File src, File dst, int level, int blockSize) {
+        if (src == null || dst == null || !src.isFile()) return false;
+        InputStream in = null;
+        OutputStream out = null;
+        Tracer.begin("CompressUtils.gzipParallel");
+        try {
+            in = new FileInputStream(src);
+            out = new FileOutputStream(dst);
+            gzipParallel(in, out, level, blockSize);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            close(in);
+            close(out);
+            Tracer.end();
+        }
+    }
+
+    /**
+     * 分块并行gzip压缩：调用线程顺序读取并计算CRC，各块在IO线程池压缩，按顺序写出
+     * 同时在途的块数有上限，内存占用约为 块大小 x 并行度 x 2
+     *
+     * @param in        输入(不关闭)
+     * @param out       输出(不关闭)
+     * @param level     压缩级别0~9
+     * @param blockSize 分块大小
+     * @return 原始字节数
+     * @throws IOException 读写失败
+     */
+    public static long gzipParallel(@NonNull InputStream in, @NonNull OutputStream out, int level, int blockSize) throws IOException {
+        blockSize = Math.max(DICTIONARY_SIZE, blockSize);
+        int maxInFlight = Math.max(2, Math.min(Runtime.getRuntime().availableProcessors(), 4) * 2);
+        ArrayDeque<FutureTask<byte[]>> inFlight = new ArrayDeque<>();
+        CRC32 crc = new CRC32();
+        long total = 0;
+        byte[] dictionary = null;
+        writeGzipHeader(out);
+        byte[] block = readBlock(in, blockSize);
+        while (block != null) {
+            byte[] next = readBlock(in, blockSize);
+            crc.update(block, 0, block.length);
+            total += block.length;
+            FutureTask<byte[]> task = new FutureTask<>(new BlockCompressor(block, dictionary, level, next == null));
+            try {
+                ThreadManager.executeOnIoPool(task);
+            } catch (RejectedExecutionException e) {
+                task.run();
+            }
+            inFlight.add(task);
+            if (inFlight.size() >= maxInFlight) writeBlock(inFlight.poll(), out);
+            if (block.length >= DICTIONARY_SIZE) {
+                dictionary = new byte[DICTIONARY_SIZE];
+                System.arraycopy(block, block.length - DICTIONARY_SIZE, dictionary, 0, DICTIONARY_SIZE);
+            }
+            block = next;
+        }
+        if (total == 0) {
+            // 空输入：写一个空的结束块
+            FutureTask<byte[]> task = new FutureTask<>(new BlockCompressor(new byte[0], null, level, true));
+            task.run();
+            inFlight.add(task);
+        }
+        while (!inFlight.isEmpty()) {
+            writeBlock(inFlight.poll(), out);
+        }
+        writeGzipTrailer(out, crc.getValue(), total);
+        return total;
+    }
+
+    /**
+     * 读满一块，到末尾时返回不足一块的数据，没有数据返回null
+     */
+    private static byte[] readBlock(InputStream in, int blockSize) throws IOException {
+        byte[] block = new byte[blockSize];
+        int length = 0;
+        int count;
+        while (length < blockSize && (count = in.read(block, length, blockSize - length)) >= 0) {
+            length += count;
+        }
+        if (length == 0) return null;
+        if (length == blockSize) return block;
+        byte[] result = new byte[length];
+        System.arraycopy(block, 0, result, 0, length);
+        return result;
+    }
+
+    /**
+     * 按顺序写出一块；任务还未开始执行时由当前线程直接执行，避免线程池繁忙时等待
+     */
+    private static void writeBlock(FutureTask<byte[]> task, OutputStream out) throws IOException {
+        task.run();
+        try {
+            out.write(task.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("compress block failed: " + e.getCause());
+        }
+    }
+
+    /**
+     * 压缩一块为raw deflate：非最后一块以SYNC_FLUSH字节对齐结束，最后一块finish
+     */
+    private static final class BlockCompressor implements Callable<byte[]> {
+
+        private final byte[] block;
+        private final byte[] dictionary;
+        private final int level;
+        private final boolean last;
+
+        private BlockCompressor(byte[] block, byte[] dictionary, int level, boolean last) {
+            this.block = block;
+            this.dictionary = dictionary;
+            this.level = level;
+            this.last = last;
+        }
+
+        @Override
+        public byte[] call() {
+            Deflater deflater = DEFLATER.get();
+            byte[] output = BUFFERS.get()[1];
+            ByteArrayOutputStream result = new ByteArrayOutputStream(block.length / 2 + 64);
+            try {
+                deflater.reset();
+                deflater.setLevel(level);
+                if (dictionary != null) deflater.setDictionary(dictionary);
+                deflater.setInput(block);
+                if (last) {
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        result.write(output, 0, deflater.deflate(output));
+                    }
+                } else {
+                    int length;
+                    do {
+                        length = deflater.deflate(output, 0, output.length, Deflater.SYNC_FLUSH);
+                        result.write(output, 0, length);
+                    } while (length == output.length || !deflater.needsInput());
+                }
+            } finally {
+                deflater.reset();
+            }
+            return result.toByteArray();
+        }
+    }
+
+//======================================ZIP=========================================================
+
+    /**
+     * 压缩为zip，目录递归加入，条目名为相对路径
+     *
+     * @param files   文件或目录
+     * @param zipFile 目标zip
+     * @return 结果
+     */
+    public static boolean zip(File[] files, File zipFile) {
+        if (files == null || zipFile == null) return false;
+        ZipOutputStream out = null;
+        Tracer.begin("CompressUtils.zip");
+        try {
+            out = new ZipOutputStream(new FileOutputStream(zipFile));
+            out.setLevel(DEFAULT_LEVEL);
+            for (File file : files) {
+                if (file != null && file.exists()) zipEntry(out, file, file.getName());
+            }
+            out.finish();
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            close(out);
+            Tracer.end();
+        }
+    }
+
+    private static void zipEntry(ZipOutputStream out, File file, String name) throws IOException {
+        if (file.isDirectory()) {
+            out.putNextEntry(new ZipEntry(name + "/"));
+            out.closeEntry();
+            File[] children = file.listFiles();
+            if (children == null) return;
+            for (File child : children) {
+                zipEntry(out, child, name + "/" + child.getName());
+            }
+            return;
+        }
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTime(file.lastModified());
+        out.putNextEntry(entry);
+        InputStream in = new FileInputStream(file);
+        try {
+            copy(in, out);
+        } finally {
+            close(in);
+        }
+        out.closeEntry();
+    }
+
+    /**
+     * 解压zip到目录，条目逐个流式写出
+     *
+     * @param zipFile zip文件
+     * @param dstDir  目标目录
+     * @return 结果(条目路径越出目标目录时失败)
+     */
+    public static boolean unzip(File zipFile, File dstDir) {
+        if (zipFile == null || dstDir == null || !zipFile.isFile()) return false;
+        ZipInputStream in = null;
+        Tracer.begin("CompressUtils.unzip");
+        try {
+            if (!dstDir.isDirectory() && !dstDir.mkdirs()) throw new IOException("mkdirs failed: " + dstDir);
+            String root = dstDir.getCanonicalPath() + File.separator;
+            in = new ZipInputStream(new FileInputStream(zipFile));
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                File target = new File(dstDir, entry.getName());
+                String path = target.getCanonicalPath();
+                if (!path.startsWith(root)) throw new IOException("zip entry outside target dir: " + entry.getName());
+                if (entry.isDirectory()) {
+                    if (!target.isDirectory() && !target.mkdirs()) throw new IOException("mkdirs failed: " + target);
+                    continue;
+                }
+                File parent = target.getParentFile();
+                if (parent != null && !parent.isDirectory() && !parent.mkdirs()) throw new IOException("mkdirs failed: " + parent);
+                OutputStream out = new FileOutputStream(target);
+                try {
+                    copy(in, out);
+                } finally {
+                    close(out);
+                }
+                if (entry.getTime() > 0 && !target.setLastModified(entry.getTime())) {
+                    Logger.w("setLastModified failed -> " + target.getAbsolutePath());
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            close(in);
+            Tracer.end();
+        }
+    }
+
+//======================================Helper======================================================
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = BUFFERS.get()[0];
+        int count;
+        while ((count = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, count);
+        }
+    }
+
+    private static void writeGzipHeader(OutputStream out) throws IOException {
+        // magic | CM=8(deflate) | FLG=0 | MTIME=0 | XFL=0 | OS=255(unknown)
+        out.write(new byte[]{(byte) 0x1F, (byte) 0x8B, 8, 0, 0, 0, 0, 0, 0, (byte) 0xFF});
+    }
+
+    private static void writeGzipTrailer(OutputStream out, long crc, long size) throws IOException {
+        byte[] trailer = new byte[8];
+        for (int i = 0; i < 4; i++) {
+            trailer[i] = (byte) (crc >>> (i * 8));
+            trailer[i + 4] = (byte) (size >>> (i * 8));
+        }
+        out.write(trailer);
+    }
+
+    private static void readGzipHeader(Source source) throws IOException {
+        if (source.readShortLE() != GZIP_MAGIC) throw new IOException("not in gzip format");
+        if (source.readByte() != 8) throw new IOException("unsupported compression method");
+        int flags = source.readByte();
+        source.skip(6);
+        if ((flags & FEXTRA) != 0) source.skip(source.readShortLE());
+        if ((flags & FNAME) != 0) {
+            while (source.readByte() != 0) {
+                // skip
+            }
+        }
+        if ((flags & FCOMMENT) != 0) {
+            while (source.readByte() != 0) {
+                // skip
+            }
+        }
+        if ((flags & FHCRC) != 0) source.skip(2);
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 带缓冲的输入，Inflater未消费的字节可以退回
+     */
+    private static final class Source {
+
+        private final InputStream in;
+        private final byte[] buffer;
+        private int position;
+        private int limit;
+
+        private Source(InputStream in, byte[] buffer) {
+            this.in = in;
+            this.buffer = buffer;
+        }
+
+        /**
+         * @return 是否还有数据
+         */
+        private boolean fill() throws IOException {
+            if (position < limit) return true;
+            int count;
+            do {
+                count = in.read(buffer, 0, buffer.length);
+            } while (count == 0);
+            position = 0;
+            limit = Math.max(0, count);
+            return count > 0;
+        }
+
+        private int readByte() throws IOException {
+            if (!fill()) throw new EOFException("unexpected end of gzip stream");
+            return buffer[position++] & 0xFF;
+        }
+
+        private int readShortLE() throws IOException {
+            return readByte() | readByte() << 8;
+        }
+
+        private int readIntLE() throws IOException {
+            return readShortLE() | readShortLE() << 16;
+        }
+
+        private void skip(int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                readByte();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,470 @@
+package com.hsj.common.utils;
+
+import androidx.annotation.NonNull;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:DateFormatter
+ * @Desc:按模式编译的不可变时间格式化器，线程安全
+ */
+public final class DateFormatter {
+
+    //////////////////////////////////////////////////////////////
+    // DateFormatter 功能如下：
+    //     1、of(pattern) 编译并缓存，同一模式全局只编译一次，可多线程共享
+    //     2、数字字段(y M d H h m s S)直接按时区偏移计算，追加到调用方 StringBuilder，不创建 Calendar/Date
+    //     3、parse 从 CharSequence 区间解析，失败返回 INVALID，不抛异常
+    //     4、文字字段(MMM、E、a、z 等)、越界或夏令时缺口等少见情况交给线程内缓存的 SimpleDateFormat，
+    //        结果与 SimpleDateFormat 一致
+    //     5、缓存默认时区，至多每秒对比一次默认时区ID(TimeZone.getDefault 每次克隆，不放在每次调用上)；
+    //        收到 ACTION_TIMEZONE_CHANGED 时调用 onTimeZoneChanged 立即生效
+    //////////////////////////////////////////////////////////////
+
+    /**
+     * 解析失败
+     */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final int MAX_CACHED_PATTERNS = 64;
+
+    /**
+     * 1582-10-15，此前 SimpleDateFormat 使用儒略历
+     */
+    private static final long GREGORIAN_CUTOVER = -12219292800000L;
+
+    private static final long ONE_DAY = 24 * 60 * 60 * 1000L;
+
+    private static final int LITERAL = 0;
+    private static final int YEAR    = 1;
+    private static final int MONTH   = 2;
+    private static final int DAY     = 3;
+    private static final int HOUR    = 4;
+    private static final int HOUR12  = 5;
+    private static final int MINUTE  = 6;
+    private static final int SECOND  = 7;
+    private static final int MILLI   = 8;
+
+    private static final ConcurrentHashMap<String, DateFormatter> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 重新对比默认时区的最小间隔/纳秒
+     */
+    private static final long ZONE_CHECK_INTERVAL = 1000_000_000L;
+
+    private static volatile TimeZone zone = TimeZone.getDefault();
+
+    /**
+     * 上次对比默认时区的时间(System.nanoTime)
+     */
+    private static volatile long zoneCheckedAt = System.nanoTime();
+
+    /**
+     * 线程内的 SimpleDateFormat(不是线程安全的)，时区变化后重建
+     */
+    private static final ThreadLocal<FallbackCache> FALLBACK = new ThreadLocal<FallbackCache>() {
+        @Override
+        protected FallbackCache initialValue() {
+            return new FallbackCache();
+        }
+    };
+
+    private static final class FallbackCache {
+        final HashMap<String, SimpleDateFormat> formats = new HashMap<>();
+        TimeZone zone;
+    }
+
+    private final String pattern;
+    private final Locale locale;
+    private final String key;
+    private final int[] kinds;
+    private final int[] widths;
+    private final String[] literals;
+    private final boolean formattable;
+    private final boolean parseable;
+
+    /**
+     * 获取模式对应的格式化器(Locale.CHINA)
+     *
+     * @param pattern SimpleDateFormat 模式
+     * @return 格式化器
+     * @exception IllegalArgumentException if pattern is invalid
+     */
+    @NonNull
+    public static DateFormatter of(@NonNull String pattern) {
+        return of(pattern, Locale.CHINA);
+    }
+
+    /**
+     * 获取模式对应的格式化器
+     *
+     * @param pattern SimpleDateFormat 模式
+     * @param locale  文字字段使用的语言
+     * @return 格式化器
+     * @exception IllegalArgumentException if pattern is invalid
+     */
+    @NonNull
+    public static DateFormatter of(@NonNull String pattern, @NonNull Locale locale) {
+        final String key = Locale.CHINA.equals(locale) ? pattern : pattern + '\u0000' + locale;
+        DateFormatter formatter = CACHE.get(key);
+        if (formatter != null) return formatter;
+        formatter = new DateFormatter(pattern, locale, key);
+        if (CACHE.size() < MAX_CACHED_PATTERNS) {
+            DateFormatter old = CACHE.putIfAbsent(key, formatter);
+            if (old != null) formatter = old;
+        }
+        return formatter;
+    }
+
+    private DateFormatter(String pattern, Locale locale, String key) {
+        this.pattern = pattern;
+        this.locale = locale;
+        this.key = key;
+        final int length = pattern.length();
+        int[] kinds = new int[length];
+        int[] widths = new int[length];
+        String[] literals = new String[length];
+        int count = 0;
+        boolean formattable = true;
+        boolean parseable = true;
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < length) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                int close = pattern.indexOf('\'', i + 1);
+                if (close == i + 1) {
+                    literal.append('\'');
+                    i += 2;
+                    continue;
+                }
+                if (close < 0) throw new IllegalArgumentException("Unterminated quote in pattern: " + pattern);
+                literal.append(pattern, i + 1, close);
+                i = close + 1;
+                continue;
+            }
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z')) {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            int end = i + 1;
+            while (end < length && pattern.charAt(end) == c) end++;
+            int width = end - i;
+            int kind;
+            switch (c) {
+                case 'y': kind = YEAR; break;
+                case 'M': kind = width <= 2 ? MONTH : -1; break;
+                case 'd': kind = DAY; break;
+                case 'H': kind = HOUR; break;
+                case 'h': kind = HOUR12; break;
+                case 'm': kind = MINUTE; break;
+                case 's': kind = SECOND; break;
+                case 'S': kind = MILLI; break;
+                default: kind = -1; break;
+            }
+            if (kind < 0) {
+                formattable = false;
+                parseable = false;
+                break;
+            }
+            //yy/y 解析时有世纪推断，h 解析时需要 a
+            if (kind == YEAR && width <= 2 || kind == HOUR12) parseable = false;
+            if (literal.length() > 0) {
+                literals[count++] = literal.toString();
+                literal.setLength(0);
+            }
+            kinds[count] = kind;
+            widths[count] = width;
+            count++;
+            i = end;
+        }
+        if (literal.length() > 0) literals[count++] = literal.toString();
+        if (!formattable) {
+            //验证模式，非法时抛出 IllegalArgumentException
+            new SimpleDateFormat(pattern, locale);
+            count = 0;
+        }
+        this.kinds = copy(kinds, count);
+        this.widths = copy(widths, count);
+        this.literals = new String[count];
+        System.arraycopy(literals, 0, this.literals, 0, count);
+        this.formattable = formattable;
+        this.parseable = parseable;
+    }
+
+    @NonNull
+    public String getPattern() {
+        return pattern;
+    }
+
+//======================================Format======================================================
+
+    /**
+     * @param millis 时间戳
+     * @return 格式化结果
+     */
+    @NonNull
+    public String format(long millis) {
+        return format(new StringBuilder(pattern.length() + 8), millis).toString();
+    }
+
+    /**
+     * 格式化并追加到 out
+     *
+     * @param out    追加目标
+     * @param millis 时间戳
+     * @return out
+     */
+    @NonNull
+    public StringBuilder format(@NonNull StringBuilder out, long millis) {
+        final TimeZone zone = zone();
+        if (!formattable || millis < GREGORIAN_CUTOVER) {
+            return out.append(fallback(zone).format(new Date(millis)));
+        }
+        final long local = millis + zone.getOffset(millis);
+        final long days = floorDiv(local, ONE_DAY);
+        final int timeOfDay = (int) (local - days * ONE_DAY);
+        final int date = civilFromDays(days);
+        final int year = date / 10000;
+        final int month = date / 100 % 100;
+        final int day = date % 100;
+        final int hour = timeOfDay / 3600000;
+        for (int i = 0; i < kinds.length; i++) {
+            final int width = widths[i];
+            switch (kinds[i]) {
+                case LITERAL: out.append(literals[i]); break;
+                case YEAR: appendNumber(out, width == 2 ? year % 100 : year, width); break;
+                case MONTH: appendNumber(out, month, width); break;
+                case DAY: appendNumber(out, day, width); break;
+                case HOUR: appendNumber(out, hour, width); break;
+                case HOUR12: appendNumber(out, hour % 12 == 0 ? 12 : hour % 12, width); break;
+                case MINUTE: appendNumber(out, timeOfDay / 60000 % 60, width); break;
+                case SECOND: appendNumber(out, timeOfDay / 1000 % 60, width); break;
+                case MILLI: appendNumber(out, timeOfDay % 1000, width); break;
+                default: break;
+            }
+        }
+        return out;
+    }
+
+//======================================Parse=======================================================
+
+    /**
+     * @param text 文本
+     * @return 时间戳，失败返回 INVALID
+     */
+    public long parse(@NonNull CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * 解析 text[start, end)，末尾多余字符忽略(与 SimpleDateFormat 一致)
+     *
+     * @param text  文本
+     * @param start 起始位置
+     * @param end   结束位置(不含)
+     * @return 时间戳，失败返回 INVALID
+     */
+    public long parse(@NonNull CharSequence text, int start, int end) {
+        final TimeZone zone = zone();
+        if (parseable) {
+            long millis = parseFast(zone, text, start, end);
+            if (millis != INVALID) return millis;
+        }
+        ParsePosition position = new ParsePosition(0);
+        Date date = fallback(zone).parse(text.subSequence(start, end).toString(), position);
+        return date == null || position.getErrorIndex() >= 0 ? INVALID : date.getTime();
+    }
+
+    private long parseFast(TimeZone zone, CharSequence text, int start, int end) {
+        int year = 1970, month = 1, day = 1, hour = 0, minute = 0, second = 0, milli = 0;
+        int pos = start;
+        for (int i = 0; i < kinds.length; i++) {
+            final int kind = kinds[i];
+            if (kind == LITERAL) {
+                final String literal = literals[i];
+                final int length = literal.length();
+                if (end - pos < length) return INVALID;
+                for (int j = 0; j < length; j++) {
+                    if (text.charAt(pos + j) != literal.charAt(j)) return INVALID;
+                }
+                pos += length;
+                continue;
+            }
+            //相邻的数字字段按模式宽度截取，否则读取全部数字
+            final boolean abutting = i + 1 < kinds.length && kinds[i + 1] != LITERAL;
+            final int limit = abutting ? Math.min(end, pos + widths[i]) : Math.min(end, pos + 9);
+            int value = 0;
+            int digits = pos;
+            while (digits < limit) {
+                char c = text.charAt(digits);
+                if (c < '0' || c > '9') break;
+                value = value * 10 + (c - '0');
+                digits++;
+            }
+            if (digits == pos || abutting && digits - pos != widths[i]) return INVALID;
+            pos = digits;
+            switch (kind) {
+                case YEAR: year = value; break;
+                case MONTH: month = value; break;
+                case DAY: day = value; break;
+                case HOUR: hour = value; break;
+                case MINUTE: minute = value; break;
+                case SECOND: second = value; break;
+                case MILLI: milli = value; break;
+                default: return INVALID;
+            }
+        }
+        //越界值 SimpleDateFormat 会进位，交给它处理
+        if (year < 1583 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour > 23 || minute > 59 || second > 59 || milli > 999) {
+            return INVALID;
+        }
+        final long local = daysFromCivil(year, month, day) * ONE_DAY
+                + hour * 3600000L + minute * 60000L + second * 1000L + milli;
+        return toUtc(zone, local);
+    }
+
+    /**
+     * 本地时间(当前默认时区)转时间戳，夏令时缺口/重叠返回 INVALID
+     */
+    static long toUtc(long local) {
+        return toUtc(zone(), local);
+    }
+
+    /**
+     * 本地时间转时间戳，夏令时缺口/重叠返回 INVALID
+     */
+    static long toUtc(TimeZone zone, long local) {
+        final int offset = zone.getOffset(local - zone.getRawOffset());
+        final long utc = local - offset;
+        return zone.getOffset(utc) == offset ? utc : INVALID;
+    }
+
+    /**
+     * 默认时区已变化(在 ACTION_TIMEZONE_CHANGED 广播或 TimeZone.setDefault 之后调用)，立即重新对比，
+     * 否则最多延迟 1 秒生效
+     */
+    public static void onTimeZoneChanged() {
+        synchronized (DateFormatter.class) {
+            final TimeZone current = TimeZone.getDefault();
+            if (!zone.getID().equals(current.getID())) zone = current;
+            zoneCheckedAt = System.nanoTime();
+        }
+    }
+
+    static TimeZone zone() {
+        return zone(System.nanoTime());
+    }
+
+    /**
+     * 当前默认时区：距上次对比超过 ZONE_CHECK_INTERVAL 时才读取默认时区，ID 与缓存不同时替换缓存，
+     * 线程内的 SimpleDateFormat 随之重建
+     * 未变化时返回同一实例，调用方可以用 == 判断时区是否变化
+     *
+     * @param now System.nanoTime
+     * @return 当前默认时区
+     */
+    static TimeZone zone(long now) {
+        final TimeZone cached = zone;
+        if (now - zoneCheckedAt < ZONE_CHECK_INTERVAL) return cached;
+        final TimeZone current = TimeZone.getDefault();
+        synchronized (DateFormatter.class) {
+            zoneCheckedAt = now;
+            if (!zone.getID().equals(current.getID())) zone = current;
+            return zone;
+        }
+    }
+
+    private SimpleDateFormat fallback(TimeZone zone) {
+        FallbackCache cache = FALLBACK.get();
+        if (cache.zone != zone) {
+            cache.formats.clear();
+            cache.zone = zone;
+        }
+        SimpleDateFormat format = cache.formats.get(key);
+        if (format == null) {
+            format = new SimpleDateFormat(pattern, locale);
+            format.setTimeZone(zone);
+            cache.formats.put(key, format);
+        }
+        return format;
+    }
+
+//======================================Calendar====================================================
+
+    /**
+     * 公历日期转距1970-01-01的天数
+     */
+    static long daysFromCivil(int year, int month, int day) {
+        final long y = month <= 2 ? year - 1 : year;
+        final long era = floorDiv(y, 400);
+        final long yoe = y - era * 400;
+        final long doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        final long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    /**
+     * 距1970-01-01的天数转公历日期
+     *
+     * @return year * 10000 + month * 100 + day
+     */
+    static int civilFromDays(long days) {
+        final long z = days + 719468;
+        final long era = floorDiv(z, 146097);
+        final long doe = z - era * 146097;
+        final long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        final long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        final long mp = (5 * doy + 2) / 153;
+        final int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+        final int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        final int year = (int) (yoe + era * 400 + (month <= 2 ? 1 : 0));
+        return year * 10000 + month * 100 + day;
+    }
+
+    static int daysInMonth(int year, int month) {
+        if (month == 2) return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    static long floorDiv(long x, long y) {
+        long q = x / y;
+        return (x % y != 0 && (x ^ y) < 0) ? q - 1 : q;
+    }
+
+    /**
+     * 追加数字，不足 width 位补0
+     */
+    static void appendNumber(StringBuilder out, int value, int width) {
+        if (value < 0) {
+            out.append(value);
+            return;
+        }
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10) digits++;
+        for (int i = digits; i < width; i++) out.append('0');
+        out.append(value);
+    }
+
+    private static int[] copy(int[] source, int count) {
+        int[] target = new int[count];
+        System.arraycopy(source, 0, target, 0, count);
+        return target;
+    }
+
+    @Override
+    public String toString() {
+        return "DateFormatter[" + pattern + "]";
+    }
+
+}
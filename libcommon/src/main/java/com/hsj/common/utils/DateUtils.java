@@ -4,10 +4,6 @@ import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
 import java.util.Locale;
 
 /**
@@ -23,7 +19,10 @@ public final class DateUtils {
     //      1、格式化时间戳
     //      2、格式化系统当前时间
     //      3、格式化的时间转时间戳
-    //      4、定时器：CountDownTimer;
+    //      4、定时器：TickTimer 倒计时/周期定时，共用一个调度，按 elapsedRealtime 校正漂移
+    //      5、格式化器按模式编译缓存(DateFormatter)，线程安全，可追加到 StringBuilder
+    //      6、社区时间描述(RelativeTimeFormatter)：日期起点跨零点才重算，多语言，批量格式化
+    //      7、ISO-8601/RFC-3339 解析与格式化(Iso8601)：CharSequence/byte[]区间，返回long毫秒/纳秒
     //////////////////////////////////////////////////////////////
 
     private DateUtils()  {
@@ -31,136 +30,113 @@ public final class DateUtils {
     }
 
     /**
-     * 一分钟的毫秒值
-     */
-    private static final long ONE_MINUTE = 60 * 1000;
-
-    /**
-     * 一小时的毫秒值
-     */
-    private static final long ONE_HOUR = 60 * ONE_MINUTE;
-
-    /**
-     * 一天的毫秒值
+     * 格式化指定时间
+     *
+     * @param desFormat 指定格式
+     * @param desTime   指定时间
+     * @return 返回格式
+     * @exception IllegalArgumentException if desFormat or desTime is invalid
      */
-    private static final long ONE_DAY = 24 * ONE_HOUR;
+    public static String formatTime(String desFormat, long desTime) {
+        if (TextUtils.isEmpty(desFormat) || desTime <= 0) return null;
+        return DateFormatter.of(desFormat).format(desTime);
+    }
 
     /**
-     * 两天天的毫秒值
+     * 格式化指定时间并追加到 out，列表绑定时可复用同一个 StringBuilder
+     *
+     * @param out       追加目标
+     * @param desFormat 指定格式
+     * @param desTime   指定时间
+     * @return out
+     * @exception IllegalArgumentException if desFormat is invalid
      */
-    private static final long TWO_DAY = 48 * ONE_HOUR;
+    public static StringBuilder formatTime(@NonNull StringBuilder out, @NonNull String desFormat, long desTime) {
+        return DateFormatter.of(desFormat).format(out, desTime);
+    }
 
     /**
-     * 三天的毫秒值
+     * 根据目标格式和目标格式化时间获取时间戳
+     *
+     * @param desFormat 目标格式
+     * @param desTime   目标时间
+     * @return 获取时间戳，解析失败返回0
+     * @exception IllegalArgumentException if desFormat is invalid
      */
-    private static final long THREE_DAY = 72 * ONE_HOUR;
+    public static long getTimeStamp(String desFormat, String desTime) {
+        if (TextUtils.isEmpty(desFormat) || TextUtils.isEmpty(desTime)) return -2;
+        return getTimeStamp(desFormat, desTime, 0, desTime.length());
+    }
 
     /**
-     * 一月的毫秒值，用于判断上次的更新时间
+     * 从 desTime[start, end) 解析时间戳，不抛出 ParseException
+     *
+     * @param desFormat 目标格式
+     * @param desTime   目标时间
+     * @param start     起始位置
+     * @param end       结束位置(不含)
+     * @return 获取时间戳，解析失败返回0
+     * @exception IllegalArgumentException if desFormat is invalid
      */
-    private static final long ONE_MONTH = 30 * TWO_DAY;
+    public static long getTimeStamp(@NonNull String desFormat, @NonNull CharSequence desTime, int start, int end) {
+        long time = DateFormatter.of(desFormat).parse(desTime, start, end);
+        return time == DateFormatter.INVALID ? 0 : time;
+    }
 
     /**
-     * 一年的毫秒值，用于判断上次的更新时间
+     * 解析 ISO-8601/RFC-3339 时间，如 2024-01-02T03:04:05.678+08:00
+     *
+     * @param desTime 目标时间
+     * @return 获取时间戳，解析失败返回0
+     * @see Iso8601
      */
-    private static final long ONE_YEAR = 12 * ONE_MONTH;
+    public static long getIsoTimeStamp(CharSequence desTime) {
+        if (TextUtils.isEmpty(desTime)) return -2;
+        long time = Iso8601.parseMillis(desTime);
+        return time == Iso8601.INVALID ? 0 : time;
+    }
 
     /**
-     * 格式化指定时间
+     * 格式化为 ISO-8601 UTC 时间，如 2024-01-02T03:04:05.678Z
      *
-     * @param desFormat 指定格式
-     * @param desTime   指定时间
+     * @param desTime 指定时间
      * @return 返回格式
-     * @exception IllegalArgumentException if desFormat or desTime is invalid
      */
-    public static String formatTime(String desFormat, long desTime) {
-        if (TextUtils.isEmpty(desFormat) || desTime <= 0) return null;
-        SimpleDateFormat format = new SimpleDateFormat(desFormat, Locale.CHINA);
-        return format.format(desTime);
+    public static String formatIsoTime(long desTime) {
+        return Iso8601.format(desTime);
     }
 
     /**
-     * 根据目标格式和目标格式化时间获取时间戳
+     * 社区时间的文字描述：（HH为24小时制，hh为12小时制）
+     * "刚刚"、"x分钟前"、"今天/昨天/前天 HH:mm"、"MM月dd日 HH:mm"（今年）、"yyyy年MM月dd日 HH:mm"（非今年）
      *
-     * @param desFormat 目标格式
-     * @param desTime   目标时间
-     * @return 获取时间戳
-     * @exception IllegalArgumentException if desFormat or desTime is invalid
+     * @param timeStamp 时间戳
+     * @return 返回格式化
+     * @see RelativeTimeFormatter
      */
-    public static long getTimeStamp(String desFormat, String desTime) {
-        if (TextUtils.isEmpty(desFormat) || TextUtils.isEmpty(desTime)) return -2;
-        SimpleDateFormat sdf = new SimpleDateFormat(desFormat, Locale.CHINA);
-        Date date;
-        try {
-            date = sdf.parse(desTime);
-        } catch (ParseException e) {
-            e.printStackTrace();
-            return 0;
-        }
-        return date == null ? -1 : date.getTime();
+    public static String formatTimeForZone(long timeStamp) {
+        return RelativeTimeFormatter.getChinese().format(timeStamp);
     }
 
     /**
-     * 社区时间的文字描述：（HH为24小时制，hh为12小时制）
-     * "刚刚"、"x分钟前"、"今天/昨天/前天 HH:mm"、"MM月dd日 HH:mm"（今年）、"yyyy年MM月dd日 HH:mm"（非今年）
+     * 指定语言的社区时间描述
      *
      * @param timeStamp 时间戳
+     * @param locale    语言，中文以外使用英文文案
      * @return 返回格式化
-     * @exception IllegalArgumentException if timeStamp is invalid
      */
-    public static String formatTimeForZone(long timeStamp) {
-        if (timeStamp <= 0) return null;
-        long currentTime = System.currentTimeMillis();
-        long timePassed = currentTime - timeStamp;
-        String updateAtValue = "";
-        if (timePassed < ONE_MINUTE) {
-            //一分钟内
-            updateAtValue = "刚刚";
-        } else if (timePassed < ONE_HOUR) {
-            //几分钟内
-            long timeIntoFormat = timePassed / ONE_MINUTE;
-            updateAtValue = timeIntoFormat + "分钟前";
-        } else if (timePassed < TWO_DAY) {
-            //两天内
-            Calendar calendar = Calendar.getInstance();
-            calendar.setTime(new Date());
-            calendar.set(Calendar.HOUR_OF_DAY, 0);
-            calendar.set(Calendar.MINUTE, 0);
-            calendar.set(Calendar.SECOND, 0);
-            Date date = calendar.getTime();
-            long timeIntoFormat = date.getTime();
-            if (timeStamp < timeIntoFormat) {
-                //昨天
-                updateAtValue = "昨天 " + formatTime("HH:mm", timeStamp);
-            } else {
-                //今天
-                updateAtValue = "今天 " + formatTime("HH:mm", timeStamp);
-            }
-        } else if (timePassed < THREE_DAY) {
-            //在前天
-            updateAtValue = "前天 " + formatTime("HH:mm", timeStamp);
-        } else if (timePassed < ONE_YEAR) {
-            //一年以内
-            Calendar calendar = Calendar.getInstance();
-            calendar.setTime(new Date());
-            calendar.set(Calendar.YEAR, 0);
-            calendar.set(Calendar.HOUR_OF_DAY, 0);
-            calendar.set(Calendar.MINUTE, 0);
-            calendar.set(Calendar.SECOND, 0);
-            Date date = calendar.getTime();
-            long timeIntoFormat = date.getTime();
-            if (timeStamp < timeIntoFormat) {
-                //去年
-                updateAtValue = formatTime("yyyy年MM月dd日 HH:mm", timeStamp);
-            } else {
-                //今年
-                updateAtValue = formatTime("MM月dd日 HH:mm", timeStamp);
-            }
-        } else {
-            //大于一年
-            updateAtValue = formatTime("yyyy年MM月dd日 HH:mm", timeStamp);
-        }
-        return updateAtValue;
+    public static String formatTimeForZone(long timeStamp, @NonNull Locale locale) {
+        return RelativeTimeFormatter.forLocale(locale).format(timeStamp);
+    }
+
+    /**
+     * 批量社区时间描述，一页列表共用一次当前时间
+     *
+     * @param timeStamps 时间戳
+     * @return 对应的描述，<=0的位置为null
+     */
+    public static String[] formatTimeForZone(@NonNull long[] timeStamps) {
+        return RelativeTimeFormatter.getChinese().format(timeStamps);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,489 @@
+package com.hsj.common.utils;
+
+import android.os.Build;
+import android.os.FileObserver;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:DirectoryIndex
+ * @Desc:目录增量索引与变化监听
+ */
+public final class DirectoryIndex {
+
+    //////////////////////////////////////////////////////////////
+    // DirectoryIndex 功能如下：
+    //     1、记录目录下每个文件的相对路径、大小、修改时间、可选MD5，持久化到索引文件
+    //     2、startWatching 为每个目录注册 FileObserver，事件只记录变化的路径；
+    //        refresh 只检查这些路径，耗时与变化文件数成正比
+    //     3、未监听(或进程重启)时 rescan：只stat已知文件，只列举修改时间变化的目录
+    //     4、scan/rescan/refresh 返回 Diff(新增、删除、修改)
+    //
+    // 用法：load() -> startWatching() -> rescan() -> 之后按需 refresh() -> save()
+    // 注意：inotify队列溢出时 FileObserver 会丢事件，长时间后台后建议 rescan()
+    //////////////////////////////////////////////////////////////
+
+    private static final int MAGIC = 0x44495831;
+    private static final int VERSION = 1;
+
+    private static final int WATCH_MASK = FileObserver.CREATE | FileObserver.DELETE | FileObserver.MODIFY
+            | FileObserver.CLOSE_WRITE | FileObserver.ATTRIB | FileObserver.MOVED_FROM | FileObserver.MOVED_TO
+            | FileObserver.DELETE_SELF | FileObserver.MOVE_SELF;
+
+    /**
+     * 索引中的文件
+     */
+    public static final class Entry {
+
+        /**
+         * 相对root的路径，'/'分隔
+         */
+        public final String path;
+        public final long size;
+        public final long lastModified;
+
+        /**
+         * 内容MD5，未开启时为null
+         */
+        @Nullable
+        public final String hash;
+
+        private Entry(String path, long size, long lastModified, String hash) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * 两次检查之间的变化(相对路径)
+     */
+    public static final class Diff {
+
+        public final List<String> added = new ArrayList<>();
+        public final List<String> removed = new ArrayList<>();
+        public final List<String> modified = new ArrayList<>();
+
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty() && modified.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "Diff[added=" + added.size() + ", removed=" + removed.size() + ", modified=" + modified.size() + "]";
+        }
+    }
+
+    private final File root;
+    private final File indexFile;
+    private final boolean hashContent;
+
+    /**
+     * 文件相对路径 -> Entry
+     */
+    private final HashMap<String, Entry> files = new HashMap<>();
+
+    /**
+     * 目录相对路径("" 为root) -> 修改时间
+     */
+    private final HashMap<String, Long> dirs = new HashMap<>();
+
+    /**
+     * 监听到变化的相对路径，由自身加锁
+     */
+    private final Set<String> dirty = new HashSet<>();
+
+    /**
+     * 目录相对路径 -> FileObserver(必须强引用)
+     */
+    private final Map<String, FileObserver> observers = new HashMap<>();
+
+    private volatile boolean watching;
+    private volatile Runnable onDirty;
+
+    /**
+     * @param root        索引的目录
+     * @param indexFile   索引文件(不要放在root内)
+     * @param hashContent 是否记录内容MD5(只对新增/修改的文件计算)
+     */
+    public DirectoryIndex(@NonNull File root, @NonNull File indexFile, boolean hashContent) {
+        this.root = root;
+        this.indexFile = indexFile;
+        this.hashContent = hashContent;
+    }
+
+    public File getRoot() {
+        return root;
+    }
+
+    @Nullable
+    public synchronized Entry get(@NonNull String path) {
+        return files.get(path);
+    }
+
+    public synchronized int size() {
+        return files.size();
+    }
+
+    /**
+     * @return 全部文件的快照
+     */
+    @NonNull
+    public synchronized List<Entry> entries() {
+        return new ArrayList<>(files.values());
+    }
+
+//======================================Scan========================================================
+
+    /**
+     * 全量扫描：列举所有目录
+     *
+     * @return 与当前索引的差异
+     */
+    @NonNull
+    public synchronized Diff scan() {
+        return rescan(true);
+    }
+
+    /**
+     * 基于修改时间的扫描：stat已知文件，只列举修改时间变化的目录
+     *
+     * @return 与当前索引的差异
+     */
+    @NonNull
+    public Diff rescan() {
+        return rescan(false);
+    }
+
+    private synchronized Diff rescan(boolean full) {
+        Diff diff = new Diff();
+        Tracer.begin("DirectoryIndex.rescan");
+        try {
+            synchronized (dirty) {
+                dirty.clear();
+            }
+            Iterator<Map.Entry<String, Entry>> iterator = files.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next().getValue();
+                File file = fileOf(entry.path);
+                if (!file.isFile()) {
+                    iterator.remove();
+                    diff.removed.add(entry.path);
+                } else if (file.length() != entry.size || file.lastModified() != entry.lastModified) {
+                    putFile(entry.path, file);
+                    diff.modified.add(entry.path);
+                }
+            }
+            List<String> known = new ArrayList<>(dirs.keySet());
+            if (known.isEmpty()) known.add("");
+            for (String path : known) {
+                if (!dirs.containsKey(path) && !path.isEmpty()) continue;
+                File dir = fileOf(path);
+                if (!dir.isDirectory()) {
+                    removeDir(path, diff);
+                } else {
+                    Long mtime = dirs.get(path);
+                    if (full || mtime == null || mtime != dir.lastModified()) listDir(path, dir, full, diff);
+                }
+            }
+        } finally {
+            Tracer.end();
+        }
+        return diff;
+    }
+
+    /**
+     * 列举目录：新文件加入，新子目录递归加入
+     *
+     * @param recursive 已知子目录是否也列举
+     */
+    private void listDir(String path, File dir, boolean recursive, Diff diff) {
+        dirs.put(path, dir.lastModified());
+        if (watching) watchDir(path);
+        File[] children = dir.listFiles();
+        if (children == null) return;
+        for (File child : children) {
+            String childPath = path.isEmpty() ? child.getName() : path + "/" + child.getName();
+            if (child.isDirectory()) {
+                if (recursive || !dirs.containsKey(childPath)) listDir(childPath, child, recursive, diff);
+            } else if (!files.containsKey(childPath)) {
+                putFile(childPath, child);
+                diff.added.add(childPath);
+            }
+        }
+    }
+
+    /**
+     * 目录被删除：移除其下全部文件和目录
+     */
+    private void removeDir(String path, Diff diff) {
+        String prefix = path + "/";
+        dirs.remove(path);
+        unwatchDir(path);
+        Iterator<String> dirIterator = dirs.keySet().iterator();
+        while (dirIterator.hasNext()) {
+            String child = dirIterator.next();
+            if (child.startsWith(prefix)) {
+                dirIterator.remove();
+                unwatchDir(child);
+            }
+        }
+        Iterator<String> fileIterator = files.keySet().iterator();
+        while (fileIterator.hasNext()) {
+            String child = fileIterator.next();
+            if (child.startsWith(prefix)) {
+                fileIterator.remove();
+                diff.removed.add(child);
+            }
+        }
+    }
+
+    private void putFile(String path, File file) {
+        String hash = hashContent ? EncryptUtils.encryptMD5File2String(file) : null;
+        files.put(path, new Entry(path, file.length(), file.lastModified(), hash));
+    }
+
+    private File fileOf(String path) {
+        return path.isEmpty() ? root : new File(root, path);
+    }
+
+//======================================Watch=======================================================
+
+    /**
+     * 开始监听已索引的目录，新目录在 refresh/rescan 时自动加入
+     */
+    public synchronized void startWatching() {
+        if (watching) return;
+        watching = true;
+        if (dirs.isEmpty()) dirs.put("", root.lastModified());
+        for (String path : dirs.keySet()) {
+            watchDir(path);
+        }
+    }
+
+    public synchronized void stopWatching() {
+        watching = false;
+        for (FileObserver observer : observers.values()) {
+            observer.stopWatching();
+        }
+        observers.clear();
+    }
+
+    public boolean isWatching() {
+        return watching;
+    }
+
+    /**
+     * 有新变化时回调(每次 refresh 之后第一次变化回调一次)，在 FileObserver 线程执行
+     *
+     * @param onDirty 回调，null取消
+     */
+    public void setOnDirtyListener(@Nullable Runnable onDirty) {
+        this.onDirty = onDirty;
+    }
+
+    /**
+     * 是否有未处理的变化
+     */
+    public boolean isDirty() {
+        synchronized (dirty) {
+            return !dirty.isEmpty();
+        }
+    }
+
+    private void watchDir(String path) {
+        if (observers.containsKey(path)) return;
+        FileObserver observer = Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q
+                ? new DirObserver(fileOf(path), path) : new DirObserver(fileOf(path).getPath(), path);
+        observers.put(path, observer);
+        observer.startWatching();
+    }
+
+    private void unwatchDir(String path) {
+        FileObserver observer = observers.remove(path);
+        if (observer != null) observer.stopWatching();
+    }
+
+    private void markDirty(String path) {
+        boolean first;
+        synchronized (dirty) {
+            first = dirty.isEmpty();
+            dirty.add(path);
+        }
+        Runnable callback = onDirty;
+        if (first && callback != null) callback.run();
+    }
+
+    /**
+     * 增量更新：监听中只检查变化的路径，否则退化为 rescan
+     *
+     * @return 与当前索引的差异
+     */
+    @NonNull
+    public synchronized Diff refresh() {
+        if (!watching) return rescan(false);
+        List<String> paths;
+        synchronized (dirty) {
+            paths = new ArrayList<>(dirty);
+            dirty.clear();
+        }
+        Diff diff = new Diff();
+        if (paths.isEmpty()) return diff;
+        Collections.sort(paths);
+        for (String path : paths) {
+            File file = fileOf(path);
+            if (file.isFile()) {
+                Entry entry = files.get(path);
+                if (entry == null) {
+                    if (dirs.containsKey(path)) removeDir(path, diff);
+                    putFile(path, file);
+                    diff.added.add(path);
+                } else if (file.length() != entry.size || file.lastModified() != entry.lastModified) {
+                    putFile(path, file);
+                    diff.modified.add(path);
+                }
+            } else if (file.isDirectory()) {
+                if (files.remove(path) != null) diff.removed.add(path);
+                if (!dirs.containsKey(path)) {
+                    listDir(path, file, true, diff);
+                } else {
+                    dirs.put(path, file.lastModified());
+                }
+            } else if (files.remove(path) != null) {
+                diff.removed.add(path);
+            } else if (dirs.containsKey(path)) {
+                removeDir(path, diff);
+            }
+        }
+        return diff;
+    }
+
+//======================================Persist=====================================================
+
+    /**
+     * 从索引文件加载
+     *
+     * @return 是否加载成功(文件不存在、格式或root不一致时返回false并清空)
+     */
+    public synchronized boolean load() {
+        files.clear();
+        dirs.clear();
+        if (!indexFile.isFile()) return false;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile), BufferPool.IO_BUFFER_SIZE));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return false;
+            if (!root.getAbsolutePath().equals(in.readUTF())) return false;
+            int dirCount = in.readInt();
+            for (int i = 0; i < dirCount; i++) {
+                dirs.put(in.readUTF(), in.readLong());
+            }
+            int fileCount = in.readInt();
+            for (int i = 0; i < fileCount; i++) {
+                String path = in.readUTF();
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                String hash = in.readUTF();
+                files.put(path, new Entry(path, size, lastModified, hash.isEmpty() ? null : hash));
+            }
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            files.clear();
+            dirs.clear();
+            return false;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * 保存到索引文件(原子替换)
+     *
+     * @return 结果
+     */
+    public synchronized boolean save() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + files.size() * 48);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(root.getAbsolutePath());
+            out.writeInt(dirs.size());
+            for (Map.Entry<String, Long> entry : dirs.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+            out.writeInt(files.size());
+            for (Entry entry : files.values()) {
+                out.writeUTF(entry.path);
+                out.writeLong(entry.size);
+                out.writeLong(entry.lastModified);
+                out.writeUTF(entry.hash == null ? "" : entry.hash);
+            }
+            out.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        File dir = indexFile.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) return false;
+        return FileUtils.saveFile(indexFile, bytes.toByteArray());
+    }
+
+    /**
+     * 单个目录的监听，事件路径转为相对根目录的路径
+     */
+    private final class DirObserver extends FileObserver {
+
+        private final String path;
+
+        @RequiresApi(Build.VERSION_CODES.Q)
+        private DirObserver(File dir, String path) {
+            super(dir, WATCH_MASK);
+            this.path = path;
+        }
+
+        /**
+         * API 29 以下只有 String 构造
+         */
+        @SuppressWarnings("deprecation")
+        private DirObserver(String dir, String path) {
+            super(dir, WATCH_MASK);
+            this.path = path;
+        }
+
+        @Override
+        public void onEvent(int event, @Nullable String name) {
+            markDirty(name == null ? path : path.isEmpty() ? name : path + "/" + name);
+        }
+    }
+
+}
@@ -0,0 +1,739 @@
+package com.hsj.common.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:DiskCache
+ * @Desc:磁盘LRU缓存
+ */
+public final class DiskCache implements Closeable {
+
+    //////////////////////////////////////////////////////////////
+    // DiskCache 功能如下：
+    //     1、key经 EncryptUtils MD5 作为文件名，不限制key字符
+    //     2、日志文件(journal)记录提交/删除/访问，启动时重放恢复LRU顺序，不扫描目录
+    //     3、总大小、条目数上限，超出后在IO线程后台淘汰最久未访问的条目
+    //     4、写入先写 tmp/ 下的临时文件，commit时rename，读取方看不到半个文件
+    //     5、按key分段读写锁：同一key读读并发、读写互斥，不同key互不影响
+    //     6、命中/未命中/写入/淘汰计数
+    //     7、读取只在内存中调整LRU顺序，访问记录攒批(或在下一条提交/删除前)写入journal
+    //     8、open 时删除journal中没有记录的条目文件(rename后、写C行前进程被杀留下的)
+    //
+    // journal格式：
+    //     libcommon.DiskCache
+    //     1
+    //     C <hash> <size>   提交
+    //     R <hash>          删除
+    //     A <hash>          访问
+    //
+    // 说明：进程被杀时最多丢失一批访问记录，只影响淘汰顺序，不影响数据
+    //      journal 头部不是本类写入的，open 失败且不删除任何文件
+    //////////////////////////////////////////////////////////////
+
+    private static final String MAGIC = "libcommon.DiskCache";
+    private static final String VERSION = "1";
+    private static final String JOURNAL = "journal";
+    private static final String JOURNAL_TMP = "journal.tmp";
+    private static final String TEMP_DIR = "tmp";
+
+    private static final char OP_COMMIT = 'C';
+    private static final char OP_REMOVE = 'R';
+    private static final char OP_ACCESS = 'A';
+
+    /**
+     * 冗余日志行超过该值(且超过条目数)时重写journal
+     */
+    private static final int REBUILD_THRESHOLD = 2000;
+
+    /**
+     * 未写入journal的访问记录达到该数量时批量写入
+     */
+    private static final int ACCESS_BATCH = 64;
+
+    /**
+     * 分段锁数量(2的幂)
+     */
+    private static final int STRIPES = 32;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * 目录 -> 实例，同一目录只能有一个实例
+     */
+    private static final Map<String, DiskCache> INSTANCES = new HashMap<>();
+
+    private final File dir;
+    private final File tempDir;
+    private final long maxSize;
+    private final int maxCount;
+
+    /**
+     * hash -> 条目，访问顺序(最久未访问在前)，由this保护
+     */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 尚未写入journal的访问，按最后访问顺序，由this保护
+     */
+    private final LinkedHashSet<String> accessed = new LinkedHashSet<>();
+
+    private final ReentrantReadWriteLock[] locks = new ReentrantReadWriteLock[STRIPES];
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong putCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicInteger tempCounter = new AtomicInteger();
+    private final AtomicBoolean trimming = new AtomicBoolean();
+
+    private final Runnable trimTask = () -> {
+        try {
+            trimToLimit();
+        } finally {
+            trimming.set(false);
+        }
+        if (overLimit()) scheduleTrim();
+    };
+
+    private Writer journal;
+    private long size;
+    private int redundant;
+    private boolean closed;
+
+    private DiskCache(File dir, long maxSize, int maxCount) throws IOException {
+        this.dir = dir;
+        this.tempDir = new File(dir, TEMP_DIR);
+        this.maxSize = maxSize;
+        this.maxCount = maxCount;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+        open();
+    }
+
+    /**
+     * 打开缓存目录
+     *
+     * @param dir      缓存目录
+     * @param maxSize  总大小上限/字节
+     * @param maxCount 条目数上限
+     * @return 实例(同一目录返回同一实例，上限以第一次打开为准)
+     * @throws IOException 创建失败
+     */
+    public static DiskCache open(@NonNull File dir, long maxSize, int maxCount) throws IOException {
+        if (maxSize <= 0 || maxCount <= 0) throw new IllegalArgumentException("maxSize/maxCount <= 0");
+        String path = dir.getAbsolutePath();
+        synchronized (INSTANCES) {
+            DiskCache cache = INSTANCES.get(path);
+            if (cache == null || cache.closed) {
+                cache = new DiskCache(dir, maxSize, maxCount);
+                INSTANCES.put(path, cache);
+            }
+            return cache;
+        }
+    }
+
+//======================================Read========================================================
+
+    /**
+     * 读取
+     *
+     * @param key key
+     * @return 内容，不存在返回null
+     */
+    @Nullable
+    public byte[] get(@NonNull String key) {
+        String hash = hash(key);
+        synchronized (this) {
+            if (closed || entries.get(hash) == null) {
+                missCount.incrementAndGet();
+                return null;
+            }
+            recordAccess(hash);
+        }
+        ReentrantReadWriteLock lock = lockFor(hash);
+        byte[] data;
+        lock.readLock().lock();
+        try {
+            File file = fileFor(hash);
+            data = file.exists() ? FileUtils.readFile(file) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (data == null) {
+            // 文件被外部删除，修正索引
+            synchronized (this) {
+                removeEntry(hash);
+            }
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        return data;
+    }
+
+    public synchronized boolean contains(@NonNull String key) {
+        return entries.containsKey(hash(key));
+    }
+
+//======================================Write=======================================================
+
+    /**
+     * 写入
+     *
+     * @param key  key
+     * @param data 内容
+     * @return 结果
+     */
+    public boolean put(@NonNull String key, @NonNull byte[] data) {
+        Editor editor = edit(key);
+        if (editor == null) return false;
+        FileChannel fc = null;
+        try {
+            fc = new FileOutputStream(editor.getFile()).getChannel();
+            FileUtils.writeFully(fc, ByteBuffer.wrap(data), 0);
+            fc.close();
+            fc = null;
+            return editor.commit();
+        } catch (IOException e) {
+            e.printStackTrace();
+            close(fc);
+            editor.abort();
+            return false;
+        }
+    }
+
+    /**
+     * 从输入流写入
+     *
+     * @param key key
+     * @param in  输入流(不关闭)
+     * @return 结果
+     */
+    public boolean put(@NonNull String key, @NonNull InputStream in) {
+        Editor editor = edit(key);
+        if (editor == null) return false;
+        if (FileUtils.saveFile(editor.getFile(), in, FileUtils.DURABILITY_NONE) < 0) {
+            editor.abort();
+            return false;
+        }
+        return editor.commit();
+    }
+
+    /**
+     * 开始编辑：向 {@link Editor#getFile()} 写入后commit，commit前读取方看到的仍是旧值
+     *
+     * @param key key
+     * @return Editor，已关闭时返回null
+     */
+    @Nullable
+    public Editor edit(@NonNull String key) {
+        synchronized (this) {
+            if (closed) return null;
+        }
+        if (!tempDir.isDirectory() && !tempDir.mkdirs()) {
+            Logger.w("DiskCache mkdirs failed -> " + tempDir.getAbsolutePath());
+            return null;
+        }
+        String hash = hash(key);
+        return new Editor(hash, new File(tempDir, hash + "." + tempCounter.incrementAndGet()));
+    }
+
+    /**
+     * 删除
+     *
+     * @param key key
+     * @return 是否存在
+     */
+    public boolean remove(@NonNull String key) {
+        String hash = hash(key);
+        synchronized (this) {
+            if (!removeEntry(hash)) return false;
+        }
+        deleteFile(hash);
+        return true;
+    }
+
+    /**
+     * 清空全部条目
+     */
+    public void clear() {
+        String[] hashes;
+        synchronized (this) {
+            hashes = entries.keySet().toArray(new String[0]);
+            for (String hash : hashes) {
+                removeEntry(hash);
+            }
+        }
+        for (String hash : hashes) {
+            deleteFile(hash);
+        }
+    }
+
+    /**
+     * 编辑，写入临时文件后原子提交
+     */
+    public final class Editor {
+
+        private final String hash;
+        private final File file;
+        private boolean done;
+
+        private Editor(String hash, File file) {
+            this.hash = hash;
+            this.file = file;
+        }
+
+        /**
+         * @return 写入目标(临时文件)
+         */
+        @NonNull
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * 提交：rename替换旧值并写入journal
+         *
+         * @return 结果
+         */
+        public boolean commit() {
+            if (done) return false;
+            done = true;
+            if (!file.exists()) return false;
+            long length = file.length();
+            ReentrantReadWriteLock lock = lockFor(hash);
+            lock.writeLock().lock();
+            try {
+                synchronized (DiskCache.this) {
+                    if (closed || !file.renameTo(fileFor(hash))) {
+                        deleteTemp(file);
+                        return false;
+                    }
+                    Long old = entries.put(hash, length);
+                    if (old != null) {
+                        size -= old;
+                        redundant++;
+                    }
+                    size += length;
+                    appendJournal(OP_COMMIT, hash, length);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            putCount.incrementAndGet();
+            if (overLimit()) scheduleTrim();
+            return true;
+        }
+
+        /**
+         * 放弃编辑
+         */
+        public void abort() {
+            if (done) return;
+            done = true;
+            deleteTemp(file);
+        }
+    }
+
+//======================================Trim========================================================
+
+    private synchronized boolean overLimit() {
+        return size > maxSize || entries.size() > maxCount;
+    }
+
+    private void scheduleTrim() {
+        if (!trimming.compareAndSet(false, true)) return;
+        try {
+            ThreadManager.executeOnIoPool(trimTask);
+        } catch (RejectedExecutionException e) {
+            trimming.set(false);
+        }
+    }
+
+    /**
+     * 淘汰最久未访问的条目直到满足上限
+     */
+    public void trimToLimit() {
+        while (true) {
+            String hash;
+            synchronized (this) {
+                if (closed || (size <= maxSize && entries.size() <= maxCount)) return;
+                Iterator<String> iterator = entries.keySet().iterator();
+                if (!iterator.hasNext()) return;
+                hash = iterator.next();
+                removeEntry(hash);
+            }
+            deleteFile(hash);
+            evictionCount.incrementAndGet();
+        }
+    }
+
+//======================================Journal=====================================================
+
+    private void open() throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("mkdirs failed: " + dir);
+        // 上次未提交的临时文件统一在tmp目录，直接整体删除
+        if (tempDir.exists()) FileTree.delete(tempDir);
+        File file = new File(dir, JOURNAL);
+        if (file.exists()) {
+            try {
+                readJournal(file);
+            } catch (ForeignJournalException e) {
+                throw e;
+            } catch (IOException e) {
+                Logger.w("DiskCache journal corrupt, clear -> " + dir.getAbsolutePath() + ", " + e.getMessage());
+                entries.clear();
+                size = 0;
+                deleteOwnFiles();
+            }
+        }
+        sweepOrphans();
+        if (file.exists() && redundant < REBUILD_THRESHOLD) {
+            journal = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), UTF_8));
+        } else {
+            rebuildJournal();
+        }
+    }
+
+    /**
+     * 重放journal，最后一行不完整(进程被杀)时忽略
+     */
+    private void readJournal(File file) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
+        try {
+            String magic = reader.readLine();
+            if (magic != null && !MAGIC.equals(magic)) {
+                throw new ForeignJournalException("not a DiskCache journal: " + file);
+            }
+            if (magic == null || !VERSION.equals(reader.readLine())) {
+                throw new IOException("unexpected journal header");
+            }
+            String line;
+            int lines = 0;
+            while ((line = reader.readLine()) != null) {
+                lines++;
+                if (line.length() < 3 || line.charAt(1) != ' ') continue;
+                char op = line.charAt(0);
+                int space = line.indexOf(' ', 2);
+                String hash = space < 0 ? line.substring(2) : line.substring(2, space);
+                if (op == OP_COMMIT) {
+                    if (space < 0) continue;
+                    long length;
+                    try {
+                        length = Long.parseLong(line.substring(space + 1));
+                    } catch (NumberFormatException e) {
+                        continue;
+                    }
+                    Long old = entries.put(hash, length);
+                    if (old != null) size -= old;
+                    size += length;
+                } else if (op == OP_REMOVE) {
+                    Long old = entries.remove(hash);
+                    if (old != null) size -= old;
+                } else if (op == OP_ACCESS) {
+                    entries.get(hash);
+                }
+            }
+            redundant = lines - entries.size();
+        } finally {
+            close(reader);
+        }
+    }
+
+    /**
+     * 按当前LRU顺序重写journal，写临时文件后rename
+     * 旧的journal写入器直到rename成功后才关闭，写入或rename失败(如磁盘已满)时继续使用旧journal
+     */
+    private void rebuildJournal() throws IOException {
+        if (journal != null) journal.flush();
+        File tmp = new File(dir, JOURNAL_TMP);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), UTF_8));
+        try {
+            writer.write(MAGIC);
+            writer.write('\n');
+            writer.write(VERSION);
+            writer.write('\n');
+            for (Map.Entry<String, Long> entry : entries.entrySet()) {
+                writer.write(OP_COMMIT);
+                writer.write(' ');
+                writer.write(entry.getKey());
+                writer.write(' ');
+                writer.write(Long.toString(entry.getValue()));
+                writer.write('\n');
+            }
+            writer.close();
+        } catch (IOException e) {
+            close(writer);
+            deleteTemp(tmp);
+            throw e;
+        }
+        File file = new File(dir, JOURNAL);
+        if (!tmp.renameTo(file)) {
+            deleteTemp(tmp);
+            throw new IOException("rename failed: " + tmp);
+        }
+        close(journal);
+        journal = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), UTF_8));
+        redundant = 0;
+        // 重写后的顺序已包含全部访问
+        accessed.clear();
+    }
+
+    /**
+     * 删除本缓存创建的文件(条目文件、journal、tmp目录)，目录中的其他文件保留
+     */
+    private void deleteOwnFiles() {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            String name = file.getName();
+            if (TEMP_DIR.equals(name)) {
+                FileTree.delete(file);
+            } else if ((JOURNAL.equals(name) || JOURNAL_TMP.equals(name) || isEntryName(name)) && file.isFile()) {
+                deleteTemp(file);
+            }
+        }
+    }
+
+    /**
+     * 删除journal中没有记录的条目文件：commit 在rename之后才写C行，
+     * 两者之间进程被杀会留下不计入大小、永远不会被淘汰的文件
+     */
+    private void sweepOrphans() {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        int count = 0;
+        for (File file : files) {
+            String name = file.getName();
+            if (isEntryName(name) && !entries.containsKey(name) && file.isFile()) {
+                deleteTemp(file);
+                count++;
+            }
+        }
+        if (count > 0) Logger.w("DiskCache removed " + count + " orphan files -> " + dir.getAbsolutePath());
+    }
+
+    /**
+     * 条目文件名：32位大写十六进制(MD5)
+     */
+    private static boolean isEntryName(String name) {
+        if (name.length() != 32) return false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'A' || c > 'F')) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 记录一次访问，攒够一批再写journal，调用方持有this
+     */
+    private void recordAccess(String hash) {
+        // 重新插入，保持最后访问在后
+        accessed.remove(hash);
+        accessed.add(hash);
+        if (accessed.size() >= ACCESS_BATCH) flushAccesses(true);
+    }
+
+    /**
+     * 把未写入的访问记录写入journal，调用方持有this
+     *
+     * @param flush 是否立即刷到文件(提交/删除行随后会刷新时传false)
+     */
+    private void flushAccesses(boolean flush) {
+        if (journal == null || accessed.isEmpty()) return;
+        try {
+            for (String hash : accessed) {
+                journal.write(OP_ACCESS);
+                journal.write(' ');
+                journal.write(hash);
+                journal.write('\n');
+            }
+            redundant += accessed.size();
+            accessed.clear();
+            if (flush) journal.flush();
+            if (redundant >= REBUILD_THRESHOLD && redundant >= entries.size()) rebuildJournal();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 追加一行提交/删除journal(之前的访问记录先写入，保持顺序)，调用方持有this
+     */
+    private void appendJournal(char op, String hash, long length) {
+        flushAccesses(false);
+        if (journal == null) return;
+        try {
+            journal.write(op);
+            journal.write(' ');
+            journal.write(hash);
+            if (op == OP_COMMIT) {
+                journal.write(' ');
+                journal.write(Long.toString(length));
+            }
+            journal.write('\n');
+            journal.flush();
+            if (redundant >= REBUILD_THRESHOLD && redundant >= entries.size()) rebuildJournal();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 从索引删除并记录journal，调用方持有this
+     *
+     * @return 是否存在
+     */
+    private boolean removeEntry(String hash) {
+        Long old = entries.remove(hash);
+        if (old == null) return false;
+        size -= old;
+        redundant += 2;
+        appendJournal(OP_REMOVE, hash, -1);
+        return true;
+    }
+
+    /**
+     * 删除条目文件；期间同一key已被重新提交时保留
+     */
+    private void deleteFile(String hash) {
+        ReentrantReadWriteLock lock = lockFor(hash);
+        lock.writeLock().lock();
+        try {
+            synchronized (this) {
+                if (entries.containsKey(hash)) return;
+            }
+            File file = fileFor(hash);
+            if (file.exists() && !file.delete()) Logger.w("DiskCache delete failed -> " + file.getAbsolutePath());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+//======================================Metrics=====================================================
+
+    public synchronized long size() {
+        return size;
+    }
+
+    public synchronized int count() {
+        return entries.size();
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public int getMaxCount() {
+        return maxCount;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getPutCount() {
+        return putCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    public synchronized String toString() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return "DiskCache[size=" + size + "/" + maxSize
+                + ", count=" + entries.size() + "/" + maxCount
+                + ", hits=" + hits
+                + ", misses=" + missCount.get()
+                + ", hitRate=" + (total == 0 ? 0 : hits * 100 / total) + "%"
+                + ", puts=" + putCount.get()
+                + ", evictions=" + evictionCount.get() + "]";
+    }
+
+    /**
+     * 关闭，之后get返回null、put返回false
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        flushAccesses(true);
+        close(journal);
+        journal = null;
+    }
+
+//======================================Helper======================================================
+
+    private static String hash(String key) {
+        return EncryptUtils.encryptMD5ToString(key.getBytes(UTF_8));
+    }
+
+    private File fileFor(String hash) {
+        return new File(dir, hash);
+    }
+
+    private ReentrantReadWriteLock lockFor(String hash) {
+        return locks[hash.hashCode() & (STRIPES - 1)];
+    }
+
+    private static void deleteTemp(File file) {
+        if (file.exists() && !file.delete()) Logger.w("DiskCache delete failed -> " + file.getAbsolutePath());
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 目录中的journal不是本类写入的，拒绝打开，避免删除调用方的文件
+     */
+    private static final class ForeignJournalException extends IOException {
+
+        private ForeignJournalException(String message) {
+            super(message);
+        }
+    }
+
+}
@@ -0,0 +1,518 @@
+package com.hsj.common.utils;
+
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:EncryptedPreferences
+ * @Desc:AES-GCM加密的SharedPreferences
+ */
+public final class EncryptedPreferences implements SharedPreferences {
+
+    //////////////////////////////////////////////////////////////
+    // EncryptedPreferences 功能如下：
+    //     1、key 使用 HmacSHA256 哈希后存储，不暴露明文key
+    //     2、value 使用 AES/GCM/NoPadding 加密，密文内包含类型和原始key
+    //     3、Cipher、Mac 按线程复用，只在每次加解密时换IV重新init
+    //     4、解密结果缓存在内存，重复读取不再解密
+    //     5、SharedPrefer 的二进制值写入独立文件时，通过 encryptBytes/decryptBytes 同样加密，
+    //        原始key作为GCM附加认证数据，文件名为哈希key的MD5
+    //
+    // 存储格式：delegate.putString(hash(key), Base64(iv | ciphertext))
+    // 明文格式：byte type | int keyLength | key | value
+    //////////////////////////////////////////////////////////////
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final String HMAC = "HmacSHA256";
+    private static final int IV_SIZE = 12;
+    private static final int TAG_BITS = 128;
+
+    private static final byte TYPE_BOOLEAN = 1;
+    private static final byte TYPE_INT     = 2;
+    private static final byte TYPE_LONG    = 3;
+    private static final byte TYPE_FLOAT   = 4;
+    private static final byte TYPE_STRING  = 5;
+    private static final byte TYPE_SET     = 6;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * 缓存中表示不存在的值
+     */
+    private static final Object MISSING = new Object();
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final SharedPreferences delegate;
+    private final SecretKeySpec aesKey;
+    private final SecretKeySpec hmacKey;
+
+    private final ThreadLocal<Cipher> ciphers = new ThreadLocal<>();
+    private final ThreadLocal<Mac> macs = new ThreadLocal<>();
+
+    /**
+     * 原始key -> 哈希key
+     */
+    private final ConcurrentHashMap<String, String> hashedKeys = new ConcurrentHashMap<>();
+
+    /**
+     * 哈希key -> 原始key，用于监听回调
+     */
+    private final ConcurrentHashMap<String, String> originalKeys = new ConcurrentHashMap<>();
+
+    /**
+     * 原始key -> 解密后的值或MISSING
+     */
+    private final ConcurrentHashMap<String, Object> values = new ConcurrentHashMap<>();
+
+    /**
+     * 缓存版本，写入或失效时+1，读取期间变化则不缓存解密结果
+     */
+    private final AtomicInteger version = new AtomicInteger();
+
+    private final Map<OnSharedPreferenceChangeListener, OnSharedPreferenceChangeListener> listeners = new HashMap<>();
+
+    /**
+     * 其他途径修改delegate时使缓存失效
+     */
+    private final OnSharedPreferenceChangeListener invalidator = (sp, hashedKey) -> {
+        version.incrementAndGet();
+        if (hashedKey == null) {
+            values.clear();
+            return;
+        }
+        String key = originalKeys.get(hashedKey);
+        if (key != null) values.remove(key);
+    };
+
+    /**
+     * @param delegate 实际存储
+     * @param key      AES 秘钥，16、24、32 字节
+     */
+    public EncryptedPreferences(@NonNull SharedPreferences delegate, @NonNull byte[] key) {
+        this.delegate = delegate;
+        this.aesKey = new SecretKeySpec(key, "AES");
+        this.hmacKey = new SecretKeySpec(EncryptUtils.encryptHmacSHA256("prefer_key".getBytes(UTF_8), key), HMAC);
+        delegate.registerOnSharedPreferenceChangeListener(invalidator);
+    }
+
+    /**
+     * 加密存储引擎，包装已有引擎
+     *
+     * @param base 实际存储引擎
+     * @param key  AES 秘钥，16、24、32 字节
+     * @return Storage
+     */
+    public static SharedPrefer.Storage storage(@NonNull final SharedPrefer.Storage base, @NonNull final byte[] key) {
+        final byte[] copy = key.clone();
+        return (context, fileName) -> new EncryptedPreferences(base.open(context, fileName), copy);
+    }
+
+//======================================Read========================================================
+
+    @Override
+    public Map<String, ?> getAll() {
+        final int expected = version.get();
+        Map<String, Object> all = new HashMap<>();
+        for (Map.Entry<String, ?> entry : delegate.getAll().entrySet()) {
+            if (!(entry.getValue() instanceof String)) continue;
+            Object[] decoded = decrypt((String) entry.getValue());
+            if (decoded == null) continue;
+            String key = (String) decoded[0];
+            all.put(key, decoded[1]);
+            //与 read() 相同，不覆盖解密期间的写入
+            if (version.get() == expected) values.putIfAbsent(key, decoded[1]);
+        }
+        return all;
+    }
+
+    @Nullable
+    @Override
+    public String getString(String key, @Nullable String defValue) {
+        Object value = read(key);
+        return value == MISSING ? defValue : (String) value;
+    }
+
+    @Nullable
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<String> getStringSet(String key, @Nullable Set<String> defValues) {
+        Object value = read(key);
+        return value == MISSING ? defValues : (Set<String>) value;
+    }
+
+    @Override
+    public int getInt(String key, int defValue) {
+        Object value = read(key);
+        return value == MISSING ? defValue : (Integer) value;
+    }
+
+    @Override
+    public long getLong(String key, long defValue) {
+        Object value = read(key);
+        return value == MISSING ? defValue : (Long) value;
+    }
+
+    @Override
+    public float getFloat(String key, float defValue) {
+        Object value = read(key);
+        return value == MISSING ? defValue : (Float) value;
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean defValue) {
+        Object value = read(key);
+        return value == MISSING ? defValue : (Boolean) value;
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return read(key) != MISSING;
+    }
+
+    @Override
+    public Editor edit() {
+        return new EncryptedEditor();
+    }
+
+    @Override
+    public void registerOnSharedPreferenceChangeListener(final OnSharedPreferenceChangeListener listener) {
+        OnSharedPreferenceChangeListener wrapper = (sp, hashedKey) ->
+                listener.onSharedPreferenceChanged(this, hashedKey == null ? null : originalKeys.get(hashedKey));
+        synchronized (listeners) {
+            if (listeners.containsKey(listener)) return;
+            listeners.put(listener, wrapper);
+        }
+        delegate.registerOnSharedPreferenceChangeListener(wrapper);
+    }
+
+    @Override
+    public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        OnSharedPreferenceChangeListener wrapper;
+        synchronized (listeners) {
+            wrapper = listeners.remove(listener);
+        }
+        if (wrapper != null) delegate.unregisterOnSharedPreferenceChangeListener(wrapper);
+    }
+
+    /**
+     * 读取并缓存解密结果
+     * 解密期间的本地写入或外部修改优先：已有缓存不覆盖，版本变化时撤销本次缓存
+     */
+    private Object read(String key) {
+        Object value = values.get(key);
+        if (value != null) return value;
+        final int expected = version.get();
+        String stored = delegate.getString(hash(key), null);
+        Object[] decoded = stored == null ? null : decrypt(stored);
+        value = decoded == null || !key.equals(decoded[0]) ? MISSING : decoded[1];
+        Object existing = values.putIfAbsent(key, value);
+        if (existing != null) return existing;
+        if (version.get() != expected) values.remove(key, value);
+        return value;
+    }
+
+//======================================Crypto======================================================
+
+    /**
+     * key 哈希，结果缓存
+     */
+    private String hash(String key) {
+        String hashed = hashedKeys.get(key);
+        if (hashed != null) return hashed;
+        Mac mac = macs.get();
+        try {
+            if (mac == null) {
+                mac = Mac.getInstance(HMAC);
+                mac.init(hmacKey);
+                macs.set(mac);
+            }
+            hashed = Base64Codec.encode(mac.doFinal(key.getBytes(UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        hashedKeys.put(key, hashed);
+        originalKeys.put(hashed, key);
+        return hashed;
+    }
+
+    private Cipher cipher() throws GeneralSecurityException {
+        Cipher cipher = ciphers.get();
+        if (cipher == null) {
+            cipher = Cipher.getInstance(TRANSFORMATION);
+            ciphers.set(cipher);
+        }
+        return cipher;
+    }
+
+    @SuppressWarnings("unchecked")
+    private String encrypt(String key, Object value) {
+        byte[] keyBytes = key.getBytes(UTF_8);
+        byte type;
+        byte[] data;
+        if (value instanceof String) {
+            type = TYPE_STRING;
+            data = ((String) value).getBytes(UTF_8);
+        } else if (value instanceof Boolean) {
+            type = TYPE_BOOLEAN;
+            data = new byte[]{(byte) ((Boolean) value ? 1 : 0)};
+        } else if (value instanceof Integer) {
+            type = TYPE_INT;
+            data = ByteBuffer.allocate(4).putInt((Integer) value).array();
+        } else if (value instanceof Long) {
+            type = TYPE_LONG;
+            data = ByteBuffer.allocate(8).putLong((Long) value).array();
+        } else if (value instanceof Float) {
+            type = TYPE_FLOAT;
+            data = ByteBuffer.allocate(4).putFloat((Float) value).array();
+        } else {
+            type = TYPE_SET;
+            Set<String> set = (Set<String>) value;
+            int size = 4;
+            byte[][] items = new byte[set.size()][];
+            int i = 0;
+            for (String item : set) {
+                items[i] = item == null ? new byte[0] : item.getBytes(UTF_8);
+                size += 4 + items[i++].length;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(size).putInt(items.length);
+            for (byte[] item : items) {
+                buffer.putInt(item.length).put(item);
+            }
+            data = buffer.array();
+        }
+        ByteBuffer plain = ByteBuffer.allocate(1 + 4 + keyBytes.length + data.length);
+        plain.put(type).putInt(keyBytes.length).put(keyBytes).put(data);
+        try {
+            byte[] iv = new byte[IV_SIZE];
+            RANDOM.nextBytes(iv);
+            Cipher cipher = cipher();
+            cipher.init(Cipher.ENCRYPT_MODE, aesKey, new GCMParameterSpec(TAG_BITS, iv));
+            byte[] out = new byte[IV_SIZE + cipher.getOutputSize(plain.capacity())];
+            System.arraycopy(iv, 0, out, 0, IV_SIZE);
+            int length = cipher.doFinal(plain.array(), 0, plain.capacity(), out, IV_SIZE);
+            return Base64Codec.encode(out, 0, IV_SIZE + length);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 解密
+     *
+     * @return {原始key, 值}，失败返回null
+     */
+    private Object[] decrypt(String stored) {
+        try {
+            byte[] data = Base64Codec.decode(stored);
+            if (data == null || data.length <= IV_SIZE) return null;
+            Cipher cipher = cipher();
+            cipher.init(Cipher.DECRYPT_MODE, aesKey, new GCMParameterSpec(TAG_BITS, data, 0, IV_SIZE));
+            ByteBuffer plain = ByteBuffer.wrap(cipher.doFinal(data, IV_SIZE, data.length - IV_SIZE));
+            byte type = plain.get();
+            String key = readString(plain);
+            Object value;
+            switch (type) {
+                case TYPE_BOOLEAN:
+                    value = plain.get() != 0;
+                    break;
+                case TYPE_INT:
+                    value = plain.getInt();
+                    break;
+                case TYPE_LONG:
+                    value = plain.getLong();
+                    break;
+                case TYPE_FLOAT:
+                    value = plain.getFloat();
+                    break;
+                case TYPE_STRING:
+                    value = new String(plain.array(), plain.position(), plain.remaining(), UTF_8);
+                    break;
+                case TYPE_SET:
+                    int count = plain.getInt();
+                    Set<String> set = new HashSet<>(count * 2);
+                    for (int i = 0; i < count; i++) {
+                        set.add(readString(plain));
+                    }
+                    value = Collections.unmodifiableSet(set);
+                    break;
+                default:
+                    return null;
+            }
+            return new Object[]{key, value};
+        } catch (GeneralSecurityException | RuntimeException e) {
+            Logger.w("EncryptedPreferences", "decrypt failed", e);
+            return null;
+        }
+    }
+
+    /**
+     * 加密二进制值，原始key作为附加认证数据，密文不能挪给其它key
+     *
+     * @param key   原始key
+     * @param value 剩余内容，position不变
+     * @return iv | ciphertext
+     */
+    byte[] encryptBytes(String key, ByteBuffer value) {
+        try {
+            byte[] iv = new byte[IV_SIZE];
+            RANDOM.nextBytes(iv);
+            Cipher cipher = cipher();
+            cipher.init(Cipher.ENCRYPT_MODE, aesKey, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(key.getBytes(UTF_8));
+            byte[] out = new byte[IV_SIZE + cipher.getOutputSize(value.remaining())];
+            System.arraycopy(iv, 0, out, 0, IV_SIZE);
+            ByteBuffer output = ByteBuffer.wrap(out, IV_SIZE, out.length - IV_SIZE);
+            int length = cipher.doFinal(value.duplicate(), output);
+            return IV_SIZE + length == out.length ? out : Arrays.copyOf(out, IV_SIZE + length);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 解密 {@link #encryptBytes(String, ByteBuffer)} 的结果
+     *
+     * @return 明文，校验失败返回null
+     */
+    byte[] decryptBytes(String key, byte[] data) {
+        if (data == null || data.length <= IV_SIZE) return null;
+        try {
+            Cipher cipher = cipher();
+            cipher.init(Cipher.DECRYPT_MODE, aesKey, new GCMParameterSpec(TAG_BITS, data, 0, IV_SIZE));
+            cipher.updateAAD(key.getBytes(UTF_8));
+            return cipher.doFinal(data, IV_SIZE, data.length - IV_SIZE);
+        } catch (GeneralSecurityException e) {
+            Logger.w("EncryptedPreferences", "decrypt failed", e);
+            return null;
+        }
+    }
+
+    /**
+     * 独立文件名，不暴露原始key
+     */
+    String blobName(String key) {
+        return EncryptUtils.encryptMD5ToString(hash(key));
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String value = new String(buffer.array(), buffer.position(), length, UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /**
+     * Editor：提交时加密并一次写入delegate
+     */
+    private final class EncryptedEditor implements Editor {
+
+        private final Map<String, Object> changes = new LinkedHashMap<>();
+        private boolean clear;
+
+        @Override
+        public Editor putString(String key, @Nullable String value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putStringSet(String key, @Nullable Set<String> values) {
+            changes.put(key, values == null ? null : Collections.unmodifiableSet(new HashSet<>(values)));
+            return this;
+        }
+
+        @Override
+        public Editor putInt(String key, int value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putLong(String key, long value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putFloat(String key, float value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putBoolean(String key, boolean value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor remove(String key) {
+            changes.put(key, null);
+            return this;
+        }
+
+        @Override
+        public Editor clear() {
+            clear = true;
+            return this;
+        }
+
+        @Override
+        public boolean commit() {
+            return prepare().commit();
+        }
+
+        @Override
+        public void apply() {
+            prepare().apply();
+        }
+
+        private Editor prepare() {
+            Editor editor = delegate.edit();
+            version.incrementAndGet();
+            if (clear) {
+                editor.clear();
+                values.clear();
+            }
+            for (Map.Entry<String, Object> entry : changes.entrySet()) {
+                String key = entry.getKey();
+                Object value = entry.getValue();
+                if (value == null) {
+                    editor.remove(hash(key));
+                    values.put(key, MISSING);
+                } else {
+                    editor.putString(hash(key), encrypt(key, value));
+                    values.put(key, value);
+                }
+            }
+            changes.clear();
+            clear = false;
+            return editor;
+        }
+    }
+
+}
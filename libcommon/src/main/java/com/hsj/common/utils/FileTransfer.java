@@ -0,0 +1,323 @@
+package com.hsj.common.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:FileTransfer
+ * @Desc:可断点续传的分块文件复制
+ */
+public final class FileTransfer {
+
+    //////////////////////////////////////////////////////////////
+    // FileTransfer 功能如下：
+    //     1、分块复制到 dst.part，完成后force并rename为dst
+    //     2、每隔 checkpointInterval 字节force并保存断点(dst.part.ckpt)，
+    //        中断后再次run从断点继续；源文件大小或修改时间变化时从头开始
+    //     3、不计算校验和时使用 transferTo 零拷贝；
+    //        计算校验和时经复用的直接内存边读边算，不需要第二遍读取
+    //     4、setRateLimit 限速，后台复制不占满存储带宽
+    //     5、Progress 进度回调，FileTree.Token 取消(保留断点)
+    //
+    // 用法：
+    //     FileTransfer transfer = new FileTransfer(src, dst).setChecksum("SHA-256").setRateLimit(8 << 20);
+    //     if (transfer.run()) String sha256 = transfer.getChecksum();
+    //////////////////////////////////////////////////////////////
+
+    private static final String PART_SUFFIX = ".part";
+    private static final String CHECKPOINT_SUFFIX = ".ckpt";
+
+    private static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+    private static final long DEFAULT_CHECKPOINT_INTERVAL = 8 * 1024 * 1024;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * 进度回调，在run的调用线程执行
+     */
+    public interface Progress {
+
+        /**
+         * @param transferred 已完成字节数(包括续传前的部分)
+         * @param total       总字节数
+         */
+        void onProgress(long transferred, long total);
+    }
+
+    private final File src;
+    private final File dst;
+    private final File part;
+    private final File checkpoint;
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private long checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+    private long rateLimit;
+    private String algorithm;
+    private String expectedChecksum;
+    private Progress progress;
+    private FileTree.Token token;
+
+    private long transferred;
+    private String checksum;
+
+    public FileTransfer(@NonNull File src, @NonNull File dst) {
+        this.src = src;
+        this.dst = dst;
+        this.part = new File(dst.getPath() + PART_SUFFIX);
+        this.checkpoint = new File(part.getPath() + CHECKPOINT_SUFFIX);
+    }
+
+    /**
+     * @param chunkSize 单次读写字节数，默认1MB
+     */
+    public FileTransfer setChunkSize(int chunkSize) {
+        this.chunkSize = Math.max(4096, chunkSize);
+        return this;
+    }
+
+    /**
+     * @param interval 保存断点的间隔/字节，默认8MB
+     */
+    public FileTransfer setCheckpointInterval(long interval) {
+        this.checkpointInterval = Math.max(chunkSize, interval);
+        return this;
+    }
+
+    /**
+     * @param bytesPerSecond 限速/字节每秒，0表示不限
+     */
+    public FileTransfer setRateLimit(long bytesPerSecond) {
+        this.rateLimit = Math.max(0, bytesPerSecond);
+        return this;
+    }
+
+    /**
+     * 复制时计算校验和
+     *
+     * @param algorithm MessageDigest算法名，如 MD5、SHA-256，null表示不计算
+     */
+    public FileTransfer setChecksum(@Nullable String algorithm) {
+        this.algorithm = algorithm;
+        return this;
+    }
+
+    /**
+     * 期望的校验和，不一致时删除结果并返回失败
+     *
+     * @param algorithm MessageDigest算法名
+     * @param hex       16进制校验和(不区分大小写)
+     */
+    public FileTransfer setExpectedChecksum(@NonNull String algorithm, @NonNull String hex) {
+        this.algorithm = algorithm;
+        this.expectedChecksum = hex;
+        return this;
+    }
+
+    public FileTransfer setProgress(@Nullable Progress progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    public FileTransfer setToken(@Nullable FileTree.Token token) {
+        this.token = token;
+        return this;
+    }
+
+    /**
+     * @return 已完成字节数
+     */
+    public long getTransferred() {
+        return transferred;
+    }
+
+    /**
+     * @return 16进制校验和(大写)，未计算或未完成时为null
+     */
+    @Nullable
+    public String getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * 执行复制，阻塞直到完成、失败或取消；失败/取消后再次调用从断点继续
+     *
+     * @return 是否完成
+     */
+    public boolean run() {
+        if (!src.isFile()) return false;
+        File dir = dst.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) return false;
+        checksum = null;
+        FileInputStream in = null;
+        RandomAccessFile out = null;
+        ByteBuffer buffer = null;
+        Tracer.begin("FileTransfer.run");
+        try {
+            MessageDigest digest = algorithm == null ? null : MessageDigest.getInstance(algorithm);
+            in = new FileInputStream(src);
+            FileChannel input = in.getChannel();
+            long total = input.size();
+            long stamp = src.lastModified();
+            out = new RandomAccessFile(part, "rw");
+            FileChannel output = out.getChannel();
+            long position = resumePosition(total, stamp, output.size());
+            output.truncate(position);
+            if (digest != null) buffer = BufferPool.acquire(chunkSize);
+            if (digest != null && position > 0) digestPrefix(output, position, digest, buffer);
+            transferred = position;
+            long lastCheckpoint = position;
+            long start = System.nanoTime();
+            long startPosition = position;
+            while (position < total) {
+                if (token != null && token.isCancelled()) {
+                    output.force(false);
+                    saveCheckpoint(total, stamp, position);
+                    return false;
+                }
+                long count = Math.min(chunkSize, total - position);
+                if (digest == null) {
+                    count = input.transferTo(position, count, output);
+                    if (count <= 0) throw new IOException("transferTo returned " + count);
+                } else {
+                    buffer.clear();
+                    buffer.limit((int) count);
+                    count = FileUtils.readFully(input, buffer, position);
+                    if (count <= 0) throw new IOException("unexpected end of file: " + src);
+                    buffer.flip();
+                    digest.update(buffer);
+                    buffer.flip();
+                    FileUtils.writeFully(output, buffer, position);
+                }
+                position += count;
+                transferred = position;
+                if (progress != null) progress.onProgress(position, total);
+                if (position - lastCheckpoint >= checkpointInterval && position < total) {
+                    output.force(false);
+                    saveCheckpoint(total, stamp, position);
+                    lastCheckpoint = position;
+                }
+                throttle(start, position - startPosition);
+            }
+            output.force(false);
+            out.close();
+            out = null;
+            if (digest != null) {
+                checksum = EncryptUtils.bytes2HexString(digest.digest());
+                if (expectedChecksum != null && !expectedChecksum.equalsIgnoreCase(checksum)) {
+                    Logger.w("FileTransfer checksum mismatch -> " + src + ", expected " + expectedChecksum + ", actual " + checksum);
+                    deletePart();
+                    checksum = null;
+                    return false;
+                }
+            }
+            if (!part.renameTo(dst)) throw new IOException("rename failed: " + part + " -> " + dst);
+            if (checkpoint.exists() && !checkpoint.delete()) Logger.w("File delete failed -> " + checkpoint);
+            return true;
+        } catch (IOException | NoSuchAlgorithmException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            close(in);
+            close(out);
+            BufferPool.release(buffer);
+            Tracer.end();
+        }
+    }
+
+    /**
+     * 放弃续传，删除临时文件和断点
+     */
+    public void discard() {
+        deletePart();
+    }
+
+    /**
+     * 断点与源文件一致时返回断点位置(不超过已写入长度)，否则从头开始
+     */
+    private long resumePosition(long total, long stamp, long partLength) {
+        byte[] data = checkpoint.exists() ? FileUtils.readFile(checkpoint) : null;
+        if (data == null) return 0;
+        String[] fields = new String(data, UTF_8).trim().split(" ");
+        if (fields.length != 3) return 0;
+        try {
+            if (Long.parseLong(fields[0]) != total || Long.parseLong(fields[1]) != stamp) return 0;
+            long position = Long.parseLong(fields[2]);
+            return position < 0 ? 0 : Math.min(position, Math.min(partLength, total));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void saveCheckpoint(long total, long stamp, long position) {
+        String line = total + " " + stamp + " " + position + "\n";
+        FileUtils.saveFile(checkpoint, ByteBuffer.wrap(line.getBytes(UTF_8)), FileUtils.DURABILITY_NONE);
+    }
+
+    /**
+     * 续传时补算已完成部分的校验和(MessageDigest状态无法持久化)
+     */
+    private static void digestPrefix(FileChannel channel, long length, MessageDigest digest, ByteBuffer buffer) throws IOException {
+        long position = 0;
+        while (position < length) {
+            buffer.clear();
+            if (buffer.capacity() > length - position) buffer.limit((int) (length - position));
+            int count = FileUtils.readFully(channel, buffer, position);
+            if (count <= 0) throw new IOException("unexpected end of part file");
+            buffer.flip();
+            digest.update(buffer);
+            position += count;
+        }
+    }
+
+    /**
+     * 按限速计算应耗时间，超前时休眠
+     */
+    private void throttle(long startNanos, long bytes) {
+        if (rateLimit <= 0) return;
+        long expected = expectedNanos(bytes, rateLimit);
+        long elapsed = System.nanoTime() - startNanos;
+        long sleep = (expected - elapsed) / 1000000L;
+        if (sleep <= 0) return;
+        try {
+            Thread.sleep(sleep);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 按限速传输 bytes 字节应耗的纳秒数
+     * 用 double 计算：bytes * 10^9 超过约9.2GB后会溢出 long
+     */
+    static long expectedNanos(long bytes, long bytesPerSecond) {
+        return (long) (bytes * 1e9 / bytesPerSecond);
+    }
+
+    private void deletePart() {
+        if (part.exists() && !part.delete()) Logger.w("File delete failed -> " + part);
+        if (checkpoint.exists() && !checkpoint.delete()) Logger.w("File delete failed -> " + checkpoint);
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+}
@@ -0,0 +1,627 @@
+package com.hsj.common.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:FileTree
+ * @Desc:目录树并行操作(删除、复制、移动、大小、校验和、遍历)
+ */
+public final class FileTree {
+
+    //////////////////////////////////////////////////////////////
+    // FileTree 功能如下：
+    //     1、每个目录/文件一个任务，IO线程池与调用线程一起从任务队列取任务并行执行
+    //     2、delete 删除文件后自底向上删除目录本身(包括根目录)
+    //     3、copy 使用 FileChannel.transferTo，move 优先rename，跨分区时复制后删除
+    //     4、size/checksum/walk 并行统计
+    //     5、Progress 进度回调(任意线程)，Token 取消
+    //     6、符号链接目录不跟随，避免删除/复制到树外
+    //     7、辅助线程队列为空即归还IO线程池，不会在整个遍历期间占用共享线程
+    //     8、copy 拒绝目标位于源目录之内(规范路径)，避免无限递归复制
+    //
+    // 说明：ForkJoinPool 需要 API 21，这里由调用线程参与执行，
+    //      即使IO线程池繁忙也能完成，不会互相等待
+    //////////////////////////////////////////////////////////////
+
+    /**
+     * 单次transferTo最大字节数
+     */
+    private static final long TRANSFER_CHUNK = 8 * 1024 * 1024;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private FileTree() {
+        throw new IllegalAccessError("FileTree can't be instance");
+    }
+
+    /**
+     * 进度回调，在工作线程调用
+     */
+    public interface Progress {
+
+        /**
+         * @param files 已处理文件数
+         * @param bytes 已处理字节数
+         */
+        void onProgress(long files, long bytes);
+    }
+
+    /**
+     * 文件访问回调，在多个线程并发调用
+     */
+    public interface Visitor {
+
+        void visit(@NonNull File file);
+    }
+
+    /**
+     * 取消标记，可跨线程调用cancel
+     */
+    public static final class Token {
+
+        private volatile boolean cancelled;
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+//======================================Delete======================================================
+
+    /**
+     * 删除文件或目录(包括目录本身)
+     *
+     * @param root 目标
+     * @return 全部删除成功
+     */
+    public static boolean delete(File root) {
+        return delete(root, null, null);
+    }
+
+    /**
+     * 删除文件或目录(包括目录本身)
+     *
+     * @param root     目标
+     * @param token    取消标记，可为null
+     * @param progress 进度，可为null
+     * @return 全部删除成功且未取消
+     */
+    public static boolean delete(File root, @Nullable Token token, @Nullable Progress progress) {
+        if (root == null || !root.exists()) return true;
+        if (!root.isDirectory() || isSymlink(root)) return root.delete();
+        Walk walk = new Walk(token, progress);
+        Tracer.begin("FileTree.delete");
+        try {
+            walk.execute(() -> deleteDir(walk, new Node(root, null)));
+        } finally {
+            Tracer.end();
+        }
+        return walk.succeeded() && !root.exists();
+    }
+
+    private static void deleteDir(Walk walk, Node node) {
+        File[] children = node.dir.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                if (walk.cancelled()) break;
+                if (child.isDirectory() && !isSymlink(child)) {
+                    Node childNode = new Node(child, node);
+                    node.remaining.incrementAndGet();
+                    walk.submit(() -> deleteDir(walk, childNode), () -> finishDir(walk, childNode));
+                } else {
+                    long length = child.length();
+                    if (child.delete()) {
+                        walk.progress(length);
+                    } else {
+                        walk.fail("File delete failed -> " + child.getAbsolutePath());
+                    }
+                }
+            }
+        }
+        finishDir(walk, node);
+    }
+
+    /**
+     * 目录的列举和全部子目录完成后删除该目录，并向上传递
+     */
+    private static void finishDir(Walk walk, Node node) {
+        while (node != null && node.remaining.decrementAndGet() == 0) {
+            if (!walk.cancelled() && !node.dir.delete()) {
+                walk.fail("Directory delete failed -> " + node.dir.getAbsolutePath());
+            }
+            node = node.parent;
+        }
+    }
+
+//======================================Copy/Move===================================================
+
+    /**
+     * 复制文件或目录
+     *
+     * @param src 源
+     * @param dst 目标(目录时复制为dst本身，不是dst/src.name)，不能位于src之内
+     * @return 全部复制成功
+     */
+    public static boolean copy(File src, File dst) {
+        return copy(src, dst, null, null);
+    }
+
+    /**
+     * 复制文件或目录
+     *
+     * @param src      源
+     * @param dst      目标
+     * @param token    取消标记，可为null
+     * @param progress 进度，可为null
+     * @return 全部复制成功且未取消
+     */
+    public static boolean copy(File src, File dst, @Nullable Token token, @Nullable Progress progress) {
+        if (src == null || dst == null || !src.exists()) return false;
+        if (src.isDirectory() && isInside(dst, src)) {
+            Logger.w("Copy target inside source -> " + dst.getAbsolutePath());
+            return false;
+        }
+        Walk walk = new Walk(token, progress);
+        Tracer.begin("FileTree.copy");
+        try {
+            if (src.isDirectory()) {
+                walk.execute(() -> copyDir(walk, src, dst));
+            } else {
+                walk.execute(() -> copyFile(walk, src, dst));
+            }
+        } finally {
+            Tracer.end();
+        }
+        return walk.succeeded();
+    }
+
+    private static void copyDir(Walk walk, File src, File dst) {
+        if (!dst.isDirectory() && !dst.mkdirs()) {
+            walk.fail("mkdirs failed -> " + dst.getAbsolutePath());
+            return;
+        }
+        File[] children = src.listFiles();
+        if (children == null) return;
+        for (File child : children) {
+            if (walk.cancelled()) return;
+            File target = new File(dst, child.getName());
+            if (child.isDirectory()) {
+                if (isSymlink(child)) {
+                    Logger.w("Skip symlink directory -> " + child.getAbsolutePath());
+                    continue;
+                }
+                walk.submit(() -> copyDir(walk, child, target), null);
+            } else {
+                walk.submit(() -> copyFile(walk, child, target), null);
+            }
+        }
+    }
+
+    private static void copyFile(Walk walk, File src, File dst) {
+        FileInputStream in = null;
+        FileOutputStream out = null;
+        try {
+            in = new FileInputStream(src);
+            out = new FileOutputStream(dst);
+            FileChannel input = in.getChannel();
+            FileChannel output = out.getChannel();
+            long size = input.size();
+            long position = 0;
+            while (position < size) {
+                if (walk.cancelled()) return;
+                position += input.transferTo(position, Math.min(TRANSFER_CHUNK, size - position), output);
+            }
+            walk.progress(size);
+        } catch (IOException e) {
+            walk.fail("File copy failed -> " + src.getAbsolutePath() + ", " + e.getMessage());
+        } finally {
+            close(in);
+            close(out);
+        }
+    }
+
+    /**
+     * 移动文件或目录：同分区rename，否则复制后删除源
+     *
+     * @param src 源
+     * @param dst 目标
+     * @return 结果
+     */
+    public static boolean move(File src, File dst) {
+        return move(src, dst, null, null);
+    }
+
+    /**
+     * 移动文件或目录：同分区rename，否则复制后删除源
+     *
+     * @param src      源
+     * @param dst      目标
+     * @param token    取消标记，可为null(取消时源保持不变)
+     * @param progress 进度，可为null
+     * @return 结果
+     */
+    public static boolean move(File src, File dst, @Nullable Token token, @Nullable Progress progress) {
+        if (src == null || dst == null || !src.exists()) return false;
+        File parent = dst.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) return false;
+        if (src.renameTo(dst)) return true;
+        if (!copy(src, dst, token, progress)) return false;
+        return delete(src, token, null);
+    }
+
+//======================================Query=======================================================
+
+    /**
+     * 统计文件总大小
+     *
+     * @param root 文件或目录
+     * @return 字节数，取消时返回-1
+     */
+    public static long size(File root) {
+        return size(root, null, null);
+    }
+
+    /**
+     * 统计文件总大小
+     *
+     * @param root     文件或目录
+     * @param token    取消标记，可为null
+     * @param progress 进度，可为null
+     * @return 字节数，取消时返回-1
+     */
+    public static long size(File root, @Nullable Token token, @Nullable Progress progress) {
+        if (root == null || !root.exists()) return 0;
+        if (!root.isDirectory()) return root.length();
+        Walk walk = new Walk(token, progress);
+        walk.execute(() -> walkDir(walk, root, file -> walk.progress(file.length())));
+        return walk.cancelled() ? -1 : walk.bytes.get();
+    }
+
+    /**
+     * 并行遍历全部文件(不含目录)
+     *
+     * @param root    目录
+     * @param visitor 回调，多线程并发调用
+     * @param token   取消标记，可为null
+     * @return 未取消且未出错
+     */
+    public static boolean walk(File root, @NonNull Visitor visitor, @Nullable Token token) {
+        if (root == null || !root.exists()) return false;
+        Walk walk = new Walk(token, null);
+        if (root.isDirectory()) {
+            walk.execute(() -> walkDir(walk, root, visitor));
+        } else {
+            visitor.visit(root);
+        }
+        return walk.succeeded();
+    }
+
+    private static void walkDir(Walk walk, File dir, Visitor visitor) {
+        File[] children = dir.listFiles();
+        if (children == null) return;
+        for (File child : children) {
+            if (walk.cancelled()) return;
+            if (child.isDirectory()) {
+                if (!isSymlink(child)) walk.submit(() -> walkDir(walk, child, visitor), null);
+            } else {
+                visitor.visit(child);
+            }
+        }
+    }
+
+    /**
+     * 目录内容校验和：每个文件并行计算CRC32，再按相对路径排序合并(与遍历顺序无关)
+     *
+     * @param root     文件或目录
+     * @param token    取消标记，可为null
+     * @param progress 进度，可为null
+     * @return 校验和，失败或取消返回-1
+     */
+    public static long checksum(File root, @Nullable Token token, @Nullable Progress progress) {
+        if (root == null || !root.exists()) return -1;
+        final String prefix = root.getAbsolutePath();
+        final Map<String, Long> sums = new ConcurrentHashMap<>();
+        Walk walk = new Walk(token, progress);
+        Tracer.begin("FileTree.checksum");
+        try {
+            Visitor visitor = file -> {
+                long crc = crc32(walk, file);
+                if (crc < 0) return;
+                sums.put(file.getAbsolutePath().substring(prefix.length()), crc);
+                walk.progress(file.length());
+            };
+            if (root.isDirectory()) {
+                walk.execute(() -> walkDir(walk, root, visitor));
+            } else {
+                visitor.visit(root);
+            }
+        } finally {
+            Tracer.end();
+        }
+        if (!walk.succeeded()) return -1;
+        List<String> paths = new ArrayList<>(sums.keySet());
+        Collections.sort(paths);
+        CRC32 crc = new CRC32();
+        byte[] bytes = new byte[8];
+        for (String path : paths) {
+            crc.update(path.getBytes(UTF_8));
+            long value = sums.get(path);
+            for (int i = 0; i < 8; i++) {
+                bytes[i] = (byte) (value >>> (i * 8));
+            }
+            crc.update(bytes, 0, 8);
+        }
+        return crc.getValue();
+    }
+
+    private static long crc32(Walk walk, File file) {
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[BufferPool.IO_BUFFER_SIZE];
+            int count;
+            while ((count = in.read(buffer)) > 0) {
+                if (walk.cancelled()) return -1;
+                crc.update(buffer, 0, count);
+            }
+            return crc.getValue();
+        } catch (IOException e) {
+            walk.fail("File read failed -> " + file.getAbsolutePath() + ", " + e.getMessage());
+            return -1;
+        } finally {
+            close(in);
+        }
+    }
+
+//======================================Engine======================================================
+
+    /**
+     * 符号链接判断(API 26以下没有Files.isSymbolicLink)
+     * 无法解析路径时按普通文件/目录处理，否则 delete 会对非空目录直接调用 File.delete
+     */
+    private static boolean isSymlink(File file) {
+        try {
+            File parent = file.getParentFile();
+            File canonical = parent == null ? file : new File(parent.getCanonicalFile(), file.getName());
+            return !canonical.getCanonicalFile().equals(canonical.getAbsoluteFile());
+        } catch (IOException e) {
+            Logger.w("FileTree", "Symlink check failed -> " + file.getAbsolutePath() + ", " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * file 是否为 dir 本身或位于 dir 之下(按规范路径比较，解析符号链接与 ..)
+     * 无法解析路径时按位于其中处理，宁可拒绝也不递归复制到自身
+     */
+    private static boolean isInside(File file, File dir) {
+        try {
+            String path = file.getCanonicalPath();
+            String root = dir.getCanonicalPath();
+            return path.equals(root) || path.startsWith(root.endsWith(File.separator) ? root : root + File.separator);
+        } catch (IOException e) {
+            Logger.w("FileTree", "Canonical path failed -> " + file.getAbsolutePath() + ", " + e.getMessage());
+            return true;
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 删除时的目录节点：列举本身 + 每个子目录各占一个计数，归零时删除目录
+     */
+    private static final class Node {
+
+        private final File dir;
+        private final Node parent;
+        private final AtomicInteger remaining = new AtomicInteger(1);
+
+        private Node(File dir, Node parent) {
+            this.dir = dir;
+            this.parent = parent;
+        }
+    }
+
+    /**
+     * 一次并行操作：共享任务队列(LIFO，深度优先控制内存)，IO线程和调用线程一起执行
+     * 队列为空时在 available 上等待，提交任务或全部完成时唤醒
+     */
+    private static final class Walk {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition available = lock.newCondition();
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        /**
+         * 已提交未完成的任务数(包括正在执行的)，lock 保护
+         */
+        private int pending;
+        /**
+         * 正在IO线程池中取任务的辅助线程数，lock 保护
+         */
+        private int helpers;
+        /**
+         * 辅助线程上限，execute 之前为0
+         */
+        private int maxHelpers;
+        private final AtomicLong files = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final Token token;
+        private final Progress progress;
+        private volatile boolean failed;
+
+        private Walk(Token token, Progress progress) {
+            this.token = token;
+            this.progress = progress;
+        }
+
+        private boolean cancelled() {
+            return token != null && token.isCancelled();
+        }
+
+        private boolean succeeded() {
+            return !failed && !cancelled();
+        }
+
+        private void fail(String message) {
+            failed = true;
+            Logger.w(message);
+        }
+
+        private void progress(long length) {
+            long count = files.incrementAndGet();
+            long total = bytes.addAndGet(length);
+            if (progress != null) progress.onProgress(count, total);
+        }
+
+        /**
+         * @param task     任务
+         * @param onCancel 取消后跳过任务时执行，可为null
+         */
+        private void submit(Runnable task, Runnable onCancel) {
+            Runnable wrapped = onCancel == null ? task : () -> {
+                if (cancelled()) {
+                    onCancel.run();
+                } else {
+                    task.run();
+                }
+            };
+            boolean spawn;
+            lock.lock();
+            try {
+                pending++;
+                tasks.addFirst(wrapped);
+                available.signal();
+                spawn = helpers < maxHelpers;
+                if (spawn) helpers++;
+            } finally {
+                lock.unlock();
+            }
+            if (spawn) spawnHelper();
+        }
+
+        /**
+         * 向IO线程池提交一个辅助线程，线程池拒绝时放弃(调用线程仍会完成全部任务)
+         */
+        private void spawnHelper() {
+            try {
+                ThreadManager.executeOnIoPool(() -> work(true));
+            } catch (RejectedExecutionException e) {
+                lock.lock();
+                try {
+                    helpers--;
+                    maxHelpers = 0;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        /**
+         * 执行根任务，阻塞到全部任务完成
+         * <p>
+         * 辅助线程在队列为空时立即归还IO线程池，不会占着共享线程等到整棵树结束；
+         * 之后有新任务提交时再按需补充，只有调用线程等待未完成的任务
+         */
+        private void execute(Runnable root) {
+            lock.lock();
+            try {
+                maxHelpers = Math.min(Runtime.getRuntime().availableProcessors(), 4) - 1;
+            } finally {
+                lock.unlock();
+            }
+            submit(root, null);
+            work(false);
+        }
+
+        private void work(boolean helper) {
+            while (true) {
+                Runnable task = take(helper);
+                if (task == null) return;
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    fail("FileTree task failed -> " + e);
+                } finally {
+                    done();
+                }
+            }
+        }
+
+        /**
+         * 取下一个任务
+         *
+         * @param helper 辅助线程：队列为空时直接返回null；调用线程：队列为空时等待
+         * @return 任务，全部完成、辅助线程无任务或被中断时返回null
+         */
+        private Runnable take(boolean helper) {
+            lock.lock();
+            try {
+                while (tasks.isEmpty()) {
+                    if (helper) {
+                        helpers--;
+                        return null;
+                    }
+                    if (pending == 0) {
+                        maxHelpers = 0;
+                        return null;
+                    }
+                    available.await();
+                }
+                return tasks.pollFirst();
+            } catch (InterruptedException e) {
+                maxHelpers = 0;
+                fail("FileTree interrupted");
+                Thread.currentThread().interrupt();
+                return null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void done() {
+            lock.lock();
+            try {
+                if (--pending == 0) available.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+}
@@ -4,20 +4,41 @@ import android.content.ContentResolver;
 import android.content.Context;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.Build;
+import android.os.ParcelFileDescriptor;
+import android.os.Process;
+import android.provider.BaseColumns;
 import android.provider.MediaStore;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
 
 import androidx.annotation.NonNull;
 
 import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.File;
+import java.io.FileDescriptor;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @Author:hsj
@@ -33,19 +54,73 @@ public final class FileUtils {
     //     2、复制文件
     //     3、移动文件
     //     4、重命名文件
-    //     5、删除文件
+    //     5、删除文件(目录树的并行删除/复制/移动/统计见 FileTree)
+    //     6、FileChannel读写：循环直到完成，经BufferPool直接内存分块，不额外占用整文件大小的堆
+    //     7、区间读取(offset, length)到调用方缓冲，大文件分块流式读取/写入
+    //     8、mapFile内存映射(MappedFile)，大文件、查找表、模型权重不进Java堆
+    //     9、saveFile原子替换(临时文件 -> force -> rename)，默认不fsync，需要时显式指定持久化级别；
+    //        崩溃残留的临时文件在该目录下次写入时清理；
+    //        WriteGroup批量写入多个小文件，集中force、每个目录只fsync一次
+    //    10、目录树操作见 FileTree，断点续传复制见 FileTransfer，磁盘缓存见 DiskCache，
+    //        gzip/zip流式压缩见 CompressUtils，目录增量索引与变化监听见 DirectoryIndex
+    //    11、Uri转路径：getPathsFromURIs批量查询+LRU缓存，无路径时 openChannel 经ParcelFileDescriptor读取
     //////////////////////////////////////////////////////////////
 
+    /**
+     * 持久化级别：只保证原子替换，掉电可能丢失最近一次写入(新旧内容之一)
+     */
+    public static final int DURABILITY_NONE      = 0;
+
+    /**
+     * 持久化级别：替换前force数据，掉电后文件内容完整
+     */
+    public static final int DURABILITY_DATA      = 1;
+
+    /**
+     * 持久化级别：同时fsync所在目录，替换本身也不会丢失
+     */
+    public static final int DURABILITY_DIRECTORY = 2;
+
+    private static final AtomicInteger TEMP_COUNTER = new AtomicInteger();
+
+    /**
+     * 本进程已清理过残留临时文件的目录
+     */
+    private static final Set<String> SWEPT_DIRS = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * Uri路径缓存容量、单次 IN (...) 参数个数(SQLite上限999)
+     */
+    private static final int URI_CACHE_SIZE = 256;
+    private static final int MAX_QUERY_ARGS = 500;
+
+    /**
+     * 缓存中表示"无路径"，避免分区存储下重复查询
+     */
+    private static final String NO_PATH = "";
+
+    private static final LinkedHashMap<String, String> URI_CACHE = new LinkedHashMap<String, String>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > URI_CACHE_SIZE;
+        }
+    };
+
+    /**
+     * byte[]最大长度
+     */
+    private static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
     private FileUtils() {
         throw new IllegalAccessError("FileUtils can't be instance");
     }
 
     /**
-     * 通过Uri获取真实路径
+     * 通过Uri获取真实路径，结果缓存
      *
      * @param context 上下文
      * @param uri 文件Uri
-     * @return 路径
+     * @return 路径，分区存储下可能为null(用 openChannel 读取)
      */
     public static String getPathFromURI(Context context, Uri uri) {
         if (context == null || uri == null) return null;
@@ -53,6 +128,11 @@ public final class FileUtils {
         if (scheme == null) return uri.getPath();
         if (ContentResolver.SCHEME_FILE.equals(scheme)) return uri.getPath();
         if (ContentResolver.SCHEME_CONTENT.equals(scheme)) {
+            final String key = uri.toString();
+            synchronized (URI_CACHE) {
+                String cached = URI_CACHE.get(key);
+                if (cached != null) return cached.isEmpty() ? null : cached;
+            }
             Cursor cursor = context.getContentResolver().query(uri,
                     new String[]{MediaStore.Images.ImageColumns.DATA},
                     null, null, null);
@@ -65,34 +145,179 @@ public final class FileUtils {
                 }
             }
             cursor.close();
+            cacheUriPath(key, path);
             return path;
         }
         return null;
     }
 
     /**
-     * 删除目录
+     * 批量获取真实路径：同一集合下的 .../&lt;id&gt; 合并为一次 _id IN (...) 查询，逐行读取游标，结果缓存
      *
-     * @param dstFile 删除目标文件目录
-     * @return 结果
+     * @param context 上下文
+     * @param uris 文件Uri
+     * @return Uri -> 路径(按输入顺序，无路径时为null)
      */
-    public static boolean delete(File dstFile) {
-        if (dstFile == null || !dstFile.exists()) return true;
-        if (dstFile.isFile()) return dstFile.delete();
-        File[] files = dstFile.listFiles();
-        if (files == null || files.length == 0) return true;
-        for (File file : files) {
-            if (file.isDirectory()) {
-                delete(file);
-            } else {
-                if (!file.delete()) {
-                    Logger.w("File delete failed -> " + file.getAbsolutePath());
+    @NonNull
+    public static Map<Uri, String> getPathsFromURIs(Context context, List<Uri> uris) {
+        final Map<Uri, String> result = new LinkedHashMap<>();
+        if (context == null || uris == null) return result;
+        //集合Uri -> (id -> Uri)
+        final Map<String, Map<Long, Uri>> groups = new LinkedHashMap<>();
+        for (Uri uri : uris) {
+            if (uri == null || result.containsKey(uri)) continue;
+            final String scheme = uri.getScheme();
+            if (!ContentResolver.SCHEME_CONTENT.equals(scheme)) {
+                result.put(uri, getPathFromURI(context, uri));
+                continue;
+            }
+            final String key = uri.toString();
+            String cached;
+            synchronized (URI_CACHE) {
+                cached = URI_CACHE.get(key);
+            }
+            if (cached != null) {
+                result.put(uri, cached.isEmpty() ? null : cached);
+                continue;
+            }
+            final String id = uri.getLastPathSegment();
+            if (!isNumber(id) || !key.endsWith("/" + id)) {
+                result.put(uri, getPathFromURI(context, uri));
+                continue;
+            }
+            result.put(uri, null);
+            final String collection = key.substring(0, key.length() - id.length() - 1);
+            Map<Long, Uri> group = groups.get(collection);
+            if (group == null) {
+                group = new HashMap<>();
+                groups.put(collection, group);
+            }
+            group.put(Long.parseLong(id), uri);
+        }
+        Tracer.begin("FileUtils.getPathsFromURIs");
+        try {
+            for (Map.Entry<String, Map<Long, Uri>> entry : groups.entrySet()) {
+                queryGroup(context, Uri.parse(entry.getKey()), entry.getValue(), result);
+            }
+        } finally {
+            Tracer.end();
+        }
+        return result;
+    }
+
+    /**
+     * 按 MAX_QUERY_ARGS 分批查询一个集合；提供者不支持、缺少列或没有返回的id逐个查询
+     */
+    private static void queryGroup(Context context, Uri collection, Map<Long, Uri> group, Map<Uri, String> result) {
+        final List<Long> ids = new ArrayList<>(group.keySet());
+        final String[] projection = {BaseColumns._ID, MediaStore.Images.ImageColumns.DATA};
+        for (int from = 0; from < ids.size(); from += MAX_QUERY_ARGS) {
+            final int to = Math.min(ids.size(), from + MAX_QUERY_ARGS);
+            final String[] args = new String[to - from];
+            final StringBuilder selection = new StringBuilder(BaseColumns._ID).append(" IN (");
+            for (int i = from; i < to; i++) {
+                args[i - from] = String.valueOf(ids.get(i));
+                selection.append(i == from ? "?" : ",?");
+            }
+            selection.append(')');
+            Cursor cursor = null;
+            try {
+                cursor = context.getContentResolver().query(collection, projection, selection.toString(), args, null);
+            } catch (RuntimeException e) {
+                //部分提供者不支持集合查询或selection
+                Logger.w("FileUtils batch query failed -> " + collection + ", " + e);
+            }
+            //批量查询得到的id，其余逐个查询
+            final Set<Long> resolved = new HashSet<>();
+            if (cursor != null) {
+                try {
+                    final int idIndex = cursor.getColumnIndex(BaseColumns._ID);
+                    final int dataIndex = cursor.getColumnIndex(MediaStore.Images.ImageColumns.DATA);
+                    if (idIndex < 0 || dataIndex < 0) {
+                        //缺少所需的列：结果不可信，不缓存
+                        Logger.w("FileUtils batch query missing columns -> " + collection);
+                    } else {
+                        while (cursor.moveToNext()) {
+                            final long id = cursor.getLong(idIndex);
+                            Uri uri = group.get(id);
+                            if (uri == null || !resolved.add(id)) continue;
+                            final String path = cursor.getString(dataIndex);
+                            result.put(uri, path);
+                            cacheUriPath(uri.toString(), path);
+                        }
+                    }
+                } finally {
+                    cursor.close();
                 }
             }
+            for (int i = from; i < to; i++) {
+                if (resolved.contains(ids.get(i))) continue;
+                Uri uri = group.get(ids.get(i));
+                result.put(uri, getPathFromURI(context, uri));
+            }
+        }
+    }
+
+    /**
+     * 打开Uri的只读通道：有可读路径时直接打开文件，否则经 ParcelFileDescriptor(分区存储)
+     *
+     * @param context 上下文
+     * @param uri 文件Uri
+     * @return 通道(关闭通道即释放描述符)，失败返回null
+     */
+    public static FileChannel openChannel(Context context, Uri uri) {
+        if (context == null || uri == null) return null;
+        final String path = getPathFromURI(context, uri);
+        try {
+            if (path != null) {
+                final File file = new File(path);
+                if (file.canRead()) return new FileInputStream(file).getChannel();
+            }
+            if (!ContentResolver.SCHEME_CONTENT.equals(uri.getScheme())) return null;
+            ParcelFileDescriptor pfd = context.getContentResolver().openFileDescriptor(uri, "r");
+            if (pfd == null) return null;
+            return new ParcelFileDescriptor.AutoCloseInputStream(pfd).getChannel();
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 清空Uri路径缓存(媒体库变化后调用)
+     */
+    public static void clearUriCache() {
+        synchronized (URI_CACHE) {
+            URI_CACHE.clear();
+        }
+    }
+
+    private static void cacheUriPath(String key, String path) {
+        synchronized (URI_CACHE) {
+            URI_CACHE.put(key, path == null ? NO_PATH : path);
+        }
+    }
+
+    private static boolean isNumber(String text) {
+        if (text == null || text.isEmpty() || text.length() > 18) return false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return false;
         }
         return true;
     }
 
+    /**
+     * 删除文件或目录(包括目录本身)，目录内容并行删除
+     *
+     * @param dstFile 删除目标文件目录
+     * @return 结果
+     * @see FileTree#delete(File, FileTree.Token, FileTree.Progress)
+     */
+    public static boolean delete(File dstFile) {
+        return FileTree.delete(dstFile);
+    }
+
     /**
      * 读取文件(比FileInputStream快)
      *
@@ -103,64 +328,520 @@ public final class FileUtils {
         if (dstFile == null || dstFile.isDirectory()) return null;
         byte[] data = null;
         RandomAccessFile raf = null;
+        Tracer.begin("FileUtils.readFile");
         try {
             raf = new RandomAccessFile(dstFile, "r");
-            data = new byte[(int) raf.length()];
-            raf.readFully(data);
+            FileChannel fc = raf.getChannel();
+            long length = fc.size();
+            if (length > MAX_ARRAY_SIZE) {
+                Logger.w("File too large for byte[], use read(File, ChunkCallback) -> " + dstFile.getAbsolutePath());
+                return null;
+            }
+            data = new byte[(int) length];
+            int count = readFully(fc, ByteBuffer.wrap(data), 0);
+            if (count < data.length) throw new IOException("unexpected end of file: " + count + "/" + data.length);
         } catch (IOException e) {
+            data = null;
             e.printStackTrace();
         } finally {
             ioClose(raf);
+            Tracer.end();
         }
         return data;
     }
 
     /**
-     * 保存byte[]到文件
+     * 保存byte[]到文件，原子替换(DURABILITY_NONE，不fsync)
      *
      * @param dstFile 存在文件
      * @param data    数据内容
      * @return 结果
      */
     public static boolean saveFile(File dstFile, byte[] data) {
-        if (dstFile == null || dstFile.isDirectory()) return false;
-        boolean result = true;
-        RandomAccessFile raf = null;
+        if (data == null) return false;
+        return saveFile(dstFile, ByteBuffer.wrap(data), DURABILITY_NONE);
+    }
+
+    /**
+     * 保存ByteBuffer到文件，原子替换(DURABILITY_NONE，不fsync)
+     *
+     * @param dstFile 存在文件
+     * @param data    数据内容
+     * @return 结果
+     */
+    public static boolean saveFile(File dstFile, ByteBuffer data) {
+        return saveFile(dstFile, data, DURABILITY_NONE);
+    }
+
+    /**
+     * 保存ByteBuffer到文件：写临时文件 -> 按持久化级别force -> rename原子替换
+     * 任何时刻dstFile要么是旧内容，要么是完整的新内容
+     *
+     * @param dstFile    存在文件
+     * @param data       数据内容
+     * @param durability 持久化级别 DURABILITY_NONE/DATA/DIRECTORY
+     * @return 结果
+     */
+    public static boolean saveFile(File dstFile, ByteBuffer data, int durability) {
+        if (dstFile == null || dstFile.isDirectory() || data == null) return false;
+        File tmp = tempFile(dstFile);
+        FileChannel fc = null;
+        Tracer.begin("FileUtils.saveFile");
         try {
-            raf = new RandomAccessFile(dstFile, "rw");
-            raf.write(data);
+            fc = new FileOutputStream(tmp).getChannel();
+            writeFully(fc, data, 0);
+            if (durability >= DURABILITY_DATA) fc.force(false);
+            fc.close();
+            fc = null;
+            replace(tmp, dstFile);
+            if (durability >= DURABILITY_DIRECTORY) syncDirectory(dstFile.getAbsoluteFile().getParentFile());
+            return true;
         } catch (IOException e) {
             e.printStackTrace();
-            result = false;
+            ioClose(fc);
+            deleteTemp(tmp);
+            return false;
         } finally {
-            ioClose(raf);
+            Tracer.end();
         }
-        return result;
     }
 
     /**
-     * 保存ByteBuffer到文件
+     * 从输入流保存到文件，分块写入，适合大文件；原子替换(DURABILITY_NONE，不fsync)
      *
      * @param dstFile 存在文件
-     * @param data    数据内容
-     * @return 结果
+     * @param in      输入流(不关闭)
+     * @return 写入字节数，失败返回-1
      */
-    public static boolean saveFile(File dstFile, ByteBuffer data) {
-        if (dstFile == null || dstFile.isDirectory()) return false;
-        boolean result = true;
+    public static long saveFile(File dstFile, InputStream in) {
+        return saveFile(dstFile, in, DURABILITY_NONE);
+    }
+
+    /**
+     * 从输入流保存到文件，分块写入，适合大文件
+     *
+     * @param dstFile    存在文件
+     * @param in         输入流(不关闭)
+     * @param durability 持久化级别 DURABILITY_NONE/DATA/DIRECTORY
+     * @return 写入字节数，失败返回-1
+     */
+    public static long saveFile(File dstFile, InputStream in, int durability) {
+        if (dstFile == null || dstFile.isDirectory() || in == null) return -1;
+        long total = 0;
+        File tmp = tempFile(dstFile);
         FileChannel fc = null;
+        ByteBuffer buffer = BufferPool.acquire(BufferPool.IO_BUFFER_SIZE);
+        Tracer.begin("FileUtils.saveFile");
         try {
-            fc = new FileOutputStream(dstFile).getChannel();
-            fc.write(data);
+            fc = new FileOutputStream(tmp).getChannel();
+            ReadableByteChannel src = Channels.newChannel(in);
+            while (src.read(buffer) >= 0 || buffer.position() > 0) {
+                buffer.flip();
+                total += writeFully(fc, buffer, total);
+                buffer.clear();
+            }
+            if (durability >= DURABILITY_DATA) fc.force(false);
+            fc.close();
+            fc = null;
+            replace(tmp, dstFile);
+            if (durability >= DURABILITY_DIRECTORY) syncDirectory(dstFile.getAbsoluteFile().getParentFile());
         } catch (IOException e) {
             e.printStackTrace();
-            result = false;
+            ioClose(fc);
+            deleteTemp(tmp);
+            total = -1;
         } finally {
+            BufferPool.release(buffer);
+            Tracer.end();
+        }
+        return total;
+    }
+
+    /**
+     * 同目录下的临时文件，进程号+序号避免多线程/多进程冲突
+     * 每个目录第一次使用时清理已退出进程残留的临时文件
+     */
+    private static File tempFile(File dstFile) {
+        File dir = dstFile.getAbsoluteFile().getParentFile();
+        if (dir != null && SWEPT_DIRS.add(dir.getPath())) sweepTemps(dir);
+        return new File(dir, "." + dstFile.getName() + "." + Process.myPid() + "_" + TEMP_COUNTER.incrementAndGet() + ".tmp");
+    }
+
+    /**
+     * 删除崩溃残留的临时文件(.name.pid_n.tmp)，只删除进程已不存在的，
+     * 本进程和仍在运行的进程(多进程写同一目录)的临时文件保留
+     *
+     * @param dir 目录
+     * @return 删除数量
+     */
+    static int sweepTemps(File dir) {
+        //无法判断进程是否存在时不清理
+        if (!new File("/proc/self").exists()) return 0;
+        String[] names = dir.list();
+        if (names == null) return 0;
+        int myPid = Process.myPid();
+        int count = 0;
+        for (String name : names) {
+            int pid = tempPid(name);
+            if (pid <= 0 || pid == myPid || new File("/proc/" + pid).exists()) continue;
+            File tmp = new File(dir, name);
+            if (tmp.delete()) {
+                count++;
+            } else {
+                Logger.w("Stale temp delete failed -> " + tmp.getAbsolutePath());
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param name 文件名
+     * @return tempFile 生成的文件名中的进程号，不是临时文件返回-1
+     */
+    private static int tempPid(String name) {
+        if (name.length() < 9 || name.charAt(0) != '.' || !name.endsWith(".tmp")) return -1;
+        int end = name.length() - 4;
+        int dot = name.lastIndexOf('.', end - 1);
+        int underscore = name.indexOf('_', dot + 1);
+        if (dot <= 0 || underscore <= dot + 1 || underscore >= end - 1) return -1;
+        for (int i = dot + 1; i < end; i++) {
+            char c = name.charAt(i);
+            if (i != underscore && (c < '0' || c > '9')) return -1;
+        }
+        try {
+            return Integer.parseInt(name.substring(dot + 1, underscore));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void replace(File tmp, File dstFile) throws IOException {
+        if (!tmp.renameTo(dstFile)) throw new IOException("rename failed: " + tmp + " -> " + dstFile);
+    }
+
+    private static void deleteTemp(File tmp) {
+        if (tmp.exists() && !tmp.delete()) Logger.w("File delete failed -> " + tmp.getAbsolutePath());
+    }
+
+    /**
+     * fsync目录，使rename本身持久化(API 21以下不支持，跳过)
+     *
+     * @param dir 目录
+     */
+    private static void syncDirectory(File dir) {
+        if (dir == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) return;
+        try {
+            FileDescriptor fd = Os.open(dir.getPath(), OsConstants.O_RDONLY, 0);
+            try {
+                Os.fsync(fd);
+            } finally {
+                Os.close(fd);
+            }
+        } catch (ErrnoException e) {
+            Logger.w("Directory fsync failed -> " + dir.getAbsolutePath() + ", " + e.getMessage());
+        }
+    }
+
+    /**
+     * 一组小文件的批量原子写入(group commit)：
+     * saveFile只写临时文件，commit时集中force、依次rename，每个目录只fsync一次。
+     * 集中force让文件系统合并日志提交，组内每个文件各自原子替换，整组不是一个事务
+     */
+    public static final class WriteGroup {
+
+        private final int durability;
+        private final List<File> temps = new ArrayList<>();
+        private final List<File> targets = new ArrayList<>();
+
+        /**
+         * @param durability 持久化级别 DURABILITY_NONE/DATA/DIRECTORY
+         */
+        public WriteGroup(int durability) {
+            this.durability = durability;
+        }
+
+        public synchronized int size() {
+            return temps.size();
+        }
+
+        /**
+         * 写入临时文件，commit后才替换dstFile
+         */
+        public boolean saveFile(File dstFile, byte[] data) {
+            return data != null && saveFile(dstFile, ByteBuffer.wrap(data));
+        }
+
+        /**
+         * 写入临时文件，commit后才替换dstFile
+         */
+        public synchronized boolean saveFile(File dstFile, ByteBuffer data) {
+            if (dstFile == null || dstFile.isDirectory() || data == null) return false;
+            File tmp = tempFile(dstFile);
+            FileChannel fc = null;
+            try {
+                fc = new FileOutputStream(tmp).getChannel();
+                writeFully(fc, data, 0);
+            } catch (IOException e) {
+                e.printStackTrace();
+                ioClose(fc);
+                deleteTemp(tmp);
+                return false;
+            }
             ioClose(fc);
+            temps.add(tmp);
+            targets.add(dstFile);
+            return true;
+        }
+
+        /**
+         * 提交：force全部临时文件 -> 依次rename -> 每个目录fsync一次
+         *
+         * @return 全部成功返回true，失败的文件保持旧内容
+         */
+        public synchronized boolean commit() {
+            boolean result = true;
+            Set<File> dirs = new LinkedHashSet<>();
+            Tracer.begin("FileUtils.WriteGroup.commit");
+            try {
+                boolean[] synced = new boolean[temps.size()];
+                for (int i = 0; i < temps.size(); i++) {
+                    synced[i] = durability < DURABILITY_DATA || sync(temps.get(i));
+                }
+                for (int i = 0; i < temps.size(); i++) {
+                    File tmp = temps.get(i);
+                    File dstFile = targets.get(i);
+                    try {
+                        if (!synced[i]) throw new IOException("sync failed: " + tmp);
+                        replace(tmp, dstFile);
+                        dirs.add(dstFile.getAbsoluteFile().getParentFile());
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        deleteTemp(tmp);
+                        result = false;
+                    }
+                }
+                if (durability >= DURABILITY_DIRECTORY) {
+                    for (File dir : dirs) {
+                        syncDirectory(dir);
+                    }
+                }
+            } finally {
+                temps.clear();
+                targets.clear();
+                Tracer.end();
+            }
+            return result;
+        }
+
+        /**
+         * 放弃未提交的写入
+         */
+        public synchronized void abort() {
+            for (File tmp : temps) {
+                deleteTemp(tmp);
+            }
+            temps.clear();
+            targets.clear();
+        }
+
+        private static boolean sync(File tmp) {
+            RandomAccessFile raf = null;
+            try {
+                raf = new RandomAccessFile(tmp, "rw");
+                raf.getChannel().force(false);
+                return true;
+            } catch (IOException e) {
+                e.printStackTrace();
+                return false;
+            } finally {
+                ioClose(raf);
+            }
+        }
+    }
+
+    /**
+     * 读取文件区间到调用方缓冲，读满dst或到文件末尾为止
+     *
+     * @param dstFile 目标文件
+     * @param offset  文件偏移
+     * @param dst     目标缓冲，从position写到limit
+     * @return 读取字节数，失败返回-1
+     */
+    public static int read(File dstFile, long offset, ByteBuffer dst) {
+        if (dstFile == null || dstFile.isDirectory() || dst == null || offset < 0) return -1;
+        RandomAccessFile raf = null;
+        Tracer.begin("FileUtils.read");
+        try {
+            raf = new RandomAccessFile(dstFile, "r");
+            return readFully(raf.getChannel(), dst, offset);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return -1;
+        } finally {
+            ioClose(raf);
+            Tracer.end();
         }
+    }
+
+    /**
+     * 读取文件区间
+     *
+     * @param dstFile 目标文件
+     * @param offset  文件偏移
+     * @param length  长度
+     * @return 内容(到文件末尾时可能短于length)，失败返回null
+     */
+    public static byte[] read(File dstFile, long offset, int length) {
+        if (length < 0) return null;
+        byte[] data = new byte[length];
+        int count = read(dstFile, offset, ByteBuffer.wrap(data));
+        if (count < 0) return null;
+        if (count == length) return data;
+        byte[] result = new byte[count];
+        System.arraycopy(data, 0, result, 0, count);
         return result;
     }
 
+    /**
+     * 分块流式读取文件，块缓冲为复用的直接内存，整个文件不进入堆
+     *
+     * @param dstFile  目标文件
+     * @param callback 块回调
+     * @return 读取字节数，失败返回-1
+     */
+    public static long read(File dstFile, ChunkCallback callback) {
+        if (dstFile == null || dstFile.isDirectory() || callback == null) return -1;
+        long position = 0;
+        RandomAccessFile raf = null;
+        ByteBuffer buffer = BufferPool.acquire(BufferPool.IO_BUFFER_SIZE);
+        Tracer.begin("FileUtils.read");
+        try {
+            raf = new RandomAccessFile(dstFile, "r");
+            FileChannel fc = raf.getChannel();
+            while (true) {
+                buffer.clear();
+                int count = readFully(fc, buffer, position);
+                if (count <= 0) break;
+                buffer.flip();
+                long chunkPosition = position;
+                position += count;
+                if (!callback.onChunk(buffer, chunkPosition)) break;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            position = -1;
+        } finally {
+            ioClose(raf);
+            BufferPool.release(buffer);
+            Tracer.end();
+        }
+        return position;
+    }
+
+    /**
+     * 从指定位置读满dst，遇到文件末尾提前结束(FileChannel.read可能只读取部分)
+     * 堆缓冲经直接内存分块中转，避免通道为整个堆缓冲分配临时直接内存
+     *
+     * @param fc       通道
+     * @param dst      目标缓冲
+     * @param position 文件位置
+     * @return 读取字节数
+     * @throws IOException 读取失败
+     */
+    public static int readFully(FileChannel fc, ByteBuffer dst, long position) throws IOException {
+        int total = 0;
+        if (dst.isDirect()) {
+            while (dst.hasRemaining()) {
+                int count = fc.read(dst, position + total);
+                if (count < 0) break;
+                total += count;
+            }
+            return total;
+        }
+        ByteBuffer buffer = BufferPool.acquire(Math.min(dst.remaining(), BufferPool.IO_BUFFER_SIZE));
+        try {
+            while (dst.hasRemaining()) {
+                buffer.clear();
+                if (buffer.capacity() > dst.remaining()) buffer.limit(dst.remaining());
+                int count = fc.read(buffer, position + total);
+                if (count < 0) break;
+                buffer.flip();
+                dst.put(buffer);
+                total += count;
+            }
+        } finally {
+            BufferPool.release(buffer);
+        }
+        return total;
+    }
+
+    /**
+     * 从指定位置写完src的全部剩余内容(FileChannel.write可能只写入部分)
+     *
+     * @param fc       通道
+     * @param src      数据
+     * @param position 文件位置
+     * @return 写入字节数
+     * @throws IOException 写入失败
+     */
+    public static int writeFully(FileChannel fc, ByteBuffer src, long position) throws IOException {
+        int total = 0;
+        if (src.isDirect()) {
+            while (src.hasRemaining()) {
+                total += fc.write(src, position + total);
+            }
+            return total;
+        }
+        ByteBuffer buffer = BufferPool.acquire(Math.min(src.remaining(), BufferPool.IO_BUFFER_SIZE));
+        try {
+            while (src.hasRemaining()) {
+                buffer.clear();
+                int count = Math.min(buffer.capacity(), src.remaining());
+                ByteBuffer slice = src.duplicate();
+                slice.limit(slice.position() + count);
+                buffer.put(slice);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    total += fc.write(buffer, position + total);
+                }
+                src.position(src.position() + count);
+            }
+        } finally {
+            BufferPool.release(buffer);
+        }
+        return total;
+    }
+
+    /**
+     * 内存映射文件
+     *
+     * @param dstFile  目标文件
+     * @param writable 是否读写(不存在时创建)
+     * @return MappedFile，用完需close；失败返回null
+     */
+    public static MappedFile mapFile(File dstFile, boolean writable) {
+        if (dstFile == null || dstFile.isDirectory()) return null;
+        try {
+            return writable ? MappedFile.openReadWrite(dstFile, 0) : MappedFile.openReadOnly(dstFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 分块读取回调
+     */
+    public interface ChunkCallback {
+
+        /**
+         * @param chunk    块数据(position~limit)，复用缓冲，回调返回后不可持有
+         * @param position 块在文件中的位置
+         * @return 是否继续读取
+         */
+        boolean onChunk(@NonNull ByteBuffer chunk, long position);
+    }
+
     /**
      * 关闭IO流
      *
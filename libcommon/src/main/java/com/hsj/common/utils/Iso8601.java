@@ -0,0 +1,275 @@
+package com.hsj.common.utils;
+
+import androidx.annotation.NonNull;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:Iso8601
+ * @Desc:ISO-8601 / RFC-3339 时间解析与格式化
+ */
+public final class Iso8601 {
+
+    //////////////////////////////////////////////////////////////
+    // Iso8601 功能如下：
+    //     1、解析 CharSequence 或 byte[](ASCII/UTF-8，如JSON原始字节)的区间，不创建对象，不抛异常
+    //     2、支持格式：
+    //          2024-01-02
+    //          2024-01-02T03:04
+    //          2024-01-02T03:04:05
+    //          2024-01-02T03:04:05.123456789Z
+    //          2024-01-02 03:04:05,5+08:00 / +0800 / +08
+    //        日期时间分隔符 T/t/空格，小数点或逗号，小数最多取9位；
+    //        无时区时按默认时区的本地时间(与 SimpleDateFormat 一致)，秒为60(闰秒)时按59秒处理
+    //     3、返回 long 毫秒或纳秒(纳秒范围为1677~2262年)，失败返回 INVALID
+    //     4、格式化为 UTC(Z) 或指定偏移，追加到 StringBuilder
+    //////////////////////////////////////////////////////////////
+
+    /**
+     * 解析失败
+     */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final long ONE_DAY_SECONDS = 24 * 60 * 60;
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final long MAX_NANOS_SECOND = Long.MAX_VALUE / NANOS_PER_SECOND;
+    private static final long MIN_NANOS_SECOND = Long.MIN_VALUE / NANOS_PER_SECOND - 1;
+
+    private static final int[] POW10 = {
+            100000000, 10000000, 1000000, 100000, 10000, 1000, 100, 10, 1
+    };
+
+    private Iso8601() {
+        throw new IllegalAccessError("Iso8601 can't be instance");
+    }
+
+//======================================Parse=======================================================
+
+    /**
+     * @return 毫秒时间戳，失败返回 INVALID
+     */
+    public static long parseMillis(@NonNull CharSequence text) {
+        return parse(text, null, 0, text.length(), false);
+    }
+
+    /**
+     * 解析 text[start, end)
+     *
+     * @return 毫秒时间戳，失败返回 INVALID
+     */
+    public static long parseMillis(@NonNull CharSequence text, int start, int end) {
+        return parse(text, null, start, end, false);
+    }
+
+    /**
+     * 解析 bytes[start, end)
+     *
+     * @return 毫秒时间戳，失败返回 INVALID
+     */
+    public static long parseMillis(@NonNull byte[] bytes, int start, int end) {
+        return parse(null, bytes, start, end, false);
+    }
+
+    /**
+     * @return 纳秒时间戳，失败或超出范围返回 INVALID
+     */
+    public static long parseNanos(@NonNull CharSequence text) {
+        return parse(text, null, 0, text.length(), true);
+    }
+
+    /**
+     * 解析 text[start, end)
+     *
+     * @return 纳秒时间戳，失败或超出范围返回 INVALID
+     */
+    public static long parseNanos(@NonNull CharSequence text, int start, int end) {
+        return parse(text, null, start, end, true);
+    }
+
+    /**
+     * 解析 bytes[start, end)
+     *
+     * @return 纳秒时间戳，失败或超出范围返回 INVALID
+     */
+    public static long parseNanos(@NonNull byte[] bytes, int start, int end) {
+        return parse(null, bytes, start, end, true);
+    }
+
+    /**
+     * text 与 bytes 二选一
+     */
+    private static long parse(CharSequence text, byte[] bytes, int start, int end, boolean nanos) {
+        if (start < 0 || end - start < 10) return INVALID;
+        final int year = digits(text, bytes, start, 4);
+        if (year < 0 || at(text, bytes, start + 4) != '-') return INVALID;
+        final int month = digits(text, bytes, start + 5, 2);
+        if (month < 1 || month > 12 || at(text, bytes, start + 7) != '-') return INVALID;
+        final int day = digits(text, bytes, start + 8, 2);
+        if (day < 1 || day > DateFormatter.daysInMonth(year, month)) return INVALID;
+        int pos = start + 10;
+        int hour = 0, minute = 0, second = 0, nano = 0;
+        boolean hasOffset = false;
+        int offsetSeconds = 0;
+        if (pos < end) {
+            final char separator = at(text, bytes, pos);
+            if (separator != 'T' && separator != 't' && separator != ' ') return INVALID;
+            if (end - pos < 6) return INVALID;
+            hour = digits(text, bytes, pos + 1, 2);
+            if (hour < 0 || hour > 23 || at(text, bytes, pos + 3) != ':') return INVALID;
+            minute = digits(text, bytes, pos + 4, 2);
+            if (minute < 0 || minute > 59) return INVALID;
+            pos += 6;
+            if (pos < end && at(text, bytes, pos) == ':') {
+                if (end - pos < 3) return INVALID;
+                second = digits(text, bytes, pos + 1, 2);
+                if (second < 0 || second > 60) return INVALID;
+                if (second == 60) second = 59;
+                pos += 3;
+                if (pos < end && (at(text, bytes, pos) == '.' || at(text, bytes, pos) == ',')) {
+                    pos++;
+                    final int fractionStart = pos;
+                    while (pos < end) {
+                        final char c = at(text, bytes, pos);
+                        if (c < '0' || c > '9') break;
+                        if (pos - fractionStart < 9) nano += (c - '0') * POW10[pos - fractionStart];
+                        pos++;
+                    }
+                    if (pos == fractionStart) return INVALID;
+                }
+            }
+            if (pos < end) {
+                final char c = at(text, bytes, pos);
+                if (c == 'Z' || c == 'z') {
+                    pos++;
+                } else if (c == '+' || c == '-') {
+                    int offsetHour = end - pos >= 3 ? digits(text, bytes, pos + 1, 2) : -1;
+                    if (offsetHour < 0 || offsetHour > 18) return INVALID;
+                    pos += 3;
+                    int offsetMinute = 0;
+                    if (pos < end) {
+                        if (at(text, bytes, pos) == ':') pos++;
+                        offsetMinute = end - pos >= 2 ? digits(text, bytes, pos, 2) : -1;
+                        if (offsetMinute < 0 || offsetMinute > 59) return INVALID;
+                        pos += 2;
+                    }
+                    offsetSeconds = (offsetHour * 3600 + offsetMinute * 60) * (c == '-' ? -1 : 1);
+                } else {
+                    return INVALID;
+                }
+                hasOffset = true;
+            }
+            if (pos != end) return INVALID;
+        }
+        final long localSeconds = DateFormatter.daysFromCivil(year, month, day) * ONE_DAY_SECONDS
+                + hour * 3600 + minute * 60 + second;
+        final long epochSecond;
+        if (hasOffset) {
+            epochSecond = localSeconds - offsetSeconds;
+        } else {
+            final long millis = DateFormatter.toUtc(localSeconds * 1000);
+            if (millis == DateFormatter.INVALID) return INVALID;
+            epochSecond = millis / 1000;
+        }
+        if (!nanos) return epochSecond * 1000 + nano / 1000000;
+        //long 纳秒范围：1677-09-21T00:12:43.145224193Z ~ 2262-04-11T23:47:16.854775807Z(Long.MIN_VALUE 为 INVALID)
+        if (epochSecond > MAX_NANOS_SECOND || epochSecond < MIN_NANOS_SECOND) return INVALID;
+        if (epochSecond == MAX_NANOS_SECOND && nano > Long.MAX_VALUE % NANOS_PER_SECOND) return INVALID;
+        if (epochSecond == MIN_NANOS_SECOND && nano <= NANOS_PER_SECOND + Long.MIN_VALUE % NANOS_PER_SECOND) return INVALID;
+        return epochSecond * NANOS_PER_SECOND + nano;
+    }
+
+    private static char at(CharSequence text, byte[] bytes, int index) {
+        return text != null ? text.charAt(index) : (char) (bytes[index] & 0xff);
+    }
+
+    /**
+     * @return count 位十进制数，含非数字时返回 -1
+     */
+    private static int digits(CharSequence text, byte[] bytes, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            final char c = at(text, bytes, i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+//======================================Format======================================================
+
+    /**
+     * @return 2024-01-02T03:04:05.678Z
+     */
+    @NonNull
+    public static String format(long millis) {
+        return format(new StringBuilder(24), millis, 0).toString();
+    }
+
+    /**
+     * 追加 UTC 时间，如 2024-01-02T03:04:05.678Z
+     *
+     * @return out
+     */
+    @NonNull
+    public static StringBuilder format(@NonNull StringBuilder out, long millis) {
+        return format(out, millis, 0);
+    }
+
+    /**
+     * 追加指定偏移的时间，如 2024-01-02T11:04:05.678+08:00，偏移为0时用Z
+     *
+     * @param offsetMinutes 相对UTC的偏移/分钟
+     * @return out
+     */
+    @NonNull
+    public static StringBuilder format(@NonNull StringBuilder out, long millis, int offsetMinutes) {
+        final long local = millis + offsetMinutes * 60000L;
+        final long seconds = DateFormatter.floorDiv(local, 1000);
+        appendDateTime(out, seconds);
+        out.append('.');
+        DateFormatter.appendNumber(out, (int) (local - seconds * 1000), 3);
+        return appendOffset(out, offsetMinutes);
+    }
+
+    /**
+     * 追加 UTC 纳秒精度时间，如 2024-01-02T03:04:05.123456789Z
+     *
+     * @return out
+     */
+    @NonNull
+    public static StringBuilder formatNanos(@NonNull StringBuilder out, long nanos) {
+        final long seconds = DateFormatter.floorDiv(nanos, NANOS_PER_SECOND);
+        appendDateTime(out, seconds);
+        out.append('.');
+        DateFormatter.appendNumber(out, (int) (nanos - seconds * NANOS_PER_SECOND), 9);
+        return out.append('Z');
+    }
+
+    private static void appendDateTime(StringBuilder out, long epochSecond) {
+        final long days = DateFormatter.floorDiv(epochSecond, ONE_DAY_SECONDS);
+        final int secondOfDay = (int) (epochSecond - days * ONE_DAY_SECONDS);
+        final int date = DateFormatter.civilFromDays(days);
+        DateFormatter.appendNumber(out, date / 10000, 4);
+        out.append('-');
+        DateFormatter.appendNumber(out, date / 100 % 100, 2);
+        out.append('-');
+        DateFormatter.appendNumber(out, date % 100, 2);
+        out.append('T');
+        DateFormatter.appendNumber(out, secondOfDay / 3600, 2);
+        out.append(':');
+        DateFormatter.appendNumber(out, secondOfDay / 60 % 60, 2);
+        out.append(':');
+        DateFormatter.appendNumber(out, secondOfDay % 60, 2);
+    }
+
+    private static StringBuilder appendOffset(StringBuilder out, int offsetMinutes) {
+        if (offsetMinutes == 0) return out.append('Z');
+        out.append(offsetMinutes < 0 ? '-' : '+');
+        final int abs = Math.abs(offsetMinutes);
+        DateFormatter.appendNumber(out, abs / 60, 2);
+        out.append(':');
+        DateFormatter.appendNumber(out, abs % 60, 2);
+        return out;
+    }
+
+}
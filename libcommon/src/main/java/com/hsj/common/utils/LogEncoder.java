@@ -0,0 +1,280 @@
+package com.hsj.common.utils;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:LogEncoder
+ * @Desc:结构化日志编码器
+ */
+public interface LogEncoder<T> {
+
+    //////////////////////////////////////////////////////////////
+    // LogEncoder 内置实现：
+    //     1、LOGFMT:  msg="bind" latency=12 hit=true
+    //     2、JSON:    {"ts":..,"level":"i","tag":"Feed","msg":"bind","latency":12}
+    //     3、BINARY:  紧凑二进制，写入 ByteBuffer(空间不足抛 BufferOverflowException)
+    //////////////////////////////////////////////////////////////
+
+    /**
+     * 编码事件
+     *
+     * @param event 事件
+     * @param out   输出
+     */
+    void encode(@NonNull LogEvent event, @NonNull T out);
+
+    /**
+     * logfmt 编码，只包含 msg 和字段，tag 和等级由控制台输出
+     */
+    LogEncoder<StringBuilder> LOGFMT = (event, out) -> {
+        boolean first = true;
+        if (event.message() != null) {
+            out.append("msg=");
+            Text.appendLogfmt(out, event.message());
+            first = false;
+        }
+        for (int i = 0, size = event.size(); i < size; i++) {
+            if (!first) out.append(' ');
+            first = false;
+            Text.appendLogfmtKey(out, event.key(i));
+            out.append('=');
+            switch (event.type(i)) {
+                case LogEvent.TYPE_LONG:
+                    out.append(event.longValue(i));
+                    break;
+                case LogEvent.TYPE_DOUBLE:
+                    out.append(event.doubleValue(i));
+                    break;
+                case LogEvent.TYPE_BOOLEAN:
+                    out.append(event.booleanValue(i));
+                    break;
+                default:
+                    Text.appendLogfmt(out, String.valueOf(event.objectValue(i)));
+                    break;
+            }
+        }
+    };
+
+    /**
+     * JSON 编码，单行
+     */
+    LogEncoder<StringBuilder> JSON = (event, out) -> {
+        out.append("{\"ts\":").append(event.timeMillis());
+        out.append(",\"level\":\"").append(event.level()).append('"');
+        out.append(",\"tag\":");
+        Text.appendJson(out, event.tag());
+        if (event.message() != null) {
+            out.append(",\"msg\":");
+            Text.appendJson(out, event.message());
+        }
+        for (int i = 0, size = event.size(); i < size; i++) {
+            out.append(',');
+            Text.appendJson(out, event.key(i));
+            out.append(':');
+            switch (event.type(i)) {
+                case LogEvent.TYPE_LONG:
+                    out.append(event.longValue(i));
+                    break;
+                case LogEvent.TYPE_DOUBLE:
+                    double value = event.doubleValue(i);
+                    if (Double.isNaN(value) || Double.isInfinite(value)) {
+                        out.append("null");
+                    } else {
+                        out.append(value);
+                    }
+                    break;
+                case LogEvent.TYPE_BOOLEAN:
+                    out.append(event.booleanValue(i));
+                    break;
+                default:
+                    Object object = event.objectValue(i);
+                    if (object == null) {
+                        out.append("null");
+                    } else {
+                        Text.appendJson(out, object.toString());
+                    }
+                    break;
+            }
+        }
+        out.append('}');
+    };
+
+    /**
+     * 二进制编码，格式(大端)：
+     * <p>int32 记录长度(不含自身) | int64 时间 | int8 等级 | str tag | str msg | int16 字段数 | 字段...</p>
+     * <p>字段：str key | int8 类型 | 值(long/double 8字节，boolean 1字节，string 为 str)</p>
+     * <p>str：int32 UTF-8 字节长度(-1 表示 null) | UTF-8 字节</p>
+     */
+    LogEncoder<ByteBuffer> BINARY = (event, out) -> {
+        int start = out.position();
+        out.putInt(0);
+        out.putLong(event.timeMillis());
+        out.put((byte) event.level());
+        Text.putUtf8(out, event.tag());
+        Text.putUtf8(out, event.message());
+        out.putShort((short) event.size());
+        for (int i = 0, size = event.size(); i < size; i++) {
+            Text.putUtf8(out, event.key(i));
+            byte type = event.type(i);
+            out.put(type);
+            switch (type) {
+                case LogEvent.TYPE_LONG:
+                case LogEvent.TYPE_DOUBLE:
+                    out.putLong(event.longValue(i));
+                    break;
+                case LogEvent.TYPE_BOOLEAN:
+                    out.put((byte) (event.booleanValue(i) ? 1 : 0));
+                    break;
+                default:
+                    Object object = event.objectValue(i);
+                    Text.putUtf8(out, object == null ? null : object.toString());
+                    break;
+            }
+        }
+        out.putInt(start, out.position() - start - 4);
+    };
+
+    /**
+     * 编码辅助方法
+     */
+    final class Text {
+
+        private static final char[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+        private Text() {
+            throw new IllegalAccessError("Text can't be instance");
+        }
+
+        /**
+         * logfmt 值：含空白、控制字符、'='、'"' 或为空时加引号，引号内转义 '"'、'\\' 和控制字符
+         */
+        static void appendLogfmt(StringBuilder out, String value) {
+            boolean quote = value.isEmpty();
+            for (int i = 0, len = value.length(); i < len && !quote; i++) {
+                quote = needQuote(value.charAt(i));
+            }
+            if (!quote) {
+                out.append(value);
+                return;
+            }
+            out.append('"');
+            for (int i = 0, len = value.length(); i < len; i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"':
+                    case '\\':
+                        out.append('\\').append(c);
+                        break;
+                    case '\n':
+                        out.append("\\n");
+                        break;
+                    case '\r':
+                        out.append("\\r");
+                        break;
+                    case '\t':
+                        out.append("\\t");
+                        break;
+                    default:
+                        if (c < 0x20 || c == 0x7F) {
+                            out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                        } else {
+                            out.append(c);
+                        }
+                        break;
+                }
+            }
+            out.append('"');
+        }
+
+        /**
+         * logfmt 键不能加引号，空白、控制字符、'=' 和 '"' 替换为 '_'
+         */
+        static void appendLogfmtKey(StringBuilder out, String key) {
+            if (key.isEmpty()) {
+                out.append('_');
+                return;
+            }
+            for (int i = 0, len = key.length(); i < len; i++) {
+                char c = key.charAt(i);
+                out.append(needQuote(c) ? '_' : c);
+            }
+        }
+
+        private static boolean needQuote(char c) {
+            return c <= ' ' || c == '=' || c == '"' || c == 0x7F || Character.isSpaceChar(c);
+        }
+
+        static void appendJson(StringBuilder out, String value) {
+            if (value == null) {
+                out.append("null");
+                return;
+            }
+            out.append('"');
+            for (int i = 0, len = value.length(); i < len; i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"':
+                        out.append("\\\"");
+                        break;
+                    case '\\':
+                        out.append("\\\\");
+                        break;
+                    case '\n':
+                        out.append("\\n");
+                        break;
+                    case '\r':
+                        out.append("\\r");
+                        break;
+                    case '\t':
+                        out.append("\\t");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                        } else {
+                            out.append(c);
+                        }
+                        break;
+                }
+            }
+            out.append('"');
+        }
+
+        static void putUtf8(ByteBuffer out, String value) {
+            if (value == null) {
+                out.putInt(-1);
+                return;
+            }
+            int start = out.position();
+            out.putInt(0);
+            for (int i = 0, len = value.length(); i < len; i++) {
+                int c = value.charAt(i);
+                if (Character.isHighSurrogate((char) c) && i + 1 < len
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    c = Character.toCodePoint((char) c, value.charAt(++i));
+                }
+                if (c < 0x80) {
+                    out.put((byte) c);
+                } else if (c < 0x800) {
+                    out.put((byte) (0xC0 | (c >> 6)));
+                    out.put((byte) (0x80 | (c & 0x3F)));
+                } else if (c < 0x10000) {
+                    out.put((byte) (0xE0 | (c >> 12)));
+                    out.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                    out.put((byte) (0x80 | (c & 0x3F)));
+                } else {
+                    out.put((byte) (0xF0 | (c >> 18)));
+                    out.put((byte) (0x80 | ((c >> 12) & 0x3F)));
+                    out.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                    out.put((byte) (0x80 | (c & 0x3F)));
+                }
+            }
+            out.putInt(start, out.position() - start - 4);
+        }
+    }
+
+}
@@ -0,0 +1,251 @@
+package com.hsj.common.utils;
+
+import androidx.annotation.NonNull;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:LogEvent
+ * @Desc:结构化日志事件
+ */
+public final class LogEvent {
+
+    //////////////////////////////////////////////////////////////
+    // LogEvent 功能如下：
+    //     1、链式添加 key/value，基本类型不装箱
+    //     2、事件对象按线程复用，log() 后自动回收，未log()的事件不影响后续复用
+    //     3、由 LogEncoder 编码后输出到控制台和 LogSink
+    //
+    // 用法：
+    //     Logger.at(Logger.INFO).tag("Feed").msg("bind")
+    //           .kv("latency", cost).kv("hit", true).log();
+    //////////////////////////////////////////////////////////////
+
+    public static final byte TYPE_LONG    = 1;
+    public static final byte TYPE_DOUBLE  = 2;
+    public static final byte TYPE_BOOLEAN = 3;
+    public static final byte TYPE_STRING  = 4;
+
+    /**
+     * 初始字段容量
+     */
+    private static final int INIT_CAPACITY = 8;
+
+    /**
+     * 日志关闭时返回的空事件，所有操作为空操作
+     */
+    static final LogEvent DISABLED = new LogEvent(false);
+
+    /**
+     * 每个线程复用的事件
+     */
+    private static final ThreadLocal<LogEvent> POOL = new ThreadLocal<LogEvent>() {
+        @Override
+        protected LogEvent initialValue() {
+            return new LogEvent(true);
+        }
+    };
+
+    private final boolean enabled;
+    private final StringBuilder text = new StringBuilder(128);
+
+    private boolean inUse;
+    private char level;
+    private String tag;
+    private String message;
+    private Throwable throwable;
+    private long timeMillis;
+
+    private int size;
+    private String[] keys = new String[INIT_CAPACITY];
+    private byte[] types = new byte[INIT_CAPACITY];
+    private long[] values = new long[INIT_CAPACITY];
+    private Object[] objects = new Object[INIT_CAPACITY];
+
+    private LogEvent(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * 获取当前线程可用的事件
+     * <p>线程复用事件仍在使用时(嵌套日志，或取出后未log()被丢弃)新建一个，并由新事件接替复用，
+     * 被丢弃的事件随之回收，线程不会从此一直新建</p>
+     *
+     * @param level 等级
+     * @param tag   默认标签
+     * @return 事件
+     */
+    static LogEvent obtain(char level, String tag) {
+        LogEvent event = POOL.get();
+        if (event.inUse) {
+            event = new LogEvent(true);
+            POOL.set(event);
+        }
+        event.inUse = true;
+        event.level = level;
+        event.tag = tag;
+        event.timeMillis = System.currentTimeMillis();
+        return event;
+    }
+
+    /**
+     * 回收事件
+     */
+    void recycle() {
+        for (int i = 0; i < size; i++) {
+            keys[i] = null;
+            objects[i] = null;
+        }
+        size = 0;
+        tag = null;
+        message = null;
+        throwable = null;
+        text.setLength(0);
+        inUse = false;
+    }
+
+    /**
+     * 编码用的复用缓冲
+     */
+    StringBuilder textBuffer() {
+        text.setLength(0);
+        return text;
+    }
+
+//======================================Builder=====================================================
+
+    public LogEvent tag(String tag) {
+        if (enabled && tag != null) this.tag = tag;
+        return this;
+    }
+
+    public LogEvent msg(String message) {
+        if (enabled) this.message = message;
+        return this;
+    }
+
+    public LogEvent error(Throwable throwable) {
+        if (enabled) this.throwable = throwable;
+        return this;
+    }
+
+    public LogEvent kv(@NonNull String key, long value) {
+        if (enabled) add(key, TYPE_LONG, value, null);
+        return this;
+    }
+
+    public LogEvent kv(@NonNull String key, int value) {
+        if (enabled) add(key, TYPE_LONG, value, null);
+        return this;
+    }
+
+    public LogEvent kv(@NonNull String key, double value) {
+        if (enabled) add(key, TYPE_DOUBLE, Double.doubleToRawLongBits(value), null);
+        return this;
+    }
+
+    public LogEvent kv(@NonNull String key, float value) {
+        return kv(key, (double) value);
+    }
+
+    public LogEvent kv(@NonNull String key, boolean value) {
+        if (enabled) add(key, TYPE_BOOLEAN, value ? 1 : 0, null);
+        return this;
+    }
+
+    /**
+     * 对象值，toString() 延迟到编码时调用
+     */
+    public LogEvent kv(@NonNull String key, Object value) {
+        if (enabled) add(key, TYPE_STRING, 0, value);
+        return this;
+    }
+
+    /**
+     * 输出并回收事件，之后不可再使用该事件
+     */
+    public void log() {
+        if (!enabled) return;
+        try {
+            Logger.dispatch(this);
+        } finally {
+            recycle();
+        }
+    }
+
+    private void add(String key, byte type, long value, Object object) {
+        if (size == keys.length) grow();
+        keys[size] = key;
+        types[size] = type;
+        values[size] = value;
+        objects[size] = object;
+        size++;
+    }
+
+    private void grow() {
+        int capacity = keys.length << 1;
+        String[] newKeys = new String[capacity];
+        byte[] newTypes = new byte[capacity];
+        long[] newValues = new long[capacity];
+        Object[] newObjects = new Object[capacity];
+        System.arraycopy(keys, 0, newKeys, 0, size);
+        System.arraycopy(types, 0, newTypes, 0, size);
+        System.arraycopy(values, 0, newValues, 0, size);
+        System.arraycopy(objects, 0, newObjects, 0, size);
+        keys = newKeys;
+        types = newTypes;
+        values = newValues;
+        objects = newObjects;
+    }
+
+//======================================Reader======================================================
+
+    public char level() {
+        return level;
+    }
+
+    public String tag() {
+        return tag;
+    }
+
+    public String message() {
+        return message;
+    }
+
+    public Throwable throwable() {
+        return throwable;
+    }
+
+    public long timeMillis() {
+        return timeMillis;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String key(int index) {
+        return keys[index];
+    }
+
+    public byte type(int index) {
+        return types[index];
+    }
+
+    public long longValue(int index) {
+        return values[index];
+    }
+
+    public double doubleValue(int index) {
+        return Double.longBitsToDouble(values[index]);
+    }
+
+    public boolean booleanValue(int index) {
+        return values[index] != 0;
+    }
+
+    public Object objectValue(int index) {
+        return objects[index];
+    }
+
+}
@@ -0,0 +1,318 @@
+package com.hsj.common.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:LogLimiter
+ * @Desc:日志限流与采样
+ */
+final class LogLimiter {
+
+    //////////////////////////////////////////////////////////////
+    // LogLimiter 功能如下：
+    //     1、按 tag + level 令牌桶限流(GCRA，单个CAS完成取令牌)
+    //     2、按 tag + level 概率采样
+    //     3、被丢弃的日志计数，定期输出汇总(下一条放行的日志，或丢弃后由 Logger 定时输出)
+    //     4、全部计数无锁，采样随机数按线程独立，避免限流器成为瓶颈
+    //////////////////////////////////////////////////////////////
+
+    /**
+     * 允许输出，且无汇总
+     */
+    static final long ALLOW = 0;
+
+    /**
+     * 丢弃
+     */
+    static final long DENY = -1;
+
+    /**
+     * 日志等级数量：v、d、i、w、e
+     */
+    private static final int LEVEL_SIZE = 5;
+
+    /**
+     * 汇总输出间隔/纳秒
+     */
+    private static volatile long summaryIntervalNanos = 5_000_000_000L;
+
+    /**
+     * SplitMix64 步长
+     */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * 为各线程分配初始种子，每个线程只取一次
+     */
+    private static final AtomicLong SEEDER = new AtomicLong(System.nanoTime());
+
+    /**
+     * 每个线程独立的采样随机状态(SplitMix64)，采样时不再竞争同一个原子变量
+     */
+    private static final ThreadLocal<long[]> RANDOM = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[]{mix(SEEDER.addAndGet(GOLDEN_GAMMA) ^ Thread.currentThread().getId())};
+        }
+    };
+
+    /**
+     * tag -> 各等级策略
+     */
+    private static final ConcurrentHashMap<String, AtomicReferenceArray<Policy>> POLICIES =
+            new ConcurrentHashMap<>();
+
+    private LogLimiter() {
+        throw new IllegalAccessError("LogLimiter can't be instance");
+    }
+
+    /**
+     * 设置汇总输出间隔
+     *
+     * @param millis 毫秒
+     */
+    static void setSummaryInterval(long millis) {
+        summaryIntervalNanos = Math.max(0, millis) * 1_000_000L;
+    }
+
+    /**
+     * @return 汇总输出间隔/毫秒
+     */
+    static long getSummaryInterval() {
+        return summaryIntervalNanos / 1_000_000L;
+    }
+
+    /**
+     * 设置限流
+     *
+     * @param tag              标签
+     * @param level            等级
+     * @param permitsPerSecond 每秒允许条数，<=0 表示不限流
+     * @param burst            允许突发条数
+     */
+    static void setRateLimit(String tag, char level, double permitsPerSecond, int burst) {
+        Policy old = policies(tag).get(indexOf(level));
+        float sampleRate = old == null ? 1f : old.sampleRate;
+        update(tag, level, new Policy(permitsPerSecond, burst, sampleRate));
+    }
+
+    /**
+     * 设置采样率
+     *
+     * @param tag   标签
+     * @param level 等级
+     * @param rate  采样率 [0, 1]
+     */
+    static void setSampleRate(String tag, char level, float rate) {
+        Policy old = policies(tag).get(indexOf(level));
+        double permits = old == null ? 0 : old.permitsPerSecond;
+        int burst = old == null ? 0 : old.burst;
+        update(tag, level, new Policy(permits, burst, rate));
+    }
+
+    /**
+     * 清除tag的全部策略
+     *
+     * @param tag 标签
+     */
+    static void clear(String tag) {
+        if (tag != null) POLICIES.remove(tag);
+    }
+
+    /**
+     * 判断是否允许输出
+     *
+     * @param tag   标签
+     * @param level 等级
+     * @return {@link #DENY} 丢弃，{@link #ALLOW} 输出，>0 输出且需先输出该数量的丢弃汇总
+     */
+    static long acquire(String tag, char level) {
+        if (tag == null || POLICIES.isEmpty()) return ALLOW;
+        return acquire(tag, level, System.nanoTime());
+    }
+
+    /**
+     * 判断是否允许输出
+     *
+     * @param tag   标签
+     * @param level 等级
+     * @param now   当前时间/纳秒，{@link System#nanoTime()}
+     * @return 同 {@link #acquire(String, char)}
+     */
+    static long acquire(String tag, char level, long now) {
+        AtomicReferenceArray<Policy> array = tag == null ? null : POLICIES.get(tag);
+        if (array == null) return ALLOW;
+        Policy policy = array.get(indexOf(level));
+        return policy == null ? ALLOW : policy.acquire(now);
+    }
+
+    /**
+     * 取出tag等级当前的丢弃数量(不论汇总间隔)
+     *
+     * @param tag   标签
+     * @param level 等级
+     * @return 丢弃数量
+     */
+    static long drainSuppressed(String tag, char level) {
+        AtomicReferenceArray<Policy> array = tag == null ? null : POLICIES.get(tag);
+        if (array == null) return 0;
+        Policy policy = array.get(indexOf(level));
+        return policy == null ? 0 : policy.drain(System.nanoTime());
+    }
+
+    /**
+     * 取出tag等级的丢弃数量，距上次汇总不足间隔时返回0
+     *
+     * @param tag   标签
+     * @param level 等级
+     * @return 丢弃数量
+     */
+    static long drainDue(String tag, char level) {
+        AtomicReferenceArray<Policy> array = tag == null ? null : POLICIES.get(tag);
+        if (array == null) return 0;
+        Policy policy = array.get(indexOf(level));
+        return policy == null || policy.suppressed.get() == 0 ? 0 : policy.summary(System.nanoTime());
+    }
+
+    /**
+     * @param tag   标签
+     * @param level 等级
+     * @return 是否有未汇总的丢弃
+     */
+    static boolean hasSuppressed(String tag, char level) {
+        AtomicReferenceArray<Policy> array = tag == null ? null : POLICIES.get(tag);
+        if (array == null) return false;
+        Policy policy = array.get(indexOf(level));
+        return policy != null && policy.suppressed.get() > 0;
+    }
+
+    /**
+     * 已配置的tag
+     *
+     * @return tags
+     */
+    static Iterable<String> tags() {
+        return POLICIES.keySet();
+    }
+
+    private static void update(String tag, char level, Policy policy) {
+        AtomicReferenceArray<Policy> array = policies(tag);
+        Policy old = array.getAndSet(indexOf(level), policy);
+        if (old != null) policy.suppressed.addAndGet(old.suppressed.getAndSet(0));
+    }
+
+    private static AtomicReferenceArray<Policy> policies(String tag) {
+        if (tag == null) throw new NullPointerException("tag can't be null");
+        AtomicReferenceArray<Policy> array = POLICIES.get(tag);
+        if (array == null) {
+            AtomicReferenceArray<Policy> created = new AtomicReferenceArray<>(LEVEL_SIZE);
+            array = POLICIES.putIfAbsent(tag, created);
+            if (array == null) array = created;
+        }
+        return array;
+    }
+
+    private static int indexOf(char level) {
+        switch (level) {
+            case 'e':
+                return 4;
+            case 'w':
+                return 3;
+            case 'i':
+                return 2;
+            case 'd':
+                return 1;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * 线程内随机数(SplitMix64)，返回 [0, 1)
+     */
+    private static double nextRandom() {
+        long[] state = RANDOM.get();
+        long z = mix(state[0] += GOLDEN_GAMMA);
+        return (z >>> 11) * 0x1.0p-53;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * 单个 tag + level 的策略，配置不可变，状态全部为原子变量
+     */
+    private static final class Policy {
+
+        private final double permitsPerSecond;
+        private final int burst;
+        private final float sampleRate;
+
+        /**
+         * 每条日志占用的纳秒数，0 表示不限流
+         */
+        private final long intervalNanos;
+
+        /**
+         * 允许提前占用的纳秒数
+         */
+        private final long toleranceNanos;
+
+        /**
+         * 理论到达时间(GCRA)
+         */
+        private final AtomicLong tat = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicLong suppressed = new AtomicLong();
+        private final AtomicLong lastSummary = new AtomicLong(System.nanoTime());
+
+        private Policy(double permitsPerSecond, int burst, float sampleRate) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = Math.max(1, burst);
+            this.sampleRate = Math.max(0f, Math.min(1f, sampleRate));
+            this.intervalNanos = permitsPerSecond > 0 ? (long) (1_000_000_000L / permitsPerSecond) : 0;
+            this.toleranceNanos = intervalNanos * this.burst;
+        }
+
+        private long acquire(long now) {
+            if (sampleRate < 1f && (sampleRate <= 0f || nextRandom() >= sampleRate)) {
+                suppressed.incrementAndGet();
+                return DENY;
+            }
+            if (intervalNanos > 0) {
+                long current;
+                long next;
+                do {
+                    current = tat.get();
+                    long base = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+                    next = base + intervalNanos;
+                    if (next - now > toleranceNanos) {
+                        suppressed.incrementAndGet();
+                        return DENY;
+                    }
+                } while (!tat.compareAndSet(current, next));
+            }
+            return suppressed.get() == 0 ? ALLOW : summary(now);
+        }
+
+        private long summary(long now) {
+            long last = lastSummary.get();
+            if (now - last < summaryIntervalNanos || !lastSummary.compareAndSet(last, now)) {
+                return ALLOW;
+            }
+            return suppressed.getAndSet(0);
+        }
+
+        private long drain(long now) {
+            lastSummary.set(now);
+            return suppressed.getAndSet(0);
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.hsj.common.utils;
+
+import androidx.annotation.NonNull;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:LogSink
+ * @Desc:结构化日志输出端(文件、上报等)
+ */
+public interface LogSink {
+
+    /**
+     * 接收事件，在调用线程同步执行；event 在返回后会被回收，不可持有
+     *
+     * @param event 事件
+     */
+    void write(@NonNull LogEvent event);
+
+}
@@ -2,7 +2,10 @@ package com.hsj.common.utils;
 
 import android.util.Log;
 import com.hsj.common.BuildConfig;
+import androidx.annotation.NonNull;
 import java.lang.reflect.Method;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @Author:hsj
@@ -19,6 +22,8 @@ public final class Logger {
     //     3、可添加自定义tag，默认：[Logger]
     //     4、收集错误日志;
     //     5、定时删除错误日志(错误日志删除工作交给TaskManager)
+    //     6、按tag/等级限流、采样，定期输出丢弃汇总
+    //     7、结构化日志：Logger.at(level).tag(t).kv(k, v).log()
     //////////////////////////////////////////////////////////////
 
     /**
@@ -36,6 +41,36 @@ public final class Logger {
      */
     private static String TAG = "[Logger]";
 
+    /**
+     * 日志等级
+     */
+    public static final char VERBOSE = 'v';
+    public static final char DEBUG   = 'd';
+    public static final char INFO    = 'i';
+    public static final char WARN    = 'w';
+    public static final char ERROR   = 'e';
+
+    /**
+     * 结构化日志控制台编码器
+     */
+    private static volatile LogEncoder<StringBuilder> encoder = LogEncoder.LOGFMT;
+
+    /**
+     * 结构化日志输出端
+     */
+    private static final CopyOnWriteArrayList<LogSink> SINKS = new CopyOnWriteArrayList<>();
+
+    /**
+     * 丢弃汇总定时任务，同一时间最多挂一个
+     */
+    private static final AtomicBoolean SUMMARY_SCHEDULED = new AtomicBoolean();
+    private static final Runnable SUMMARY_TASK = Logger::printDueSummaries;
+
+    /**
+     * 汇总定时的最小间隔/毫秒
+     */
+    private static final long MIN_SUMMARY_DELAY = 100;
+
     private Logger() {
         throw new IllegalAccessError("Logger can't be instance");
     }
@@ -100,6 +135,163 @@ public final class Logger {
         log(tag, msg.toString(), tr, 'v');
     }
 
+//====================================Structured====================================================
+
+    /**
+     * 开始一条结构化日志，需以 {@link LogEvent#log()} 结束
+     *
+     * @param level 等级 {@link #VERBOSE}、{@link #DEBUG}、{@link #INFO}、{@link #WARN}、{@link #ERROR}
+     * @return 当前线程复用的事件，日志关闭时返回空事件
+     */
+    public static LogEvent at(char level) {
+        if (LOG_SWITCH) return LogEvent.DISABLED;
+        return LogEvent.obtain(level, TAG);
+    }
+
+    /**
+     * 设置结构化日志在控制台输出时的编码器，默认 {@link LogEncoder#LOGFMT}
+     *
+     * @param textEncoder 编码器
+     */
+    public static void setEncoder(@NonNull LogEncoder<StringBuilder> textEncoder) {
+        encoder = textEncoder;
+    }
+
+    /**
+     * 添加结构化日志输出端
+     *
+     * @param sink 输出端
+     */
+    public static void addSink(@NonNull LogSink sink) {
+        SINKS.addIfAbsent(sink);
+    }
+
+    /**
+     * 移除结构化日志输出端
+     *
+     * @param sink 输出端
+     */
+    public static void removeSink(LogSink sink) {
+        SINKS.remove(sink);
+    }
+
+    /**
+     * 输出结构化日志
+     *
+     * @param event 事件
+     */
+    static void dispatch(@NonNull LogEvent event) {
+        String tag = event.tag();
+        char level = event.level();
+        long limit = LogLimiter.acquire(tag, level);
+        if (limit == LogLimiter.DENY) {
+            scheduleSummary();
+            return;
+        }
+        printSuppressed(tag, level, limit);
+        StringBuilder text = event.textBuffer();
+        encoder.encode(event, text);
+        output(tag, text.toString(), event.throwable(), level);
+        for (LogSink sink : SINKS) {
+            sink.write(event);
+        }
+    }
+
+//======================================Limit=======================================================
+
+    /**
+     * 设置tag某等级的限流(令牌桶)
+     *
+     * @param tag              标签
+     * @param level            等级 {@link #VERBOSE}、{@link #DEBUG}、{@link #INFO}、{@link #WARN}、{@link #ERROR}
+     * @param permitsPerSecond 每秒允许条数，<=0 表示不限流
+     * @param burst            允许突发条数
+     */
+    public static void setRateLimit(String tag, char level, double permitsPerSecond, int burst) {
+        LogLimiter.setRateLimit(tag, level, permitsPerSecond, burst);
+    }
+
+    /**
+     * 设置tag某等级的采样率
+     *
+     * @param tag   标签
+     * @param level 等级
+     * @param rate  采样率 [0, 1]，1 表示全部输出
+     */
+    public static void setSampleRate(String tag, char level, float rate) {
+        LogLimiter.setSampleRate(tag, level, rate);
+    }
+
+    /**
+     * 清除tag的限流和采样
+     *
+     * @param tag 标签
+     */
+    public static void clearLimit(String tag) {
+        LogLimiter.clear(tag);
+    }
+
+    /**
+     * 设置丢弃汇总的输出间隔
+     *
+     * @param millis 毫秒
+     */
+    public static void setSummaryInterval(long millis) {
+        LogLimiter.setSummaryInterval(millis);
+    }
+
+    /**
+     * 立即输出所有tag的丢弃汇总
+     */
+    public static void flushSuppressed() {
+        if (LOG_SWITCH) return;
+        final char[] levels = {VERBOSE, DEBUG, INFO, WARN, ERROR};
+        for (String tag : LogLimiter.tags()) {
+            for (char level : levels) {
+                printSuppressed(tag, level, LogLimiter.drainSuppressed(tag, level));
+            }
+        }
+    }
+
+    /**
+     * 有日志被丢弃时，在副线程定时输出汇总：采样率为0等一直没有放行日志的tag也能按间隔汇总
+     */
+    private static void scheduleSummary() {
+        if (!SUMMARY_SCHEDULED.compareAndSet(false, true)) return;
+        long delay = Math.max(MIN_SUMMARY_DELAY, LogLimiter.getSummaryInterval());
+        ThreadManager.getSubThreadHandler().postDelayed(SUMMARY_TASK, delay);
+    }
+
+    /**
+     * 输出已到间隔的汇总，仍有未汇总的丢弃时继续定时
+     */
+    private static void printDueSummaries() {
+        SUMMARY_SCHEDULED.set(false);
+        final char[] levels = {VERBOSE, DEBUG, INFO, WARN, ERROR};
+        boolean pending = false;
+        for (String tag : LogLimiter.tags()) {
+            for (char level : levels) {
+                printSuppressed(tag, level, LogLimiter.drainDue(tag, level));
+                pending |= LogLimiter.hasSuppressed(tag, level);
+            }
+        }
+        if (pending) scheduleSummary();
+    }
+
+    /**
+     * 输出丢弃汇总
+     *
+     * @param tag        标签
+     * @param level      等级
+     * @param suppressed 丢弃数量
+     */
+    private static void printSuppressed(String tag, char level, long suppressed) {
+        if (suppressed <= 0) return;
+        invokePrint(String.valueOf(level), tag, "tag " + tag + ": " + suppressed + " lines suppressed");
+    }
+
+//======================================Print=======================================================
+
     /**
      * 根据tag, msg和等级，输出日志
      *
@@ -109,6 +301,23 @@ public final class Logger {
      */
     private static void log(String tag, String msg, Throwable tr, char level) {
         if (LOG_SWITCH) return;
+        long limit = LogLimiter.acquire(tag, level);
+        if (limit == LogLimiter.DENY) {
+            scheduleSummary();
+            return;
+        }
+        printSuppressed(tag, level, limit);
+        output(tag, msg, tr, level);
+    }
+
+    /**
+     * 按等级输出到控制台
+     *
+     * @param tag
+     * @param msg
+     * @param level
+     */
+    private static void output(String tag, String msg, Throwable tr, char level) {
         if ('e' == level) {
             print("e", tag, msg, tr);
         } else if ('w' == level) {
@@ -0,0 +1,480 @@
+package com.hsj.common.utils;
+
+import androidx.annotation.NonNull;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.FileChannel;
+import java.util.IdentityHashMap;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:MappedFile
+ * @Desc:内存映射文件，读取大文件不拷贝到Java堆
+ */
+public final class MappedFile implements Closeable {
+
+    //////////////////////////////////////////////////////////////
+    // MappedFile 功能如下：
+    //     1、只读/读写两种模式，map(offset, length)映射任意窗口
+    //     2、getInt(position)等按文件位置读写，内部滑动窗口，支持超过2GB的文件
+    //     3、asIntBuffer/asLongBuffer 类型视图，用于索引结构
+    //     4、prefetch 按页对齐预读，提前把页面加载进内存
+    //     5、unmap 主动解除不再使用的映射，close 时解除剩余全部映射，不等GC
+    //     6、setLength 缩小文件前检查映射，存在超出新长度的映射时拒绝(访问被截断的映射页会SIGBUS)
+    //
+    // 注意：按位置读写的方法共用一个滑动窗口，非线程安全；
+    //      多线程请各自 map 窗口。unmap/close 后之前返回的缓冲不可再访问
+    //////////////////////////////////////////////////////////////
+
+    private static final int PAGE_SIZE = 4096;
+
+    /**
+     * 默认滑动窗口大小
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final File file;
+    private final boolean writable;
+    private final int windowSize;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+
+    /**
+     * 已返回给调用方的缓冲(map 的映射或 asIntBuffer 等视图) -> 映射，按对象区分，unmap 或 close 时解除
+     */
+    private final IdentityHashMap<Buffer, Mapping> mapped = new IdentityHashMap<>();
+
+    private ByteOrder order = ByteOrder.BIG_ENDIAN;
+    private long length;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private boolean closed;
+
+    private MappedFile(File file, boolean writable, long size, int windowSize) throws IOException {
+        this.file = file;
+        this.writable = writable;
+        this.windowSize = Math.max(PAGE_SIZE, windowSize / PAGE_SIZE * PAGE_SIZE);
+        this.raf = new RandomAccessFile(file, writable ? "rw" : "r");
+        this.channel = raf.getChannel();
+        this.length = channel.size();
+        if (writable && size > length) {
+            raf.setLength(size);
+            length = size;
+        }
+    }
+
+    /**
+     * 只读打开
+     *
+     * @param file 文件
+     * @return MappedFile
+     * @throws IOException 打开失败
+     */
+    public static MappedFile openReadOnly(@NonNull File file) throws IOException {
+        return new MappedFile(file, false, 0, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * 读写打开，文件不存在时创建
+     *
+     * @param file 文件
+     * @param size 最小文件大小，不足时扩展
+     * @return MappedFile
+     * @throws IOException 打开失败
+     */
+    public static MappedFile openReadWrite(@NonNull File file, long size) throws IOException {
+        return new MappedFile(file, true, size, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param file       文件
+     * @param writable   是否可写
+     * @param size       可写时的最小文件大小
+     * @param windowSize 滑动窗口大小，按页对齐
+     * @return MappedFile
+     * @throws IOException 打开失败
+     */
+    public static MappedFile open(@NonNull File file, boolean writable, long size, int windowSize) throws IOException {
+        return new MappedFile(file, writable, size, windowSize);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public boolean isWritable() {
+        return writable;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    /**
+     * 设置映射缓冲和按位置读写的字节序，默认BIG_ENDIAN
+     *
+     * @param order 字节序
+     * @return this
+     */
+    public MappedFile order(@NonNull ByteOrder order) {
+        this.order = order;
+        if (window != null) window.order(order);
+        return this;
+    }
+
+    /**
+     * 修改文件大小(读写模式)
+     *
+     * @param size 新大小
+     * @throws IOException 失败
+     */
+    public synchronized void setLength(long size) throws IOException {
+        checkOpen();
+        if (!writable) throw new ReadOnlyBufferException();
+        if (size < 0) throw new IllegalArgumentException("size < 0: " + size);
+        if (size < length) {
+            for (Mapping mapping : mapped.values()) {
+                if (mapping.offset + mapping.buffer.capacity() > size) {
+                    throw new IllegalStateException("mapping [" + mapping.offset + ", "
+                            + (mapping.offset + mapping.buffer.capacity()) + ") beyond new length " + size + ", unmap first");
+                }
+            }
+            releaseWindow();
+        }
+        raf.setLength(size);
+        length = size;
+    }
+
+//======================================Window======================================================
+
+    /**
+     * 映射一个窗口，不再使用时调用 {@link #unmap(Buffer)}，否则 close 时解除
+     *
+     * @param offset 文件偏移
+     * @param size   长度(单个窗口不超过2GB)
+     * @return 映射缓冲，只读模式下不可写
+     * @throws IOException 映射失败
+     */
+    @NonNull
+    public synchronized MappedByteBuffer map(long offset, int size) throws IOException {
+        MappedByteBuffer buffer = mapRange(offset, size);
+        mapped.put(buffer, new Mapping(buffer, offset));
+        return buffer;
+    }
+
+    /**
+     * 解除 map/asIntBuffer/asLongBuffer 返回的映射，读写模式下先刷盘
+     * 解除后再访问该缓冲(及由它创建的视图)会导致进程崩溃
+     *
+     * @param buffer 本实例返回且尚未解除的缓冲
+     * @return false 表示不是本实例当前持有的映射，未做任何处理
+     */
+    public synchronized boolean unmap(@NonNull Buffer buffer) {
+        Mapping mapping = mapped.remove(buffer);
+        if (mapping == null) {
+            Logger.w("MappedFile", "unmap ignored, not mapped by " + file);
+            return false;
+        }
+        if (writable) mapping.buffer.force();
+        unmapBuffer(mapping.buffer);
+        return true;
+    }
+
+    /**
+     * 映射一段int数组
+     *
+     * @param offset 文件偏移
+     * @param count  int个数
+     * @return IntBuffer视图
+     * @throws IOException 映射失败
+     */
+    @NonNull
+    public synchronized IntBuffer asIntBuffer(long offset, int count) throws IOException {
+        if (count < 0 || count > Integer.MAX_VALUE / 4) throw new IllegalArgumentException("count out of range: " + count);
+        MappedByteBuffer buffer = mapRange(offset, count * 4);
+        IntBuffer view = buffer.asIntBuffer();
+        mapped.put(view, new Mapping(buffer, offset));
+        return view;
+    }
+
+    /**
+     * 映射一段long数组
+     *
+     * @param offset 文件偏移
+     * @param count  long个数
+     * @return LongBuffer视图
+     * @throws IOException 映射失败
+     */
+    @NonNull
+    public synchronized LongBuffer asLongBuffer(long offset, int count) throws IOException {
+        if (count < 0 || count > Integer.MAX_VALUE / 8) throw new IllegalArgumentException("count out of range: " + count);
+        MappedByteBuffer buffer = mapRange(offset, count * 8);
+        LongBuffer view = buffer.asLongBuffer();
+        mapped.put(view, new Mapping(buffer, offset));
+        return view;
+    }
+
+    private MappedByteBuffer mapRange(long offset, int size) throws IOException {
+        checkOpen();
+        checkRange(offset, size);
+        MappedByteBuffer buffer = channel.map(mode(), offset, size);
+        buffer.order(order);
+        return buffer;
+    }
+
+    /**
+     * 预读区间，按页对齐后逐窗口加载进内存；会阻塞，建议在IO线程调用
+     *
+     * @param offset 文件偏移
+     * @param size   长度
+     * @throws IOException 映射失败
+     */
+    public void prefetch(long offset, long size) throws IOException {
+        long start = offset / PAGE_SIZE * PAGE_SIZE;
+        long end = Math.min(length, offset + size);
+        while (start < end) {
+            int count = (int) Math.min(windowSize, end - start);
+            MappedByteBuffer buffer;
+            synchronized (this) {
+                //加载期间登记映射，setLength 不会截断正在加载的页
+                buffer = mapRange(start, count);
+                mapped.put(buffer, new Mapping(buffer, start));
+            }
+            try {
+                buffer.load();
+            } finally {
+                synchronized (this) {
+                    if (mapped.remove(buffer) != null) unmapBuffer(buffer);
+                }
+            }
+            start += count;
+        }
+    }
+
+    /**
+     * 读写模式下把修改刷到磁盘
+     */
+    public synchronized void force() {
+        if (!writable || closed) return;
+        if (window != null) window.force();
+        for (Mapping mapping : mapped.values()) {
+            mapping.buffer.force();
+        }
+    }
+
+//======================================Position====================================================
+
+    public byte get(long position) throws IOException {
+        ByteBuffer buffer = windowFor(position, 1);
+        return buffer.get((int) (position - windowStart));
+    }
+
+    public int getInt(long position) throws IOException {
+        ByteBuffer buffer = windowFor(position, 4);
+        return buffer.getInt((int) (position - windowStart));
+    }
+
+    public long getLong(long position) throws IOException {
+        ByteBuffer buffer = windowFor(position, 8);
+        return buffer.getLong((int) (position - windowStart));
+    }
+
+    /**
+     * 读取到byte[]，可跨窗口
+     *
+     * @return 读取字节数，到文件末尾时小于count
+     */
+    public int get(long position, byte[] dst, int offset, int count) throws IOException {
+        int total = 0;
+        count = (int) Math.min(count, Math.max(0, length - position));
+        while (total < count) {
+            int size = (int) Math.min(count - total, windowSize);
+            ByteBuffer buffer = windowFor(position + total, size);
+            buffer.position((int) (position + total - windowStart));
+            buffer.get(dst, offset + total, size);
+            total += size;
+        }
+        return total;
+    }
+
+    public void put(long position, byte value) throws IOException {
+        ByteBuffer buffer = writableWindowFor(position, 1);
+        buffer.put((int) (position - windowStart), value);
+    }
+
+    public void putInt(long position, int value) throws IOException {
+        ByteBuffer buffer = writableWindowFor(position, 4);
+        buffer.putInt((int) (position - windowStart), value);
+    }
+
+    public void putLong(long position, long value) throws IOException {
+        ByteBuffer buffer = writableWindowFor(position, 8);
+        buffer.putLong((int) (position - windowStart), value);
+    }
+
+    /**
+     * 写入byte[]，可跨窗口，不会扩展文件
+     */
+    public void put(long position, byte[] src, int offset, int count) throws IOException {
+        int total = 0;
+        while (total < count) {
+            int size = Math.min(count - total, windowSize);
+            ByteBuffer buffer = writableWindowFor(position + total, size);
+            buffer.position((int) (position + total - windowStart));
+            buffer.put(src, offset + total, size);
+            total += size;
+        }
+    }
+
+    private ByteBuffer writableWindowFor(long position, int size) throws IOException {
+        if (!writable) throw new ReadOnlyBufferException();
+        return windowFor(position, size);
+    }
+
+    /**
+     * 返回包含[position, position+size)的窗口，不在当前窗口时滑动
+     */
+    private ByteBuffer windowFor(long position, int size) throws IOException {
+        MappedByteBuffer current = window;
+        if (current != null && position >= windowStart && position + size <= windowStart + current.capacity()) {
+            return current;
+        }
+        synchronized (this) {
+            checkOpen();
+            checkRange(position, size);
+            releaseWindow();
+            long start = position / PAGE_SIZE * PAGE_SIZE;
+            long count = Math.min(Math.max(windowSize, position - start + size), length - start);
+            window = channel.map(mode(), start, count);
+            window.order(order);
+            windowStart = start;
+            return window;
+        }
+    }
+
+    private void releaseWindow() {
+        if (window == null) return;
+        if (writable) window.force();
+        unmapBuffer(window);
+        window = null;
+    }
+
+//======================================Close=======================================================
+
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        releaseWindow();
+        for (Mapping mapping : mapped.values()) {
+            if (writable) mapping.buffer.force();
+            unmapBuffer(mapping.buffer);
+        }
+        mapped.clear();
+        try {
+            raf.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private FileChannel.MapMode mode() {
+        return writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+    }
+
+    private void checkOpen() {
+        if (closed) throw new IllegalStateException("MappedFile closed: " + file);
+    }
+
+    private void checkRange(long offset, long size) {
+        if (offset < 0 || size < 0 || offset + size > length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", size=" + size + ", length=" + length);
+        }
+    }
+
+    /**
+     * 主动解除本类创建的映射，失败时等待GC回收
+     * 解除后再访问该缓冲会导致进程崩溃，只在 unmap、预读完成、窗口滑动和 close 时调用
+     *
+     * @param buffer 本类 channel.map 得到的映射缓冲
+     */
+    private static void unmapBuffer(MappedByteBuffer buffer) {
+        if (buffer == null) return;
+        try {
+            Unmapper.unmap(buffer);
+        } catch (Throwable e) {
+            Logger.w("MappedFile", "unmap failed -> " + e);
+        }
+    }
+
+    /**
+     * 返回给调用方的映射及其文件偏移
+     */
+    private static final class Mapping {
+
+        private final MappedByteBuffer buffer;
+        private final long offset;
+
+        private Mapping(MappedByteBuffer buffer, long offset) {
+            this.buffer = buffer;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * 通过反射调用各平台的解除映射方法：
+     * Android: NioUtils.freeDirectBuffer，JDK9+: Unsafe.invokeCleaner，JDK8: DirectBuffer.cleaner().clean()
+     */
+    private static final class Unmapper {
+
+        private static final Object TARGET;
+        private static final Method METHOD;
+
+        static {
+            Object target = null;
+            Method method = null;
+            try {
+                method = Class.forName("java.nio.NioUtils").getMethod("freeDirectBuffer", ByteBuffer.class);
+            } catch (Throwable ignored) {
+            }
+            if (method == null) {
+                try {
+                    Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                    Field field = unsafeClass.getDeclaredField("theUnsafe");
+                    field.setAccessible(true);
+                    target = field.get(null);
+                    method = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                } catch (Throwable ignored) {
+                    target = null;
+                }
+            }
+            TARGET = target;
+            METHOD = method;
+        }
+
+        private static void unmap(ByteBuffer buffer) throws Exception {
+            if (METHOD != null) {
+                METHOD.invoke(TARGET, buffer);
+                return;
+            }
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) cleaner.getClass().getMethod("clean").invoke(cleaner);
+        }
+    }
+
+}
@@ -0,0 +1,1034 @@
+package com.hsj.common.utils;
+
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:MmapPreferences
+ * @Desc:基于mmap追加日志的SharedPreferences实现
+ */
+public final class MmapPreferences implements SharedPreferences {
+
+    //////////////////////////////////////////////////////////////
+    // MmapPreferences 功能如下：
+    //     1、文件通过mmap映射，写入只是内存拷贝，不重写整个文件
+    //     2、追加写二进制记录，每条记录带CRC32，加载时跳过损坏记录
+    //     3、内存哈希索引，读取不加锁；多key提交、全量加载、清空时构建新索引后整体替换，读取不会看到中间状态；
+    //        记录全部写入文件后才修改内存，写入失败时内存不会领先于文件
+    //     4、一次提交的多条记录通过文件头end原子生效
+    //     5、垃圾比例超过阈值时后台压缩
+    //     6、支持byte[]值，二进制直接存储
+    //     7、多进程模式：写入持有文件排它锁，文件头sequence作为共享计数器，
+    //        读取时只比较一次int，变化后按end增量重放新记录并通知监听；
+    //        其它进程压缩替换文件时通过旧文件头generation感知并重新映射
+    //
+    // 文件格式(小端)：
+    //     header: int magic | int version | int end | int sequence | int generation | int reserved
+    //     record: int crc32(payload) | int payloadLength | payload
+    //     payload: byte type | int keyLength | key(UTF-8) | value
+    //
+    // 版本：2 文件头增加 sequence/generation；3 增加 TYPE_BYTES 记录(2 的文件打开时只改写版本号)，
+    //      其它版本的文件拒绝打开
+    //////////////////////////////////////////////////////////////
+
+    private static final int MAGIC = 0x4B565031;
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 24;
+    private static final int OFFSET_END = 8;
+    private static final int OFFSET_SEQUENCE = 12;
+    private static final int OFFSET_GENERATION = 16;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int PAGE_SIZE = 4096;
+
+    /**
+     * 压缩阈值：文件超过该大小且垃圾超过一半时压缩
+     */
+    private static final int COMPACT_MIN_SIZE = 64 * 1024;
+
+    private static final byte TYPE_REMOVE  = 0;
+    private static final byte TYPE_BOOLEAN = 1;
+    private static final byte TYPE_INT     = 2;
+    private static final byte TYPE_LONG    = 3;
+    private static final byte TYPE_FLOAT   = 4;
+    private static final byte TYPE_STRING  = 5;
+    private static final byte TYPE_SET     = 6;
+    private static final byte TYPE_CLEAR   = 7;
+    private static final byte TYPE_BYTES   = 8;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * 可以打开的最低版本
+     */
+    private static final int MIN_VERSION = 2;
+
+    /**
+     * 多进程模式默认的变化检查间隔/毫秒
+     */
+    public static final long DEFAULT_WATCH_INTERVAL = 500;
+
+    /**
+     * 文件路径 -> 实例，同一文件只映射一次
+     */
+    private static final Map<String, MmapPreferences> INSTANCES = new HashMap<>();
+
+    /**
+     * 定时检查其它进程的修改
+     */
+    private static ScheduledExecutorService watcher;
+
+    /**
+     * 监听回调线程，null表示主线程
+     */
+    private static volatile Executor callbackExecutor;
+
+    private final File file;
+    private final boolean multiProcess;
+    private final Object lock = new Object();
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * key -> 值，读取不加锁，全量重建时整体替换
+     */
+    private volatile ConcurrentHashMap<String, Object> values = new ConcurrentHashMap<>();
+
+    /**
+     * scan 应用记录的目标索引，只在持有lock时使用
+     */
+    private ConcurrentHashMap<String, Object> index;
+
+    /**
+     * key -> 当前有效记录大小，用于计算垃圾
+     */
+    private final HashMap<String, Integer> recordSizes = new HashMap<>();
+
+    private final WeakHashMap<OnSharedPreferenceChangeListener, Object> listeners = new WeakHashMap<>();
+
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private volatile MappedByteBuffer buffer;
+    private int end;
+    private int liveBytes;
+    private byte[] scratch = new byte[256];
+    private boolean compacting;
+
+    /**
+     * 本进程已同步到的文件头sequence
+     */
+    private volatile int sequence;
+
+    /**
+     * 当前映射文件的generation，压缩替换文件时+1
+     */
+    private int generation;
+
+    /**
+     * 映射已切换到新文件，需要全量重新加载
+     */
+    private boolean stale;
+
+    private ScheduledFuture<?> watching;
+
+    private MmapPreferences(File file, boolean multiProcess) throws IOException {
+        this.file = file;
+        this.multiProcess = multiProcess;
+        open();
+    }
+
+    /**
+     * 打开或创建文件(单进程)
+     *
+     * @param file 文件
+     * @return 实例
+     * @throws IOException 映射失败
+     */
+    public static MmapPreferences open(@NonNull File file) throws IOException {
+        return open(file, false);
+    }
+
+    /**
+     * 打开或创建文件
+     *
+     * @param file         文件
+     * @param multiProcess 是否有多个进程同时读写该文件
+     * @return 实例
+     * @throws IOException 映射失败
+     */
+    public static MmapPreferences open(@NonNull File file, boolean multiProcess) throws IOException {
+        String path = file.getAbsolutePath();
+        synchronized (INSTANCES) {
+            MmapPreferences prefs = INSTANCES.get(path);
+            if (prefs == null) {
+                prefs = new MmapPreferences(file, multiProcess);
+                INSTANCES.put(path, prefs);
+            } else if (prefs.multiProcess != multiProcess) {
+                throw new IllegalStateException("already opened with multiProcess=" + prefs.multiProcess + ": " + path);
+            }
+            return prefs;
+        }
+    }
+
+    /**
+     * 设置监听回调线程，默认主线程(非Android环境下需设置)
+     *
+     * @param executor 回调线程，null表示主线程
+     */
+    public static void setCallbackExecutor(@Nullable Executor executor) {
+        callbackExecutor = executor;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public boolean isMultiProcess() {
+        return multiProcess;
+    }
+
+//======================================MultiProcess================================================
+
+    /**
+     * 检查其它进程的修改：只读一次文件头sequence，变化时增量同步
+     */
+    private void checkUpdate() {
+        if (multiProcess && buffer.getInt(OFFSET_SEQUENCE) != sequence) refresh();
+    }
+
+    /**
+     * 同步其它进程的修改，并通知变化的key
+     */
+    public void refresh() {
+        if (!multiProcess) return;
+        List<String> keys = new ArrayList<>();
+        synchronized (lock) {
+            FileLock fileLock = null;
+            try {
+                fileLock = lockFile(true);
+                sync(keys);
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                release(fileLock);
+            }
+        }
+        if (!keys.isEmpty()) notifyListeners(keys);
+    }
+
+    /**
+     * 定时检查其它进程的修改，没有读取时监听也能收到通知
+     *
+     * @param intervalMillis 检查间隔/毫秒，0表示停止
+     */
+    public void watch(long intervalMillis) {
+        if (!multiProcess) return;
+        synchronized (MmapPreferences.class) {
+            if (watching != null) {
+                watching.cancel(false);
+                watching = null;
+            }
+            if (intervalMillis <= 0) return;
+            if (watcher == null) {
+                watcher = new ScheduledThreadPoolExecutor(1, r -> {
+                    Thread thread = new Thread(r, "thread_prefer_watch");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            watching = watcher.scheduleWithFixedDelay(this::checkUpdate, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 获取文件锁，其它进程已压缩替换文件时重新映射新文件后再获取
+     * 调用方需持有lock
+     *
+     * @param shared 共享锁(读)或排它锁(写)
+     * @return 文件锁，单进程模式返回null
+     */
+    @Nullable
+    private FileLock lockFile(boolean shared) throws IOException {
+        if (!multiProcess) return null;
+        while (true) {
+            int expected = generation;
+            FileLock fileLock = channel.lock(0L, Long.MAX_VALUE, shared);
+            if (buffer.getInt(OFFSET_GENERATION) == expected) return fileLock;
+            fileLock.release();
+            raf.close();
+            openFile();
+            generation = buffer.getInt(OFFSET_GENERATION);
+            stale = true;
+        }
+    }
+
+    private static void release(@Nullable FileLock fileLock) {
+        if (fileLock == null) return;
+        try {
+            fileLock.release();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 同步到文件头的最新状态，调用方需持有lock和文件锁
+     * 只追加时从本地end重放新增记录，文件被替换或回退时全量加载并比较差异
+     *
+     * @param keys 收集变化的key
+     */
+    private void sync(List<String> keys) throws IOException {
+        int current = buffer.getInt(OFFSET_SEQUENCE);
+        if (!stale && current == sequence) return;
+        int limit = buffer.getInt(OFFSET_END);
+        if (limit > buffer.capacity()) map((limit + PAGE_SIZE - 1) / PAGE_SIZE * PAGE_SIZE);
+        if (stale || limit < end) {
+            //load() 构建新索引后替换，旧索引不再修改
+            Map<String, Object> old = values;
+            load();
+            Map<String, Object> now = values;
+            for (Map.Entry<String, Object> entry : old.entrySet()) {
+                if (!sameValue(entry.getValue(), now.get(entry.getKey()))) keys.add(entry.getKey());
+            }
+            for (String key : now.keySet()) {
+                if (!old.containsKey(key)) keys.add(key);
+            }
+        } else {
+            //其它进程的一次提交可能包含多条记录，在副本上重放后整体替换
+            end = scan(new ConcurrentHashMap<>(values), end, limit, keys);
+        }
+        sequence = current;
+        stale = false;
+    }
+
+    private static boolean sameValue(Object a, Object b) {
+        if (a instanceof byte[] && b instanceof byte[]) return Arrays.equals((byte[]) a, (byte[]) b);
+        return a == null ? b == null : a.equals(b);
+    }
+
+//======================================Read========================================================
+
+    @Override
+    public Map<String, ?> getAll() {
+        checkUpdate();
+        return new HashMap<>(values);
+    }
+
+    @Nullable
+    @Override
+    public String getString(String key, @Nullable String defValue) {
+        checkUpdate();
+        Object value = values.get(key);
+        return value == null ? defValue : (String) value;
+    }
+
+    @Nullable
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<String> getStringSet(String key, @Nullable Set<String> defValues) {
+        checkUpdate();
+        Object value = values.get(key);
+        return value == null ? defValues : (Set<String>) value;
+    }
+
+    @Override
+    public int getInt(String key, int defValue) {
+        checkUpdate();
+        Object value = values.get(key);
+        return value == null ? defValue : (Integer) value;
+    }
+
+    @Override
+    public long getLong(String key, long defValue) {
+        checkUpdate();
+        Object value = values.get(key);
+        return value == null ? defValue : (Long) value;
+    }
+
+    @Override
+    public float getFloat(String key, float defValue) {
+        checkUpdate();
+        Object value = values.get(key);
+        return value == null ? defValue : (Float) value;
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean defValue) {
+        checkUpdate();
+        Object value = values.get(key);
+        return value == null ? defValue : (Boolean) value;
+    }
+
+    /**
+     * 获取byte[]值
+     *
+     * @param key      key
+     * @param defValue 默认值
+     * @return 值的副本，不是byte[]时返回默认值
+     */
+    @Nullable
+    public byte[] getBytes(String key, @Nullable byte[] defValue) {
+        checkUpdate();
+        Object value = values.get(key);
+        return value instanceof byte[] ? ((byte[]) value).clone() : defValue;
+    }
+
+    @Override
+    public boolean contains(String key) {
+        checkUpdate();
+        return values.containsKey(key);
+    }
+
+    @Override
+    public MmapEditor edit() {
+        return new MmapEditor();
+    }
+
+    @Override
+    public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        synchronized (listeners) {
+            listeners.put(listener, Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        synchronized (listeners) {
+            listeners.remove(listener);
+        }
+    }
+
+//======================================Write=======================================================
+
+    /**
+     * 追加一次提交的全部记录，最后更新文件头end使其生效
+     *
+     * @param clear   是否先清空
+     * @param changes key -> 值(null表示删除)
+     * @param force   是否同步刷盘
+     * @return 结果
+     */
+    private boolean write(boolean clear, Map<String, Object> changes, boolean force) {
+        boolean compact;
+        List<String> external = new ArrayList<>();
+        synchronized (lock) {
+            FileLock fileLock = null;
+            try {
+                fileLock = lockFile(false);
+                if (multiProcess) sync(external);
+                //先追加全部记录，失败时内存和文件头都保持提交前的状态
+                int position = end;
+                if (clear) position = append(position, TYPE_CLEAR, "", null);
+                int[] sizes = new int[changes.size()];
+                int i = 0;
+                for (Map.Entry<String, Object> entry : changes.entrySet()) {
+                    int start = position;
+                    position = append(position, typeOf(entry.getValue()), entry.getKey(), entry.getValue());
+                    sizes[i++] = position - start;
+                }
+                end = position;
+                sequence = buffer.getInt(OFFSET_SEQUENCE) + 1;
+                buffer.putInt(OFFSET_END, end);
+                buffer.putInt(OFFSET_SEQUENCE, sequence);
+                if (force) buffer.force();
+
+                //单个key直接修改，多个key写入副本后整体替换，读取不会看到一半的提交
+                ConcurrentHashMap<String, Object> target;
+                if (clear) {
+                    target = new ConcurrentHashMap<>();
+                    recordSizes.clear();
+                    liveBytes = 0;
+                } else {
+                    target = changes.size() > 1 ? new ConcurrentHashMap<>(values) : values;
+                }
+                i = 0;
+                for (Map.Entry<String, Object> entry : changes.entrySet()) {
+                    String key = entry.getKey();
+                    Object value = entry.getValue();
+                    int size = sizes[i++];
+                    Integer old = recordSizes.remove(key);
+                    if (old != null) liveBytes -= old;
+                    if (value == null) {
+                        target.remove(key);
+                    } else {
+                        target.put(key, value);
+                        recordSizes.put(key, size);
+                        liveBytes += size;
+                    }
+                }
+                values = target;
+            } catch (IOException e) {
+                e.printStackTrace();
+                return false;
+            } finally {
+                release(fileLock);
+            }
+            compact = !compacting && end > COMPACT_MIN_SIZE && liveBytes < (end - HEADER_SIZE) / 2;
+            if (compact) compacting = true;
+        }
+        if (!external.isEmpty()) notifyListeners(external);
+        if (compact) {
+            try {
+                ThreadManager.executeOnPool(this::compact);
+            } catch (RejectedExecutionException e) {
+                synchronized (lock) {
+                    compacting = false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 写入一条记录
+     *
+     * @return 下一条记录位置
+     */
+    private int append(int position, byte type, String key, Object value) throws IOException {
+        int length = encode(type, key, value);
+        int size = RECORD_HEADER_SIZE + length;
+        ensureCapacity(position + size);
+        crc.reset();
+        crc.update(scratch, 0, length);
+        buffer.putInt(position, (int) crc.getValue());
+        buffer.putInt(position + 4, length);
+        buffer.position(position + RECORD_HEADER_SIZE);
+        buffer.put(scratch, 0, length);
+        return position + size;
+    }
+
+    /**
+     * 编码payload到scratch
+     *
+     * @return payload长度
+     */
+    @SuppressWarnings("unchecked")
+    private int encode(byte type, String key, Object value) {
+        byte[] keyBytes = key.getBytes(UTF_8);
+        Writer writer = new Writer(1 + 4 + keyBytes.length + 16);
+        writer.putByte(type);
+        writer.putBytes(keyBytes);
+        switch (type) {
+            case TYPE_BOOLEAN:
+                writer.putByte((byte) ((Boolean) value ? 1 : 0));
+                break;
+            case TYPE_INT:
+                writer.putInt((Integer) value);
+                break;
+            case TYPE_LONG:
+                writer.putLong((Long) value);
+                break;
+            case TYPE_FLOAT:
+                writer.putInt(Float.floatToRawIntBits((Float) value));
+                break;
+            case TYPE_STRING:
+                writer.putBytes(((String) value).getBytes(UTF_8));
+                break;
+            case TYPE_SET:
+                Set<String> set = (Set<String>) value;
+                writer.putInt(set.size());
+                for (String item : set) {
+                    writer.putBytes(item == null ? new byte[0] : item.getBytes(UTF_8));
+                }
+                break;
+            case TYPE_BYTES:
+                writer.putBytes((byte[]) value);
+                break;
+            default:
+                break;
+        }
+        return writer.length;
+    }
+
+    private static byte typeOf(Object value) {
+        if (value == null) return TYPE_REMOVE;
+        if (value instanceof Boolean) return TYPE_BOOLEAN;
+        if (value instanceof Integer) return TYPE_INT;
+        if (value instanceof Long) return TYPE_LONG;
+        if (value instanceof Float) return TYPE_FLOAT;
+        if (value instanceof String) return TYPE_STRING;
+        if (value instanceof Set) return TYPE_SET;
+        if (value instanceof byte[]) return TYPE_BYTES;
+        throw new IllegalArgumentException("Unsupported value type: " + value.getClass().getName());
+    }
+
+    private void ensureCapacity(int size) throws IOException {
+        if (size <= buffer.capacity()) return;
+        long capacity = buffer.capacity();
+        while (capacity < size) capacity <<= 1;
+        if (capacity > Integer.MAX_VALUE) throw new IOException("file too large: " + file);
+        map((int) capacity);
+    }
+
+    private void map(int capacity) throws IOException {
+        if (raf.length() < capacity) raf.setLength(capacity);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+//======================================Load========================================================
+
+    private void open() throws IOException {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("mkdirs failed: " + dir);
+        }
+        openFile();
+        generation = buffer.getInt(OFFSET_GENERATION);
+        int version = VERSION;
+        synchronized (lock) {
+            FileLock fileLock = lockFile(false);
+            try {
+                if (raf.length() >= HEADER_SIZE && buffer.getInt(0) == MAGIC) version = buffer.getInt(4);
+                if (version > VERSION || version < MIN_VERSION) {
+                    // 新版本写入的文件可能包含无法识别的记录，旧版本文件头格式不同
+                } else if (raf.length() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                    buffer.putInt(0, MAGIC);
+                    buffer.putInt(4, VERSION);
+                    buffer.putInt(OFFSET_END, HEADER_SIZE);
+                    buffer.putInt(OFFSET_SEQUENCE, 0);
+                    buffer.putInt(OFFSET_GENERATION, generation = 0);
+                    end = HEADER_SIZE;
+                } else {
+                    load();
+                    // version 2 与当前格式只差新增的记录类型
+                    if (version < VERSION) buffer.putInt(4, VERSION);
+                }
+                sequence = buffer.getInt(OFFSET_SEQUENCE);
+                stale = false;
+            } finally {
+                release(fileLock);
+            }
+        }
+        if (version > VERSION || version < MIN_VERSION) {
+            raf.close();
+            throw new IOException("unsupported version " + version + ": " + file);
+        }
+    }
+
+    private void openFile() throws IOException {
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+        long length = raf.length();
+        map((int) Math.max(PAGE_SIZE, (length + PAGE_SIZE - 1) / PAGE_SIZE * PAGE_SIZE));
+    }
+
+    private void resetIndex() {
+        recordSizes.clear();
+        liveBytes = 0;
+    }
+
+    /**
+     * 从头扫描记录构建新索引并替换，遇到损坏记录时截断
+     */
+    void load() {
+        resetIndex();
+        int limit = buffer.getInt(OFFSET_END);
+        end = scan(new ConcurrentHashMap<>(), HEADER_SIZE, Math.min(limit, buffer.capacity()), null);
+        // 多进程下只有持有排它锁的写入方可以修改文件头，截断由下一次写入覆盖
+        if (!multiProcess && end != limit) buffer.putInt(OFFSET_END, end);
+    }
+
+    /**
+     * 扫描并应用[from, limit)之间的记录，结束后 target(遇到清空记录时为新索引)成为当前索引
+     *
+     * @param target 应用记录的索引
+     * @param keys   非null时收集变化的key，清空记录收集为null
+     * @return 最后一条完整记录的结束位置
+     */
+    private int scan(ConcurrentHashMap<String, Object> target, int from, int limit, @Nullable List<String> keys) {
+        index = target;
+        int position = from;
+        while (position + RECORD_HEADER_SIZE <= limit) {
+            int checksum = buffer.getInt(position);
+            int length = buffer.getInt(position + 4);
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > limit) break;
+            if (scratch.length < length) scratch = new byte[length];
+            buffer.position(position + RECORD_HEADER_SIZE);
+            buffer.get(scratch, 0, length);
+            crc.reset();
+            crc.update(scratch, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                Logger.w("MmapPreferences", "crc mismatch at " + position + " in " + file);
+                break;
+            }
+            String key = decode(length, RECORD_HEADER_SIZE + length);
+            if (keys != null) keys.add(key);
+            position += RECORD_HEADER_SIZE + length;
+        }
+        values = index;
+        index = null;
+        return position;
+    }
+
+    /**
+     * 应用scratch中的一条记录
+     *
+     * @return 变化的key，清空记录返回null
+     */
+    @Nullable
+    private String decode(int length, int recordSize) {
+        Reader reader = new Reader(scratch, length);
+        byte type = reader.getByte();
+        String key = reader.getString();
+        Object value;
+        switch (type) {
+            case TYPE_CLEAR:
+                resetIndex();
+                index = new ConcurrentHashMap<>();
+                return null;
+            case TYPE_BOOLEAN:
+                value = reader.getByte() != 0;
+                break;
+            case TYPE_INT:
+                value = reader.getInt();
+                break;
+            case TYPE_LONG:
+                value = reader.getLong();
+                break;
+            case TYPE_FLOAT:
+                value = Float.intBitsToFloat(reader.getInt());
+                break;
+            case TYPE_STRING:
+                value = reader.getString();
+                break;
+            case TYPE_SET:
+                int count = reader.getInt();
+                Set<String> set = new HashSet<>(count * 2);
+                for (int i = 0; i < count; i++) {
+                    set.add(reader.getString());
+                }
+                value = Collections.unmodifiableSet(set);
+                break;
+            case TYPE_BYTES:
+                value = reader.getBytes();
+                break;
+            default:
+                value = null;
+                break;
+        }
+        Integer old = recordSizes.remove(key);
+        if (old != null) liveBytes -= old;
+        if (value == null) {
+            index.remove(key);
+        } else {
+            index.put(key, value);
+            recordSizes.put(key, recordSize);
+            liveBytes += recordSize;
+        }
+        return key;
+    }
+
+//======================================Compact=====================================================
+
+    /**
+     * 只保留有效记录重写到临时文件，再原子替换
+     * 多进程下持有旧文件排它锁完成替换，并在旧文件头标记generation通知其它进程
+     * 新文件内容即当前索引，替换后不重新扫描，索引保持不变
+     */
+    void compact() {
+        List<String> external = new ArrayList<>();
+        synchronized (lock) {
+            File tmp = new File(file.getPath() + ".tmp");
+            RandomAccessFile tmpRaf = null;
+            FileLock fileLock = null;
+            try {
+                fileLock = lockFile(false);
+                if (multiProcess) sync(external);
+                int capacity = PAGE_SIZE;
+                while (capacity < HEADER_SIZE + liveBytes) capacity <<= 1;
+                tmpRaf = new RandomAccessFile(tmp, "rw");
+                tmpRaf.setLength(capacity);
+                FileChannel tmpChannel = tmpRaf.getChannel();
+                MappedByteBuffer tmpBuffer = tmpChannel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+                tmpBuffer.order(ByteOrder.LITTLE_ENDIAN);
+                int position = HEADER_SIZE;
+                HashMap<String, Integer> sizes = new HashMap<>();
+                for (Map.Entry<String, Object> entry : values.entrySet()) {
+                    Object value = entry.getValue();
+                    int length = encode(typeOf(value), entry.getKey(), value);
+                    sizes.put(entry.getKey(), RECORD_HEADER_SIZE + length);
+                    crc.reset();
+                    crc.update(scratch, 0, length);
+                    tmpBuffer.putInt(position, (int) crc.getValue());
+                    tmpBuffer.putInt(position + 4, length);
+                    tmpBuffer.position(position + RECORD_HEADER_SIZE);
+                    tmpBuffer.put(scratch, 0, length);
+                    position += RECORD_HEADER_SIZE + length;
+                }
+                tmpBuffer.putInt(0, MAGIC);
+                tmpBuffer.putInt(4, VERSION);
+                tmpBuffer.putInt(OFFSET_END, position);
+                final int newSequence = buffer.getInt(OFFSET_SEQUENCE) + 1;
+                final int newGeneration = generation + 1;
+                tmpBuffer.putInt(OFFSET_SEQUENCE, newSequence);
+                tmpBuffer.putInt(OFFSET_GENERATION, newGeneration);
+                tmpBuffer.force();
+                tmpRaf.close();
+                tmpRaf = null;
+                if (!tmp.renameTo(file)) throw new IOException("rename failed: " + tmp);
+                // 旧文件已被替换，标记后其它进程读取时会重新映射
+                buffer.putInt(OFFSET_GENERATION, generation + 1);
+                buffer.putInt(OFFSET_SEQUENCE, buffer.getInt(OFFSET_SEQUENCE) + 1);
+                raf.close();
+                fileLock = null;
+                openFile();
+                // 释放旧文件锁后其它进程可能已写入新文件，这里只认自己写入的文件头，
+                // 之后的读写会比较sequence/generation，增量同步其它进程的修改
+                generation = newGeneration;
+                sequence = newSequence;
+                end = position;
+                recordSizes.clear();
+                recordSizes.putAll(sizes);
+                liveBytes = position - HEADER_SIZE;
+            } catch (IOException e) {
+                e.printStackTrace();
+                if (tmpRaf != null) {
+                    try {
+                        tmpRaf.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+                if (!tmp.delete()) Logger.w("MmapPreferences", "delete failed -> " + tmp);
+            } finally {
+                release(fileLock);
+                compacting = false;
+            }
+        }
+        if (!external.isEmpty()) notifyListeners(external);
+    }
+
+    private void notifyListeners(List<String> keys) {
+        final List<OnSharedPreferenceChangeListener> targets;
+        synchronized (listeners) {
+            if (listeners.isEmpty()) return;
+            targets = new ArrayList<>(listeners.keySet());
+        }
+        Runnable run = () -> {
+            for (int i = keys.size() - 1; i >= 0; i--) {
+                for (OnSharedPreferenceChangeListener listener : targets) {
+                    listener.onSharedPreferenceChanged(this, keys.get(i));
+                }
+            }
+        };
+        Executor executor = callbackExecutor;
+        if (executor != null) {
+            executor.execute(run);
+        } else {
+            ThreadManager.getMainHandler().post(run);
+        }
+    }
+
+    /**
+     * Editor：修改先记录在内存，提交时一次写入
+     */
+    public final class MmapEditor implements Editor {
+
+        private final Map<String, Object> changes = new LinkedHashMap<>();
+        private boolean clear;
+
+        @Override
+        public Editor putString(String key, @Nullable String value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putStringSet(String key, @Nullable Set<String> values) {
+            changes.put(key, values == null ? null : Collections.unmodifiableSet(new HashSet<>(values)));
+            return this;
+        }
+
+        @Override
+        public Editor putInt(String key, int value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putLong(String key, long value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putFloat(String key, float value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putBoolean(String key, boolean value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        /**
+         * 写入byte[]，会复制一份
+         */
+        public MmapEditor putBytes(String key, @Nullable byte[] value) {
+            changes.put(key, value == null ? null : value.clone());
+            return this;
+        }
+
+        @Override
+        public Editor remove(String key) {
+            changes.put(key, null);
+            return this;
+        }
+
+        @Override
+        public Editor clear() {
+            clear = true;
+            return this;
+        }
+
+        @Override
+        public boolean commit() {
+            return submit(true);
+        }
+
+        @Override
+        public void apply() {
+            submit(false);
+        }
+
+        private boolean submit(boolean force) {
+            boolean result = write(clear, changes, force);
+            if (result) {
+                List<String> keys = new ArrayList<>(changes.keySet());
+                if (clear) keys.add(0, null);
+                notifyListeners(keys);
+            }
+            changes.clear();
+            clear = false;
+            return result;
+        }
+    }
+
+    /**
+     * payload写入scratch
+     */
+    private final class Writer {
+
+        private int length;
+
+        private Writer(int expected) {
+            if (scratch.length < expected) scratch = new byte[Math.max(expected, scratch.length << 1)];
+        }
+
+        private void ensure(int more) {
+            if (length + more > scratch.length) {
+                byte[] bytes = new byte[Math.max(length + more, scratch.length << 1)];
+                System.arraycopy(scratch, 0, bytes, 0, length);
+                scratch = bytes;
+            }
+        }
+
+        private void putByte(byte value) {
+            ensure(1);
+            scratch[length++] = value;
+        }
+
+        private void putInt(int value) {
+            ensure(4);
+            scratch[length++] = (byte) value;
+            scratch[length++] = (byte) (value >>> 8);
+            scratch[length++] = (byte) (value >>> 16);
+            scratch[length++] = (byte) (value >>> 24);
+        }
+
+        private void putLong(long value) {
+            putInt((int) value);
+            putInt((int) (value >>> 32));
+        }
+
+        private void putBytes(byte[] bytes) {
+            putInt(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, scratch, length, bytes.length);
+            length += bytes.length;
+        }
+    }
+
+    /**
+     * payload读取
+     */
+    private static final class Reader {
+
+        private final byte[] data;
+        private final int limit;
+        private int position;
+
+        private Reader(byte[] data, int limit) {
+            this.data = data;
+            this.limit = limit;
+        }
+
+        private byte getByte() {
+            return data[position++];
+        }
+
+        private int getInt() {
+            int value = (data[position] & 0xFF)
+                    | (data[position + 1] & 0xFF) << 8
+                    | (data[position + 2] & 0xFF) << 16
+                    | (data[position + 3] & 0xFF) << 24;
+            position += 4;
+            return value;
+        }
+
+        private long getLong() {
+            long low = getInt() & 0xFFFFFFFFL;
+            long high = getInt() & 0xFFFFFFFFL;
+            return low | high << 32;
+        }
+
+        private byte[] getBytes() {
+            int length = getInt();
+            if (length < 0 || position + length > limit) throw new IllegalStateException("bad record");
+            byte[] value = new byte[length];
+            System.arraycopy(data, position, value, 0, length);
+            position += length;
+            return value;
+        }
+
+        private String getString() {
+            int length = getInt();
+            if (length < 0 || position + length > limit) throw new IllegalStateException("bad record");
+            String value = new String(data, position, length, UTF_8);
+            position += length;
+            return value;
+        }
+    }
+
+}
@@ -0,0 +1,238 @@
+package com.hsj.common.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:RelativeTimeFormatter
+ * @Desc:社区时间(相对时间)格式化，线程安全
+ */
+public final class RelativeTimeFormatter {
+
+    //////////////////////////////////////////////////////////////
+    // RelativeTimeFormatter 功能如下：
+    //     1、"刚刚"、"x分钟前"、"今天/昨天/前天 HH:mm"、"MM月dd日 HH:mm"(今年)、"yyyy年MM月dd日 HH:mm"(非今年)
+    //     2、今天/昨天/前天/今年的起点只在跨过零点(或时区变化)后重新计算一次
+    //     3、文案由 Labels 提供，内置中文和英文，可自定义
+    //     4、format(long[]) 批量格式化一页列表，只取一次当前时间
+    //////////////////////////////////////////////////////////////
+
+    private static final long ONE_MINUTE = 60 * 1000;
+    private static final long ONE_HOUR = 60 * ONE_MINUTE;
+    private static final long ONE_DAY = 24 * ONE_HOUR;
+
+    /**
+     * 文案与日期模式
+     */
+    public static final class Labels {
+
+        public static final Labels CHINESE = new Labels("刚刚", "%d分钟前", "今天 ", "昨天 ", "前天 ",
+                "HH:mm", "MM月dd日 HH:mm", "yyyy年MM月dd日 HH:mm", Locale.CHINA);
+
+        public static final Labels ENGLISH = new Labels("just now", "%d min ago", "Today ", "Yesterday ", null,
+                "HH:mm", "MMM d HH:mm", "MMM d, yyyy HH:mm", Locale.ENGLISH);
+
+        final String justNow;
+        final String minutesPrefix;
+        final String minutesSuffix;
+        final String today;
+        final String yesterday;
+        final String dayBeforeYesterday;
+        final DateFormatter time;
+        final DateFormatter thisYear;
+        final DateFormatter otherYear;
+
+        /**
+         * @param justNow            一分钟内
+         * @param minutesAgo         一小时内，%d 为分钟数
+         * @param today              今天的前缀，后接 timePattern
+         * @param yesterday          昨天的前缀
+         * @param dayBeforeYesterday 前天的前缀，null表示按 thisYearPattern 显示
+         * @param timePattern        今天/昨天/前天的时间模式
+         * @param thisYearPattern    今年的日期模式
+         * @param otherYearPattern   非今年的日期模式
+         * @param locale             日期模式中文字字段的语言
+         */
+        public Labels(@NonNull String justNow, @NonNull String minutesAgo, @NonNull String today,
+                      @NonNull String yesterday, @Nullable String dayBeforeYesterday, @NonNull String timePattern,
+                      @NonNull String thisYearPattern, @NonNull String otherYearPattern, @NonNull Locale locale) {
+            int index = minutesAgo.indexOf("%d");
+            if (index < 0) throw new IllegalArgumentException("minutesAgo must contain %d: " + minutesAgo);
+            this.justNow = justNow;
+            this.minutesPrefix = minutesAgo.substring(0, index);
+            this.minutesSuffix = minutesAgo.substring(index + 2);
+            this.today = today;
+            this.yesterday = yesterday;
+            this.dayBeforeYesterday = dayBeforeYesterday;
+            this.time = DateFormatter.of(timePattern, locale);
+            this.thisYear = DateFormatter.of(thisYearPattern, locale);
+            this.otherYear = DateFormatter.of(otherYearPattern, locale);
+        }
+
+        /**
+         * @return 中文语言返回 CHINESE，其余返回 ENGLISH
+         */
+        @NonNull
+        public static Labels forLocale(@NonNull Locale locale) {
+            return "zh".equals(locale.getLanguage()) ? CHINESE : ENGLISH;
+        }
+    }
+
+    /**
+     * 当天的各个起点，跨过零点后整体替换
+     */
+    private static final class Boundaries {
+        final TimeZone zone;
+        final long dayBeforeYesterday;
+        final long yesterday;
+        final long today;
+        final long tomorrow;
+        final long year;
+
+        Boundaries(long now) {
+            this.zone = DateFormatter.zone();
+            final long days = DateFormatter.floorDiv(now + zone.getOffset(now), ONE_DAY);
+            this.today = startOfDay(days);
+            this.tomorrow = startOfDay(days + 1);
+            this.yesterday = startOfDay(days - 1);
+            this.dayBeforeYesterday = startOfDay(days - 2);
+            final int date = DateFormatter.civilFromDays(days);
+            this.year = startOfDay(DateFormatter.daysFromCivil(date / 10000, 1, 1));
+        }
+
+        boolean isValid(long now) {
+            return now >= today && now < tomorrow && zone == DateFormatter.zone();
+        }
+
+        /**
+         * 本地零点对应的时间戳(零点落在夏令时缺口时取缺口之后)
+         */
+        private long startOfDay(long days) {
+            final long local = days * ONE_DAY;
+            long utc = DateFormatter.toUtc(zone, local);
+            for (long skip = ONE_HOUR; utc == DateFormatter.INVALID && skip <= 2 * ONE_HOUR; skip += ONE_HOUR) {
+                utc = DateFormatter.toUtc(zone, local + skip);
+            }
+            return utc == DateFormatter.INVALID ? local - zone.getOffset(local) : utc;
+        }
+    }
+
+    private static volatile RelativeTimeFormatter chinese;
+    private static volatile RelativeTimeFormatter english;
+
+    private final Labels labels;
+    private volatile Boundaries boundaries;
+
+    public RelativeTimeFormatter(@NonNull Labels labels) {
+        this.labels = labels;
+    }
+
+    /**
+     * @return 中文格式化器(共享实例)
+     */
+    @NonNull
+    public static RelativeTimeFormatter getChinese() {
+        RelativeTimeFormatter formatter = chinese;
+        if (formatter == null) chinese = formatter = new RelativeTimeFormatter(Labels.CHINESE);
+        return formatter;
+    }
+
+    /**
+     * @param locale 语言
+     * @return 中文语言返回中文格式化器，其余返回英文格式化器(共享实例)
+     */
+    @NonNull
+    public static RelativeTimeFormatter forLocale(@NonNull Locale locale) {
+        if (Labels.forLocale(locale) == Labels.CHINESE) return getChinese();
+        RelativeTimeFormatter formatter = english;
+        if (formatter == null) english = formatter = new RelativeTimeFormatter(Labels.ENGLISH);
+        return formatter;
+    }
+
+    /**
+     * @param timeStamp 时间戳
+     * @return 相对时间描述，timeStamp<=0返回null
+     */
+    @Nullable
+    public String format(long timeStamp) {
+        if (timeStamp <= 0) return null;
+        final long now = System.currentTimeMillis();
+        return format(new StringBuilder(24), timeStamp, now, boundaries(now)).toString();
+    }
+
+    /**
+     * 格式化并追加到 out
+     *
+     * @param out       追加目标
+     * @param timeStamp 时间戳(>0)
+     * @param now       当前时间
+     * @return out
+     */
+    @NonNull
+    public StringBuilder format(@NonNull StringBuilder out, long timeStamp, long now) {
+        return format(out, timeStamp, now, boundaries(now));
+    }
+
+    /**
+     * 批量格式化，共用一次当前时间和日期起点
+     *
+     * @param timeStamps 时间戳
+     * @return 与 timeStamps 对应的描述，<=0 的位置为null
+     */
+    @NonNull
+    public String[] format(@NonNull long[] timeStamps) {
+        final long now = System.currentTimeMillis();
+        final Boundaries boundaries = boundaries(now);
+        final String[] result = new String[timeStamps.length];
+        final StringBuilder out = new StringBuilder(24);
+        for (int i = 0; i < timeStamps.length; i++) {
+            if (timeStamps[i] <= 0) continue;
+            out.setLength(0);
+            result[i] = format(out, timeStamps[i], now, boundaries).toString();
+        }
+        return result;
+    }
+
+    private StringBuilder format(StringBuilder out, long timeStamp, long now, Boundaries boundaries) {
+        final long timePassed = now - timeStamp;
+        final Labels labels = this.labels;
+        if (timePassed < ONE_MINUTE) {
+            //一分钟内
+            return out.append(labels.justNow);
+        } else if (timePassed < ONE_HOUR) {
+            //几分钟内
+            return out.append(labels.minutesPrefix).append(timePassed / ONE_MINUTE).append(labels.minutesSuffix);
+        } else if (timeStamp >= boundaries.today) {
+            //今天
+            return labels.time.format(out.append(labels.today), timeStamp);
+        } else if (timeStamp >= boundaries.yesterday) {
+            //昨天
+            return labels.time.format(out.append(labels.yesterday), timeStamp);
+        } else if (timeStamp >= boundaries.dayBeforeYesterday && labels.dayBeforeYesterday != null) {
+            //前天
+            return labels.time.format(out.append(labels.dayBeforeYesterday), timeStamp);
+        } else if (timeStamp >= boundaries.year) {
+            //今年
+            return labels.thisYear.format(out, timeStamp);
+        }
+        //非今年
+        return labels.otherYear.format(out, timeStamp);
+    }
+
+    /**
+     * 当前有效的日期起点，跨过零点、时钟回拨或时区变化时重新计算
+     */
+    private Boundaries boundaries(long now) {
+        Boundaries current = boundaries;
+        if (current == null || !current.isValid(now)) {
+            boundaries = current = new Boundaries(now);
+        }
+        return current;
+    }
+
+}
@@ -6,7 +6,22 @@ import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @Author:hsj
@@ -23,6 +38,21 @@ public final class SharedPrefer {
     //     3、WORK_INFO:    业务相关缓存信息
     //     4、USER_INFO:    用户相关缓存信息(账号、密码、token、设备ID)
     //     5、ACTION_INFO:  App上次退出时未完成的信息
+    //
+    // 性能相关：
+    //     1、SharedPreferences只解析一次，之后复用
+    //     2、putInt/putLong等基本类型读写不装箱
+    //     3、cacheXxx(key)返回缓存值，热点读取只是一次volatile读
+    //     4、addListener监听变化
+    //     5、edit(context, batch -> ...)批量写入，只提交一次
+    //     6、setCoalesceWindow开启后，窗口内的单次put合并为一次提交
+    //     7、存储引擎可选：Storage.XML(系统默认)、Storage.MMAP(mmap追加日志)、
+    //        Storage.MMAP_MULTI_PROCESS(多进程共享，修改跨进程通知)、
+    //        EncryptedPreferences.storage(base, key)(AES-GCM加密，适用于USER_INFO)
+    //     8、preload()在后台并行预加载，加载未完成时第一次读取限时等待，超时后直接读取存储(不返回默认值)
+    //     9、byte[]/ByteBuffer/double/自定义Codec对象：二进制存储，不转Base64；
+    //        大值(或XML引擎下的所有二进制值)写入独立文件，读取时才加载；
+    //        加密引擎下独立文件同样AES-GCM加密，读取时整体解密；二进制写入同样参与合并写入
     ////////////////////////////////////////////////////////////////
 
     public static final String APP_INFO     =   "app_info";
@@ -31,39 +61,284 @@ public final class SharedPrefer {
     public static final String WORK_INFO    =   "work_info";
     public static final String ACTION_INFO  =   "action_info";
 
+    /**
+     * 预加载未完成时读取的默认等待时间/毫秒
+     */
+    private static final long DEFAULT_LOAD_TIMEOUT = 200;
+
+    /**
+     * 存储引擎 -> 文件名 -> 共享实例
+     */
+    private static final ConcurrentHashMap<Storage, ConcurrentHashMap<String, SharedPrefer>> INSTANCES
+            = new ConcurrentHashMap<>();
+
     private String fileName = APP_INFO;
 
+    /**
+     * 存储引擎
+     */
+    private final Storage storage;
+
+    /**
+     * 已解析的SharedPreferences
+     */
+    private volatile SharedPreferences store;
+
+    /**
+     * key -> 缓存值
+     */
+    private final ConcurrentHashMap<String, CachedValue> cachedValues = new ConcurrentHashMap<>();
+
+    /**
+     * 变化监听
+     */
+    private final CopyOnWriteArrayList<OnChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 删除标记
+     */
+    private static final Object REMOVED = new Object();
+
+    /**
+     * 合并写入窗口/毫秒，0表示不合并
+     */
+    private volatile long coalesceMillis;
+
+    /**
+     * 合并窗口内待提交的写入，key -> 值或REMOVED
+     */
+    private final ConcurrentHashMap<String, Object> pending = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final Runnable flushTask = () -> {
+        flushScheduled.set(false);
+        flush();
+    };
+
+    /**
+     * SharedPreferences内部以弱引用持有监听，这里必须强引用
+     */
+    private final SharedPreferences.OnSharedPreferenceChangeListener changeListener = (sp, key) -> {
+        if (key == null) {
+            for (CachedValue value : cachedValues.values()) {
+                value.reload(sp);
+            }
+        } else if (!pending.containsKey(key)) {
+            CachedValue value = cachedValues.get(key);
+            if (value != null) value.reload(sp);
+        }
+        for (OnChangeListener listener : listeners) {
+            listener.onChanged(this, key);
+        }
+    };
+
+    private volatile boolean listening;
+
+    /**
+     * 预加载中的等待锁，null表示未预加载
+     */
+    private volatile CountDownLatch loading;
+
+    private volatile boolean loaded;
+
+    /**
+     * 是否已限时等待过，每个实例只等待一次
+     */
+    private final AtomicBoolean waited = new AtomicBoolean();
+
+    /**
+     * 加载耗时/毫秒，-1表示未加载
+     */
+    private volatile long loadTimeMillis = -1;
+
+    private volatile long loadTimeout = DEFAULT_LOAD_TIMEOUT;
+
+    /**
+     * 第一次读取等待预加载的耗时/毫秒，-1表示没有等待
+     */
+    private volatile long waitTimeMillis = -1;
+
     public SharedPrefer(String fileName) {
+        this(fileName, Storage.XML);
+    }
+
+    public SharedPrefer(String fileName, @NonNull Storage storage) {
         if (TextUtils.isEmpty(fileName)){
             throw new NullPointerException("fileName can't be null");
         }
         this.fileName = fileName;
+        this.storage = storage;
     }
 
     /**
-     * 可以put ：Number:int,long,float
-     * String、boolean、Set<String>
+     * 获取文件对应的共享实例(Storage.XML)，缓存值和监听在同一文件内共享
+     *
+     * @param fileName 文件名
+     * @return 实例
+     */
+    public static SharedPrefer get(String fileName) {
+        return get(fileName, Storage.XML);
+    }
+
+    /**
+     * 获取文件在指定存储引擎下的共享实例
+     *
+     * @param fileName 文件名
+     * @param storage  存储引擎，按对象区分，自定义引擎请复用同一个对象
+     * @return 实例
+     */
+    public static SharedPrefer get(String fileName, @NonNull Storage storage) {
+        ConcurrentHashMap<String, SharedPrefer> instances = INSTANCES.get(storage);
+        if (instances == null) {
+            ConcurrentHashMap<String, SharedPrefer> created = new ConcurrentHashMap<>();
+            instances = INSTANCES.putIfAbsent(storage, created);
+            if (instances == null) instances = created;
+        }
+        SharedPrefer prefer = instances.get(fileName);
+        if (prefer == null) {
+            SharedPrefer created = new SharedPrefer(fileName, storage);
+            prefer = instances.putIfAbsent(fileName, created);
+            if (prefer == null) prefer = created;
+        }
+        return prefer;
+    }
+
+    /**
+     * 存储引擎
+     *
+     * @return storage
+     */
+    @NonNull
+    public Storage getStorage() {
+        return storage;
+    }
+
+    /**
+     * 文件名
+     *
+     * @return fileName
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * 获取SharedPreferences，只解析一次
+     *
+     * @param context 上下文
+     * @return SharedPreferences
+     */
+    public SharedPreferences getStore(@NonNull Context context) {
+        SharedPreferences sp = store;
+        if (sp == null) {
+            synchronized (this) {
+                sp = store;
+                if (sp == null) {
+                    Context app = context.getApplicationContext();
+                    sp = storage.open(app == null ? context : app, fileName);
+                    store = sp;
+                }
+            }
+        }
+        return sp;
+    }
+
+    /**
+     * 可以put ：Number:int,long,float,double
+     * String、boolean、Set<String>、byte[]、ByteBuffer
      *
      * @param key
      * @param value
      */
+    @SuppressWarnings("unchecked")
     public void put(@NonNull Context context, @NonNull String key, @NonNull Object value) {
-        SharedPreferences sp = context.getSharedPreferences(fileName, Context.MODE_PRIVATE);
-        SharedPreferences.Editor edit = sp.edit();
         if (value instanceof String) {
-            edit.putString(key, (String) value);
+            putString(context, key, (String) value);
         } else if (value instanceof Boolean) {
-            edit.putBoolean(key, (boolean) value);
+            putBoolean(context, key, (boolean) value);
         } else if (value instanceof Integer) {
-            edit.putInt(key, (int) value);
+            putInt(context, key, (int) value);
         } else if (value instanceof Long) {
-            edit.putLong(key, (Long) value);
+            putLong(context, key, (long) value);
         } else if (value instanceof Float) {
-            edit.putFloat(key, (Float) value);
+            putFloat(context, key, (float) value);
+        } else if (value instanceof Double) {
+            putDouble(context, key, (double) value);
+        } else if (value instanceof Set) {
+            putStringSet(context, key, (Set<String>) value);
+        } else if (value instanceof byte[]) {
+            putBytes(context, key, (byte[]) value);
+        } else if (value instanceof ByteBuffer) {
+            putByteBuffer(context, key, (ByteBuffer) value);
         } else {
-            edit.putStringSet(key, (Set<String>) value);
+            throw new IllegalArgumentException("Unsupported value type: " + value.getClass().getName());
+        }
+    }
+
+    public void putString(@NonNull Context context, @NonNull String key, String value) {
+        if (coalesceMillis > 0) {
+            enqueue(context, key, value);
+        } else {
+            getStore(context).edit().putString(key, value).apply();
+        }
+        CachedValue cached = cachedValues.get(key);
+        if (cached instanceof CachedString) {
+            //putString(key, null) 等同于 remove，缓存恢复默认值
+            if (value == null) {
+                cached.reset();
+            } else {
+                ((CachedString) cached).value = value;
+            }
+        }
+    }
+
+    public void putBoolean(@NonNull Context context, @NonNull String key, boolean value) {
+        if (coalesceMillis > 0) {
+            enqueue(context, key, value);
+        } else {
+            getStore(context).edit().putBoolean(key, value).apply();
+        }
+        CachedValue cached = cachedValues.get(key);
+        if (cached instanceof CachedBoolean) ((CachedBoolean) cached).value = value;
+    }
+
+    public void putInt(@NonNull Context context, @NonNull String key, int value) {
+        if (coalesceMillis > 0) {
+            enqueue(context, key, value);
+        } else {
+            getStore(context).edit().putInt(key, value).apply();
+        }
+        CachedValue cached = cachedValues.get(key);
+        if (cached instanceof CachedInt) ((CachedInt) cached).value = value;
+    }
+
+    public void putLong(@NonNull Context context, @NonNull String key, long value) {
+        if (coalesceMillis > 0) {
+            enqueue(context, key, value);
+        } else {
+            getStore(context).edit().putLong(key, value).apply();
+        }
+        CachedValue cached = cachedValues.get(key);
+        if (cached instanceof CachedLong) ((CachedLong) cached).value = value;
+    }
+
+    public void putFloat(@NonNull Context context, @NonNull String key, float value) {
+        if (coalesceMillis > 0) {
+            enqueue(context, key, value);
+        } else {
+            getStore(context).edit().putFloat(key, value).apply();
+        }
+        CachedValue cached = cachedValues.get(key);
+        if (cached instanceof CachedFloat) ((CachedFloat) cached).value = value;
+    }
+
+    public void putStringSet(@NonNull Context context, @NonNull String key, Set<String> value) {
+        if (coalesceMillis > 0) {
+            enqueue(context, key, value);
+        } else {
+            getStore(context).edit().putStringSet(key, value).apply();
         }
-        edit.apply();
     }
 
     /**
@@ -72,10 +347,29 @@ public final class SharedPrefer {
      * @param key
      */
     public void remove(@NonNull Context context, @NonNull String key) {
-        SharedPreferences sp = context.getSharedPreferences(fileName, Context.MODE_PRIVATE);
-        SharedPreferences.Editor edit = sp.edit();
-        edit.remove(key);
-        edit.apply();
+        SharedPreferences sp = getStore(context);
+        CachedValue cached = cachedValues.get(key);
+        if (coalesceMillis > 0) {
+            enqueue(context, key, REMOVED);
+            if (cached != null) cached.reset();
+        } else {
+            sp.edit().remove(key).apply();
+            if (cached != null) cached.reload(sp);
+        }
+        deleteBlob(context, key);
+    }
+
+    /**
+     * 是否包含key
+     *
+     * @param key
+     * @return
+     */
+    public boolean contains(@NonNull Context context, @NonNull String key) {
+        Object value = pending.isEmpty() ? null : pending.get(key);
+        if (value != null) return value != REMOVED;
+        awaitLoaded(context);
+        return getStore(context).contains(key);
     }
 
     /**
@@ -95,8 +389,10 @@ public final class SharedPrefer {
      * @return
      */
     public boolean getBoolean(@NonNull Context context, @NonNull String key, boolean defaultValue) {
-        SharedPreferences sp = context.getSharedPreferences(fileName, Context.MODE_PRIVATE);
-        return sp.getBoolean(key, defaultValue);
+        Object value = pending.isEmpty() ? null : pending.get(key);
+        if (value != null) return value == REMOVED ? defaultValue : (Boolean) value;
+        awaitLoaded(context);
+        return getStore(context).getBoolean(key, defaultValue);
     }
 
     /**
@@ -116,8 +412,10 @@ public final class SharedPrefer {
      * @return
      */
     public String getString(@NonNull Context context, @NonNull String key, String defaultValue) {
-        SharedPreferences sp = context.getSharedPreferences(fileName, Context.MODE_PRIVATE);
-        return sp.getString(key, defaultValue);
+        Object value = pending.isEmpty() ? null : pending.get(key);
+        if (value != null) return value == REMOVED ? defaultValue : (String) value;
+        awaitLoaded(context);
+        return getStore(context).getString(key, defaultValue);
     }
 
     /**
@@ -136,9 +434,12 @@ public final class SharedPrefer {
      * @param key
      * @return
      */
+    @SuppressWarnings("unchecked")
     public Set<String> getStringSet(@NonNull Context context, @NonNull String key, Set<String> defaultValue) {
-        SharedPreferences sp = context.getSharedPreferences(fileName, Context.MODE_PRIVATE);
-        return sp.getStringSet(key, defaultValue);
+        Object value = pending.isEmpty() ? null : pending.get(key);
+        if (value != null) return value == REMOVED ? defaultValue : (Set<String>) value;
+        awaitLoaded(context);
+        return getStore(context).getStringSet(key, defaultValue);
     }
 
     /**
@@ -158,8 +459,10 @@ public final class SharedPrefer {
      * @return
      */
     public int getInt(@NonNull Context context, @NonNull String key, int defaultValue) {
-        SharedPreferences sp = context.getSharedPreferences(fileName, Context.MODE_PRIVATE);
-        return sp.getInt(key, defaultValue);
+        Object value = pending.isEmpty() ? null : pending.get(key);
+        if (value != null) return value == REMOVED ? defaultValue : (Integer) value;
+        awaitLoaded(context);
+        return getStore(context).getInt(key, defaultValue);
     }
 
     /**
@@ -179,8 +482,10 @@ public final class SharedPrefer {
      * @return
      */
     public long getLong(@NonNull Context context, @NonNull String key, long defaultValue) {
-        SharedPreferences sp = context.getSharedPreferences(fileName, Context.MODE_PRIVATE);
-        return sp.getLong(key, defaultValue);
+        Object value = pending.isEmpty() ? null : pending.get(key);
+        if (value != null) return value == REMOVED ? defaultValue : (Long) value;
+        awaitLoaded(context);
+        return getStore(context).getLong(key, defaultValue);
     }
 
     /**
@@ -200,18 +505,909 @@ public final class SharedPrefer {
      * @return
      */
     public float getFloat(@NonNull Context context, @NonNull String key, float defaultValue) {
-        SharedPreferences sp = context.getSharedPreferences(fileName, Context.MODE_PRIVATE);
-        return sp.getFloat(key, defaultValue);
+        Object value = pending.isEmpty() ? null : pending.get(key);
+        if (value != null) return value == REMOVED ? defaultValue : (Float) value;
+        awaitLoaded(context);
+        return getStore(context).getFloat(key, defaultValue);
     }
 
     /**
      * 清空 SharedPreferences 中数据
      */
     public void clearAll(@NonNull Context context) {
-        SharedPreferences sp = context.getSharedPreferences(fileName, Context.MODE_PRIVATE);
-        SharedPreferences.Editor edit = sp.edit();
-        edit.clear();
-        edit.apply();
+        SharedPreferences sp = getStore(context);
+        pending.clear();
+        sp.edit().clear().apply();
+        for (CachedValue value : cachedValues.values()) {
+            value.reload(sp);
+        }
+        File[] blobs = getBlobDir(context).listFiles();
+        if (blobs != null) {
+            for (File blob : blobs) {
+                if (!blob.delete()) Logger.w("SharedPrefer", "delete failed -> " + blob);
+            }
+        }
+    }
+
+//======================================Binary======================================================
+
+    /**
+     * 超过该大小的二进制值写入独立文件(MMAP引擎)，XML引擎下二进制值全部写入独立文件
+     */
+    private static final int INLINE_LIMIT = 16 * 1024;
+
+    /**
+     * 独立文件的占位值
+     */
+    private static final String BLOB_MARKER = "@prefer_blob@";
+
+    private volatile File blobDir;
+
+    /**
+     * 对象编解码
+     */
+    public interface Codec<T> {
+
+        @NonNull
+        byte[] encode(@NonNull T value);
+
+        T decode(@NonNull byte[] data);
+    }
+
+    public void putDouble(@NonNull Context context, @NonNull String key, double value) {
+        //以long的位存储，不装箱、不转字符串
+        putLong(context, key, Double.doubleToRawLongBits(value));
+    }
+
+    public double getDouble(@NonNull Context context, @NonNull String key, double defaultValue) {
+        if (!contains(context, key)) return defaultValue;
+        return Double.longBitsToDouble(getLong(context, key, 0));
+    }
+
+    /**
+     * 写入byte[]
+     *
+     * @param key   key
+     * @param value 值，null 表示删除
+     */
+    public void putBytes(@NonNull Context context, @NonNull String key, byte[] value) {
+        if (value == null) {
+            remove(context, key);
+            return;
+        }
+        putByteBuffer(context, key, ByteBuffer.wrap(value));
+    }
+
+    /**
+     * 写入ByteBuffer的剩余内容，写入后position不变
+     *
+     * @param key   key
+     * @param value 值
+     */
+    public void putByteBuffer(@NonNull Context context, @NonNull String key, @NonNull ByteBuffer value) {
+        SharedPreferences sp = getStore(context);
+        if (sp instanceof MmapPreferences && value.remaining() <= INLINE_LIMIT) {
+            byte[] bytes = new byte[value.remaining()];
+            value.duplicate().get(bytes);
+            if (coalesceMillis > 0) {
+                enqueue(context, key, bytes);
+            } else {
+                ((MmapPreferences) sp).edit().putBytes(key, bytes).apply();
+            }
+            deleteBlob(context, key);
+            return;
+        }
+        File dir = getBlobDir(context);
+        if (!dir.exists() && !dir.mkdirs()) Logger.w("SharedPrefer", "mkdirs failed -> " + dir);
+        File blob = blobFile(context, key);
+        File tmp = new File(blob.getPath() + ".tmp");
+        FileOutputStream fos = null;
+        try {
+            fos = new FileOutputStream(tmp);
+            FileChannel channel = fos.getChannel();
+            ByteBuffer src = sp instanceof EncryptedPreferences
+                    ? ByteBuffer.wrap(((EncryptedPreferences) sp).encryptBytes(key, value))
+                    : value.duplicate();
+            while (src.hasRemaining()) {
+                channel.write(src);
+            }
+            fos.close();
+            fos = null;
+            if (!tmp.renameTo(blob)) throw new IOException("rename failed: " + tmp);
+            if (coalesceMillis > 0) {
+                enqueue(context, key, BLOB_MARKER);
+            } else {
+                sp.edit().putString(key, BLOB_MARKER).apply();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            if (!tmp.delete()) Logger.w("SharedPrefer", "delete failed -> " + tmp);
+        } finally {
+            if (fos != null) {
+                try {
+                    fos.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取byte[]
+     *
+     * @param key key
+     * @return 值，不存在返回null
+     */
+    public byte[] getBytes(@NonNull Context context, @NonNull String key) {
+        ByteBuffer buffer = getByteBuffer(context, key);
+        if (buffer == null) return null;
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.remaining() == buffer.array().length) {
+            return buffer.array();
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 读取ByteBuffer，独立文件以只读mmap方式返回，按需分页加载
+     *
+     * @param key key
+     * @return 值，不存在返回null
+     */
+    public ByteBuffer getByteBuffer(@NonNull Context context, @NonNull String key) {
+        Object value = pending.isEmpty() ? null : pending.get(key);
+        if (value instanceof byte[]) return ByteBuffer.wrap(((byte[]) value).clone());
+        if (value != null && !BLOB_MARKER.equals(value)) return null;
+        if (value == null) awaitLoaded(context);
+        SharedPreferences sp = getStore(context);
+        if (value == null) {
+            if (sp instanceof MmapPreferences) {
+                byte[] bytes = ((MmapPreferences) sp).getBytes(key, null);
+                if (bytes != null) return ByteBuffer.wrap(bytes);
+            }
+            try {
+                if (!BLOB_MARKER.equals(sp.getString(key, null))) return null;
+            } catch (ClassCastException e) {
+                return null;
+            }
+        }
+        File blob = blobFile(context, key);
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(blob, "r");
+            long length = raf.length();
+            if (sp instanceof EncryptedPreferences) {
+                //加密文件整体读取后解密，不使用mmap
+                byte[] data = new byte[(int) length];
+                raf.readFully(data);
+                byte[] bytes = ((EncryptedPreferences) sp).decryptBytes(key, data);
+                return bytes == null ? null : ByteBuffer.wrap(bytes);
+            }
+            if (length <= INLINE_LIMIT) {
+                byte[] bytes = new byte[(int) length];
+                raf.readFully(bytes);
+                return ByteBuffer.wrap(bytes);
+            }
+            return raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * 写入对象
+     *
+     * @param key   key
+     * @param value 值
+     * @param codec 编解码
+     */
+    public <T> void putObject(@NonNull Context context, @NonNull String key, T value, @NonNull Codec<T> codec) {
+        putBytes(context, key, value == null ? null : codec.encode(value));
+    }
+
+    /**
+     * 读取对象
+     *
+     * @param key   key
+     * @param codec 编解码
+     * @return 值，不存在返回null
+     */
+    public <T> T getObject(@NonNull Context context, @NonNull String key, @NonNull Codec<T> codec) {
+        byte[] bytes = getBytes(context, key);
+        return bytes == null ? null : codec.decode(bytes);
+    }
+
+    private File getBlobDir(Context context) {
+        File dir = blobDir;
+        if (dir == null) {
+            Context app = context.getApplicationContext();
+            dir = new File(new File((app == null ? context : app).getFilesDir(), "prefer"), fileName + ".blob");
+            blobDir = dir;
+        }
+        return dir;
+    }
+
+    private File blobFile(Context context, String key) {
+        SharedPreferences sp = getStore(context);
+        String name = sp instanceof EncryptedPreferences
+                ? ((EncryptedPreferences) sp).blobName(key)
+                : EncryptUtils.encryptMD5ToString(key);
+        return new File(getBlobDir(context), name);
+    }
+
+    private void deleteBlob(Context context, String key) {
+        File blob = blobFile(context, key);
+        if (blob.exists() && !blob.delete()) Logger.w("SharedPrefer", "delete failed -> " + blob);
+    }
+
+//======================================Preload=====================================================
+
+    /**
+     * 在IO线程池并行预加载文件(Storage.XML)，可在Application.onCreate中调用
+     *
+     * @param context   上下文
+     * @param fileNames 文件名
+     */
+    public static void preload(@NonNull Context context, @NonNull String... fileNames) {
+        preload(context, Storage.XML, fileNames);
+    }
+
+    /**
+     * 在IO线程池并行预加载指定存储引擎下的文件
+     * <p>之后通过 {@link #get(String, Storage)} 获取的实例读取时，若加载未完成，第一次读取先等待 loadTimeout，
+     * 超时后直接读取存储并阻塞到加载完成(不会返回默认值)，等待耗时见 {@link #getWaitMetrics(Storage)}；
+     * 之后的读取不再等待，直接读取存储(由存储自身决定是否阻塞)</p>
+     *
+     * @param context   上下文
+     * @param storage   存储引擎
+     * @param fileNames 文件名
+     */
+    public static void preload(@NonNull Context context, @NonNull Storage storage, @NonNull String... fileNames) {
+        for (String fileName : fileNames) {
+            get(fileName, storage).preload(context);
+        }
+    }
+
+    /**
+     * 各文件加载耗时(Storage.XML)
+     *
+     * @return 文件名 -> 耗时/毫秒，未加载完成的文件不包含在内
+     */
+    public static Map<String, Long> getLoadMetrics() {
+        return getLoadMetrics(Storage.XML);
+    }
+
+    /**
+     * 指定存储引擎下各文件加载耗时
+     *
+     * @param storage 存储引擎
+     * @return 文件名 -> 耗时/毫秒，未加载完成的文件不包含在内
+     */
+    public static Map<String, Long> getLoadMetrics(@NonNull Storage storage) {
+        Map<String, Long> metrics = new HashMap<>();
+        ConcurrentHashMap<String, SharedPrefer> instances = INSTANCES.get(storage);
+        if (instances == null) return metrics;
+        for (SharedPrefer prefer : instances.values()) {
+            long time = prefer.loadTimeMillis;
+            if (time >= 0) metrics.put(prefer.fileName, time);
+        }
+        return metrics;
+    }
+
+    /**
+     * 指定存储引擎下各文件第一次读取等待预加载的耗时
+     *
+     * @param storage 存储引擎
+     * @return 文件名 -> 耗时/毫秒，没有等待过的文件不包含在内
+     */
+    public static Map<String, Long> getWaitMetrics(@NonNull Storage storage) {
+        Map<String, Long> metrics = new HashMap<>();
+        ConcurrentHashMap<String, SharedPrefer> instances = INSTANCES.get(storage);
+        if (instances == null) return metrics;
+        for (SharedPrefer prefer : instances.values()) {
+            long time = prefer.waitTimeMillis;
+            if (time >= 0) metrics.put(prefer.fileName, time);
+        }
+        return metrics;
+    }
+
+    /**
+     * 在IO线程池预加载本文件
+     *
+     * @param context 上下文
+     */
+    public void preload(@NonNull Context context) {
+        if (loaded || loading != null) return;
+        final CountDownLatch latch;
+        synchronized (this) {
+            if (loaded || loading != null) return;
+            latch = new CountDownLatch(1);
+            loading = latch;
+        }
+        final Context app = context.getApplicationContext() == null ? context : context.getApplicationContext();
+        ThreadManager.executeOnIoPool(() -> {
+            long start = System.nanoTime();
+            Tracer.begin("SharedPrefer.load");
+            try {
+                //XML实现在首次读取时等待解析完成
+                getStore(app).contains(fileName);
+            } finally {
+                Tracer.end();
+                loadTimeMillis = (System.nanoTime() - start) / 1_000_000;
+                loaded = true;
+                latch.countDown();
+            }
+            Logger.d("SharedPrefer", fileName + " loaded in " + loadTimeMillis + "ms");
+        });
+    }
+
+    /**
+     * 是否已加载完成
+     *
+     * @return 结果
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * 加载耗时
+     *
+     * @return 毫秒，-1表示未通过preload加载完成
+     */
+    public long getLoadTimeMillis() {
+        return loadTimeMillis;
+    }
+
+    /**
+     * 第一次读取等待预加载的耗时
+     *
+     * @return 毫秒，-1表示没有等待
+     */
+    public long getWaitTimeMillis() {
+        return waitTimeMillis;
+    }
+
+    /**
+     * 预加载未完成时，第一次读取等待预加载任务的时间，超时后在读取线程直接加载
+     *
+     * @param millis 毫秒
+     */
+    public void setLoadTimeout(long millis) {
+        loadTimeout = Math.max(0, millis);
+    }
+
+    /**
+     * 等待预加载完成，每个实例只限时等待一次，之后直接读取存储
+     * <p>超时不返回默认值(会把已有的值读成未设置)，而是在当前线程打开存储并阻塞到加载完成，
+     * 总等待耗时记入 {@link #getWaitTimeMillis()}</p>
+     *
+     * @param context 上下文
+     */
+    private void awaitLoaded(@NonNull Context context) {
+        if (loaded) return;
+        CountDownLatch latch = loading;
+        if (latch == null || !waited.compareAndSet(false, true)) return;
+        long start = System.nanoTime();
+        try {
+            if (latch.await(loadTimeout, TimeUnit.MILLISECONDS)) {
+                waitTimeMillis = (System.nanoTime() - start) / 1_000_000;
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        //IO线程池繁忙时预加载可能还在排队，直接读取存储，由存储自身阻塞到加载完成
+        getStore(context).contains(fileName);
+        waitTimeMillis = (System.nanoTime() - start) / 1_000_000;
+        Logger.w("SharedPrefer", fileName + " not preloaded in " + loadTimeout + "ms, blocked "
+                + waitTimeMillis + "ms on first read");
+    }
+
+//======================================Storage=====================================================
+
+    /**
+     * 存储引擎，返回同一文件的SharedPreferences实现
+     */
+    public interface Storage {
+
+        /**
+         * @param context  ApplicationContext
+         * @param fileName 文件名
+         * @return SharedPreferences
+         */
+        @NonNull
+        SharedPreferences open(@NonNull Context context, @NonNull String fileName);
+
+        /**
+         * 系统SharedPreferences(XML)
+         */
+        Storage XML = (context, fileName) -> context.getSharedPreferences(fileName, Context.MODE_PRIVATE);
+
+        /**
+         * mmap追加日志，文件位于 files/prefer/fileName.kv
+         * 映射失败(含文件版本不支持)时抛出 IllegalStateException：退回XML会读到空数据，
+         * 之后的写入也不在mmap文件中，需要迁移时由调用方显式处理
+         */
+        Storage MMAP = (context, fileName) -> {
+            File file = new File(new File(context.getFilesDir(), "prefer"), fileName + ".kv");
+            try {
+                return MmapPreferences.open(file);
+            } catch (IOException e) {
+                throw new IllegalStateException("mmap open failed: " + file, e);
+            }
+        };
+
+        /**
+         * 多进程共享的mmap追加日志，文件位于 files/prefer/fileName.kv
+         * 写入持有文件锁，其它进程的修改在读取或定时检查时增量同步并回调监听
+         * 映射失败时抛出 IllegalStateException：XML 无法跨进程同步，不能静默退回
+         */
+        Storage MMAP_MULTI_PROCESS = (context, fileName) -> {
+            File file = new File(new File(context.getFilesDir(), "prefer"), fileName + ".kv");
+            try {
+                MmapPreferences prefs = MmapPreferences.open(file, true);
+                prefs.watch(MmapPreferences.DEFAULT_WATCH_INTERVAL);
+                return prefs;
+            } catch (IOException e) {
+                throw new IllegalStateException("multi-process mmap open failed: " + file, e);
+            }
+        };
+    }
+
+//======================================Batch=======================================================
+
+    /**
+     * 开始批量写入，调用 {@link Batch#apply()} 或 {@link Batch#commit()} 后一次性提交
+     *
+     * @param context 上下文
+     * @return Batch
+     */
+    public Batch edit(@NonNull Context context) {
+        return new Batch(getStore(context));
+    }
+
+    /**
+     * 批量写入并提交(apply)
+     *
+     * @param context 上下文
+     * @param action  写入操作
+     */
+    public void edit(@NonNull Context context, @NonNull BatchAction action) {
+        Batch batch = edit(context);
+        action.run(batch);
+        batch.apply();
+    }
+
+    /**
+     * 设置合并写入窗口，窗口内的单次 put/remove 合并为一次提交
+     *
+     * @param millis 毫秒，0表示关闭(关闭时立即提交待写入内容)
+     */
+    public void setCoalesceWindow(long millis) {
+        coalesceMillis = Math.max(0, millis);
+        if (millis <= 0) flush();
+    }
+
+    /**
+     * 立即提交合并窗口内待写入的内容，可在 onPause 中调用
+     */
+    public void flush() {
+        SharedPreferences sp = store;
+        if (sp == null || pending.isEmpty()) return;
+        Map<String, Object> snapshot = new HashMap<>(pending);
+        SharedPreferences.Editor editor = sp.edit();
+        for (Map.Entry<String, Object> entry : snapshot.entrySet()) {
+            putValue(editor, entry.getKey(), entry.getValue());
+        }
+        editor.apply();
+        //apply()同步更新内存后再移除，期间的新写入不会被移除
+        for (Map.Entry<String, Object> entry : snapshot.entrySet()) {
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void enqueue(Context context, String key, Object value) {
+        getStore(context);
+        pending.put(key, value == null ? REMOVED : value);
+        if (flushScheduled.compareAndSet(false, true)) {
+            ThreadManager.getSubThreadHandler().postDelayed(flushTask, coalesceMillis);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void putValue(SharedPreferences.Editor editor, String key, Object value) {
+        if (value == REMOVED) {
+            editor.remove(key);
+        } else if (value instanceof String) {
+            editor.putString(key, (String) value);
+        } else if (value instanceof Boolean) {
+            editor.putBoolean(key, (Boolean) value);
+        } else if (value instanceof Integer) {
+            editor.putInt(key, (Integer) value);
+        } else if (value instanceof Long) {
+            editor.putLong(key, (Long) value);
+        } else if (value instanceof Float) {
+            editor.putFloat(key, (Float) value);
+        } else if (value instanceof byte[]) {
+            //只有MMAP引擎会合并写入byte[]
+            ((MmapPreferences.MmapEditor) editor).putBytes(key, (byte[]) value);
+        } else {
+            editor.putStringSet(key, (Set<String>) value);
+        }
+    }
+
+    /**
+     * 批量写入操作
+     */
+    public interface BatchAction {
+
+        void run(@NonNull Batch batch);
+    }
+
+    /**
+     * 批量写入，所有修改共用一个Editor，只提交一次
+     */
+    public final class Batch {
+
+        private final SharedPreferences sp;
+        private final SharedPreferences.Editor editor;
+        private final List<String> keys = new ArrayList<>();
+        private boolean cleared;
+
+        private Batch(SharedPreferences sp) {
+            this.sp = sp;
+            this.editor = sp.edit();
+        }
+
+        public Batch putString(@NonNull String key, String value) {
+            editor.putString(key, value);
+            keys.add(key);
+            return this;
+        }
+
+        public Batch putBoolean(@NonNull String key, boolean value) {
+            editor.putBoolean(key, value);
+            keys.add(key);
+            return this;
+        }
+
+        public Batch putInt(@NonNull String key, int value) {
+            editor.putInt(key, value);
+            keys.add(key);
+            return this;
+        }
+
+        public Batch putLong(@NonNull String key, long value) {
+            editor.putLong(key, value);
+            keys.add(key);
+            return this;
+        }
+
+        public Batch putFloat(@NonNull String key, float value) {
+            editor.putFloat(key, value);
+            keys.add(key);
+            return this;
+        }
+
+        public Batch putStringSet(@NonNull String key, Set<String> value) {
+            editor.putStringSet(key, value);
+            keys.add(key);
+            return this;
+        }
+
+        public Batch remove(@NonNull String key) {
+            editor.remove(key);
+            keys.add(key);
+            return this;
+        }
+
+        /**
+         * 清空，与Editor一致：先执行clear，再执行本次的put
+         */
+        public Batch clear() {
+            editor.clear();
+            cleared = true;
+            return this;
+        }
+
+        /**
+         * 异步提交
+         */
+        public void apply() {
+            prepare();
+            editor.apply();
+            reloadCache();
+        }
+
+        /**
+         * 同步提交
+         *
+         * @return 结果
+         */
+        public boolean commit() {
+            prepare();
+            boolean result = editor.commit();
+            reloadCache();
+            return result;
+        }
+
+        private void prepare() {
+            //先提交合并窗口内更早的写入，保证写入顺序
+            if (cleared) {
+                pending.clear();
+            } else {
+                flush();
+            }
+        }
+
+        private void reloadCache() {
+            if (cachedValues.isEmpty()) return;
+            if (cleared) {
+                for (CachedValue value : cachedValues.values()) {
+                    value.reload(sp);
+                }
+                return;
+            }
+            for (int i = 0, size = keys.size(); i < size; i++) {
+                CachedValue value = cachedValues.get(keys.get(i));
+                if (value != null) value.reload(sp);
+            }
+        }
+    }
+
+//======================================Cache=======================================================
+
+    /**
+     * 缓存布尔值，值在写入或文件变化时更新
+     *
+     * @param key          key
+     * @param defaultValue 默认值
+     * @return 缓存值，get()为一次volatile读；同一key重复调用返回同一对象
+     * @throws IllegalArgumentException key已缓存为其它类型
+     */
+    public CachedBoolean cacheBoolean(@NonNull Context context, @NonNull String key, boolean defaultValue) {
+        CachedValue cached = cachedValues.get(key);
+        if (cached instanceof CachedBoolean) return (CachedBoolean) cached;
+        return (CachedBoolean) register(context, new CachedBoolean(key, defaultValue));
+    }
+
+    public CachedInt cacheInt(@NonNull Context context, @NonNull String key, int defaultValue) {
+        CachedValue cached = cachedValues.get(key);
+        if (cached instanceof CachedInt) return (CachedInt) cached;
+        return (CachedInt) register(context, new CachedInt(key, defaultValue));
+    }
+
+    public CachedLong cacheLong(@NonNull Context context, @NonNull String key, long defaultValue) {
+        CachedValue cached = cachedValues.get(key);
+        if (cached instanceof CachedLong) return (CachedLong) cached;
+        return (CachedLong) register(context, new CachedLong(key, defaultValue));
+    }
+
+    public CachedFloat cacheFloat(@NonNull Context context, @NonNull String key, float defaultValue) {
+        CachedValue cached = cachedValues.get(key);
+        if (cached instanceof CachedFloat) return (CachedFloat) cached;
+        return (CachedFloat) register(context, new CachedFloat(key, defaultValue));
+    }
+
+    public CachedString cacheString(@NonNull Context context, @NonNull String key, String defaultValue) {
+        CachedValue cached = cachedValues.get(key);
+        if (cached instanceof CachedString) return (CachedString) cached;
+        return (CachedString) register(context, new CachedString(key, defaultValue));
+    }
+
+    /**
+     * 添加变化监听，回调在主线程
+     *
+     * @param listener 监听
+     */
+    public void addListener(@NonNull Context context, @NonNull OnChangeListener listener) {
+        listeners.addIfAbsent(listener);
+        startListening(getStore(context));
+    }
+
+    /**
+     * 移除变化监听
+     *
+     * @param listener 监听
+     */
+    public void removeListener(OnChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 注册缓存值，同一个key只能以一种类型缓存
+     *
+     * @return 已注册的同类型缓存值或 value
+     * @throws IllegalArgumentException key 已以其它类型缓存
+     */
+    private CachedValue register(Context context, CachedValue value) {
+        SharedPreferences sp = getStore(context);
+        startListening(sp);
+        value.reload(sp);
+        CachedValue existing = cachedValues.putIfAbsent(value.key, value);
+        if (existing == null) return value;
+        if (existing.getClass() == value.getClass()) return existing;
+        throw new IllegalArgumentException("Key '" + value.key + "' already cached as "
+                + existing.getClass().getSimpleName() + ", can't cache as " + value.getClass().getSimpleName());
+    }
+
+    private void startListening(SharedPreferences sp) {
+        if (listening) return;
+        synchronized (this) {
+            if (!listening) {
+                sp.registerOnSharedPreferenceChangeListener(changeListener);
+                listening = true;
+            }
+        }
+    }
+
+    /**
+     * 变化监听
+     */
+    public interface OnChangeListener {
+
+        /**
+         * @param prefer 变化的文件
+         * @param key    变化的key，clear时可能为null
+         */
+        void onChanged(SharedPrefer prefer, String key);
+    }
+
+    /**
+     * 缓存值基类
+     */
+    public abstract static class CachedValue {
+
+        final String key;
+
+        CachedValue(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        abstract void reload(SharedPreferences sp);
+
+        abstract void reset();
+    }
+
+    public static final class CachedBoolean extends CachedValue {
+
+        private final boolean defaultValue;
+        volatile boolean value;
+
+        CachedBoolean(String key, boolean defaultValue) {
+            super(key);
+            this.defaultValue = defaultValue;
+        }
+
+        public boolean get() {
+            return value;
+        }
+
+        @Override
+        void reset() {
+            value = defaultValue;
+        }
+
+        @Override
+        void reload(SharedPreferences sp) {
+            value = sp.getBoolean(key, defaultValue);
+        }
+    }
+
+    public static final class CachedInt extends CachedValue {
+
+        private final int defaultValue;
+        volatile int value;
+
+        CachedInt(String key, int defaultValue) {
+            super(key);
+            this.defaultValue = defaultValue;
+        }
+
+        public int get() {
+            return value;
+        }
+
+        @Override
+        void reset() {
+            value = defaultValue;
+        }
+
+        @Override
+        void reload(SharedPreferences sp) {
+            value = sp.getInt(key, defaultValue);
+        }
+    }
+
+    public static final class CachedLong extends CachedValue {
+
+        private final long defaultValue;
+        volatile long value;
+
+        CachedLong(String key, long defaultValue) {
+            super(key);
+            this.defaultValue = defaultValue;
+        }
+
+        public long get() {
+            return value;
+        }
+
+        @Override
+        void reset() {
+            value = defaultValue;
+        }
+
+        @Override
+        void reload(SharedPreferences sp) {
+            value = sp.getLong(key, defaultValue);
+        }
+    }
+
+    public static final class CachedFloat extends CachedValue {
+
+        private final float defaultValue;
+        volatile float value;
+
+        CachedFloat(String key, float defaultValue) {
+            super(key);
+            this.defaultValue = defaultValue;
+        }
+
+        public float get() {
+            return value;
+        }
+
+        @Override
+        void reset() {
+            value = defaultValue;
+        }
+
+        @Override
+        void reload(SharedPreferences sp) {
+            value = sp.getFloat(key, defaultValue);
+        }
+    }
+
+    public static final class CachedString extends CachedValue {
+
+        private final String defaultValue;
+        volatile String value;
+
+        CachedString(String key, String defaultValue) {
+            super(key);
+            this.defaultValue = defaultValue;
+        }
+
+        public String get() {
+            return value;
+        }
+
+        @Override
+        void reset() {
+            value = defaultValue;
+        }
+
+        @Override
+        void reload(SharedPreferences sp) {
+            value = sp.getString(key, defaultValue);
+        }
     }
 
-}
\ No newline at end of file
+}
@@ -4,11 +4,16 @@ import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.Looper;
 import androidx.annotation.Nullable;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @Author:hsj
@@ -85,7 +90,47 @@ public final class ThreadManager {
     static {
         QUEUE = new LinkedBlockingQueue<>(QUEUE_SIZE);
         EXECUTOR = new ThreadPoolExecutor(CORE_POOL_SIZE, MAX_POOL_SIZE,
-                KEEP_ALIVE_TIME, TimeUnit.SECONDS, QUEUE);
+                KEEP_ALIVE_TIME, TimeUnit.SECONDS, QUEUE) {
+            @Override
+            protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+                return new TracedTask<>(runnable, value, runnable.getClass());
+            }
+
+            @Override
+            protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+                return new TracedTask<>(callable, callable.getClass());
+            }
+
+            @Override
+            protected void beforeExecute(Thread t, Runnable r) {
+                //记录任务区间，区间名为任务类名(submit 的任务取原任务类名)；未开启时不记录，只与 end() 配对
+                Class<?> clazz = r instanceof TracedTask ? ((TracedTask<?>) r).taskClass : r.getClass();
+                Tracer.begin(clazz.getName());
+            }
+
+            @Override
+            protected void afterExecute(Runnable r, Throwable t) {
+                Tracer.end();
+            }
+        };
+    }
+
+    /**
+     * submit 包装的任务，保留原任务类型用于 Tracer 区间名
+     */
+    private static final class TracedTask<T> extends FutureTask<T> {
+
+        private final Class<?> taskClass;
+
+        TracedTask(Runnable runnable, T value, Class<?> taskClass) {
+            super(runnable, value);
+            this.taskClass = taskClass;
+        }
+
+        TracedTask(Callable<T> callable, Class<?> taskClass) {
+            super(callable);
+            this.taskClass = taskClass;
+        }
     }
 
     /**
@@ -125,6 +170,55 @@ public final class ThreadManager {
         QUEUE.clear();
     }
 
+//======================================IO Executor=================================================
+
+    /**
+     * IO线程池线程数量
+     */
+    private static final int IO_POOL_SIZE = 4;
+
+    /**
+     * IO线程池：固定线程数、无界队列、空闲回收，用于可并行的磁盘读写(预加载等)
+     */
+    private static volatile ThreadPoolExecutor IO_EXECUTOR;
+
+    /**
+     * 获取IO线程池
+     *
+     * @return IO线程池
+     */
+    public static ExecutorService getIoPool() {
+        if (IO_EXECUTOR == null) {
+            synchronized (ThreadManager.class) {
+                if (IO_EXECUTOR == null) {
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(IO_POOL_SIZE, IO_POOL_SIZE,
+                            KEEP_ALIVE_TIME, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new ThreadFactory() {
+                        private final AtomicInteger count = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "thread_io_" + count.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                    executor.allowCoreThreadTimeOut(true);
+                    IO_EXECUTOR = executor;
+                }
+            }
+        }
+        return IO_EXECUTOR;
+    }
+
+    /**
+     * IO线程池任务
+     *
+     * @param run Runnable
+     */
+    public static void executeOnIoPool(Runnable run) {
+        if (run != null) getIoPool().execute(run);
+    }
+
 //=====================================SUB Thread===================================================
 
     /**
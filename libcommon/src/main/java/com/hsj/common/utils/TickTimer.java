@@ -0,0 +1,333 @@
+package com.hsj.common.utils;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:TickTimer
+ * @Desc:倒计时/周期定时器
+ */
+public final class TickTimer {
+
+    //////////////////////////////////////////////////////////////
+    // TickTimer 功能如下：
+    //     1、countDown 倒计时(onTick 剩余时间，结束 onFinish)，periodic 周期定时(onTick 已运行时间)
+    //     2、所有定时器共用一个调度：主线程只挂一个消息，唤醒时把 16ms 内到期的定时器一起回调
+    //     3、按 SystemClock.elapsedRealtime 计算下一次触发点(起点 + n * interval)，
+    //        回调耗时、消息延迟不会累积误差，休眠错过的tick直接跳过
+    //     4、pause/resume/cancel，可在任意线程调用，回调在主线程
+    //
+    // 注意：定时器持有 Listener，页面销毁时 cancel()
+    //////////////////////////////////////////////////////////////
+
+    /**
+     * 定时回调，在主线程执行
+     */
+    public interface Listener {
+
+        /**
+         * @param timer  定时器
+         * @param millis 倒计时为剩余时间，周期定时为已运行时间/毫秒
+         */
+        @MainThread
+        void onTick(@NonNull TickTimer timer, long millis);
+
+        /**
+         * 倒计时结束(周期定时不会回调)
+         */
+        @MainThread
+        void onFinish(@NonNull TickTimer timer);
+    }
+
+    private static final int STATE_IDLE     = 0;
+    private static final int STATE_RUNNING  = 1;
+    private static final int STATE_PAUSED   = 2;
+    private static final int STATE_FINISHED = 3;
+
+    /**
+     * 合并窗口：此时间内到期的定时器在同一次唤醒中回调
+     */
+    private static final long COALESCE_WINDOW = 16;
+
+    private static final Scheduler SCHEDULER = new Scheduler();
+
+    /**
+     * 倒计时总时长，-1表示周期定时
+     */
+    private final long duration;
+    private final long interval;
+    private final Listener listener;
+
+    //以下由 SCHEDULER 加锁访问
+    private int state = STATE_IDLE;
+    private long base;
+    private long pausedElapsed;
+    private long next;
+    private long tickValue;
+    private boolean tickFinish;
+
+    private TickTimer(long duration, long interval, Listener listener) {
+        if (interval <= 0) throw new IllegalArgumentException("interval must be > 0: " + interval);
+        this.duration = duration;
+        this.interval = interval;
+        this.listener = listener;
+    }
+
+    /**
+     * 创建倒计时(未启动)
+     *
+     * @param duration 总时长/毫秒
+     * @param interval tick间隔/毫秒
+     * @param listener 回调
+     * @return 定时器
+     */
+    @NonNull
+    public static TickTimer countDown(long duration, long interval, @NonNull Listener listener) {
+        return new TickTimer(Math.max(0, duration), interval, listener);
+    }
+
+    /**
+     * 创建周期定时器(未启动)
+     *
+     * @param interval tick间隔/毫秒
+     * @param listener 回调
+     * @return 定时器
+     */
+    @NonNull
+    public static TickTimer periodic(long interval, @NonNull Listener listener) {
+        return new TickTimer(-1, interval, listener);
+    }
+
+    /**
+     * 从头开始，立即回调一次 onTick
+     *
+     * @return this
+     */
+    public TickTimer start() {
+        return start(SystemClock.elapsedRealtime());
+    }
+
+    TickTimer start(long now) {
+        synchronized (SCHEDULER) {
+            base = now;
+            next = base;
+            state = STATE_RUNNING;
+            SCHEDULER.add(this, now);
+        }
+        return this;
+    }
+
+    /**
+     * 暂停，保留已运行时间
+     */
+    public void pause() {
+        pause(SystemClock.elapsedRealtime());
+    }
+
+    void pause(long now) {
+        synchronized (SCHEDULER) {
+            if (state != STATE_RUNNING) return;
+            pausedElapsed = now - base;
+            state = STATE_PAUSED;
+            SCHEDULER.remove(this, now);
+        }
+    }
+
+    /**
+     * 从暂停处继续，下一次 tick 在原节奏的下一个触发点
+     */
+    public void resume() {
+        resume(SystemClock.elapsedRealtime());
+    }
+
+    void resume(long now) {
+        synchronized (SCHEDULER) {
+            if (state != STATE_PAUSED) return;
+            base = now - pausedElapsed;
+            next = nextDeadline(pausedElapsed);
+            state = STATE_RUNNING;
+            SCHEDULER.add(this, now);
+        }
+    }
+
+    /**
+     * 取消，不再回调(包括已到期未分发的回调)
+     */
+    public void cancel() {
+        synchronized (SCHEDULER) {
+            state = STATE_IDLE;
+            SCHEDULER.remove(this, SystemClock.elapsedRealtime());
+        }
+    }
+
+    public boolean isRunning() {
+        synchronized (SCHEDULER) {
+            return state == STATE_RUNNING;
+        }
+    }
+
+    public boolean isPaused() {
+        synchronized (SCHEDULER) {
+            return state == STATE_PAUSED;
+        }
+    }
+
+    /**
+     * @return 已运行时间/毫秒(不含暂停)
+     */
+    public long getElapsed() {
+        return getElapsed(SystemClock.elapsedRealtime());
+    }
+
+    long getElapsed(long now) {
+        synchronized (SCHEDULER) {
+            switch (state) {
+                case STATE_RUNNING: return now - base;
+                case STATE_PAUSED: return pausedElapsed;
+                case STATE_FINISHED: return duration;
+                default: return 0;
+            }
+        }
+    }
+
+    /**
+     * @return 倒计时剩余时间/毫秒，周期定时返回-1
+     */
+    public long getRemaining() {
+        if (duration < 0) return -1;
+        return Math.max(0, duration - getElapsed());
+    }
+
+    /**
+     * 以 now 为当前时间执行一次调度唤醒(回调在当前线程)，供单元测试驱动时钟
+     */
+    static void runPass(long now) {
+        SCHEDULER.runPass(now);
+    }
+
+    /**
+     * @return 调度消息的触发点，没有时为 Long.MAX_VALUE
+     */
+    static long scheduledAt() {
+        synchronized (SCHEDULER) {
+            return SCHEDULER.scheduledAt;
+        }
+    }
+
+    /**
+     * 已运行 elapsed 后的下一个触发点：base + n * interval，倒计时不超过结束点
+     */
+    private long nextDeadline(long elapsed) {
+        long deadline = base + (elapsed / interval + 1) * interval;
+        return duration >= 0 ? Math.min(deadline, base + duration) : deadline;
+    }
+
+    /**
+     * 到期处理，计算回调值和下一次触发点
+     *
+     * @return 是否结束
+     */
+    private boolean onDue(long now) {
+        final long elapsed = now - base;
+        if (duration >= 0 && duration - elapsed <= COALESCE_WINDOW) {
+            state = STATE_FINISHED;
+            tickFinish = true;
+            return true;
+        }
+        tickFinish = false;
+        tickValue = duration >= 0 ? duration - elapsed : elapsed;
+        //提前(合并窗口内)触发时从本次触发点往后算，避免同一触发点回调两次
+        next = nextDeadline(Math.max(elapsed, next - base));
+        return false;
+    }
+
+    /**
+     * 分发回调(主线程，锁外)
+     */
+    private void dispatch() {
+        final boolean finish;
+        final long value;
+        synchronized (SCHEDULER) {
+            if (state != (tickFinish ? STATE_FINISHED : STATE_RUNNING)) return;
+            finish = tickFinish;
+            value = tickValue;
+        }
+        if (finish) {
+            listener.onFinish(this);
+        } else {
+            listener.onTick(this, value);
+        }
+    }
+
+    /**
+     * 共享调度：主线程上只挂一个消息，定在最早的触发点
+     */
+    private static final class Scheduler implements Runnable {
+
+        private final ArrayList<TickTimer> timers = new ArrayList<>();
+
+        /**
+         * 本次唤醒到期的定时器，只在主线程使用
+         */
+        private final ArrayList<TickTimer> due = new ArrayList<>();
+
+        private Handler handler;
+
+        /**
+         * 已挂消息的触发点，Long.MAX_VALUE 表示没有
+         */
+        private long scheduledAt = Long.MAX_VALUE;
+
+        void add(TickTimer timer, long now) {
+            if (!timers.contains(timer)) timers.add(timer);
+            reschedule(now);
+        }
+
+        void remove(TickTimer timer, long now) {
+            timers.remove(timer);
+            if (timers.isEmpty()) reschedule(now);
+        }
+
+        private void reschedule(long now) {
+            if (handler == null) handler = ThreadManager.getMainHandler();
+            long earliest = Long.MAX_VALUE;
+            for (int i = 0; i < timers.size(); i++) {
+                earliest = Math.min(earliest, timers.get(i).next);
+            }
+            if (earliest == scheduledAt) return;
+            handler.removeCallbacks(this);
+            scheduledAt = earliest;
+            if (earliest != Long.MAX_VALUE) handler.postDelayed(this, Math.max(0, earliest - now));
+        }
+
+        @Override
+        public void run() {
+            runPass(SystemClock.elapsedRealtime());
+        }
+
+        void runPass(long now) {
+            synchronized (this) {
+                scheduledAt = Long.MAX_VALUE;
+                for (int i = timers.size() - 1; i >= 0; i--) {
+                    TickTimer timer = timers.get(i);
+                    if (timer.next > now + COALESCE_WINDOW) continue;
+                    due.add(timer);
+                    if (timer.onDue(now)) timers.remove(i);
+                }
+                reschedule(now);
+            }
+            for (int i = due.size() - 1; i >= 0; i--) {
+                due.get(i).dispatch();
+            }
+            due.clear();
+        }
+    }
+
+}
@@ -0,0 +1,355 @@
+package com.hsj.common.utils;
+
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:Tracer
+ * @Desc:耗时追踪工具类
+ */
+public final class Tracer {
+
+    //////////////////////////////////////////////////////////////
+    // Tracer 功能如下：
+    //     1、begin/end 同步区间，按线程嵌套(System.nanoTime)
+    //     2、beginAsync/endAsync 异步区间，通过 id 关联
+    //     3、事件(含线程名)写入预分配环形缓冲，满后覆盖最旧事件，不另外保存线程表
+    //     4、导出 Chrome trace-event JSON(chrome://tracing、Perfetto)
+    //     5、可选：区间结束时通过 Logger 输出耗时
+    //     6、关闭时每次调用只有一次 volatile 读
+    //////////////////////////////////////////////////////////////
+
+    /**
+     * 默认缓冲事件数
+     */
+    private static final int DEFAULT_CAPACITY = 1 << 14;
+
+    /**
+     * 每个线程最大嵌套深度，超出部分不记录
+     */
+    private static final int MAX_DEPTH = 64;
+
+    private static final byte PHASE_BEGIN       = 'B';
+    private static final byte PHASE_END         = 'E';
+    private static final byte PHASE_ASYNC_BEGIN = 'b';
+    private static final byte PHASE_ASYNC_END   = 'e';
+
+    private static final String LOG_TAG = "[Tracer]";
+
+    /**
+     * 当前缓冲，null 表示关闭
+     */
+    private static volatile Buffer buffer;
+
+    /**
+     * 区间结束时是否通过Logger输出耗时
+     */
+    private static volatile boolean logSpans;
+
+    /**
+     * 异步区间 id
+     */
+    private static final AtomicLong ASYNC_ID = new AtomicLong();
+
+    /**
+     * 每个线程的区间栈
+     */
+    private static final ThreadLocal<SpanStack> STACK = new ThreadLocal<SpanStack>() {
+        @Override
+        protected SpanStack initialValue() {
+            Thread thread = Thread.currentThread();
+            return new SpanStack(thread.getId(), thread.getName());
+        }
+    };
+
+    private Tracer() {
+        throw new IllegalAccessError("Tracer can't be instance");
+    }
+
+    /**
+     * 开启追踪，使用默认缓冲大小
+     */
+    public static void start() {
+        start(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 开启追踪，重新分配缓冲
+     *
+     * @param capacity 缓冲事件数，向上取2的幂
+     */
+    public static void start(int capacity) {
+        int size = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+        buffer = new Buffer(size);
+    }
+
+    /**
+     * 关闭追踪，缓冲中的事件保留到下次 start() 之前仍可导出
+     */
+    public static void stop() {
+        Buffer current = buffer;
+        if (current != null) current.stopped = true;
+    }
+
+    /**
+     * 是否正在追踪
+     *
+     * @return 结果
+     */
+    public static boolean isEnabled() {
+        Buffer current = buffer;
+        return current != null && !current.stopped;
+    }
+
+    /**
+     * 区间结束时是否通过 Logger 输出耗时
+     *
+     * @param enable 开关
+     */
+    public static void setLogSpans(boolean enable) {
+        logSpans = enable;
+    }
+
+//======================================Span========================================================
+
+    /**
+     * 开始同步区间，必须在同一线程调用 {@link #end()}
+     *
+     * @param name 区间名，建议使用常量避免分配
+     */
+    public static void begin(@NonNull String name) {
+        Buffer current = buffer;
+        if (current == null) return;
+        //暂停时也入栈，保证与 end() 成对，只是不记录事件
+        Buffer target = current.stopped ? null : current;
+        SpanStack stack = STACK.get();
+        long now = System.nanoTime();
+        if (stack.push(name, now, target) && target != null) {
+            target.record(PHASE_BEGIN, name, stack, 0, now);
+        }
+    }
+
+    /**
+     * 结束当前线程最近一次 {@link #begin(String)} 的区间，
+     * 只有开始事件写入了当前缓冲时才记录结束事件
+     */
+    public static void end() {
+        Buffer current = buffer;
+        if (current == null) return;
+        SpanStack stack = STACK.get();
+        if (stack.depth == 0) return;
+        long now = System.nanoTime();
+        int index = stack.pop();
+        if (index >= MAX_DEPTH) return;
+        String name = stack.names[index];
+        long start = stack.starts[index];
+        Buffer target = stack.buffers[index];
+        stack.names[index] = null;
+        stack.buffers[index] = null;
+        if (target != current) return;
+        current.record(PHASE_END, name, stack, 0, now);
+        if (logSpans) {
+            Logger.at(Logger.DEBUG).tag(LOG_TAG).msg(name)
+                    .kv("durUs", (now - start) / 1000)
+                    .kv("depth", index)
+                    .log();
+        }
+    }
+
+    /**
+     * 开始异步区间，可在任意线程结束
+     *
+     * @param name 区间名
+     * @return 区间 id，关闭时返回0
+     */
+    public static long beginAsync(@NonNull String name) {
+        Buffer current = buffer;
+        if (current == null || current.stopped) return 0;
+        long id = ASYNC_ID.incrementAndGet();
+        current.record(PHASE_ASYNC_BEGIN, name, STACK.get(), id, System.nanoTime());
+        return id;
+    }
+
+    /**
+     * 结束异步区间
+     *
+     * @param name 区间名，与 beginAsync 相同
+     * @param id   beginAsync 返回的 id
+     */
+    public static void endAsync(@NonNull String name, long id) {
+        Buffer current = buffer;
+        if (current == null || current.stopped || id == 0) return;
+        current.record(PHASE_ASYNC_END, name, STACK.get(), id, System.nanoTime());
+    }
+
+    /**
+     * 包装任务，执行时记录区间
+     *
+     * @param name 区间名
+     * @param run  任务
+     * @return 包装后的任务(注意：与原任务不是同一对象)
+     */
+    public static Runnable wrap(@NonNull final String name, @NonNull final Runnable run) {
+        return () -> {
+            begin(name);
+            try {
+                run.run();
+            } finally {
+                end();
+            }
+        };
+    }
+
+//======================================Export======================================================
+
+    /**
+     * 导出 Chrome trace-event JSON
+     *
+     * @param writer 输出
+     * @throws IOException 写入失败
+     */
+    public static void exportChromeTrace(@NonNull Writer writer) throws IOException {
+        Buffer current = buffer;
+        int pid = Process.myPid();
+        StringBuilder sb = new StringBuilder(256);
+        writer.write("{\"traceEvents\":[");
+        boolean first = true;
+        long end = current == null ? 0 : current.cursor.get();
+        long begin = current == null ? 0 : Math.max(0, end - current.capacity);
+        //线程名随事件记录在缓冲中，只导出缓冲内仍有事件的线程
+        Map<Long, String> threads = new LinkedHashMap<>();
+        for (long i = begin; i < end; i++) {
+            int slot = (int) (i & current.mask);
+            if (current.names[slot] != null) threads.put(current.tids[slot], current.threads[slot]);
+        }
+        for (Map.Entry<Long, String> entry : threads.entrySet()) {
+            sb.setLength(0);
+            if (!first) sb.append(',');
+            first = false;
+            sb.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":").append(pid)
+                    .append(",\"tid\":").append(entry.getKey())
+                    .append(",\"args\":{\"name\":");
+            LogEncoder.Text.appendJson(sb, entry.getValue());
+            sb.append("}}");
+            writer.write(sb.toString());
+        }
+        if (current != null) {
+            for (long i = begin; i < end; i++) {
+                int slot = (int) (i & current.mask);
+                String name = current.names[slot];
+                if (name == null) continue;
+                sb.setLength(0);
+                if (!first) sb.append(',');
+                first = false;
+                sb.append("{\"name\":");
+                LogEncoder.Text.appendJson(sb, name);
+                sb.append(",\"ph\":\"").append((char) current.phases[slot]).append('"')
+                        .append(",\"ts\":").append((current.times[slot] - current.origin) / 1000.0)
+                        .append(",\"pid\":").append(pid)
+                        .append(",\"tid\":").append(current.tids[slot]);
+                if (current.ids[slot] != 0) {
+                    sb.append(",\"cat\":\"async\",\"id\":").append(current.ids[slot]);
+                }
+                sb.append('}');
+                writer.write(sb.toString());
+            }
+        }
+        writer.write("]}");
+        writer.flush();
+    }
+
+    /**
+     * 清空缓冲中的事件
+     */
+    public static void clear() {
+        Buffer current = buffer;
+        if (current == null) return;
+        //保留关闭状态，clear() 不应重新开启追踪
+        Buffer next = new Buffer(current.capacity);
+        next.stopped = current.stopped;
+        buffer = next;
+    }
+
+    /**
+     * 预分配的环形缓冲，每个字段一个数组，写入时不分配
+     */
+    private static final class Buffer {
+
+        private final int capacity;
+        private final int mask;
+        private final long origin = System.nanoTime();
+        private final AtomicLong cursor = new AtomicLong();
+        private final byte[] phases;
+        private final String[] names;
+        private final long[] tids;
+        private final String[] threads;
+        private final long[] ids;
+        private final long[] times;
+        private volatile boolean stopped;
+
+        private Buffer(int capacity) {
+            this.capacity = capacity;
+            this.mask = capacity - 1;
+            this.phases = new byte[capacity];
+            this.names = new String[capacity];
+            this.tids = new long[capacity];
+            this.threads = new String[capacity];
+            this.ids = new long[capacity];
+            this.times = new long[capacity];
+        }
+
+        private void record(byte phase, String name, SpanStack stack, long id, long time) {
+            int slot = (int) (cursor.getAndIncrement() & mask);
+            phases[slot] = phase;
+            tids[slot] = stack.tid;
+            threads[slot] = stack.threadName;
+            ids[slot] = id;
+            times[slot] = time;
+            names[slot] = name;
+        }
+    }
+
+    /**
+     * 线程内区间栈
+     */
+    private static final class SpanStack {
+
+        private final long tid;
+        private final String threadName;
+        private final String[] names = new String[MAX_DEPTH];
+        private final long[] starts = new long[MAX_DEPTH];
+        /**
+         * 开始事件写入的缓冲，null表示未记录
+         */
+        private final Buffer[] buffers = new Buffer[MAX_DEPTH];
+        private int depth;
+
+        private SpanStack(long tid, String threadName) {
+            this.tid = tid;
+            this.threadName = threadName;
+        }
+
+        private boolean push(String name, long start, Buffer target) {
+            int index = depth++;
+            if (index >= MAX_DEPTH) return false;
+            names[index] = name;
+            starts[index] = start;
+            buffers[index] = target;
+            return true;
+        }
+
+        private int pop() {
+            return --depth;
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.hsj.common.utils;
+
+import org.junit.Test;
+
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:Base64CodecTest
+ * @Desc:Base64Codec 与 java.util.Base64 逐字节一致、省略填充、区间编码与非法输入
+ */
+public class Base64CodecTest {
+
+    @Test
+    public void encodeDecode_matchJdk() {
+        Random random = new Random(33);
+        for (int length = 0; length < 300; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            String text = Base64Codec.encode(data);
+            assertEquals(Base64.getEncoder().encodeToString(data), text);
+            assertArrayEquals(data, Base64Codec.decode(text));
+            //省略填充同样可以解码
+            assertArrayEquals(data, Base64Codec.decode(Base64.getEncoder().withoutPadding().encodeToString(data)));
+        }
+    }
+
+    @Test
+    public void encode_range() {
+        byte[] data = "xxhello worldyy".getBytes();
+        assertEquals(Base64.getEncoder().encodeToString("hello world".getBytes()), Base64Codec.encode(data, 2, 11));
+        assertEquals("", Base64Codec.encode(data, 3, 0));
+    }
+
+    @Test
+    public void decode_rejectsMalformed() {
+        for (String text : new String[]{"A", "AAAAA", "AB=C", "AB C", "AB\nCD", "ABC-", "AB_D", "=", "A===", "é123"}) {
+            assertNull(text, Base64Codec.decode(text));
+        }
+        assertArrayEquals(new byte[0], Base64Codec.decode(""));
+        assertArrayEquals(new byte[]{(byte) 0xFB, (byte) 0xFF}, Base64Codec.decode("+/8="));
+    }
+}
@@ -0,0 +1,101 @@
+package com.hsj.common.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:BufferPoolTest
+ * @Desc:BufferPool 分级复用、每级上限，以及拒绝外部缓冲和重复归还
+ */
+public class BufferPoolTest {
+
+    @After
+    public void tearDown() {
+        BufferPool.clear();
+    }
+
+    @Test
+    public void acquire_roundsUpAndReuses() {
+        ByteBuffer buffer = BufferPool.acquire(5000);
+        assertTrue(buffer.isDirect());
+        assertEquals(8192, buffer.capacity());
+        assertEquals(5000, buffer.limit());
+        assertEquals(0, buffer.position());
+        assertTrue(BufferPool.release(buffer));
+        ByteBuffer again = BufferPool.acquire(8000);
+        assertSame(buffer, again);
+        assertEquals(8000, again.limit());
+        assertEquals(4096, BufferPool.acquire(0).capacity());
+
+        //超过最大级别直接分配，不缓存
+        ByteBuffer large = BufferPool.acquire((1 << 20) + 1);
+        assertEquals((1 << 20) + 1, large.capacity());
+        assertFalse(BufferPool.release(large));
+        assertNotSame(large, BufferPool.acquire((1 << 20) + 1));
+    }
+
+    @Test
+    public void release_keepsAtMostEightPerClass() {
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) buffers.add(BufferPool.acquire(4096));
+        int pooled = 0;
+        for (ByteBuffer buffer : buffers) {
+            if (BufferPool.release(buffer)) pooled++;
+        }
+        assertEquals(8, pooled);
+        //被丢弃的缓冲再次归还同样拒绝
+        assertFalse(BufferPool.release(buffers.get(9)));
+    }
+
+    @Test
+    public void release_rejectsForeignAndDuplicate() {
+        assertFalse(BufferPool.release(null));
+        assertFalse(BufferPool.release(ByteBuffer.allocateDirect(4096)));
+        assertFalse(BufferPool.release(ByteBuffer.allocate(4096)));
+
+        ByteBuffer buffer = BufferPool.acquire(4096);
+        //内容相同的另一个缓冲不是同一个对象
+        ByteBuffer twin = ByteBuffer.allocateDirect(4096);
+        assertEquals(buffer.clear(), twin);
+        assertFalse(BufferPool.release(twin));
+
+        assertTrue(BufferPool.release(buffer));
+        assertFalse(BufferPool.release(buffer));
+        //重复归还不会让两个调用方拿到同一个缓冲
+        ByteBuffer first = BufferPool.acquire(4096);
+        ByteBuffer second = BufferPool.acquire(4096);
+        assertSame(buffer, first);
+        assertNotSame(first, second);
+        assertTrue(BufferPool.release(first));
+        assertTrue(BufferPool.release(second));
+    }
+
+    @Test
+    public void concurrentRelease_onlyOneWins() throws InterruptedException {
+        for (int round = 0; round < 200; round++) {
+            final ByteBuffer buffer = BufferPool.acquire(4096);
+            final int[] wins = new int[1];
+            Thread[] threads = new Thread[3];
+            for (int i = 0; i < threads.length; i++) {
+                threads[i] = new Thread(() -> {
+                    if (BufferPool.release(buffer)) {
+                        synchronized (wins) {
+                            wins[0]++;
+                        }
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads) thread.join();
+            assertEquals(1, wins[0]);
+        }
+    }
+}
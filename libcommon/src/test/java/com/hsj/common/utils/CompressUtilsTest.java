@@ -0,0 +1,129 @@
+package com.hsj.common.utils;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:CompressUtilsTest
+ * @Desc:gzip/gzipParallel 与 JDK GZIPInputStream 互通、各种分块边界、多成员解压，以及并行压缩耗时(手动运行)
+ */
+public class CompressUtilsTest {
+
+    private static final int BLOCK = 64 * 1024;
+
+    @Test
+    public void gzip_readableByJdk() throws IOException {
+        for (int size : new int[]{0, 1, 1000, 300_000}) {
+            byte[] data = text(size, size);
+            byte[] packed = CompressUtils.gzip(data);
+            assertNotNull(packed);
+            assertArrayEquals(data, jdkGunzip(packed));
+            assertArrayEquals(data, CompressUtils.gunzip(packed));
+        }
+    }
+
+    @Test
+    public void gzipParallel_blockBoundaries() throws IOException {
+        int[] sizes = {0, 1, 32 * 1024 - 1, 32 * 1024, BLOCK - 1, BLOCK, BLOCK + 1, BLOCK * 3, BLOCK * 10 + 17};
+        for (int size : sizes) {
+            byte[] data = text(size, 7);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertEquals(size, CompressUtils.gzipParallel(new ByteArrayInputStream(data), out, CompressUtils.DEFAULT_LEVEL, BLOCK));
+            byte[] packed = out.toByteArray();
+            assertArrayEquals("size=" + size, data, jdkGunzip(packed));
+            assertArrayEquals("size=" + size, data, CompressUtils.gunzip(packed));
+        }
+    }
+
+    @Test
+    public void gzipParallel_dictionaryKeepsRatio() throws IOException {
+        byte[] data = text(BLOCK * 16, 3);
+        byte[] serial = CompressUtils.gzip(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompressUtils.gzipParallel(new ByteArrayInputStream(data), out, CompressUtils.DEFAULT_LEVEL, BLOCK);
+        //以上一块末尾为字典，分块后压缩率与串行接近
+        assertTrue(out.size() + " vs " + serial.length, out.size() < serial.length * 1.05);
+    }
+
+    @Test
+    public void gunzip_multiMemberAndCorrupt() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jdkGzip("hello ".getBytes("UTF-8")));
+        out.write(CompressUtils.gzip("world".getBytes("UTF-8")));
+        assertEquals("hello world", new String(CompressUtils.gunzip(out.toByteArray()), "UTF-8"));
+
+        byte[] packed = CompressUtils.gzip(text(5000, 1));
+        packed[packed.length - 6] ^= 1;
+        assertNull(CompressUtils.gunzip(packed));
+        assertNull(CompressUtils.gunzip(new byte[]{1, 2, 3}));
+    }
+
+    /**
+     * 单线程 gzip 与分块并行压缩的耗时，手动运行
+     */
+    @Ignore("benchmark")
+    @Test
+    public void benchmark_parallel() throws IOException {
+        byte[] data = text(8 * 1024 * 1024, 11);
+        for (int i = 0; i < 2; i++) {
+            CompressUtils.gzip(data);
+            CompressUtils.gzipParallel(new ByteArrayInputStream(data), new ByteArrayOutputStream(), CompressUtils.DEFAULT_LEVEL, CompressUtils.DEFAULT_BLOCK_SIZE);
+        }
+        long start = System.nanoTime();
+        byte[] serial = CompressUtils.gzip(data);
+        long serialTime = System.nanoTime() - start;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        start = System.nanoTime();
+        CompressUtils.gzipParallel(new ByteArrayInputStream(data), out, CompressUtils.DEFAULT_LEVEL, CompressUtils.DEFAULT_BLOCK_SIZE);
+        long parallelTime = System.nanoTime() - start;
+        //单核环境下并行不一定更快，只断言分块带来的体积损失，耗时放在消息里
+        assertTrue("gzip 8MB: serial " + serialTime / 1_000_000 + "ms (" + serial.length + " bytes), parallel "
+                + parallelTime / 1_000_000 + "ms (" + out.size() + " bytes)", out.size() < serial.length * 1.05);
+    }
+
+    /**
+     * 可压缩的伪文本：随机单词组成的行
+     */
+    private static byte[] text(int size, long seed) {
+        String[] words = {"alpha", "beta", "gamma", "delta", "日志", "error", "0x7f", "request", "\n"};
+        Random random = new Random(seed);
+        byte[] data = new byte[size];
+        int position = 0;
+        while (position < size) {
+            byte[] word = (words[random.nextInt(words.length)] + ' ').getBytes();
+            int count = Math.min(word.length, size - position);
+            System.arraycopy(word, 0, data, position, count);
+            position += count;
+        }
+        return data;
+    }
+
+    private static byte[] jdkGunzip(byte[] packed) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(packed))) {
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = in.read(buffer)) >= 0) out.write(buffer, 0, count);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] jdkGzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,171 @@
+package com.hsj.common.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:DateFormatterTest
+ * @Desc:DateFormatter 公历换算、与 SimpleDateFormat 结果一致(含夏令时时区)，以及默认时区变化在通知后立即生效、未通知时按间隔生效
+ */
+public class DateFormatterTest {
+
+    private static final String[] ZONES = {"Asia/Shanghai", "UTC", "America/New_York", "Europe/London", "Australia/Lord_Howe"};
+    private static final String[] PATTERNS = {"yyyy-MM-dd HH:mm:ss.SSS", "yyyyMMddHHmmss", "yyyy/M/d H:m:s",
+            "HH:mm", "MM月dd日 HH:mm", "yy-MM-dd hh:mm", "'T'yyyy'T'"};
+
+    private TimeZone original;
+
+    @Before
+    public void setUp() {
+        original = TimeZone.getDefault();
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(original);
+        DateFormatter.onTimeZoneChanged();
+    }
+
+    @Test
+    public void civilDays_matchLocalDate() {
+        for (long days = -800_000; days <= 800_000; days += 7) {
+            LocalDate date = LocalDate.ofEpochDay(days);
+            assertEquals(date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth(),
+                    DateFormatter.civilFromDays(days));
+            assertEquals(days, DateFormatter.daysFromCivil(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+        }
+        for (int year = 1583; year <= 2500; year++) {
+            for (int month = 1; month <= 12; month++) {
+                assertEquals(YearMonth.of(year, month).lengthOfMonth(), DateFormatter.daysInMonth(year, month));
+            }
+        }
+        assertEquals(-1, DateFormatter.floorDiv(-1, 1000));
+        assertEquals(0, DateFormatter.floorDiv(999, 1000));
+        assertEquals(-2, DateFormatter.floorDiv(-1001, 1000));
+    }
+
+    @Test
+    public void formatAndParse_matchSimpleDateFormat() {
+        Random random = new Random(45);
+        for (String id : ZONES) {
+            setDefault(id);
+            for (String pattern : PATTERNS) {
+                DateFormatter formatter = DateFormatter.of(pattern);
+                SimpleDateFormat expected = new SimpleDateFormat(pattern, Locale.CHINA);
+                for (int i = 0; i < 2000; i++) {
+                    //1900~2100
+                    long millis = -2208988800000L + (long) (random.nextDouble() * 6311433600000L);
+                    String text = expected.format(new Date(millis));
+                    assertEquals(id + " " + pattern, text, formatter.format(millis));
+                    Date date = expected.parse(text, new ParsePosition(0));
+                    long parsed = formatter.parse(text);
+                    assertEquals(id + " " + pattern + " " + text, date == null ? DateFormatter.INVALID : date.getTime(), parsed);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void dstGapAndOverlap_matchSimpleDateFormat() {
+        setDefault("America/New_York");
+        SimpleDateFormat expected = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.CHINA);
+        DateFormatter formatter = DateFormatter.of("yyyy-MM-dd HH:mm");
+        //缺口 02:30 不存在，重叠 01:30 出现两次
+        for (String text : new String[]{"2026-03-08 02:30", "2026-11-01 01:30", "2026-02-30 10:00", "2026-13-01 10:00"}) {
+            assertEquals(text, expected.parse(text, new ParsePosition(0)).getTime(), formatter.parse(text));
+        }
+        assertEquals(DateFormatter.INVALID, formatter.parse("2026-1x-01 10:00"));
+    }
+
+    @Test
+    public void defaultZoneChange_detectedOnNotifyOrInterval() {
+        setDefault("Asia/Shanghai");
+        DateFormatter formatter = DateFormatter.of("yyyy-MM-dd HH:mm");
+        DateFormatter text = DateFormatter.of("yyyy-MM-dd HH:mm z");
+        long millis = 1792411200000L; //2026-10-19 12:00 UTC
+        assertEquals("2026-10-19 20:00", formatter.format(millis));
+        assertTrue(text.format(millis), text.format(millis).startsWith("2026-10-19 20:00"));
+        TimeZone zone = DateFormatter.zone();
+        assertSame(zone, DateFormatter.zone());
+
+        //未通知时，检查间隔内沿用缓存的时区
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        long now = System.nanoTime();
+        assertSame(zone, DateFormatter.zone(now));
+        assertEquals("2026-10-19 20:00", formatter.format(millis));
+        //超过间隔后重新对比
+        assertNotSame(zone, DateFormatter.zone(now + 1000_000_000L));
+        assertEquals("UTC", DateFormatter.zone().getID());
+        assertEquals("2026-10-19 12:00", formatter.format(millis));
+        //线程内的 SimpleDateFormat 也使用新时区
+        assertTrue(text.format(millis), text.format(millis).startsWith("2026-10-19 12:00"));
+        assertEquals(millis, formatter.parse("2026-10-19 12:00"));
+
+        //通知后立即生效
+        setDefault("Asia/Shanghai");
+        assertEquals("2026-10-19 20:00", formatter.format(millis));
+        assertTrue(text.format(millis), text.format(millis).startsWith("2026-10-19 20:00"));
+
+        //相对时间缓存的日期起点随时区失效
+        RelativeTimeFormatter relative = new RelativeTimeFormatter(RelativeTimeFormatter.Labels.CHINESE);
+        long timeStamp = millis - 10 * 3600_000L;
+        assertEquals("今天 10:00", relative.format(new StringBuilder(), timeStamp, millis).toString());
+        setDefault("America/Los_Angeles");
+        assertEquals("昨天 19:00", relative.format(new StringBuilder(), timeStamp, millis).toString());
+    }
+
+    /**
+     * 与 SimpleDateFormat 的格式化耗时对比，手动运行
+     */
+    @Ignore("benchmark")
+    @Test
+    public void benchmark_format() {
+        final int count = 200_000;
+        DateFormatter formatter = DateFormatter.of("yyyy-MM-dd HH:mm:ss");
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.CHINA);
+        StringBuilder out = new StringBuilder(32);
+        long base = 1792411200000L;
+        long sink = 0;
+        long fast = 0;
+        long simple = 0;
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                out.setLength(0);
+                sink += formatter.format(out, base + i * 1000L).length();
+            }
+            fast = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                sink += format.format(new Date(base + i * 1000L)).length();
+            }
+            simple = System.nanoTime() - start;
+        }
+        //耗时只放在消息里，sink 防止循环被优化掉
+        assertTrue("DateFormatter format: " + fast / count + "ns/op, SimpleDateFormat: "
+                + simple / count + "ns/op", sink > 0);
+    }
+
+    /**
+     * 修改默认时区并通知 DateFormatter
+     */
+    private static void setDefault(String id) {
+        TimeZone.setDefault(TimeZone.getTimeZone(id));
+        DateFormatter.onTimeZoneChanged();
+    }
+}
@@ -0,0 +1,174 @@
+package com.hsj.common.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:DiskCacheTest
+ * @Desc:DiskCache journal 重放(内容、大小、LRU顺序)、访问记录攒批、journal损坏时只删除自己的文件，重写失败保留旧journal，open 清理孤儿条目文件
+ */
+public class DiskCacheTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("disk_cache", "");
+        assertTrue(dir.delete() && dir.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        FileTree.delete(dir);
+    }
+
+    @Test
+    public void reopen_replaysEntriesAndLruOrder() throws IOException {
+        DiskCache cache = DiskCache.open(dir, 1 << 20, 100);
+        assertTrue(cache.put("a", bytes(10)));
+        assertTrue(cache.put("b", bytes(20)));
+        assertTrue(cache.put("c", bytes(30)));
+        assertTrue(cache.put("d", bytes(40)));
+        assertTrue(cache.remove("d"));
+        //a 最近访问，b 最久未访问
+        assertNotNull(cache.get("a"));
+        cache.close();
+
+        DiskCache reopened = DiskCache.open(dir, 1 << 20, 2);
+        assertNotSame(cache, reopened);
+        assertEquals(3, reopened.count());
+        assertEquals(60, reopened.size());
+        assertFalse(reopened.contains("d"));
+        assertArrayEquals(bytes(30), reopened.get("c"));
+
+        reopened.trimToLimit();
+        assertFalse(reopened.contains("b"));
+        assertTrue(reopened.contains("a"));
+        assertTrue(reopened.contains("c"));
+        reopened.close();
+    }
+
+    @Test
+    public void get_batchesAccessRecords() throws IOException {
+        DiskCache cache = DiskCache.open(dir, 1 << 20, 100);
+        assertTrue(cache.put("a", bytes(10)));
+        assertTrue(cache.put("b", bytes(10)));
+        File journal = new File(dir, "journal");
+        long length = journal.length();
+        for (int i = 0; i < 10; i++) {
+            assertNotNull(cache.get("a"));
+        }
+        //命中不写文件
+        assertEquals(length, journal.length());
+
+        //下一条提交前写入访问记录，重放时 a 比 b 新
+        assertTrue(cache.put("c", bytes(10)));
+        assertTrue(journal.length() > length);
+        cache.close();
+        DiskCache reopened = DiskCache.open(dir, 1 << 20, 2);
+        reopened.trimToLimit();
+        assertFalse(reopened.contains("b"));
+        assertTrue(reopened.contains("a"));
+        reopened.close();
+    }
+
+    @Test
+    public void corruptJournal_deletesOnlyOwnFiles() throws IOException {
+        DiskCache cache = DiskCache.open(dir, 1 << 20, 100);
+        assertTrue(cache.put("a", bytes(10)));
+        cache.close();
+        File other = new File(dir, "user.txt");
+        write(other, "keep");
+        File journal = new File(dir, "journal");
+        write(journal, "libcommon.DiskCache\n99\n");
+
+        DiskCache reopened = DiskCache.open(dir, 1 << 20, 100);
+        assertEquals(0, reopened.count());
+        assertNull(reopened.get("a"));
+        assertTrue(other.exists());
+        String[] names = dir.list();
+        assertNotNull(names);
+        assertEquals(2, names.length);
+        reopened.close();
+    }
+
+    @Test
+    public void foreignJournal_refusedAndUntouched() throws IOException {
+        File journal = new File(dir, "journal");
+        write(journal, "something else\n");
+        File other = new File(dir, "0123456789ABCDEF0123456789ABCDEF");
+        write(other, "keep");
+        try {
+            DiskCache.open(dir, 1 << 20, 100);
+            fail("foreign journal opened");
+        } catch (IOException expected) {
+            assertTrue(journal.exists());
+            assertTrue(other.exists());
+        }
+    }
+
+    @Test
+    public void rebuildFailure_keepsOldJournalWriter() throws IOException {
+        //journal.tmp 被目录占用，重写journal必然失败
+        File tmp = new File(dir, "journal.tmp");
+        DiskCache cache = DiskCache.open(dir, 1 << 20, 100);
+        assertTrue(tmp.mkdirs());
+        assertTrue(cache.put("a", bytes(10)));
+        for (int i = 0; i < 1100; i++) {
+            assertNotNull(cache.get("a"));
+            assertTrue(cache.put("b", bytes(20)));
+        }
+        //重写失败后仍写入原journal
+        assertTrue(cache.put("c", bytes(30)));
+        assertTrue(cache.remove("a"));
+        cache.close();
+        assertTrue(tmp.delete());
+
+        DiskCache reopened = DiskCache.open(dir, 1 << 20, 100);
+        assertFalse(reopened.contains("a"));
+        assertArrayEquals(bytes(20), reopened.get("b"));
+        assertArrayEquals(bytes(30), reopened.get("c"));
+        assertEquals(50, reopened.size());
+        reopened.close();
+    }
+
+    @Test
+    public void open_sweepsOrphanEntryFiles() throws IOException {
+        DiskCache cache = DiskCache.open(dir, 1 << 20, 100);
+        assertTrue(cache.put("a", bytes(10)));
+        cache.close();
+        //rename 之后、写入C行之前进程被杀
+        File orphan = new File(dir, "0123456789ABCDEF0123456789ABCDEF");
+        write(orphan, "orphan");
+        File other = new File(dir, "user.txt");
+        write(other, "keep");
+
+        DiskCache reopened = DiskCache.open(dir, 1 << 20, 100);
+        assertFalse(orphan.exists());
+        assertTrue(other.exists());
+        assertArrayEquals(bytes(10), reopened.get("a"));
+        assertEquals(10, reopened.size());
+        reopened.close();
+    }
+
+    private static byte[] bytes(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) data[i] = (byte) (size + i);
+        return data;
+    }
+
+    private static void write(File file, String content) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content.getBytes("UTF-8"));
+        }
+    }
+}
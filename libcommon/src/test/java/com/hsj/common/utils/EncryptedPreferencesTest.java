@@ -0,0 +1,197 @@
+package com.hsj.common.utils;
+
+import android.content.SharedPreferences;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:EncryptedPreferencesTest
+ * @Desc:EncryptedPreferences AES-GCM 加解密、篡改检测、缓存一致性，以及读写耗时(手动运行)
+ */
+public class EncryptedPreferencesTest {
+
+    private static final byte[] KEY = "0123456789abcdef".getBytes();
+    private static final byte[] OTHER_KEY = "fedcba9876543210".getBytes();
+
+    @Test
+    public void roundTrip_allTypes() {
+        MemoryPreferences delegate = new MemoryPreferences();
+        EncryptedPreferences prefs = new EncryptedPreferences(delegate, KEY);
+        Set<String> set = new HashSet<>(Arrays.asList("a", "b", "中文"));
+        prefs.edit().putString("s", "value").putInt("i", -7).putLong("l", Long.MAX_VALUE)
+                .putFloat("f", 1.5f).putBoolean("b", true).putStringSet("set", set).commit();
+
+        //新实例没有缓存，全部从密文解密
+        EncryptedPreferences fresh = new EncryptedPreferences(delegate, KEY);
+        assertEquals("value", fresh.getString("s", null));
+        assertEquals(-7, fresh.getInt("i", 0));
+        assertEquals(Long.MAX_VALUE, fresh.getLong("l", 0));
+        assertEquals(1.5f, fresh.getFloat("f", 0), 0);
+        assertTrue(fresh.getBoolean("b", false));
+        assertEquals(set, fresh.getStringSet("set", null));
+        assertFalse(fresh.contains("missing"));
+        assertEquals(6, fresh.getAll().size());
+    }
+
+    @Test
+    public void stored_hidesKeysAndValues() {
+        MemoryPreferences delegate = new MemoryPreferences();
+        EncryptedPreferences prefs = new EncryptedPreferences(delegate, KEY);
+        prefs.edit().putString("token", "secret-token").commit();
+        assertEquals(1, delegate.map.size());
+        Map.Entry<String, Object> entry = delegate.map.entrySet().iterator().next();
+        assertFalse(entry.getKey().contains("token"));
+        assertFalse(((String) entry.getValue()).contains("secret"));
+
+        //随机IV：相同值两次加密结果不同
+        String first = (String) entry.getValue();
+        prefs.edit().putString("token", "secret-token").commit();
+        assertNotEquals(first, delegate.map.get(entry.getKey()));
+    }
+
+    @Test
+    public void tamperedCiphertext_returnsDefault() {
+        MemoryPreferences delegate = new MemoryPreferences();
+        new EncryptedPreferences(delegate, KEY).edit().putInt("count", 42).commit();
+        String hashed = delegate.map.keySet().iterator().next();
+        byte[] data = Base64Codec.decode((String) delegate.map.get(hashed));
+        data[data.length - 1] ^= 1;
+        delegate.map.put(hashed, Base64Codec.encode(data));
+
+        //GCM 校验失败
+        assertEquals(-1, new EncryptedPreferences(delegate, KEY).getInt("count", -1));
+    }
+
+    @Test
+    public void wrongKey_returnsDefault() {
+        MemoryPreferences delegate = new MemoryPreferences();
+        new EncryptedPreferences(delegate, KEY).edit().putString("name", "v").commit();
+        EncryptedPreferences other = new EncryptedPreferences(delegate, OTHER_KEY);
+        assertNull(other.getString("name", null));
+        assertTrue(other.getAll().isEmpty());
+    }
+
+    @Test
+    public void swappedCiphertext_rejected() {
+        MemoryPreferences delegate = new MemoryPreferences();
+        EncryptedPreferences prefs = new EncryptedPreferences(delegate, KEY);
+        prefs.edit().putString("a", "value-a").putString("b", "value-b").commit();
+        String[] hashed = delegate.map.keySet().toArray(new String[0]);
+        assertEquals(2, hashed.length);
+        //把一个key的密文复制到另一个key的位置，密文内的原始key不匹配，只剩一个能读出
+        delegate.map.put(hashed[1], delegate.map.get(hashed[0]));
+        EncryptedPreferences fresh = new EncryptedPreferences(delegate, KEY);
+        String a = fresh.getString("a", null);
+        String b = fresh.getString("b", null);
+        assertTrue(a == null ^ b == null);
+        assertTrue("value-a".equals(a) || "value-b".equals(b));
+    }
+
+    @Test
+    public void blobBytes_boundToKey() {
+        EncryptedPreferences prefs = new EncryptedPreferences(new MemoryPreferences(), KEY);
+        byte[] plain = "blob-content".getBytes();
+        ByteBuffer buffer = ByteBuffer.wrap(plain);
+        byte[] sealed = prefs.encryptBytes("avatar", buffer);
+        assertEquals(0, buffer.position());
+        assertFalse(new String(sealed).contains("blob-content"));
+        assertArrayEquals(plain, prefs.decryptBytes("avatar", sealed));
+        //附加认证数据为原始key，换key或篡改都校验失败
+        assertNull(prefs.decryptBytes("other", sealed));
+        sealed[sealed.length - 1] ^= 1;
+        assertNull(prefs.decryptBytes("avatar", sealed));
+        assertNotEquals(prefs.blobName("avatar"), prefs.blobName("other"));
+        assertFalse(prefs.blobName("avatar").contains("avatar"));
+    }
+
+    @Test
+    public void externalWrite_invalidatesCache() {
+        MemoryPreferences delegate = new MemoryPreferences();
+        EncryptedPreferences reader = new EncryptedPreferences(delegate, KEY);
+        EncryptedPreferences writer = new EncryptedPreferences(delegate, KEY);
+        writer.edit().putInt("n", 1).commit();
+        assertEquals(1, reader.getInt("n", 0));
+        writer.edit().putInt("n", 2).commit();
+        assertEquals(2, reader.getInt("n", 0));
+        writer.edit().clear().commit();
+        assertFalse(reader.contains("n"));
+    }
+
+    @Test
+    public void readDuringWrite_keepsNewerValue() {
+        final MemoryPreferences delegate = new MemoryPreferences();
+        new EncryptedPreferences(delegate, KEY).edit().putInt("n", 1).commit();
+        final EncryptedPreferences prefs = new EncryptedPreferences(delegate, KEY);
+        //缓存未命中时读到旧密文，解密前写入新值
+        delegate.afterRead = () -> prefs.edit().putInt("n", 2).commit();
+        prefs.getInt("n", 0);
+        assertEquals(2, prefs.getInt("n", 0));
+
+        //外部写入同理
+        final EncryptedPreferences other = new EncryptedPreferences(delegate, KEY);
+        prefs.edit().remove("n").commit();
+        assertFalse(prefs.contains("n"));
+        prefs.edit().putInt("m", 1).commit();
+        final EncryptedPreferences cold = new EncryptedPreferences(delegate, KEY);
+        delegate.afterRead = () -> other.edit().putInt("m", 3).commit();
+        cold.getInt("m", 0);
+        assertEquals(3, cold.getInt("m", 0));
+    }
+
+    /**
+     * 写入(加密)、冷读(解密)与热读(缓存)的耗时，手动运行
+     */
+    @Ignore("benchmark")
+    @Test
+    public void benchmark_encryptDecrypt() {
+        final int count = 2000;
+        MemoryPreferences delegate = new MemoryPreferences();
+        EncryptedPreferences prefs = new EncryptedPreferences(delegate, KEY);
+        for (int i = 0; i < 200; i++) {
+            prefs.edit().putString("warm" + i, "value" + i).apply();
+            new EncryptedPreferences(delegate, KEY).getString("warm" + i, null);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            prefs.edit().putString("key" + i, "value-" + i).apply();
+        }
+        long write = System.nanoTime() - start;
+
+        EncryptedPreferences cold = new EncryptedPreferences(delegate, KEY);
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            assertEquals("value-" + i, cold.getString("key" + i, null));
+        }
+        long decrypt = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            cold.getString("key" + i, null);
+        }
+        long cached = System.nanoTime() - start;
+
+        SharedPreferences plain = new MemoryPreferences();
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            plain.edit().putString("key" + i, "value-" + i).apply();
+        }
+        long plainWrite = System.nanoTime() - start;
+
+        //缓存命中不解密
+        assertTrue("write " + write / count / 1000.0 + "us/op (plain " + plainWrite / count / 1000.0
+                + "us/op), cold read " + decrypt / count / 1000.0 + "us/op, cached read "
+                + cached / count + "ns/op", cached < decrypt);
+    }
+}
@@ -0,0 +1,168 @@
+package com.hsj.common.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:FileTransferTest
+ * @Desc:FileTransfer 取消后断点续传、断点比临时文件新、校验和不一致、取消，以及限速计算不溢出
+ */
+public class FileTransferTest {
+
+    private static final int SIZE = 3 * 1024 * 1024 + 123;
+    private static final int CHUNK = 4096;
+    private static final long INTERVAL = 64 * 1024;
+
+    private File dir;
+    private File src;
+    private File dst;
+    private byte[] data;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("file_transfer", "");
+        assertTrue(dir.delete() && dir.mkdirs());
+        data = new byte[SIZE];
+        new Random(41).nextBytes(data);
+        src = new File(dir, "src.bin");
+        try (FileOutputStream out = new FileOutputStream(src)) {
+            out.write(data);
+        }
+        dst = new File(dir, "out/dst.bin");
+    }
+
+    @After
+    public void tearDown() {
+        FileTree.delete(dir);
+    }
+
+    @Test
+    public void cancel_keepsCheckpointAndResumes() throws Exception {
+        long stopped = cancelAfter(SIZE / 3, "SHA-256");
+        File part = new File(dst.getPath() + ".part");
+        File checkpoint = new File(part.getPath() + ".ckpt");
+        assertTrue(stopped > 0 && stopped < SIZE);
+        assertFalse(dst.exists());
+        assertTrue(part.exists());
+        assertTrue(checkpoint.exists());
+
+        //续传从断点开始，校验和包含续传前的部分
+        final long[] first = {-1};
+        FileTransfer transfer = newTransfer().setChecksum("SHA-256").setProgress((transferred, total) -> {
+            if (first[0] < 0) first[0] = transferred;
+        });
+        assertTrue(transfer.run());
+        assertEquals(stopped + CHUNK, first[0]);
+        assertArrayEquals(data, FileUtils.readFile(dst));
+        assertEquals(sha256(data), transfer.getChecksum());
+        assertFalse(part.exists());
+        assertFalse(checkpoint.exists());
+    }
+
+    @Test
+    public void checkpointAheadOfPart_resumesFromPartLength() throws Exception {
+        cancelAfter(SIZE / 2, null);
+        //断点已保存但临时文件只落盘了一部分
+        File part = new File(dst.getPath() + ".part");
+        try (RandomAccessFile file = new RandomAccessFile(part, "rw")) {
+            file.setLength(10000);
+        }
+        final long[] first = {-1};
+        FileTransfer transfer = newTransfer().setChecksum("SHA-256").setProgress((transferred, total) -> {
+            if (first[0] < 0) first[0] = transferred;
+        });
+        assertTrue(transfer.run());
+        assertEquals(10000 + CHUNK, first[0]);
+        assertArrayEquals(data, FileUtils.readFile(dst));
+        assertEquals(sha256(data), transfer.getChecksum());
+    }
+
+    @Test
+    public void sourceChanged_restartsFromZero() throws Exception {
+        cancelAfter(SIZE / 2, null);
+        assertTrue(src.setLastModified(src.lastModified() - 10000));
+        final long[] first = {-1};
+        assertTrue(newTransfer().setProgress((transferred, total) -> {
+            if (first[0] < 0) first[0] = transferred;
+        }).run());
+        assertEquals(CHUNK, first[0]);
+        assertArrayEquals(data, FileUtils.readFile(dst));
+    }
+
+    @Test
+    public void checksumMismatch_deletesResult() throws Exception {
+        FileTransfer transfer = newTransfer().setExpectedChecksum("SHA-256", sha256(new byte[1]));
+        assertFalse(transfer.run());
+        assertNull(transfer.getChecksum());
+        assertFalse(dst.exists());
+        assertFalse(new File(dst.getPath() + ".part").exists());
+        assertFalse(new File(dst.getPath() + ".part.ckpt").exists());
+
+        //大小写不敏感
+        transfer = newTransfer().setExpectedChecksum("SHA-256", sha256(data).toLowerCase());
+        assertTrue(transfer.run());
+        assertArrayEquals(data, FileUtils.readFile(dst));
+    }
+
+    @Test
+    public void cancelBeforeStart_thenDiscard() {
+        FileTree.Token token = new FileTree.Token();
+        token.cancel();
+        FileTransfer transfer = newTransfer().setToken(token);
+        assertFalse(transfer.run());
+        assertEquals(0, transfer.getTransferred());
+        assertFalse(dst.exists());
+        File part = new File(dst.getPath() + ".part");
+        assertTrue(part.exists());
+
+        transfer.discard();
+        assertFalse(part.exists());
+        assertFalse(new File(part.getPath() + ".ckpt").exists());
+        assertFalse(dst.exists());
+    }
+
+    @Test
+    public void expectedNanos_noOverflowPastLongRange() {
+        assertEquals(500_000_000L, FileTransfer.expectedNanos(512, 1024));
+        //20GB 按 1MB/s：bytes * 10^9 已超过 long
+        long bytes = 20L << 30;
+        assertEquals((20L << 10) * 1_000_000_000L, FileTransfer.expectedNanos(bytes, 1 << 20));
+        assertTrue(FileTransfer.expectedNanos(Long.MAX_VALUE, 1) > 0);
+    }
+
+    private FileTransfer newTransfer() {
+        return new FileTransfer(src, dst).setChunkSize(CHUNK).setCheckpointInterval(INTERVAL);
+    }
+
+    /**
+     * 复制到 limit 字节后取消
+     *
+     * @return 取消时已完成字节数
+     */
+    private long cancelAfter(long limit, String algorithm) {
+        final FileTree.Token token = new FileTree.Token();
+        FileTransfer transfer = newTransfer().setChecksum(algorithm).setToken(token)
+                .setProgress((transferred, total) -> {
+                    if (transferred >= limit) token.cancel();
+                });
+        assertFalse(transfer.run());
+        return transfer.getTransferred();
+    }
+
+    private static String sha256(byte[] data) throws NoSuchAlgorithmException {
+        return EncryptUtils.bytes2HexString(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+}
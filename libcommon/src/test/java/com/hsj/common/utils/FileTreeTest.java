@@ -0,0 +1,134 @@
+package com.hsj.common.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:FileTreeTest
+ * @Desc:FileTree 并行复制、统计、删除，符号链接目录不跟随，拒绝复制到自身之内，辅助线程不占用IO线程池
+ */
+public class FileTreeTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("file_tree", "");
+        assertTrue(dir.delete() && dir.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        FileTree.delete(dir);
+    }
+
+    @Test
+    public void copySizeChecksumDelete() throws IOException {
+        File src = new File(dir, "src");
+        long total = 0;
+        for (int i = 0; i < 6; i++) {
+            for (int j = 0; j < 20; j++) {
+                total += write(new File(src, "d" + i + "/s" + j % 3 + "/f" + j), i * 100 + j);
+            }
+        }
+        assertEquals(total, FileTree.size(src));
+
+        File dst = new File(dir, "dst");
+        assertTrue(FileTree.copy(src, dst));
+        assertEquals(total, FileTree.size(dst));
+        assertEquals(FileTree.checksum(src, null, null), FileTree.checksum(dst, null, null));
+
+        AtomicInteger visited = new AtomicInteger();
+        assertTrue(FileTree.walk(dst, file -> visited.incrementAndGet(), null));
+        assertEquals(120, visited.get());
+
+        assertTrue(FileTree.delete(dst));
+        assertFalse(dst.exists());
+        //空目录也能结束，不会一直等待
+        assertTrue(new File(dir, "empty").mkdirs());
+        assertTrue(FileTree.delete(new File(dir, "empty")));
+    }
+
+    @Test
+    public void delete_doesNotFollowSymlink() throws IOException {
+        File outside = new File(dir, "outside");
+        write(new File(outside, "keep"), 10);
+        File tree = new File(dir, "tree");
+        write(new File(tree, "file"), 10);
+        Files.createSymbolicLink(new File(tree, "link").toPath(), outside.toPath());
+
+        assertTrue(FileTree.delete(tree));
+        assertFalse(tree.exists());
+        assertTrue(new File(outside, "keep").exists());
+    }
+
+    @Test
+    public void copy_rejectsTargetInsideSource() throws IOException {
+        File src = new File(dir, "src");
+        write(new File(src, "a/file"), 10);
+        assertFalse(FileTree.copy(src, new File(src, "a/copy")));
+        assertFalse(FileTree.copy(src, new File(dir, "x/../src/copy")));
+        assertFalse(FileTree.copy(src, src));
+        assertFalse(new File(src, "a/copy").exists());
+        assertFalse(new File(src, "copy").exists());
+        //前缀相同但不在其中
+        assertTrue(FileTree.copy(src, new File(dir, "src2")));
+        assertTrue(new File(dir, "src2/a/file").isFile());
+    }
+
+    @Test
+    public void walk_helpersReleaseIoPoolWhenQueueEmpty() throws IOException {
+        write(new File(dir, "only"), 10);
+        //访问唯一文件时，队列已空：辅助线程应已归还IO线程池，3个互相等待的任务能同时运行
+        final AtomicInteger result = new AtomicInteger(-1);
+        assertTrue(FileTree.walk(dir, file -> {
+            //先让辅助线程都启动并取过任务
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            CountDownLatch all = new CountDownLatch(3);
+            CountDownLatch finished = new CountDownLatch(3);
+            for (int i = 0; i < 3; i++) {
+                ThreadManager.executeOnIoPool(() -> {
+                    all.countDown();
+                    try {
+                        if (all.await(2, TimeUnit.SECONDS)) finished.countDown();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            try {
+                result.set(finished.await(5, TimeUnit.SECONDS) ? 1 : 0);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, null));
+        assertEquals(1, result.get());
+    }
+
+    private static int write(File file, int size) throws IOException {
+        assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) data[i] = (byte) (i * 31 + size);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(data);
+        }
+        return size;
+    }
+}
@@ -0,0 +1,131 @@
+package com.hsj.common.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:FileUtilsTest
+ * @Desc:FileUtils readFully/writeFully(堆缓冲经直接内存分块中转)、区间读取与分块读取，以及残留临时文件清理
+ */
+public class FileUtilsTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("file_utils", "");
+        assertTrue(dir.delete() && dir.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        FileTree.delete(dir);
+    }
+
+    @Test
+    public void writeFullyReadFully_heapAndDirect() throws IOException {
+        //大于一个中转块，且不是块大小的整数倍
+        byte[] data = random(BufferPool.IO_BUFFER_SIZE * 3 + 123, 1);
+        File file = new File(dir, "full.bin");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            FileChannel fc = raf.getChannel();
+            ByteBuffer heap = ByteBuffer.wrap(data, 10, data.length - 10);
+            assertEquals(data.length - 10, FileUtils.writeFully(fc, heap, 100));
+            assertFalse(heap.hasRemaining());
+            ByteBuffer direct = ByteBuffer.allocateDirect(10);
+            direct.put(data, 0, 10).flip();
+            assertEquals(10, FileUtils.writeFully(fc, direct, 90));
+            assertEquals(data.length + 90, fc.size());
+
+            ByteBuffer back = ByteBuffer.allocate(data.length);
+            assertEquals(data.length, FileUtils.readFully(fc, back, 90));
+            assertArrayEquals(data, back.array());
+
+            //读到文件末尾提前结束
+            ByteBuffer tail = ByteBuffer.allocateDirect(1000);
+            assertEquals(400, FileUtils.readFully(fc, tail, fc.size() - 400));
+            assertEquals(400, tail.position());
+            ByteBuffer heapTail = ByteBuffer.allocate(BufferPool.IO_BUFFER_SIZE * 2);
+            assertEquals(500, FileUtils.readFully(fc, heapTail, fc.size() - 500));
+            assertEquals(0, FileUtils.readFully(fc, ByteBuffer.allocate(8), fc.size()));
+        }
+    }
+
+    @Test
+    public void readRange_clampsAtEnd() {
+        byte[] data = random(10_000, 2);
+        File file = new File(dir, "range.bin");
+        assertTrue(FileUtils.saveFile(file, data));
+        assertArrayEquals(slice(data, 100, 50), FileUtils.read(file, 100, 50));
+        assertArrayEquals(slice(data, 9_990, 10), FileUtils.read(file, 9_990, 100));
+        assertEquals(0, FileUtils.read(file, 20_000, 10).length);
+        assertNull(FileUtils.read(file, -1, 10));
+        assertNull(FileUtils.read(new File(dir, "missing"), 0, 10));
+
+        ByteBuffer dst = ByteBuffer.allocate(30);
+        dst.position(5);
+        assertEquals(25, FileUtils.read(file, 1000, dst));
+        assertArrayEquals(slice(data, 1000, 25), slice(dst.array(), 5, 25));
+    }
+
+    @Test
+    public void readChunks_coversFileInOrder() {
+        byte[] data = random(BufferPool.IO_BUFFER_SIZE * 2 + 7, 3);
+        File file = new File(dir, "chunks.bin");
+        assertTrue(FileUtils.saveFile(file, data));
+        final byte[] back = new byte[data.length];
+        final long[] next = {0};
+        assertEquals(data.length, FileUtils.read(file, (chunk, position) -> {
+            assertEquals(next[0], position);
+            int count = chunk.remaining();
+            chunk.get(back, (int) position, count);
+            next[0] += count;
+            return true;
+        }));
+        assertArrayEquals(data, back);
+        //回调返回false停止
+        assertEquals(BufferPool.IO_BUFFER_SIZE, FileUtils.read(file, (chunk, position) -> false));
+    }
+
+    @Test
+    public void saveFile_sweepsTempsOfDeadProcesses() throws IOException {
+        File dead = new File(dir, ".a.bin.99999999_3.tmp");
+        File alive = new File(dir, ".a.bin.1_1.tmp");
+        File other = new File(dir, ".notes.tmp");
+        File plain = new File(dir, "b.12_1.tmp");
+        for (File file : new File[]{dead, alive, other, plain}) assertTrue(file.createNewFile());
+
+        //每个目录第一次写入时清理，只删除进程已不存在的临时文件
+        assertTrue(FileUtils.saveFile(new File(dir, "a.bin"), new byte[]{1}));
+        assertFalse(dead.exists());
+        assertTrue(alive.exists());
+        assertTrue(other.exists());
+        assertTrue(plain.exists());
+        assertEquals(4, dir.list().length);
+        assertArrayEquals(new byte[]{1}, FileUtils.read(new File(dir, "a.bin"), 0, 10));
+    }
+
+    private static byte[] random(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private static byte[] slice(byte[] data, int offset, int length) {
+        byte[] result = new byte[length];
+        System.arraycopy(data, offset, result, 0, length);
+        return result;
+    }
+}
@@ -0,0 +1,168 @@
+package com.hsj.common.utils;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:Iso8601Test
+ * @Desc:Iso8601 与 java.time 随机往返对比、各种写法与非法输入，以及与 SimpleDateFormat 的耗时对比(手动运行)
+ */
+public class Iso8601Test {
+
+    private static final String SAMPLE = "2023-11-14T22:13:20.123+08:00";
+
+    @Test
+    public void roundTrip_matchesJavaTime() {
+        Random random = new Random(47);
+        StringBuilder out = new StringBuilder(40);
+        for (int i = 0; i < 200_000; i++) {
+            //0001~9999
+            long millis = -62135596800000L + (long) (random.nextDouble() * 315537897600000L);
+            int offsetMinutes = (random.nextInt(37) - 18) * 30 + (random.nextInt(4) == 0 ? 45 : 0);
+            out.setLength(0);
+            String text = Iso8601.format(out, millis, offsetMinutes).toString();
+            OffsetDateTime expected = Instant.ofEpochMilli(millis).atOffset(ZoneOffset.ofTotalSeconds(offsetMinutes * 60));
+            assertEquals(text, expected.toInstant().toEpochMilli(), OffsetDateTime.parse(text).toInstant().toEpochMilli());
+            assertEquals(text, expected.toLocalDateTime().toString().substring(0, 16), text.substring(0, 16));
+            assertEquals(text, millis, Iso8601.parseMillis(text));
+            byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(text, millis, Iso8601.parseMillis(bytes, 0, bytes.length));
+        }
+    }
+
+    @Test
+    public void parse_acceptedForms() {
+        long expected = OffsetDateTime.parse("2024-01-02T03:04:05.5+08:00").toInstant().toEpochMilli();
+        assertEquals(expected, Iso8601.parseMillis("2024-01-02T03:04:05.5+08:00"));
+        assertEquals(expected, Iso8601.parseMillis("2024-01-02 03:04:05,500+0800"));
+        assertEquals(expected, Iso8601.parseMillis("2024-01-02t03:04:05.500000000+08"));
+        assertEquals(expected - 5500, Iso8601.parseMillis("2024-01-01T19:04Z"));
+        assertEquals(expected, Iso8601.parseMillis("x2024-01-02T03:04:05.5+08:00y", 1, 28));
+        //闰秒按59秒
+        assertEquals(Iso8601.parseMillis("2016-12-31T23:59:59Z"), Iso8601.parseMillis("2016-12-31T23:59:60Z"));
+        //超过9位的小数截断
+        assertEquals(123456789L, Iso8601.parseNanos("1970-01-01T00:00:00.1234567891Z"));
+        assertEquals(-1L, Iso8601.parseNanos("1969-12-31T23:59:59.999999999Z"));
+        assertEquals("2262-04-11T23:47:16.854775807Z",
+                Iso8601.formatNanos(new StringBuilder(), Long.MAX_VALUE).toString());
+        assertEquals(Long.MAX_VALUE, Iso8601.parseNanos("2262-04-11T23:47:16.854775807Z"));
+        assertEquals(Iso8601.INVALID, Iso8601.parseNanos("2262-04-11T23:47:16.854775808Z"));
+        assertEquals(Long.MIN_VALUE + 1, Iso8601.parseNanos("1677-09-21T00:12:43.145224193Z"));
+        assertEquals(Iso8601.INVALID, Iso8601.parseNanos("1677-09-21T00:12:43.145224192Z"));
+        assertEquals(Iso8601.INVALID, Iso8601.parseNanos("1677-09-21T00:12:42Z"));
+    }
+
+    @Test
+    public void parse_withoutOffsetUsesDefaultZone() {
+        TimeZone original = TimeZone.getDefault();
+        try {
+            for (String id : new String[]{"Asia/Shanghai", "America/New_York"}) {
+                TimeZone.setDefault(TimeZone.getTimeZone(id));
+                DateFormatter.onTimeZoneChanged();
+                SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.CHINA);
+                for (String text : new String[]{"2026-07-01T12:30:00", "2026-01-15T00:00:00"}) {
+                    assertEquals(id + " " + text, format.parse(text, new ParsePosition(0)).getTime(), Iso8601.parseMillis(text));
+                }
+                assertEquals(Iso8601.parseMillis("2026-07-01T00:00:00"), Iso8601.parseMillis("2026-07-01"));
+            }
+            //夏令时缺口
+            assertEquals(Iso8601.INVALID, Iso8601.parseMillis("2026-03-08T02:30:00"));
+        } finally {
+            TimeZone.setDefault(original);
+            DateFormatter.onTimeZoneChanged();
+        }
+    }
+
+    @Test
+    public void parse_rejectsMalformed() {
+        String[] invalid = {"", "2024-01-0", "2024/01/02", "2024-13-01", "2024-02-30", "2023-02-29",
+                "2024-01-02T", "2024-01-02T24:00", "2024-01-02T03:60", "2024-01-02T03:04:61",
+                "2024-01-02T03:04:05.", "2024-01-02T03:04:05X", "2024-01-02T03:04:05+19:00",
+                "2024-01-02T03:04:05+08:6", "2024-01-02T03:04:05Z ", "2024-01-02X03:04", "２０２４-01-02"};
+        for (String text : invalid) {
+            assertEquals(text, Iso8601.INVALID, Iso8601.parseMillis(text));
+        }
+        assertEquals(Iso8601.INVALID, Iso8601.parseMillis(SAMPLE, -1, 10));
+        //闰年
+        assertNotEquals(Iso8601.INVALID, Iso8601.parseMillis("2024-02-29"));
+        assertNotEquals(Iso8601.INVALID, Iso8601.parseMillis("2000-02-29"));
+        assertEquals(Iso8601.INVALID, Iso8601.parseMillis("1900-02-29"));
+    }
+
+    @Test
+    public void format_offsets() {
+        long millis = OffsetDateTime.parse(SAMPLE).toInstant().toEpochMilli();
+        assertEquals("2023-11-14T14:13:20.123Z", Iso8601.format(millis));
+        assertEquals(SAMPLE, Iso8601.format(new StringBuilder(), millis, 480).toString());
+        assertEquals("2023-11-14T10:43:20.123-03:30", Iso8601.format(new StringBuilder(), millis, -210).toString());
+        assertEquals("1969-12-31T23:59:59.999Z", Iso8601.format(-1));
+    }
+
+    /**
+     * 与 SimpleDateFormat(每次新建/复用)、DateTimeFormatter 的解析和格式化耗时对比，手动运行
+     */
+    @Ignore("benchmark")
+    @Test
+    public void benchmark_againstSimpleDateFormat() {
+        final int count = 300_000;
+        final byte[] bytes = SAMPLE.getBytes(StandardCharsets.US_ASCII);
+        final SimpleDateFormat reused = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", Locale.US);
+        final long millis = Iso8601.parseMillis(SAMPLE);
+        final StringBuilder out = new StringBuilder(32);
+        long sink = 0;
+        long[] times = new long[6];
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < count / 10; i++) {
+                sink += new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", Locale.US)
+                        .parse(SAMPLE, new ParsePosition(0)).getTime();
+            }
+            times[0] = (System.nanoTime() - start) * 10;
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++) sink += reused.parse(SAMPLE, new ParsePosition(0)).getTime();
+            times[1] = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                sink += OffsetDateTime.parse(SAMPLE, DateTimeFormatter.ISO_OFFSET_DATE_TIME).toInstant().toEpochMilli();
+            }
+            times[2] = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++) sink += Iso8601.parseMillis(SAMPLE);
+            times[3] = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++) sink += Iso8601.parseMillis(bytes, 0, bytes.length);
+            times[4] = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                out.setLength(0);
+                sink += Iso8601.format(out, millis + i, 480).length();
+            }
+            times[5] = System.nanoTime() - start;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) sink += reused.format(new Date(millis + i)).length();
+        long simpleFormat = System.nanoTime() - start;
+        assertEquals(millis, Iso8601.parseMillis(bytes, 0, bytes.length));
+        //耗时只放在消息里，sink 防止循环被优化掉
+        assertTrue("Iso8601 parse: new SimpleDateFormat " + times[0] / count + "ns, reused SimpleDateFormat "
+                + times[1] / count + "ns, DateTimeFormatter " + times[2] / count + "ns, CharSequence "
+                + times[3] / count + "ns, byte[] " + times[4] / count + "ns; format: SimpleDateFormat "
+                + simpleFormat / count + "ns, Iso8601 " + times[5] / count + "ns", sink != 0);
+    }
+}
@@ -0,0 +1,133 @@
+package com.hsj.common.utils;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:LogEncoderTest
+ * @Desc:LogEncoder logfmt 引号与转义、JSON 转义、二进制格式逐字段解析
+ */
+public class LogEncoderTest {
+
+    @Test
+    public void logfmt_plainAndTypes() {
+        LogEvent event = LogEvent.obtain('i', "Feed").msg("bind")
+                .kv("latency", 12).kv("ratio", 0.5).kv("hit", true).kv("id", (Object) "a1");
+        assertEquals("msg=bind latency=12 ratio=0.5 hit=true id=a1", encode(LogEncoder.LOGFMT, event));
+        event.recycle();
+        event = LogEvent.obtain('i', "Feed").kv("only", 1);
+        assertEquals("only=1", encode(LogEncoder.LOGFMT, event));
+        event.recycle();
+    }
+
+    @Test
+    public void logfmt_quotesAndEscapes() {
+        LogEvent event = LogEvent.obtain('i', "Feed").msg("a b")
+                .kv("eq", (Object) "k=v").kv("quote", (Object) "say \"hi\"").kv("cr", (Object) "1\r\n2")
+                .kv("tab", (Object) "\t").kv("ctl", (Object) "\u0001").kv("slash", (Object) "c:\\d")
+                .kv("empty", (Object) "").kv("null", null);
+        assertEquals("msg=\"a b\" eq=\"k=v\" quote=\"say \\\"hi\\\"\" cr=\"1\\r\\n2\" tab=\"\\t\" ctl=\"\\u0001\""
+                + " slash=c:\\d empty=\"\" null=null", encode(LogEncoder.LOGFMT, event));
+        event.recycle();
+
+        //键不能加引号，分隔符替换为 '_'
+        event = LogEvent.obtain('i', "Feed").kv("a b=c\"", 1).kv("", 2);
+        assertEquals("a_b_c_=1 _=2", encode(LogEncoder.LOGFMT, event));
+        event.recycle();
+    }
+
+    @Test
+    public void logfmt_everyValueSplitsBack() {
+        String[] values = {"x y", "=", "\"", "\r", "\n", " ", "a\u3000b", "\\\"", "end\\"};
+        for (String value : values) {
+            LogEvent event = LogEvent.obtain('i', "T").kv("k", (Object) value).kv("next", 1);
+            String text = encode(LogEncoder.LOGFMT, event);
+            event.recycle();
+            //只有一个未被引号包含的空格分隔两个字段
+            assertEquals(text, 1, unquotedSpaces(text));
+            assertFalse(text, text.indexOf('\r') >= 0 || text.indexOf('\n') >= 0);
+            assertTrue(text, text.endsWith(" next=1"));
+        }
+    }
+
+    @Test
+    public void json_escapes() {
+        LogEvent event = LogEvent.obtain('e', "T\"g").msg("l1\nl2")
+                .kv("n", -3).kv("nan", Double.NaN).kv("b", false).kv("s", (Object) "\u0002\\").kv("o", null);
+        String text = encode(LogEncoder.JSON, event);
+        assertEquals("{\"ts\":" + event.timeMillis() + ",\"level\":\"e\",\"tag\":\"T\\\"g\",\"msg\":\"l1\\nl2\""
+                + ",\"n\":-3,\"nan\":null,\"b\":false,\"s\":\"\\u0002\\\\\",\"o\":null}", text);
+        event.recycle();
+    }
+
+    @Test
+    public void binary_layout() {
+        LogEvent event = LogEvent.obtain('w', "Tag").msg(null)
+                .kv("l", 7L).kv("d", 2.5).kv("b", true).kv("s", (Object) "中😀").kv("n", null);
+        ByteBuffer out = ByteBuffer.allocate(256);
+        out.put((byte) 9);
+        LogEncoder.BINARY.encode(event, out);
+        int end = out.position();
+        out.flip();
+        assertEquals(9, out.get());
+        assertEquals(end - 5, out.getInt());
+        assertEquals(event.timeMillis(), out.getLong());
+        assertEquals('w', out.get());
+        assertEquals("Tag", str(out));
+        assertNull(str(out));
+        assertEquals(5, out.getShort());
+        assertEquals("l", str(out));
+        assertEquals(LogEvent.TYPE_LONG, out.get());
+        assertEquals(7L, out.getLong());
+        assertEquals("d", str(out));
+        assertEquals(LogEvent.TYPE_DOUBLE, out.get());
+        assertEquals(2.5, out.getDouble(), 0);
+        assertEquals("b", str(out));
+        assertEquals(LogEvent.TYPE_BOOLEAN, out.get());
+        assertEquals(1, out.get());
+        assertEquals("s", str(out));
+        assertEquals(LogEvent.TYPE_STRING, out.get());
+        assertEquals("中😀", str(out));
+        assertEquals("n", str(out));
+        assertEquals(LogEvent.TYPE_STRING, out.get());
+        assertNull(str(out));
+        assertEquals(end, out.position());
+        event.recycle();
+    }
+
+    private static String encode(LogEncoder<StringBuilder> encoder, LogEvent event) {
+        StringBuilder out = new StringBuilder();
+        encoder.encode(event, out);
+        return out.toString();
+    }
+
+    private static String str(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int unquotedSpaces(String text) {
+        int count = 0;
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted && c == '\\') {
+                i++;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ' ' && !quoted) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
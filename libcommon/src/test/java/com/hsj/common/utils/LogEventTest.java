@@ -0,0 +1,98 @@
+package com.hsj.common.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:LogEventTest
+ * @Desc:LogEvent 按线程复用、嵌套取用、未log()的事件被接替，以及字段扩容与回收
+ */
+public class LogEventTest {
+
+    @Test
+    public void obtain_reusesAfterRecycle() {
+        LogEvent event = LogEvent.obtain('i', "A");
+        event.kv("k", 1).msg("m");
+        event.recycle();
+        LogEvent again = LogEvent.obtain('w', "B");
+        assertSame(event, again);
+        assertEquals(0, again.size());
+        assertNull(again.message());
+        assertEquals("B", again.tag());
+        assertEquals('w', again.level());
+        again.recycle();
+    }
+
+    @Test
+    public void obtain_nestedGetsFreshEvent() {
+        LogEvent outer = LogEvent.obtain('i', "outer");
+        outer.kv("a", 1);
+        LogEvent inner = LogEvent.obtain('d', "inner");
+        assertNotSame(outer, inner);
+        inner.kv("b", 2);
+        inner.recycle();
+        //嵌套的事件不影响外层已添加的字段
+        assertEquals(1, outer.size());
+        assertEquals("a", outer.key(0));
+        assertEquals("outer", outer.tag());
+        outer.recycle();
+    }
+
+    @Test
+    public void obtain_abandonedEventDoesNotDisablePool() {
+        LogEvent abandoned = LogEvent.obtain('i', "A");
+        abandoned.kv("k", 1);
+        //未log()直接丢弃
+        LogEvent next = LogEvent.obtain('i', "A");
+        assertNotSame(abandoned, next);
+        next.recycle();
+        //之后仍然复用同一个事件，不再每次新建
+        LogEvent reused = LogEvent.obtain('i', "A");
+        assertSame(next, reused);
+        reused.recycle();
+        assertSame(next, LogEvent.obtain('i', "A"));
+        next.recycle();
+    }
+
+    @Test
+    public void obtain_perThread() throws InterruptedException {
+        LogEvent main = LogEvent.obtain('i', "A");
+        main.recycle();
+        final LogEvent[] other = new LogEvent[1];
+        Thread thread = new Thread(() -> {
+            other[0] = LogEvent.obtain('i', "A");
+            other[0].recycle();
+        });
+        thread.start();
+        thread.join();
+        assertNotSame(main, other[0]);
+    }
+
+    @Test
+    public void kv_growsAndKeepsTypes() {
+        LogEvent event = LogEvent.obtain('i', "A");
+        for (int i = 0; i < 20; i++) event.kv("l" + i, (long) i);
+        event.kv("d", 1.5).kv("f", 0.25f).kv("b", true).kv("s", (Object) "x").kv("n", (Object) null);
+        assertEquals(25, event.size());
+        assertEquals(19, event.longValue(19));
+        assertEquals(LogEvent.TYPE_DOUBLE, event.type(20));
+        assertEquals(1.5, event.doubleValue(20), 0);
+        assertEquals(0.25, event.doubleValue(21), 0);
+        assertTrue(event.booleanValue(22));
+        assertEquals("x", event.objectValue(23));
+        assertNull(event.objectValue(24));
+        event.recycle();
+        assertEquals(0, event.size());
+    }
+
+    @Test
+    public void disabled_ignoresEverything() {
+        LogEvent.DISABLED.tag("t").msg("m").kv("k", 1).kv("o", new Object()).log();
+        assertEquals(0, LogEvent.DISABLED.size());
+        assertNull(LogEvent.DISABLED.message());
+        assertNull(LogEvent.DISABLED.tag());
+    }
+}
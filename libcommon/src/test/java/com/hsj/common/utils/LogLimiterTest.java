@@ -0,0 +1,107 @@
+package com.hsj.common.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:LogLimiterTest
+ * @Desc:LogLimiter GCRA 突发与匀速放行、丢弃汇总的间隔与清零，以及多线程采样率
+ */
+public class LogLimiterTest {
+
+    private static final String TAG = "LogLimiterTest";
+    private static final long MS = 1_000_000L;
+
+    @After
+    public void tearDown() {
+        LogLimiter.clear(TAG);
+        LogLimiter.setSummaryInterval(5000);
+    }
+
+    @Test
+    public void gcra_burstThenSteadyRate() {
+        //每秒10条，即每100ms一条，允许突发3条
+        LogLimiter.setRateLimit(TAG, 'i', 10, 3);
+        long now = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(LogLimiter.ALLOW, LogLimiter.acquire(TAG, 'i', now));
+        }
+        assertEquals(LogLimiter.DENY, LogLimiter.acquire(TAG, 'i', now));
+        assertEquals(LogLimiter.DENY, LogLimiter.acquire(TAG, 'i', now + 50 * MS));
+        //每过100ms恢复一条
+        assertNotEquals(LogLimiter.DENY, LogLimiter.acquire(TAG, 'i', now + 100 * MS));
+        assertEquals(LogLimiter.DENY, LogLimiter.acquire(TAG, 'i', now + 100 * MS));
+        //空闲足够久后突发额度恢复，但不超过3条
+        long later = now + 10_000 * MS;
+        int allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (LogLimiter.acquire(TAG, 'i', later) != LogLimiter.DENY) allowed++;
+        }
+        assertEquals(3, allowed);
+        //其它等级不受影响
+        assertEquals(LogLimiter.ALLOW, LogLimiter.acquire(TAG, 'e', later));
+    }
+
+    @Test
+    public void suppressed_summarizedOncePerInterval() {
+        LogLimiter.setSummaryInterval(1000);
+        LogLimiter.setRateLimit(TAG, 'w', 10, 1);
+        long now = System.nanoTime();
+        assertEquals(LogLimiter.ALLOW, LogLimiter.acquire(TAG, 'w', now));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(LogLimiter.DENY, LogLimiter.acquire(TAG, 'w', now));
+        }
+        assertTrue(LogLimiter.hasSuppressed(TAG, 'w'));
+        //未到汇总间隔：放行但不带汇总，计数保留
+        assertEquals(LogLimiter.ALLOW, LogLimiter.acquire(TAG, 'w', now + 200 * MS));
+        assertTrue(LogLimiter.hasSuppressed(TAG, 'w'));
+
+        //到达间隔后，下一条放行的日志带出丢弃数量，之后清零
+        assertEquals(LogLimiter.DENY, LogLimiter.acquire(TAG, 'w', now + 200 * MS));
+        assertEquals(6, LogLimiter.acquire(TAG, 'w', now + 2000 * MS));
+        assertFalse(LogLimiter.hasSuppressed(TAG, 'w'));
+        assertEquals(LogLimiter.ALLOW, LogLimiter.acquire(TAG, 'w', now + 3000 * MS));
+
+        //修改限流不丢失未汇总的计数
+        assertEquals(LogLimiter.DENY, LogLimiter.acquire(TAG, 'w', now + 3000 * MS));
+        LogLimiter.setRateLimit(TAG, 'w', 100, 1);
+        assertEquals(1, LogLimiter.drainSuppressed(TAG, 'w'));
+        assertEquals(0, LogLimiter.drainSuppressed(TAG, 'w'));
+    }
+
+    @Test
+    public void sampleRate_perThreadRandomKeepsRatio() throws InterruptedException {
+        LogLimiter.setSampleRate(TAG, 'd', 0f);
+        assertEquals(LogLimiter.DENY, LogLimiter.acquire(TAG, 'd'));
+        LogLimiter.setSampleRate(TAG, 'd', 1f);
+        assertEquals(LogLimiter.ALLOW, LogLimiter.acquire(TAG, 'd'));
+
+        LogLimiter.setSummaryInterval(Long.MAX_VALUE / 1_000_000L);
+        LogLimiter.setSampleRate(TAG, 'd', 0.25f);
+        LogLimiter.drainSuppressed(TAG, 'd');
+        final int perThread = 20_000;
+        final AtomicLong allowed = new AtomicLong();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                int count = 0;
+                for (int i = 0; i < perThread; i++) {
+                    if (LogLimiter.acquire(TAG, 'd') != LogLimiter.DENY) count++;
+                }
+                allowed.addAndGet(count);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        long total = perThread * threads.length;
+        double ratio = allowed.get() / (double) total;
+        assertEquals(ratio + "", 0.25, ratio, 0.02);
+        assertEquals(total - allowed.get(), LogLimiter.drainSuppressed(TAG, 'd'));
+    }
+}
@@ -0,0 +1,138 @@
+package com.hsj.common.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:MappedFileTest
+ * @Desc:MappedFile 按位置读写跨窗口、unmap 只接受本实例的映射、有映射时拒绝缩小文件，以及视图长度溢出
+ */
+public class MappedFileTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("mapped_file", "");
+        assertTrue(dir.delete() && dir.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        FileTree.delete(dir);
+    }
+
+    @Test
+    public void positionAccess_acrossWindows() throws IOException {
+        File file = new File(dir, "window.bin");
+        try (MappedFile mappedFile = MappedFile.open(file, true, 64 * 1024, 4096)) {
+            for (long position = 0; position + 8 <= mappedFile.length(); position += 4092) {
+                mappedFile.putLong(position, position * 31);
+            }
+            byte[] data = new byte[10_000];
+            for (int i = 0; i < data.length; i++) data[i] = (byte) i;
+            mappedFile.put(20_000, data, 0, data.length);
+            mappedFile.force();
+        }
+        try (MappedFile mappedFile = MappedFile.openReadOnly(file)) {
+            assertEquals(64 * 1024, mappedFile.length());
+            assertEquals(4092 * 31, mappedFile.getLong(4092));
+            byte[] back = new byte[10_000];
+            assertEquals(10_000, mappedFile.get(20_000, back, 0, back.length));
+            assertEquals((byte) 9_999, back[9_999]);
+            //到文件末尾时读取变短
+            assertEquals(36, mappedFile.get(64 * 1024 - 36, back, 0, back.length));
+        }
+    }
+
+    @Test
+    public void unmap_onlyOwnLiveMappings() throws IOException {
+        File file = new File(dir, "unmap.bin");
+        try (MappedFile mappedFile = MappedFile.openReadWrite(file, 8192)) {
+            MappedByteBuffer buffer = mappedFile.map(0, 4096);
+            buffer.putInt(0, 42);
+            IntBuffer ints = mappedFile.asIntBuffer(4096, 16);
+            ints.put(0, 7);
+
+            assertFalse(mappedFile.unmap(ByteBuffer.allocateDirect(16)));
+            //内容相同但不是同一个对象
+            assertFalse(mappedFile.unmap(buffer.duplicate()));
+            assertTrue(mappedFile.unmap(buffer));
+            assertFalse(mappedFile.unmap(buffer));
+            assertTrue(mappedFile.unmap(ints));
+            assertFalse(mappedFile.unmap(ints));
+            assertEquals(42, mappedFile.getInt(0));
+            assertEquals(7, mappedFile.getInt(4096));
+
+            try (MappedFile other = MappedFile.openReadOnly(file)) {
+                MappedByteBuffer foreign = other.map(0, 16);
+                assertFalse(mappedFile.unmap(foreign));
+                assertEquals(42, foreign.getInt(0));
+            }
+        }
+    }
+
+    @Test
+    public void setLength_rejectsShrinkUnderLiveMapping() throws IOException {
+        File file = new File(dir, "shrink.bin");
+        try (MappedFile mappedFile = MappedFile.openReadWrite(file, 16 * 1024)) {
+            LongBuffer longs = mappedFile.asLongBuffer(8192, 512);
+            MappedByteBuffer head = mappedFile.map(0, 4096);
+            try {
+                mappedFile.setLength(10_000);
+                fail("shrunk under a live mapping");
+            } catch (IllegalStateException expected) {
+                assertEquals(16 * 1024, file.length());
+            }
+            //只有不超出新长度的映射时可以缩小；按位置读写的窗口自动解除
+            mappedFile.getLong(12_000);
+            assertTrue(mappedFile.unmap(longs));
+            mappedFile.setLength(4096);
+            assertEquals(4096, file.length());
+            assertEquals(4096, mappedFile.length());
+            head.putInt(0, 1);
+            mappedFile.setLength(32 * 1024);
+            assertEquals(32 * 1024, mappedFile.length());
+        }
+    }
+
+    @Test
+    public void typedViews_rejectOverflowingCount() throws IOException {
+        File file = new File(dir, "views.bin");
+        try (MappedFile mappedFile = MappedFile.openReadWrite(file, 4096)) {
+            for (int count : new int[]{-1, Integer.MAX_VALUE / 4 + 1, 0x40000001}) {
+                try {
+                    mappedFile.asIntBuffer(0, count);
+                    fail("count " + count);
+                } catch (IllegalArgumentException expected) {
+                    //乘以4溢出后不会映射到错误的长度
+                }
+            }
+            try {
+                mappedFile.asLongBuffer(0, Integer.MAX_VALUE / 8 + 1);
+                fail("long count overflow");
+            } catch (IllegalArgumentException expected) {
+                //expected
+            }
+            try {
+                mappedFile.asIntBuffer(0, 1025);
+                fail("beyond length");
+            } catch (IndexOutOfBoundsException expected) {
+                //expected
+            }
+            assertEquals(1024, mappedFile.asIntBuffer(0, 1024).capacity());
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.hsj.common.utils;
+
+import android.content.SharedPreferences;
+
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:MemoryPreferences
+ * @Desc:本地单元测试用的内存 SharedPreferences，提交后同步回调监听
+ */
+final class MemoryPreferences implements SharedPreferences {
+
+    final ConcurrentHashMap<String, Object> map = new ConcurrentHashMap<>();
+
+    /**
+     * getString 读出值之后、返回之前执行一次，用于构造读写交错
+     */
+    volatile Runnable afterRead;
+
+    private final CopyOnWriteArrayList<OnSharedPreferenceChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public Map<String, ?> getAll() {
+        return new HashMap<>(map);
+    }
+
+    @Nullable
+    @Override
+    public String getString(String key, @Nullable String defValue) {
+        Object value = map.get(key);
+        Runnable hook = afterRead;
+        if (hook != null) {
+            afterRead = null;
+            hook.run();
+        }
+        return value == null ? defValue : (String) value;
+    }
+
+    @Nullable
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<String> getStringSet(String key, @Nullable Set<String> defValues) {
+        Object value = map.get(key);
+        return value == null ? defValues : (Set<String>) value;
+    }
+
+    @Override
+    public int getInt(String key, int defValue) {
+        Object value = map.get(key);
+        return value == null ? defValue : (Integer) value;
+    }
+
+    @Override
+    public long getLong(String key, long defValue) {
+        Object value = map.get(key);
+        return value == null ? defValue : (Long) value;
+    }
+
+    @Override
+    public float getFloat(String key, float defValue) {
+        Object value = map.get(key);
+        return value == null ? defValue : (Float) value;
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean defValue) {
+        Object value = map.get(key);
+        return value == null ? defValue : (Boolean) value;
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public Editor edit() {
+        return new MemoryEditor();
+    }
+
+    @Override
+    public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    @Override
+    public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    private final class MemoryEditor implements Editor {
+
+        private final Map<String, Object> changes = new LinkedHashMap<>();
+        private boolean clear;
+
+        @Override
+        public Editor putString(String key, @Nullable String value) {
+            changes.put(key, value == null ? this : value);
+            return this;
+        }
+
+        @Override
+        public Editor putStringSet(String key, @Nullable Set<String> values) {
+            changes.put(key, values == null ? this : values);
+            return this;
+        }
+
+        @Override
+        public Editor putInt(String key, int value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putLong(String key, long value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putFloat(String key, float value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putBoolean(String key, boolean value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor remove(String key) {
+            changes.put(key, this);
+            return this;
+        }
+
+        @Override
+        public Editor clear() {
+            clear = true;
+            return this;
+        }
+
+        @Override
+        public boolean commit() {
+            synchronized (MemoryPreferences.this) {
+                if (clear) map.clear();
+                for (Map.Entry<String, Object> entry : changes.entrySet()) {
+                    if (entry.getValue() == this) {
+                        map.remove(entry.getKey());
+                    } else {
+                        map.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            if (clear) notifyListeners(null);
+            for (String key : changes.keySet()) {
+                notifyListeners(key);
+            }
+            return true;
+        }
+
+        @Override
+        public void apply() {
+            commit();
+        }
+
+        private void notifyListeners(String key) {
+            for (OnSharedPreferenceChangeListener listener : listeners) {
+                listener.onSharedPreferenceChanged(MemoryPreferences.this, key);
+            }
+        }
+    }
+}
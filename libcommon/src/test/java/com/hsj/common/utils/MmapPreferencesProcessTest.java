@@ -0,0 +1,114 @@
+package com.hsj.common.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:MmapPreferencesProcessTest
+ * @Desc:MmapPreferences 多进程模式：两个JVM进程同时写同一文件(其中一个定期压缩替换文件)
+ */
+public class MmapPreferencesProcessTest {
+
+    private static final int WRITES = 400;
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("mmap_process", "");
+        assertTrue(dir.delete() && dir.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        FileTree.delete(dir);
+    }
+
+    @Test
+    public void twoProcesses_writeSameFile() throws Exception {
+        File file = new File(dir, "shared.kv");
+        Process first = fork(file, 0);
+        Process second = fork(file, 1);
+        assertTrue(first.waitFor(60, TimeUnit.SECONDS));
+        assertTrue(second.waitFor(60, TimeUnit.SECONDS));
+        assertEquals(0, first.exitValue());
+        assertEquals(0, second.exitValue());
+
+        MmapPreferences prefs = MmapPreferences.open(file, true);
+        for (int id = 0; id < 2; id++) {
+            for (int i = 0; i < WRITES; i++) {
+                assertEquals("w" + id + "_" + i, i, prefs.getInt("w" + id + "_" + i, -1));
+            }
+        }
+        String shared = prefs.getString("shared", null);
+        assertTrue(shared, ("0:" + (WRITES - 1)).equals(shared) || ("1:" + (WRITES - 1)).equals(shared));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    private Process fork(File file, int id) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+        command.add("-cp");
+        command.add(classPath());
+        command.add(Writer.class.getName());
+        command.add(file.getPath());
+        command.add(String.valueOf(id));
+        return new ProcessBuilder(command).inheritIO().start();
+    }
+
+    /**
+     * 测试进程的classpath，加上测试类、被测类和android桩所在位置(部分测试运行器不写入java.class.path)
+     */
+    private static String classPath() {
+        Set<String> paths = new LinkedHashSet<>();
+        for (String path : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (!path.isEmpty()) paths.add(path);
+        }
+        for (Class<?> clazz : new Class<?>[]{Writer.class, MmapPreferences.class, android.util.Log.class}) {
+            if (clazz.getProtectionDomain().getCodeSource() != null) {
+                paths.add(new File(clazz.getProtectionDomain().getCodeSource().getLocation().getPath()).getPath());
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String path : paths) {
+            if (sb.length() > 0) sb.append(File.pathSeparatorChar);
+            sb.append(path);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 子进程：写入各自的key和共享key，进程0每50次提交压缩一次
+     */
+    public static final class Writer {
+
+        public static void main(String[] args) throws IOException {
+            File file = new File(args[0]);
+            int id = Integer.parseInt(args[1]);
+            MmapPreferences prefs = MmapPreferences.open(file, true);
+            for (int i = 0; i < WRITES; i++) {
+                prefs.edit().putInt("w" + id + "_" + i, i).putString("shared", id + ":" + i).commit();
+                if (id == 0 && i % 50 == 49) prefs.compact();
+            }
+            //本进程能看到另一进程已提交的key
+            prefs.refresh();
+            for (int i = 0; i < WRITES; i++) {
+                if (prefs.getInt("w" + id + "_" + i, -1) != i) System.exit(2);
+            }
+            System.exit(0);
+        }
+    }
+}
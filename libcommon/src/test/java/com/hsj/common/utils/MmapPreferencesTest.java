@@ -0,0 +1,283 @@
+package com.hsj.common.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:MmapPreferencesTest
+ * @Desc:MmapPreferences 日志恢复、压缩、并发读取与多key提交原子可见，以及与XML整文件重写的耗时对比(手动运行)
+ */
+public class MmapPreferencesTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("mmap_prefs", "");
+        assertTrue(dir.delete() && dir.mkdirs());
+        MmapPreferences.setCallbackExecutor(Runnable::run);
+    }
+
+    @After
+    public void tearDown() {
+        FileTree.delete(dir);
+    }
+
+    @Test
+    public void recover_truncatesAtCorruptRecord() throws IOException {
+        File file = new File(dir, "recover.kv");
+        MmapPreferences prefs = MmapPreferences.open(file);
+        prefs.edit().putInt("a", 1).putString("b", "two").commit();
+        int end = header(file, 8);
+        prefs.edit().putLong("c", 3L).commit();
+        assertTrue(header(file, 8) > end);
+
+        //破坏最后一条记录的payload，CRC校验失败后截断到上一次提交
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(end + 8 + 1);
+            raf.write(0x7F);
+        }
+        prefs.load();
+        assertEquals(1, prefs.getInt("a", 0));
+        assertEquals("two", prefs.getString("b", null));
+        assertFalse(prefs.contains("c"));
+        assertEquals(end, header(file, 8));
+
+        //截断后继续追加
+        prefs.edit().putLong("c", 4L).commit();
+        prefs.load();
+        assertEquals(4L, prefs.getLong("c", 0));
+    }
+
+    @Test
+    public void recover_ignoresRecordsBeyondEnd() throws IOException {
+        File file = new File(dir, "torn.kv");
+        MmapPreferences prefs = MmapPreferences.open(file);
+        prefs.edit().putBoolean("flag", true).commit();
+        int end = header(file, 8);
+        prefs.edit().putBoolean("flag", false).putInt("n", 9).commit();
+
+        //模拟提交写完记录但未更新文件头end
+        writeHeader(file, 8, end);
+        prefs.load();
+        assertTrue(prefs.getBoolean("flag", false));
+        assertFalse(prefs.contains("n"));
+    }
+
+    @Test
+    public void clear_replaysAsEmpty() throws IOException {
+        File file = new File(dir, "clear.kv");
+        MmapPreferences prefs = MmapPreferences.open(file);
+        prefs.edit().putInt("a", 1).putInt("b", 2).commit();
+        prefs.edit().clear().putInt("c", 3).commit();
+        prefs.load();
+        assertFalse(prefs.contains("a"));
+        assertFalse(prefs.contains("b"));
+        assertEquals(3, prefs.getInt("c", 0));
+    }
+
+    @Test
+    public void version_upgradesV2AndRejectsOthers() throws IOException {
+        File file = new File(dir, "version.kv");
+        MmapPreferences prefs = MmapPreferences.open(file);
+        prefs.edit().putBytes("b", new byte[]{4, 5}).commit();
+        assertEquals(3, header(file, 4));
+
+        //version 2 的文件头格式相同，打开后只改写版本号
+        File old = new File(dir, "v2.kv");
+        copy(file, old);
+        writeHeader(old, 4, 2);
+        MmapPreferences upgraded = MmapPreferences.open(old);
+        assertArrayEquals(new byte[]{4, 5}, upgraded.getBytes("b", null));
+        assertEquals(3, header(old, 4));
+
+        //更新版本和未发布的 version 1 都拒绝打开，文件保持原样
+        for (int version : new int[]{9, 1}) {
+            File unsupported = new File(dir, "v" + version + ".kv");
+            copy(file, unsupported);
+            writeHeader(unsupported, 4, version);
+            try {
+                MmapPreferences.open(unsupported);
+                fail("version " + version + " opened");
+            } catch (IOException expected) {
+                assertEquals(version, header(unsupported, 4));
+            }
+        }
+    }
+
+    @Test
+    public void compact_keepsValuesAndShrinks() throws IOException {
+        File file = new File(dir, "compact.kv");
+        MmapPreferences prefs = MmapPreferences.open(file);
+        MmapPreferences.MmapEditor editor = prefs.edit();
+        for (int i = 0; i < 200; i++) {
+            editor.putString("k" + (i % 10), "value-" + i);
+            editor.commit();
+        }
+        prefs.edit().putBytes("bytes", new byte[]{1, 2, 3}).commit();
+        int before = header(file, 8);
+        prefs.compact();
+        int after = header(file, 8);
+        assertTrue(after < before);
+        for (int i = 0; i < 10; i++) {
+            assertEquals("value-" + (190 + i), prefs.getString("k" + i, null));
+        }
+        //重新扫描新文件，内容与内存索引一致
+        Map<String, ?> live = new TreeMap<>(prefs.getAll());
+        prefs.load();
+        assertEquals(after, header(file, 8));
+        assertEquals(live.keySet(), new TreeMap<>(prefs.getAll()).keySet());
+        assertArrayEquals(new byte[]{1, 2, 3}, prefs.getBytes("bytes", null));
+    }
+
+    @Test
+    public void readers_neverSeeMissingKey() throws Exception {
+        File file = new File(dir, "race.kv");
+        final MmapPreferences prefs = MmapPreferences.open(file);
+        prefs.edit().putInt("stable", 1).commit();
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicInteger misses = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                if (prefs.getInt("stable", -1) < 0) misses.incrementAndGet();
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 300; i++) {
+            //stable 放在最后，清空与写入之间的窗口尽量大
+            MmapPreferences.MmapEditor editor = prefs.edit();
+            editor.clear();
+            for (int j = 0; j < 50; j++) {
+                editor.putString("x" + j, "y" + i);
+            }
+            editor.putInt("stable", i + 1).apply();
+            if (i % 10 == 0) prefs.compact();
+            if (i % 25 == 0) prefs.load();
+        }
+        running.set(false);
+        reader.join();
+        assertEquals(0, misses.get());
+    }
+
+    @Test
+    public void readers_neverSeeHalfCommit() throws Exception {
+        File file = new File(dir, "atomic.kv");
+        final MmapPreferences prefs = MmapPreferences.open(file);
+        final int keys = 200;
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicInteger torn = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                //第一个key已是新值时，整体替换保证最后一个key不会还是旧值
+                int first = prefs.getInt("k0", 0);
+                int last = prefs.getInt("k" + (keys - 1), 0);
+                if (last < first) torn.incrementAndGet();
+            }
+        });
+        reader.start();
+        for (int i = 1; i <= 1000; i++) {
+            MmapPreferences.MmapEditor editor = prefs.edit();
+            for (int j = 0; j < keys; j++) editor.putInt("k" + j, i);
+            editor.commit();
+        }
+        running.set(false);
+        reader.join();
+        assertEquals(0, torn.get());
+        assertEquals(1000, prefs.getInt("k0", 0));
+    }
+
+    /**
+     * 单key提交耗时：mmap追加 vs SharedPreferencesImpl 方式的整文件XML重写+fsync，手动运行
+     */
+    @Ignore("benchmark")
+    @Test
+    public void benchmark_againstXmlRewrite() throws IOException {
+        final int keys = 100;
+        final int rounds = 300;
+        File file = new File(dir, "bench.kv");
+        MmapPreferences prefs = MmapPreferences.open(file);
+        Map<String, Object> map = new TreeMap<>();
+        MmapPreferences.MmapEditor editor = prefs.edit();
+        for (int i = 0; i < keys; i++) {
+            map.put("key_" + i, "value_" + i);
+            editor.putString("key_" + i, "value_" + i);
+        }
+        editor.commit();
+
+        File xml = new File(dir, "bench.xml");
+        long mmapNanos = 0;
+        long xmlNanos = 0;
+        for (int i = 0; i < rounds; i++) {
+            String key = "key_" + (i % keys);
+            String value = "value_" + i;
+
+            long start = System.nanoTime();
+            prefs.edit().putString(key, value).commit();
+            mmapNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            map.put(key, value);
+            writeXml(xml, map);
+            xmlNanos += System.nanoTime() - start;
+        }
+        assertTrue("mmap " + mmapNanos / rounds / 1000 + "us/op, xml rewrite " + xmlNanos / rounds / 1000
+                + "us/op (" + keys + " keys)", mmapNanos < xmlNanos);
+        assertEquals("value_" + (rounds - 1), prefs.getString("key_" + ((rounds - 1) % keys), null));
+    }
+
+    /**
+     * 与 SharedPreferencesImpl 提交一致：序列化全部键值后整文件写入并 fsync
+     */
+    private static void writeXml(File file, Map<String, Object> map) throws IOException {
+        StringBuilder sb = new StringBuilder(64 * map.size());
+        sb.append("<?xml version='1.0' encoding='utf-8' standalone='yes' ?>\n<map>\n");
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            sb.append("    <string name=\"").append(entry.getKey()).append("\">")
+                    .append(entry.getValue()).append("</string>\n");
+        }
+        sb.append("</map>\n");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(sb.toString().getBytes(Charset.forName("UTF-8")));
+            out.getFD().sync();
+        }
+    }
+
+    private static void copy(File from, File to) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(from, "r");
+             FileOutputStream out = new FileOutputStream(to)) {
+            byte[] bytes = new byte[(int) in.length()];
+            in.readFully(bytes);
+            out.write(bytes);
+        }
+    }
+
+    private static int header(File file, int offset) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(offset);
+            return Integer.reverseBytes(raf.readInt());
+        }
+    }
+
+    private static void writeHeader(File file, int offset, int value) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(offset);
+            raf.writeInt(Integer.reverseBytes(value));
+        }
+    }
+}
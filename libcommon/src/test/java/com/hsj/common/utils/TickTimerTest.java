@@ -0,0 +1,139 @@
+package com.hsj.common.utils;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:TickTimerTest
+ * @Desc:TickTimer 触发点计算、合并唤醒、暂停恢复与取消，用 runPass(now) 驱动时钟
+ */
+public class TickTimerTest {
+
+    private final List<TickTimer> timers = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        for (TickTimer timer : timers) timer.cancel();
+    }
+
+    @Test
+    public void countDown_ticksOnScheduleAndFinishes() {
+        Recorder recorder = new Recorder();
+        TickTimer timer = track(TickTimer.countDown(1000, 300, recorder)).start(0);
+        assertEquals(0, TickTimer.scheduledAt());
+        TickTimer.runPass(0);
+        //消息延迟不累积：触发点固定在 300、600、900
+        TickTimer.runPass(305);
+        assertEquals(600, TickTimer.scheduledAt());
+        TickTimer.runPass(640);
+        TickTimer.runPass(900);
+        assertEquals(1000, TickTimer.scheduledAt());
+        TickTimer.runPass(1000);
+        assertEquals("[1000, 695, 360, 100, finish]", recorder.events.toString());
+        assertFalse(timer.isRunning());
+        assertEquals(0, timer.getRemaining());
+        assertEquals(Long.MAX_VALUE, TickTimer.scheduledAt());
+    }
+
+    @Test
+    public void periodic_skipsMissedTicksAfterSleep() {
+        Recorder recorder = new Recorder();
+        track(TickTimer.periodic(1000, recorder)).start(0);
+        TickTimer.runPass(0);
+        //休眠到 3500 才唤醒：只回调一次，下一次在 4000
+        TickTimer.runPass(3500);
+        assertEquals(4000, TickTimer.scheduledAt());
+        TickTimer.runPass(4000);
+        assertEquals("[0, 3500, 4000]", recorder.events.toString());
+    }
+
+    @Test
+    public void coalesceWindow_firesEarlyOnceAndNotTwice() {
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+        track(TickTimer.periodic(1000, first)).start(0);
+        track(TickTimer.periodic(1000, second)).start(10);
+        TickTimer.runPass(10);
+        first.events.clear();
+        second.events.clear();
+        assertEquals(1000, TickTimer.scheduledAt());
+
+        //1000 唤醒时 1010 到期的定时器一起回调
+        TickTimer.runPass(1000);
+        assertEquals("[1000]", first.events.toString());
+        assertEquals("[990]", second.events.toString());
+        assertEquals(2000, TickTimer.scheduledAt());
+        //原触发点 1010 不再重复回调
+        TickTimer.runPass(1010);
+        assertEquals("[990]", second.events.toString());
+    }
+
+    @Test
+    public void pauseResume_keepsElapsedAndRhythm() {
+        Recorder recorder = new Recorder();
+        TickTimer timer = track(TickTimer.periodic(1000, recorder)).start(0);
+        TickTimer.runPass(0);
+        timer.pause(1500);
+        assertTrue(timer.isPaused());
+        assertEquals(1500, timer.getElapsed(9000));
+        assertEquals(Long.MAX_VALUE, TickTimer.scheduledAt());
+
+        //暂停期间的时间不计入，下一次在已运行 2000 处
+        timer.resume(5000);
+        assertEquals(5500, TickTimer.scheduledAt());
+        assertEquals(1700, timer.getElapsed(5200));
+        TickTimer.runPass(5500);
+        assertEquals("[0, 2000]", recorder.events.toString());
+    }
+
+    @Test
+    public void cancelInCallback_dropsPendingDispatch() {
+        final Recorder second = new Recorder();
+        final TickTimer other = track(TickTimer.periodic(1000, second));
+        Recorder first = new Recorder() {
+            @Override
+            public void onTick(@NonNull TickTimer timer, long millis) {
+                super.onTick(timer, millis);
+                other.cancel();
+            }
+        };
+        track(TickTimer.periodic(1000, first)).start(0);
+        other.start(0);
+        //同一次唤醒中按启动顺序分发，先分发的回调取消了另一个
+        TickTimer.runPass(0);
+        assertEquals("[0]", first.events.toString());
+        assertTrue(second.events.isEmpty());
+        TickTimer.runPass(1000);
+        assertEquals("[0, 1000]", first.events.toString());
+        assertTrue(second.events.isEmpty());
+    }
+
+    private TickTimer track(TickTimer timer) {
+        timers.add(timer);
+        return timer;
+    }
+
+    private static class Recorder implements TickTimer.Listener {
+
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onTick(@NonNull TickTimer timer, long millis) {
+            events.add(String.valueOf(millis));
+        }
+
+        @Override
+        public void onFinish(@NonNull TickTimer timer) {
+            events.add("finish");
+        }
+    }
+}
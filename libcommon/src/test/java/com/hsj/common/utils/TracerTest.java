@@ -0,0 +1,64 @@
+package com.hsj.common.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+/**
+ * @Author:hsj
+ * @Date:2026-10-19
+ * @Class:TracerTest
+ * @Desc:Tracer 导出的线程名只来自缓冲中仍存在的事件，线程退出后不会无限累积
+ */
+public class TracerTest {
+
+    @After
+    public void tearDown() {
+        Tracer.stop();
+        Tracer.clear();
+    }
+
+    @Test
+    public void export_threadNamesFollowBuffer() throws Exception {
+        Tracer.start(16);
+        for (int i = 0; i < 3; i++) {
+            Thread thread = new Thread(() -> {
+                Tracer.begin("work");
+                Tracer.end();
+            }, "tracer-worker-" + i);
+            thread.start();
+            thread.join();
+        }
+        String trace = export();
+        assertTrue(trace, trace.contains("\"tracer-worker-0\""));
+        assertTrue(trace, trace.contains("\"tracer-worker-2\""));
+
+        //缓冲覆盖后，早先线程的名字一并消失
+        for (int i = 0; i < 16; i++) {
+            Tracer.begin("main");
+            Tracer.end();
+        }
+        trace = export();
+        assertFalse(trace, trace.contains("tracer-worker"));
+        assertEquals(1, count(trace, "thread_name"));
+
+        Tracer.clear();
+        assertEquals("{\"traceEvents\":[]}", export());
+    }
+
+    private static String export() throws IOException {
+        StringWriter writer = new StringWriter();
+        Tracer.exportChromeTrace(writer);
+        return writer.toString();
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) count++;
+        return count;
+    }
+}